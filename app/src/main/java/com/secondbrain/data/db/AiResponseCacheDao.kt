@@ -0,0 +1,55 @@
+package com.secondbrain.data.db
+
+import androidx.room.Dao
+import androidx.room.Insert
+import androidx.room.OnConflictStrategy
+import androidx.room.Query
+import androidx.room.Transaction
+import com.secondbrain.data.model.AiResponseCacheEntry
+
+private const val EVICTION_BATCH_SIZE = 20
+
+@Dao
+interface AiResponseCacheDao {
+    @Query("SELECT * FROM ai_response_cache WHERE `key` = :key")
+    suspend fun getEntry(key: String): AiResponseCacheEntry?
+
+    @Query("UPDATE ai_response_cache SET lastAccessedAt = :accessedAt WHERE `key` = :key")
+    suspend fun touch(key: String, accessedAt: Long = System.currentTimeMillis())
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    suspend fun insertEntry(entry: AiResponseCacheEntry)
+
+    @Query("DELETE FROM ai_response_cache WHERE `key` = :key")
+    suspend fun deleteEntry(key: String)
+
+    @Query("DELETE FROM ai_response_cache WHERE createdAt < :createdBefore")
+    suspend fun deleteExpired(createdBefore: Long)
+
+    @Query("SELECT COALESCE(SUM(sizeBytes), 0) FROM ai_response_cache")
+    suspend fun getTotalSize(): Long
+
+    @Query("SELECT `key` FROM ai_response_cache ORDER BY lastAccessedAt ASC LIMIT :limit")
+    suspend fun getLeastRecentlyUsedKeys(limit: Int): List<String>
+
+    @Query("DELETE FROM ai_response_cache WHERE `key` IN (:keys)")
+    suspend fun deleteEntries(keys: List<String>)
+
+    @Query("DELETE FROM ai_response_cache")
+    suspend fun clear()
+
+    /**
+     * Insert [entry], then drop expired entries and the least recently used ones until the
+     * cache fits in [maxBytes]
+     */
+    @Transaction
+    suspend fun putEntry(entry: AiResponseCacheEntry, maxBytes: Long, createdBefore: Long) {
+        insertEntry(entry)
+        deleteExpired(createdBefore)
+        while (getTotalSize() > maxBytes) {
+            val keys = getLeastRecentlyUsedKeys(EVICTION_BATCH_SIZE)
+            if (keys.isEmpty()) break
+            deleteEntries(keys)
+        }
+    }
+}
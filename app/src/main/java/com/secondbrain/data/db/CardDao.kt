@@ -1,18 +1,70 @@
 package com.secondbrain.data.db
 
+import androidx.paging.PagingSource
 import androidx.room.*
 import com.secondbrain.data.model.Card
+import com.secondbrain.data.model.CardListItem
 import com.secondbrain.data.model.CardSearchResult
+import com.secondbrain.data.model.CardSortOrder
+import com.secondbrain.data.model.CardTag
 import kotlinx.coroutines.flow.Flow
 
 @Dao
 interface CardDao {
+    companion object {
+        // Missing thumbnails, plus local ones whose file the backfill has to check
+        const val THUMBNAIL_BACKFILL_CONDITION = "thumbnailUrl IS NULL OR thumbnailUrl = '' " +
+            "OR thumbnailUrl LIKE 'file://%' OR thumbnailUrl LIKE '/%'"
+    }
+
     @Insert(onConflict = OnConflictStrategy.REPLACE)
     suspend fun insertCard(card: Card)
 
     @Query("SELECT * FROM cards ORDER BY createdAt DESC")
     fun getAllCards(): Flow<List<Card>>
 
+    /**
+     * Home feed projection: list fields only, without content or metadata
+     */
+    @Query("SELECT ${CardListItem.COLUMNS} FROM cards ORDER BY createdAt DESC")
+    fun getAllCardListItems(): Flow<List<CardListItem>>
+
+    @Query("SELECT ${CardListItem.COLUMNS} FROM cards WHERE id IN (:ids)")
+    fun getCardListItemsByIds(ids: List<String>): Flow<List<CardListItem>>
+
+    @Query("SELECT ${CardListItem.COLUMNS} FROM cards WHERE id NOT IN (:excludedIds) ORDER BY createdAt DESC")
+    fun pageCardListItemsNewestFirst(excludedIds: List<String>): PagingSource<Int, CardListItem>
+
+    @Query("SELECT ${CardListItem.COLUMNS} FROM cards WHERE id NOT IN (:excludedIds) ORDER BY createdAt ASC")
+    fun pageCardListItemsOldestFirst(excludedIds: List<String>): PagingSource<Int, CardListItem>
+
+    @Query("SELECT ${CardListItem.COLUMNS} FROM cards WHERE id NOT IN (:excludedIds) ORDER BY updatedAt DESC")
+    fun pageCardListItemsRecentlyUpdated(excludedIds: List<String>): PagingSource<Int, CardListItem>
+
+    @Query("SELECT ${CardListItem.COLUMNS} FROM cards WHERE id NOT IN (:excludedIds) ORDER BY title ASC")
+    fun pageCardListItemsByTitleAscending(excludedIds: List<String>): PagingSource<Int, CardListItem>
+
+    @Query("SELECT ${CardListItem.COLUMNS} FROM cards WHERE id NOT IN (:excludedIds) ORDER BY title DESC")
+    fun pageCardListItemsByTitleDescending(excludedIds: List<String>): PagingSource<Int, CardListItem>
+
+    /**
+     * Page through the home feed projection in the given order.
+     * Every order is backed by an index on cards, so pages are read in index order without a sort step.
+     * @param excludedIds Cards to leave out, e.g. pinned cards that are shown separately
+     */
+    fun pageCardListItems(sortOrder: CardSortOrder, excludedIds: List<String>): PagingSource<Int, CardListItem> {
+        return when (sortOrder) {
+            CardSortOrder.CREATED_NEWEST -> pageCardListItemsNewestFirst(excludedIds)
+            CardSortOrder.CREATED_OLDEST -> pageCardListItemsOldestFirst(excludedIds)
+            CardSortOrder.UPDATED_NEWEST -> pageCardListItemsRecentlyUpdated(excludedIds)
+            CardSortOrder.TITLE_ASCENDING -> pageCardListItemsByTitleAscending(excludedIds)
+            CardSortOrder.TITLE_DESCENDING -> pageCardListItemsByTitleDescending(excludedIds)
+        }
+    }
+
+    @Query("SELECT * FROM cards WHERE id IN (:ids)")
+    suspend fun getCardsByIds(ids: List<String>): List<Card>
+
     @Query("SELECT * FROM cards WHERE id = :id")
     fun getCardById(id: String): Flow<Card?>
 
@@ -25,16 +77,108 @@ interface CardDao {
     @Update
     suspend fun updateCard(card: Card)
 
-    @Query("SELECT * FROM cards WHERE tags LIKE '%' || :tag || '%'")
+    /**
+     * Cards without a thumbnail or with a local one, which may have been evicted, in id order after
+     * [afterId] so a backfill can resume where it stopped
+     */
+    @Query("SELECT * FROM cards WHERE ($THUMBNAIL_BACKFILL_CONDITION) AND id > :afterId ORDER BY id LIMIT :limit")
+    suspend fun getThumbnailBackfillCandidates(afterId: String, limit: Int): List<Card>
+
+    @Query("SELECT COUNT(*) FROM cards WHERE ($THUMBNAIL_BACKFILL_CONDITION) AND id > :afterId")
+    suspend fun countThumbnailBackfillCandidates(afterId: String): Int
+
+    // Leaves a thumbnail that was changed while the new one was being generated
+    @Query("UPDATE cards SET thumbnailUrl = :thumbnailUrl WHERE id = :id AND IFNULL(thumbnailUrl, '') = :previousUrl")
+    suspend fun replaceThumbnail(id: String, previousUrl: String, thumbnailUrl: String)
+
+    /**
+     * Give several cards a new thumbnail in one transaction; each card's current thumbnail is
+     * only replaced if it is still the one the card had when it was read
+     */
+    @Transaction
+    suspend fun replaceThumbnails(updates: List<Pair<Card, String>>) {
+        updates.forEach { (card, thumbnailUrl) ->
+            replaceThumbnail(card.id, card.thumbnailUrl.orEmpty(), thumbnailUrl)
+        }
+    }
+
+    @Insert(onConflict = OnConflictStrategy.IGNORE)
+    suspend fun insertCardTags(cardTags: List<CardTag>)
+
+    @Query("DELETE FROM card_tags WHERE cardId = :cardId")
+    suspend fun deleteCardTags(cardId: String)
+
+    /**
+     * Insert or replace a card and rewrite its card_tags rows in one transaction
+     */
+    @Transaction
+    suspend fun insertCardWithTags(card: Card) {
+        insertCard(card.withVideoFlag())
+        replaceCardTags(card)
+    }
+
+    /**
+     * Update a card and rewrite its card_tags rows in one transaction
+     */
+    @Transaction
+    suspend fun updateCardWithTags(card: Card) {
+        updateCard(card.withVideoFlag())
+        replaceCardTags(card)
+    }
+
+    suspend fun replaceCardTags(card: Card) {
+        deleteCardTags(card.id)
+        insertCardTags(CardTag.fromCard(card))
+    }
+
+    @Query("SELECT cards.* FROM cards JOIN card_tags ON cards.id = card_tags.cardId "
+        + "WHERE card_tags.tag = :tag ORDER BY cards.createdAt DESC")
     fun getCardsByTag(tag: String): Flow<List<Card>>
 
-    // This is a simplified implementation. In a real app, you would need a more sophisticated
-    // approach to handle tag searches properly, possibly with a junction table.
-    fun getCardsByTags(tags: List<String>): Flow<List<Card>> {
-        // This is a placeholder. In a real implementation, you would query based on the tags.
-        return getAllCards()
+    /**
+     * Cards that have at least one of the given tags
+     */
+    @Query("SELECT * FROM cards WHERE id IN "
+        + "(SELECT cardId FROM card_tags WHERE tag IN (:tags)) "
+        + "ORDER BY createdAt DESC")
+    fun getCardsWithAnyTag(tags: List<String>): Flow<List<Card>>
+
+    /**
+     * Cards that have every one of the given tags
+     * @param tagCount The number of distinct tags in [tags]
+     */
+    @Query("SELECT * FROM cards WHERE id IN "
+        + "(SELECT cardId FROM card_tags WHERE tag IN (:tags) GROUP BY cardId HAVING COUNT(*) = :tagCount) "
+        + "ORDER BY createdAt DESC")
+    fun getCardsWithAllTags(tags: List<String>, tagCount: Int): Flow<List<Card>>
+
+    /**
+     * Filter cards by tags
+     * @param matchAll If true, cards must have all of the tags; otherwise any one of them is enough
+     */
+    fun getCardsByTags(tags: List<String>, matchAll: Boolean = false): Flow<List<Card>> {
+        val normalizedTags = CardTag.normalize(tags)
+        if (normalizedTags.isEmpty()) {
+            return getAllCards()
+        }
+        return if (matchAll) {
+            getCardsWithAllTags(normalizedTags, normalizedTags.size)
+        } else {
+            getCardsWithAnyTag(normalizedTags)
+        }
     }
 
+    /**
+     * Other cards that share at least one tag with the given card, most shared tags first
+     */
+    @Query("SELECT cards.* FROM cards JOIN "
+        + "(SELECT other.cardId AS cardId, COUNT(*) AS sharedTags "
+        + "FROM card_tags AS mine JOIN card_tags AS other ON other.tag = mine.tag "
+        + "WHERE mine.cardId = :cardId AND other.cardId != :cardId "
+        + "GROUP BY other.cardId) AS matches ON cards.id = matches.cardId "
+        + "ORDER BY matches.sharedTags DESC, cards.updatedAt DESC LIMIT :limit")
+    suspend fun getCardsSharingTags(cardId: String, limit: Int): List<Card>
+
     /**
      * Advanced search across all card fields
      * Searches in title, content, summary, source, tags, and metadata
@@ -50,24 +194,23 @@ interface CardDao {
 
     /**
      * Advanced search with field-specific results
-     * Returns cards where any field matches the query, and includes information about which field matched
+     * Looks the query up in the cards_fts full-text index and reports the first field that matched
+     * along with the matchinfo blob SearchRanker scores. Returns hits only; load the cards
+     * for a page of hits with getCardsByIds.
+     * @param query An FTS MATCH expression, see SearchRepository.toFtsQuery
      */
-    @Query("SELECT *, "
-        + "CASE "
-        + "  WHEN title LIKE :query THEN 'title' "
-        + "  WHEN content LIKE :query THEN 'content' "
-        + "  WHEN summary LIKE :query THEN 'summary' "
-        + "  WHEN source LIKE :query THEN 'source' "
-        + "  WHEN tags LIKE :query THEN 'tags' "
-        + "  WHEN metadata LIKE :query THEN 'metadata' "
+    @Query("SELECT cards.id AS id, cards.type AS type, cards.updatedAt AS updatedAt, "
+        + "CASE CAST(substr(offsets(cards_fts), 1, instr(offsets(cards_fts), ' ') - 1) AS INTEGER) "
+        + "  WHEN 0 THEN 'title' "
+        + "  WHEN 1 THEN 'content' "
+        + "  WHEN 2 THEN 'summary' "
+        + "  WHEN 3 THEN 'source' "
+        + "  WHEN 4 THEN 'tags' "
+        + "  WHEN 5 THEN 'metadata' "
         + "  ELSE 'unknown' "
-        + "END AS matchedField "
-        + "FROM cards WHERE "
-        + "title LIKE :query OR "
-        + "content LIKE :query OR "
-        + "summary LIKE :query OR "
-        + "source LIKE :query OR "
-        + "tags LIKE :query OR "
-        + "metadata LIKE :query")
+        + "END AS matchedField, "
+        + "matchinfo(cards_fts, 'pcnalx') AS matchInfo "
+        + "FROM cards JOIN cards_fts ON cards.rowid = cards_fts.rowid "
+        + "WHERE cards_fts MATCH :query")
     fun searchCardsWithMatchInfo(query: String): Flow<List<CardSearchResult>>
 }
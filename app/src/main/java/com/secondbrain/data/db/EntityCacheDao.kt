@@ -0,0 +1,33 @@
+package com.secondbrain.data.db
+
+import androidx.room.Dao
+import androidx.room.Insert
+import androidx.room.OnConflictStrategy
+import androidx.room.Query
+import androidx.room.Transaction
+import com.secondbrain.data.model.EntityCacheEntry
+
+@Dao
+interface EntityCacheDao {
+    @Query("SELECT * FROM entity_cache WHERE `key` = :key")
+    suspend fun getEntry(key: String): EntityCacheEntry?
+
+    @Query("UPDATE entity_cache SET lastAccessedAt = :accessedAt WHERE `key` = :key")
+    suspend fun touch(key: String, accessedAt: Long = System.currentTimeMillis())
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    suspend fun insertEntry(entry: EntityCacheEntry)
+
+    /**
+     * Delete all but the [maxEntries] most recently used entries
+     */
+    @Query("DELETE FROM entity_cache WHERE `key` NOT IN " +
+        "(SELECT `key` FROM entity_cache ORDER BY lastAccessedAt DESC LIMIT :maxEntries)")
+    suspend fun trimTo(maxEntries: Int)
+
+    @Transaction
+    suspend fun putEntry(entry: EntityCacheEntry, maxEntries: Int) {
+        insertEntry(entry)
+        trimTo(maxEntries)
+    }
+}
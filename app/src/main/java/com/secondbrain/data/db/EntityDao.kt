@@ -0,0 +1,84 @@
+package com.secondbrain.data.db
+
+import androidx.room.Dao
+import androidx.room.Insert
+import androidx.room.OnConflictStrategy
+import androidx.room.Query
+import androidx.room.Transaction
+import com.secondbrain.data.model.Card
+import com.secondbrain.data.model.CardEntityLink
+import com.secondbrain.data.model.IndexedCard
+import com.secondbrain.data.model.IndexedEntity
+import com.secondbrain.data.model.KnowledgeEntity
+
+@Dao
+interface EntityDao {
+    /**
+     * @return The new row id, or -1 if an entity with the same name already exists
+     */
+    @Insert(onConflict = OnConflictStrategy.IGNORE)
+    suspend fun insertEntity(entity: KnowledgeEntity): Long
+
+    @Query("SELECT id FROM entities WHERE name = :name")
+    suspend fun getEntityId(name: String): Long?
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    suspend fun insertCardEntities(links: List<CardEntityLink>)
+
+    @Query("DELETE FROM card_entities WHERE cardId = :cardId")
+    suspend fun deleteCardEntities(cardId: String)
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    suspend fun insertIndexedCard(indexedCard: IndexedCard)
+
+    @Query("SELECT EXISTS(SELECT 1 FROM indexed_cards WHERE cardId = :cardId)")
+    suspend fun isCardIndexed(cardId: String): Boolean
+
+    /**
+     * Cards that have never been indexed, in id order after [afterId] so a backfill can resume
+     */
+    @Query("SELECT * FROM cards WHERE id NOT IN (SELECT cardId FROM indexed_cards) AND id > :afterId "
+        + "ORDER BY id LIMIT :limit")
+    suspend fun getUnindexedCards(afterId: String, limit: Int): List<Card>
+
+    /**
+     * Replace the entities linked to a card and mark it as indexed in one transaction
+     * @param entities Entities with the card's weight for each
+     */
+    @Transaction
+    suspend fun replaceCardEntities(cardId: String, entities: List<Pair<KnowledgeEntity, Float>>) {
+        insertIndexedCard(IndexedCard(cardId))
+        deleteCardEntities(cardId)
+        val links = entities.mapNotNull { (entity, weight) ->
+            val inserted = insertEntity(entity)
+            val entityId = if (inserted != -1L) inserted else getEntityId(entity.name)
+            entityId?.let { CardEntityLink(cardId = cardId, entityId = it, weight = weight) }
+        }
+        insertCardEntities(links.distinctBy { it.entityId })
+    }
+
+    @Query("SELECT ce.cardId AS cardId, e.name AS name, e.type AS type, e.description AS description, ce.weight AS weight "
+        + "FROM card_entities AS ce JOIN entities AS e ON e.id = ce.entityId "
+        + "WHERE ce.cardId = :cardId ORDER BY ce.weight DESC")
+    suspend fun getEntitiesForCard(cardId: String): List<IndexedEntity>
+
+    /**
+     * Entities of [cardId] that also appear in any of [otherCardIds], reported once per other card
+     */
+    @Query("SELECT ce.cardId AS cardId, e.name AS name, e.type AS type, e.description AS description, ce.weight AS weight "
+        + "FROM card_entities AS ce JOIN entities AS e ON e.id = ce.entityId "
+        + "WHERE ce.cardId IN (:otherCardIds) "
+        + "AND ce.entityId IN (SELECT entityId FROM card_entities WHERE cardId = :cardId)")
+    suspend fun getSharedEntities(cardId: String, otherCardIds: List<String>): List<IndexedEntity>
+
+    /**
+     * Other cards that share entities with the given card, ranked by the summed product of link weights
+     */
+    @Query("SELECT cards.* FROM cards JOIN "
+        + "(SELECT other.cardId AS cardId, SUM(mine.weight * other.weight) AS score "
+        + "FROM card_entities AS mine JOIN card_entities AS other ON other.entityId = mine.entityId "
+        + "WHERE mine.cardId = :cardId AND other.cardId != :cardId "
+        + "GROUP BY other.cardId) AS matches ON cards.id = matches.cardId "
+        + "ORDER BY matches.score DESC LIMIT :limit")
+    suspend fun getCardsSharingEntities(cardId: String, limit: Int): List<Card>
+}
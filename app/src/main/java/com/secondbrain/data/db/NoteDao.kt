@@ -1,5 +1,6 @@
 package com.secondbrain.data.db
 
+import androidx.paging.PagingSource
 import androidx.room.Dao
 import androidx.room.Delete
 import androidx.room.Insert
@@ -15,9 +16,18 @@ interface NoteDao {
     @Query("SELECT * FROM notes ORDER BY updatedAt DESC")
     fun getAllNotes(): Flow<List<Note>>
 
+    /**
+     * Page through all notes, most recently updated first
+     */
+    @Query("SELECT * FROM notes ORDER BY updatedAt DESC")
+    fun getNotesPaged(): PagingSource<Int, Note>
+
     @Query("SELECT * FROM notes WHERE id = :id")
     fun getNoteById(id: String): Flow<Note?>
 
+    @Query("SELECT * FROM notes WHERE id IN (:ids)")
+    suspend fun getNotesByIds(ids: List<String>): List<Note>
+
     @Insert(onConflict = OnConflictStrategy.REPLACE)
     suspend fun insertNote(note: Note)
 
@@ -38,17 +48,20 @@ interface NoteDao {
 
     /**
      * Advanced search with field-specific results
-     * Returns notes where any field matches the query, and includes information about which field matched
+     * Looks the query up in the notes_fts full-text index and reports the first field that matched
+     * along with the matchinfo blob SearchRanker scores. Returns hits only; load the notes
+     * for a page of hits with getNotesByIds.
+     * @param query An FTS MATCH expression, see SearchRepository.toFtsQuery
      */
-    @Query("SELECT *, "
-        + "CASE "
-        + "  WHEN title LIKE '%' || :query || '%' THEN 'title' "
-        + "  WHEN content LIKE '%' || :query || '%' THEN 'content' "
+    @Query("SELECT notes.id AS id, notes.updatedAt AS updatedAt, "
+        + "CASE CAST(substr(offsets(notes_fts), 1, instr(offsets(notes_fts), ' ') - 1) AS INTEGER) "
+        + "  WHEN 0 THEN 'title' "
+        + "  WHEN 1 THEN 'content' "
         + "  ELSE 'unknown' "
-        + "END AS matchedField "
-        + "FROM notes WHERE "
-        + "title LIKE '%' || :query || '%' OR "
-        + "content LIKE '%' || :query || '%'")
+        + "END AS matchedField, "
+        + "matchinfo(notes_fts, 'pcnalx') AS matchInfo "
+        + "FROM notes JOIN notes_fts ON notes.rowid = notes_fts.rowid "
+        + "WHERE notes_fts MATCH :query")
     fun searchNotesWithMatchInfo(query: String): Flow<List<NoteSearchResult>>
 
     @Query("SELECT * FROM notes WHERE content LIKE '%[[' || :title || ']]%'")
@@ -4,11 +4,37 @@ import androidx.room.Database
 import androidx.room.RoomDatabase
 import androidx.room.TypeConverters
 import com.secondbrain.data.model.Note
+import com.secondbrain.data.model.AiResponseCacheEntry
 import com.secondbrain.data.model.Card
+import com.secondbrain.data.model.CardEntityLink
+import com.secondbrain.data.model.CardFts
+import com.secondbrain.data.model.CardTag
+import com.secondbrain.data.model.EntityCacheEntry
+import com.secondbrain.data.model.IndexedCard
+import com.secondbrain.data.model.KnowledgeEntity
+import com.secondbrain.data.model.NoteFts
 
-@Database(entities = [Note::class, Card::class], version = 3, exportSchema = false)
+@Database(
+    entities = [
+        Note::class,
+        Card::class,
+        NoteFts::class,
+        CardFts::class,
+        CardTag::class,
+        KnowledgeEntity::class,
+        CardEntityLink::class,
+        EntityCacheEntry::class,
+        AiResponseCacheEntry::class,
+        IndexedCard::class
+    ],
+    version = 11,
+    exportSchema = false
+)
 @TypeConverters(Converters::class)
 abstract class NoteDatabase : RoomDatabase() {
     abstract fun noteDao(): NoteDao
     abstract fun cardDao(): CardDao
+    abstract fun entityDao(): EntityDao
+    abstract fun entityCacheDao(): EntityCacheDao
+    abstract fun aiResponseCacheDao(): AiResponseCacheDao
 }
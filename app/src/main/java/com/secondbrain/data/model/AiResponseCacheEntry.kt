@@ -0,0 +1,23 @@
+package com.secondbrain.data.model
+
+import androidx.room.Entity
+import androidx.room.Index
+import androidx.room.PrimaryKey
+
+/**
+ * Cached response of an AI request.
+ * @property key Hash of the provider, the model and the normalized request
+ * @property sizeBytes Approximate storage size of [response], used for size-bounded eviction
+ */
+@Entity(
+    tableName = "ai_response_cache",
+    indices = [Index("lastAccessedAt")]
+)
+data class AiResponseCacheEntry(
+    @PrimaryKey
+    val key: String,
+    val response: String,
+    val sizeBytes: Int,
+    val createdAt: Long = System.currentTimeMillis(),
+    val lastAccessedAt: Long = createdAt
+)
@@ -1,15 +1,27 @@
 package com.secondbrain.data.model
 
+import androidx.room.ColumnInfo
 import androidx.room.Entity
+import androidx.room.Index
 import androidx.room.PrimaryKey
 import androidx.room.TypeConverters
 import com.secondbrain.data.db.Converters
 
-@Entity(tableName = "cards")
+@Entity(
+    tableName = "cards",
+    indices = [
+        Index("createdAt"),
+        Index("updatedAt"),
+        Index("title"),
+        Index("type")
+    ]
+)
 @TypeConverters(Converters::class)
 data class Card(
     @PrimaryKey
     val id: String,
+    // NOCASE so title sorting is case-insensitive and the title index serves ORDER BY title
+    @ColumnInfo(collate = ColumnInfo.NOCASE)
     val title: String,
     val content: String,
     val summary: String,
@@ -30,8 +42,22 @@ data class Card(
     val viewCount: String? = null,
     val hasTranscript: Boolean = false,
     // Additional metadata as JSON string
-    val metadata: String? = null
-)
+    val metadata: String? = null,
+    // Stored so list queries don't read metadata; refreshed by the DAO whenever a card is saved
+    val hasVideoMetadata: Boolean = describesVideo(metadata)
+) {
+    companion object {
+        /**
+         * Whether card metadata describes a video
+         */
+        fun describesVideo(metadata: String?): Boolean = metadata?.contains("video") == true
+    }
+
+    /**
+     * This card with [hasVideoMetadata] recomputed from its current metadata
+     */
+    fun withVideoFlag(): Card = copy(hasVideoMetadata = describesVideo(metadata))
+}
 
 enum class CardType {
     URL, SEARCH, PDF, NOTE, AUDIO
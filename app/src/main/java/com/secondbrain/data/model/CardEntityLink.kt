@@ -0,0 +1,34 @@
+package com.secondbrain.data.model
+
+import androidx.room.Entity
+import androidx.room.ForeignKey
+import androidx.room.Index
+
+/**
+ * Links a card to an entity it mentions.
+ * @property weight How strongly the card is about the entity, from 0 to 1
+ */
+@Entity(
+    tableName = "card_entities",
+    primaryKeys = ["cardId", "entityId"],
+    foreignKeys = [
+        ForeignKey(
+            entity = Card::class,
+            parentColumns = ["id"],
+            childColumns = ["cardId"],
+            onDelete = ForeignKey.CASCADE
+        ),
+        ForeignKey(
+            entity = KnowledgeEntity::class,
+            parentColumns = ["id"],
+            childColumns = ["entityId"],
+            onDelete = ForeignKey.CASCADE
+        )
+    ],
+    indices = [Index("entityId")]
+)
+data class CardEntityLink(
+    val cardId: String,
+    val entityId: Long,
+    val weight: Float
+)
@@ -0,0 +1,21 @@
+package com.secondbrain.data.model
+
+import androidx.room.Entity
+import androidx.room.Fts4
+import androidx.room.FtsOptions
+
+/**
+ * Full-text index over the searchable fields of [Card].
+ * This is an external-content table: Room keeps it in sync with `cards` through triggers,
+ * so it only stores the index and never a second copy of the card content.
+ */
+@Fts4(contentEntity = Card::class, tokenizer = FtsOptions.TOKENIZER_UNICODE61)
+@Entity(tableName = "cards_fts")
+data class CardFts(
+    val title: String,
+    val content: String,
+    val summary: String,
+    val source: String,
+    val tags: String,
+    val metadata: String?
+)
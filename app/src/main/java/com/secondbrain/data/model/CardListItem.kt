@@ -0,0 +1,38 @@
+package com.secondbrain.data.model
+
+/**
+ * Lightweight projection of [Card] with only the fields the home feed draws.
+ * Leaves out `content` and `metadata`, which can be hundreds of KB per card;
+ * load the full [Card] by id when it is actually needed.
+ */
+data class CardListItem(
+    val id: String,
+    val title: String,
+    // Truncated to CardListItem.SUMMARY_PREVIEW_LENGTH characters by the query
+    val summary: String,
+    val type: CardType,
+    val source: String,
+    val tags: List<String>,
+    val createdAt: Long,
+    val updatedAt: Long,
+    val thumbnailUrl: String? = null,
+    // YouTube-specific fields
+    val videoId: String? = null,
+    val channelTitle: String? = null,
+    val videoDuration: String? = null,
+    val viewCount: String? = null,
+    val hasTranscript: Boolean = false,
+    // Whether the card's metadata describes a video, from the stored flag
+    val hasVideoMetadata: Boolean = false
+) {
+    companion object {
+        const val SUMMARY_PREVIEW_LENGTH = 300
+
+        /**
+         * Column list for selecting CardListItem rows from `cards`
+         */
+        const val COLUMNS = "id, title, substr(summary, 1, $SUMMARY_PREVIEW_LENGTH) AS summary, " +
+            "type, source, tags, createdAt, updatedAt, thumbnailUrl, " +
+            "videoId, channelTitle, videoDuration, viewCount, hasTranscript, hasVideoMetadata"
+    }
+}
@@ -1,12 +1,14 @@
 package com.secondbrain.data.model
 
-import androidx.room.Embedded
-import com.secondbrain.data.model.Card
-
 /**
- * Data class to hold a card search result with information about which field matched
+ * Data class to hold a card search hit with information about which field matched
+ * and the raw FTS match statistics used for ranking.
+ * Only carries what ranking and filtering need; the card itself is loaded per page.
  */
 data class CardSearchResult(
-    @Embedded val card: Card,
-    val matchedField: String
+    val id: String,
+    val type: CardType,
+    val updatedAt: Long,
+    val matchedField: String,
+    val matchInfo: ByteArray?
 )
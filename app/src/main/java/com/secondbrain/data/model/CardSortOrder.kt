@@ -0,0 +1,12 @@
+package com.secondbrain.data.model
+
+/**
+ * Sort orders for card lists. Each one maps to its own DAO query so sorting happens in SQL.
+ */
+enum class CardSortOrder {
+    CREATED_NEWEST,
+    CREATED_OLDEST,
+    UPDATED_NEWEST,
+    TITLE_ASCENDING,
+    TITLE_DESCENDING
+}
@@ -0,0 +1,48 @@
+package com.secondbrain.data.model
+
+import androidx.room.ColumnInfo
+import androidx.room.Entity
+import androidx.room.ForeignKey
+import androidx.room.Index
+
+/**
+ * One row per (card, tag) pair, so tag lookups can use an index instead of
+ * scanning the comma-joined `cards.tags` column.
+ * Tags compare case-insensitively.
+ */
+@Entity(
+    tableName = "card_tags",
+    primaryKeys = ["cardId", "tag"],
+    foreignKeys = [
+        ForeignKey(
+            entity = Card::class,
+            parentColumns = ["id"],
+            childColumns = ["cardId"],
+            onDelete = ForeignKey.CASCADE
+        )
+    ],
+    indices = [Index("tag")]
+)
+data class CardTag(
+    val cardId: String,
+    @ColumnInfo(collate = ColumnInfo.NOCASE)
+    val tag: String
+) {
+    companion object {
+        /**
+         * Normalize a list of tags: trimmed, non-blank and unique ignoring case
+         */
+        fun normalize(tags: List<String>): List<String> {
+            return tags.map { it.trim() }
+                .filter { it.isNotEmpty() }
+                .distinctBy { it.lowercase() }
+        }
+
+        /**
+         * Build the junction rows for a card
+         */
+        fun fromCard(card: Card): List<CardTag> {
+            return normalize(card.tags).map { CardTag(cardId = card.id, tag = it) }
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.secondbrain.data.model
+
+import androidx.room.Entity
+import androidx.room.Index
+import androidx.room.PrimaryKey
+
+/**
+ * Cached EntityExtractor output for one piece of content.
+ * @property key Hash of the content, the model and the prompt version
+ * @property entitiesJson Extracted entities as a JSON array
+ */
+@Entity(
+    tableName = "entity_cache",
+    indices = [Index("lastAccessedAt")]
+)
+data class EntityCacheEntry(
+    @PrimaryKey
+    val key: String,
+    val entitiesJson: String,
+    val lastAccessedAt: Long = System.currentTimeMillis()
+)
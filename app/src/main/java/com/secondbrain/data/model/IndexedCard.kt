@@ -0,0 +1,27 @@
+package com.secondbrain.data.model
+
+import androidx.room.Entity
+import androidx.room.ForeignKey
+import androidx.room.PrimaryKey
+
+/**
+ * Marks a card whose entities have been extracted into the entity index, so a card that has no
+ * entities can be told apart from one that was never indexed.
+ * @property indexedAt When the card was last indexed
+ */
+@Entity(
+    tableName = "indexed_cards",
+    foreignKeys = [
+        ForeignKey(
+            entity = Card::class,
+            parentColumns = ["id"],
+            childColumns = ["cardId"],
+            onDelete = ForeignKey.CASCADE
+        )
+    ]
+)
+data class IndexedCard(
+    @PrimaryKey
+    val cardId: String,
+    val indexedAt: Long = System.currentTimeMillis()
+)
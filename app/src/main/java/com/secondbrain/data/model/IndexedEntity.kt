@@ -0,0 +1,12 @@
+package com.secondbrain.data.model
+
+/**
+ * An entity as stored for a particular card, with the card's link weight
+ */
+data class IndexedEntity(
+    val cardId: String,
+    val name: String,
+    val type: String,
+    val description: String,
+    val weight: Float
+)
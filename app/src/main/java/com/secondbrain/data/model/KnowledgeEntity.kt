@@ -0,0 +1,24 @@
+package com.secondbrain.data.model
+
+import androidx.room.ColumnInfo
+import androidx.room.Entity
+import androidx.room.Index
+import androidx.room.PrimaryKey
+
+/**
+ * A named entity (person, organization, concept, ...) extracted from one or more cards.
+ * Names are unique ignoring case, so the same entity found in different cards shares one row.
+ */
+@Entity(
+    tableName = "entities",
+    indices = [Index(value = ["name"], unique = true)]
+)
+data class KnowledgeEntity(
+    @PrimaryKey(autoGenerate = true)
+    val id: Long = 0,
+    @ColumnInfo(collate = ColumnInfo.NOCASE)
+    val name: String,
+    // EntityType name
+    val type: String,
+    val description: String
+)
@@ -0,0 +1,16 @@
+package com.secondbrain.data.model
+
+import androidx.room.Entity
+import androidx.room.Fts4
+import androidx.room.FtsOptions
+
+/**
+ * Full-text index over the searchable fields of [Note].
+ * Kept in sync with `notes` by Room-generated triggers.
+ */
+@Fts4(contentEntity = Note::class, tokenizer = FtsOptions.TOKENIZER_UNICODE61)
+@Entity(tableName = "notes_fts")
+data class NoteFts(
+    val title: String,
+    val content: String
+)
@@ -1,12 +1,15 @@
 package com.secondbrain.data.model
 
-import androidx.room.Embedded
-import com.secondbrain.data.model.Note
+import java.util.Date
 
 /**
- * Data class to hold a note search result with information about which field matched
+ * Data class to hold a note search hit with information about which field matched
+ * and the raw FTS match statistics used for ranking.
+ * Only carries what ranking and filtering need; the note itself is loaded per page.
  */
 data class NoteSearchResult(
-    @Embedded val note: Note,
-    val matchedField: String
+    val id: String,
+    val updatedAt: Date,
+    val matchedField: String,
+    val matchInfo: ByteArray?
 )
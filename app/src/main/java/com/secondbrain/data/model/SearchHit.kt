@@ -0,0 +1,13 @@
+package com.secondbrain.data.model
+
+/**
+ * A ranked search match that has not been loaded yet.
+ * Search ranks and filters hits, then loads full [SearchResult]s only for the page being shown.
+ */
+data class SearchHit(
+    val id: String,
+    val type: SearchResultType,
+    val matchedField: String?,
+    val score: Double,
+    val updatedAt: Long
+)
@@ -12,6 +12,7 @@ data class SearchResult(
     val source: String? = null,
     val thumbnailUrl: String? = null,
     val matchedField: String? = null,
+    val score: Double = 0.0,
     val createdAt: Long,
     val updatedAt: Long
 )
@@ -1,7 +1,13 @@
 package com.secondbrain.data.repository
 
+import androidx.paging.Pager
+import androidx.paging.PagingConfig
+import androidx.paging.PagingData
 import com.secondbrain.data.db.CardDao
 import com.secondbrain.data.model.Card
+import com.secondbrain.data.model.CardListItem
+import com.secondbrain.data.model.CardSortOrder
+import com.secondbrain.data.service.knowledge.EntityIndexScheduler
 import kotlinx.coroutines.GlobalScope
 import kotlinx.coroutines.flow.Flow
 import kotlinx.coroutines.flow.first
@@ -11,12 +17,14 @@ import javax.inject.Singleton
 
 @Singleton
 class CardRepository @Inject constructor(
-    private val cardDao: CardDao
+    private val cardDao: CardDao,
+    private val entityIndexScheduler: EntityIndexScheduler
 ) {
     suspend fun saveCard(card: Card): Result<String> {
         return try {
             android.util.Log.d("CardRepository", "Saving card with ID: ${card.id}, title: ${card.title}, thumbnailUrl: ${card.thumbnailUrl}")
-            cardDao.insertCard(card)
+            cardDao.insertCardWithTags(card)
+            entityIndexScheduler.scheduleIndexing(card.id)
             Result.success(card.id)
         } catch (e: Exception) {
             android.util.Log.e("CardRepository", "Error saving card: ${card.id}", e)
@@ -33,6 +41,47 @@ class CardRepository @Inject constructor(
         }
     }
 
+    /**
+     * Get the lightweight list projection of all cards, for feeds that don't need content
+     */
+    fun getCardListItems(): Flow<List<CardListItem>> {
+        return try {
+            cardDao.getAllCardListItems()
+        } catch (e: Exception) {
+            android.util.Log.e("CardRepository", "Error getting card list items", e)
+            kotlinx.coroutines.flow.flowOf(emptyList())
+        }
+    }
+
+    /**
+     * Page through the card list projection in the given order
+     * @param excludedIds Cards to leave out of the pages
+     */
+    fun getCardListItemsPaged(
+        sortOrder: CardSortOrder,
+        excludedIds: List<String> = emptyList()
+    ): Flow<PagingData<CardListItem>> {
+        return Pager(PagingConfig(pageSize = PAGE_SIZE, enablePlaceholders = true)) {
+            cardDao.pageCardListItems(sortOrder, excludedIds)
+        }.flow
+    }
+
+    fun getCardListItemsByIds(ids: List<String>): Flow<List<CardListItem>> {
+        return cardDao.getCardListItemsByIds(ids)
+    }
+
+    /**
+     * Load a single full card once, without observing it
+     */
+    suspend fun getCardOnce(id: String): Card? {
+        return try {
+            cardDao.getCardByIdSync(id)
+        } catch (e: Exception) {
+            android.util.Log.e("CardRepository", "Error loading card: $id", e)
+            null
+        }
+    }
+
     fun getCardById(id: String): Flow<Card?> {
         android.util.Log.d("CardRepository", "Getting card by ID: $id")
         return cardDao.getCardById(id).also { flow ->
@@ -58,7 +107,8 @@ class CardRepository @Inject constructor(
 
     suspend fun updateCard(card: Card): Result<Boolean> {
         return try {
-            cardDao.updateCard(card)
+            cardDao.updateCardWithTags(card)
+            entityIndexScheduler.scheduleIndexing(card.id)
             Result.success(true)
         } catch (e: Exception) {
             android.util.Log.e("CardRepository", "Error updating card: ${card.id}", e)
@@ -89,11 +139,35 @@ class CardRepository @Inject constructor(
         }
     }
 
-    fun getCardsByTags(tags: List<String>): Flow<List<Card>> {
-        return cardDao.getCardsByTags(tags)
+    fun getCardsByTag(tag: String): Flow<List<Card>> {
+        return cardDao.getCardsByTag(tag.trim())
+    }
+
+    /**
+     * Filter cards by tags
+     * @param matchAll If true, cards must have all of the tags; otherwise any one of them is enough
+     */
+    fun getCardsByTags(tags: List<String>, matchAll: Boolean = false): Flow<List<Card>> {
+        return cardDao.getCardsByTags(tags, matchAll)
+    }
+
+    /**
+     * Get other cards that share tags with the given card, most shared tags first
+     */
+    suspend fun getCardsSharingTags(cardId: String, limit: Int = 10): List<Card> {
+        return try {
+            cardDao.getCardsSharingTags(cardId, limit)
+        } catch (e: Exception) {
+            android.util.Log.e("CardRepository", "Error getting cards sharing tags with: $cardId", e)
+            emptyList()
+        }
     }
 
     fun searchCards(query: String): Flow<List<Card>> {
         return cardDao.searchCards("%$query%")
     }
+
+    companion object {
+        private const val PAGE_SIZE = 30
+    }
 }
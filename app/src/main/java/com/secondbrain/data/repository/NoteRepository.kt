@@ -1,6 +1,9 @@
 package com.secondbrain.data.repository
 
 import android.content.Context
+import androidx.paging.Pager
+import androidx.paging.PagingConfig
+import androidx.paging.PagingData
 import com.secondbrain.data.db.NoteDao
 import com.secondbrain.data.model.Note
 import com.secondbrain.util.MarkdownUtils
@@ -19,6 +22,15 @@ class NoteRepository @Inject constructor(
 ) {
     fun getAllNotes(): Flow<List<Note>> = noteDao.getAllNotes()
 
+    /**
+     * Page through all notes, most recently updated first
+     */
+    fun getNotesPaged(): Flow<PagingData<Note>> {
+        return Pager(PagingConfig(pageSize = PAGE_SIZE, enablePlaceholders = true)) {
+            noteDao.getNotesPaged()
+        }.flow
+    }
+
     fun getNoteById(id: String): Flow<Note?> = noteDao.getNoteById(id)
 
     suspend fun createNote(title: String, content: String, sourceUrl: String? = null): Note {
@@ -84,4 +96,8 @@ class NoteRepository @Inject constructor(
     fun searchNotes(query: String): Flow<List<Note>> = noteDao.searchNotes(query)
 
     fun getBacklinks(title: String): Flow<List<Note>> = noteDao.getBacklinks(title)
+
+    companion object {
+        private const val PAGE_SIZE = 30
+    }
 }
@@ -0,0 +1,52 @@
+package com.secondbrain.data.repository
+
+import androidx.paging.PagingSource
+import androidx.paging.PagingState
+import com.secondbrain.data.model.SearchHit
+import com.secondbrain.data.model.SearchResult
+
+/**
+ * Pages through an already ranked list of search hits, loading the full results
+ * for one page at a time.
+ * Keys are positions in [hits]: a refresh or append key is where the page starts,
+ * a prepend key is where it ends. Reports item counts on both sides so the list
+ * can show placeholders and jump.
+ */
+class SearchPagingSource(
+    private val hits: List<SearchHit>,
+    private val loadResults: suspend (List<SearchHit>) -> List<SearchResult>
+) : PagingSource<Int, SearchResult>() {
+
+    override val jumpingSupported: Boolean = true
+
+    override suspend fun load(params: LoadParams<Int>): LoadResult<Int, SearchResult> {
+        return try {
+            val (start, end) = when (params) {
+                is LoadParams.Prepend -> {
+                    val end = params.key.coerceIn(0, hits.size)
+                    (end - params.loadSize).coerceAtLeast(0) to end
+                }
+                else -> {
+                    val start = (params.key ?: 0).coerceIn(0, hits.size)
+                    start to (start + params.loadSize).coerceAtMost(hits.size)
+                }
+            }
+
+            LoadResult.Page(
+                data = loadResults(hits.subList(start, end)),
+                prevKey = if (start > 0) start else null,
+                nextKey = if (end < hits.size) end else null,
+                itemsBefore = start,
+                itemsAfter = hits.size - end
+            )
+        } catch (e: Exception) {
+            android.util.Log.e("SearchPagingSource", "Error loading search results", e)
+            LoadResult.Error(e)
+        }
+    }
+
+    override fun getRefreshKey(state: PagingState<Int, SearchResult>): Int? {
+        val anchor = state.anchorPosition ?: return null
+        return (anchor - state.config.initialLoadSize / 2).coerceAtLeast(0)
+    }
+}
@@ -0,0 +1,97 @@
+package com.secondbrain.data.repository
+
+import com.secondbrain.data.model.SearchHit
+import java.nio.ByteBuffer
+import java.nio.ByteOrder
+import kotlin.math.ln
+
+/**
+ * BM25 relevance scoring for full-text search results.
+ *
+ * Scores are computed from SQLite's matchinfo(fts, 'pcnalx') blob, so ranking only needs the
+ * statistics the FTS index already keeps and never touches the row contents.
+ */
+object SearchRanker {
+    private const val K1 = 1.2
+    private const val B = 0.75
+
+    /**
+     * Per-column weights for cards_fts, in column order:
+     * title, content, summary, source, tags, metadata
+     */
+    val CARD_COLUMN_WEIGHTS = doubleArrayOf(10.0, 1.0, 3.0, 1.5, 5.0, 0.5)
+
+    /**
+     * Per-column weights for notes_fts, in column order: title, content
+     */
+    val NOTE_COLUMN_WEIGHTS = doubleArrayOf(10.0, 1.0)
+
+    /**
+     * Orders results by score, falling back to the most recently updated on ties.
+     */
+    val BY_RELEVANCE: Comparator<SearchHit> =
+        compareByDescending<SearchHit> { it.score }.thenByDescending { it.updatedAt }
+
+    /**
+     * Compute a weighted BM25 score from a matchinfo blob.
+     * @param matchInfo The result of matchinfo(fts, 'pcnalx')
+     * @param weights One weight per FTS column; columns without a weight count as 0
+     * @return The score, or 0.0 if the blob is missing or malformed
+     */
+    fun bm25(matchInfo: ByteArray?, weights: DoubleArray): Double {
+        if (matchInfo == null || matchInfo.size < 12) return 0.0
+
+        val info = ByteBuffer.wrap(matchInfo).order(ByteOrder.nativeOrder()).asIntBuffer()
+        val phraseCount = info.get(0)
+        val columnCount = info.get(1)
+        val rowCount = info.get(2).toDouble()
+        if (info.limit() < 3 + 2 * columnCount + 3 * columnCount * phraseCount) return 0.0
+
+        val avgLengthOffset = 3
+        val lengthOffset = avgLengthOffset + columnCount
+        val hitsOffset = lengthOffset + columnCount
+
+        var score = 0.0
+        for (phrase in 0 until phraseCount) {
+            for (column in 0 until columnCount) {
+                val weight = weights.getOrElse(column) { 0.0 }
+                if (weight == 0.0) continue
+
+                val hitBase = hitsOffset + 3 * (phrase * columnCount + column)
+                val termFrequency = info.get(hitBase).toDouble()
+                if (termFrequency == 0.0) continue
+
+                val docsWithHits = info.get(hitBase + 2).toDouble()
+                val avgLength = info.get(avgLengthOffset + column).toDouble().coerceAtLeast(1.0)
+                val length = info.get(lengthOffset + column).toDouble()
+
+                val idf = ln(1.0 + (rowCount - docsWithHits + 0.5) / (docsWithHits + 0.5))
+                val norm = K1 * (1 - B + B * length / avgLength)
+                score += weight * idf * termFrequency * (K1 + 1) / (termFrequency + norm)
+            }
+        }
+        return score
+    }
+
+    /**
+     * Merge two lists that are each already sorted with [BY_RELEVANCE] in linear time.
+     */
+    fun merge(first: List<SearchHit>, second: List<SearchHit>): List<SearchHit> {
+        if (first.isEmpty()) return second
+        if (second.isEmpty()) return first
+
+        val merged = ArrayList<SearchHit>(first.size + second.size)
+        var i = 0
+        var j = 0
+        while (i < first.size && j < second.size) {
+            if (BY_RELEVANCE.compare(first[i], second[j]) <= 0) {
+                merged.add(first[i++])
+            } else {
+                merged.add(second[j++])
+            }
+        }
+        while (i < first.size) merged.add(first[i++])
+        while (j < second.size) merged.add(second[j++])
+        return merged
+    }
+}
@@ -1,5 +1,6 @@
 package com.secondbrain.data.repository
 
+import androidx.paging.PagingSource
 import com.secondbrain.data.db.CardDao
 import com.secondbrain.data.db.NoteDao
 import com.secondbrain.data.model.Card
@@ -7,10 +8,12 @@ import com.secondbrain.data.model.CardSearchResult
 import com.secondbrain.data.model.CardType
 import com.secondbrain.data.model.Note
 import com.secondbrain.data.model.NoteSearchResult
+import com.secondbrain.data.model.SearchHit
 import com.secondbrain.data.model.SearchResult
 import com.secondbrain.data.model.SearchResultType
 import kotlinx.coroutines.flow.Flow
 import kotlinx.coroutines.flow.combine
+import kotlinx.coroutines.flow.flowOf
 import kotlinx.coroutines.flow.map
 import javax.inject.Inject
 import javax.inject.Singleton
@@ -22,93 +25,169 @@ class SearchRepository @Inject constructor(
 ) {
     /**
      * Search across all content types (cards and notes)
+     * Emits the ranked hits only; use [pagingSource] to load the results page by page.
      * @param query The search query
-     * @return A flow of search results
+     * @return A flow of ranked search hits
      */
-    fun search(query: String): Flow<List<SearchResult>> {
-        val formattedQuery = "%$query%"
+    fun searchHits(query: String): Flow<List<SearchHit>> {
+        val ftsQuery = toFtsQuery(query) ?: return flowOf(emptyList())
 
-        // Get card search results
-        val cardResults = cardDao.searchCardsWithMatchInfo(formattedQuery)
-            .map { results -> results.map { it.toSearchResult() } }
+        // Get card search hits
+        val cardHits = cardDao.searchCardsWithMatchInfo(ftsQuery)
+            .map { results -> results.map { it.toSearchHit() }.sortedWith(SearchRanker.BY_RELEVANCE) }
 
-        // Get note search results
-        val noteResults = noteDao.searchNotesWithMatchInfo(query)
-            .map { results -> results.map { it.toSearchResult() } }
+        // Get note search hits
+        val noteHits = noteDao.searchNotesWithMatchInfo(ftsQuery)
+            .map { results -> results.map { it.toSearchHit() }.sortedWith(SearchRanker.BY_RELEVANCE) }
 
-        // Combine and sort results by relevance and recency
-        return cardResults.combine(noteResults) { cards, notes ->
-            (cards + notes).sortedByDescending { it.updatedAt }
+        // Each side is already ranked, so combining them is a linear merge rather than a re-sort
+        return cardHits.combine(noteHits) { cards, notes ->
+            SearchRanker.merge(cards, notes)
         }
     }
 
     /**
-     * Convert a CardSearchResult to a unified SearchResult
+     * Create a paging source that loads full results for a ranked list of hits
      */
-    private fun CardSearchResult.toSearchResult(): SearchResult {
-        val cardType = when (card.type) {
+    fun pagingSource(hits: List<SearchHit>): PagingSource<Int, SearchResult> {
+        return SearchPagingSource(hits, ::loadResults)
+    }
+
+    /**
+     * Load the cards and notes behind a page of hits, keeping the hits' order
+     */
+    suspend fun loadResults(hits: List<SearchHit>): List<SearchResult> {
+        val cardIds = hits.filter { it.type != SearchResultType.NOTE }.map { it.id }
+        val noteIds = hits.filter { it.type == SearchResultType.NOTE }.map { it.id }
+
+        val cards = if (cardIds.isEmpty()) emptyMap() else cardDao.getCardsByIds(cardIds).associateBy { it.id }
+        val notes = if (noteIds.isEmpty()) emptyMap() else noteDao.getNotesByIds(noteIds).associateBy { it.id }
+
+        // Rows deleted since the hits were computed are skipped; the hits flow will re-emit
+        return hits.mapNotNull { hit ->
+            if (hit.type == SearchResultType.NOTE) {
+                notes[hit.id]?.toSearchResult(hit)
+            } else {
+                cards[hit.id]?.toSearchResult(hit)
+            }
+        }
+    }
+
+    /**
+     * Convert a CardSearchResult to a ranked SearchHit
+     */
+    private fun CardSearchResult.toSearchHit(): SearchHit {
+        return SearchHit(
+            id = id,
+            type = type.toSearchResultType(),
+            matchedField = matchedField,
+            score = SearchRanker.bm25(matchInfo, SearchRanker.CARD_COLUMN_WEIGHTS),
+            updatedAt = updatedAt
+        )
+    }
+
+    /**
+     * Convert a NoteSearchResult to a ranked SearchHit
+     */
+    private fun NoteSearchResult.toSearchHit(): SearchHit {
+        return SearchHit(
+            id = id,
+            type = SearchResultType.NOTE,
+            matchedField = matchedField,
+            score = SearchRanker.bm25(matchInfo, SearchRanker.NOTE_COLUMN_WEIGHTS),
+            updatedAt = updatedAt.time
+        )
+    }
+
+    private fun CardType.toSearchResultType(): SearchResultType {
+        return when (this) {
             CardType.URL -> SearchResultType.CARD_URL
             CardType.PDF -> SearchResultType.CARD_PDF
             CardType.NOTE -> SearchResultType.CARD_NOTE
             CardType.AUDIO -> SearchResultType.CARD_AUDIO
             CardType.SEARCH -> SearchResultType.CARD_SEARCH
         }
+    }
 
+    /**
+     * Convert a Card to a unified SearchResult
+     */
+    private fun Card.toSearchResult(hit: SearchHit): SearchResult {
         // Create a snippet based on the matched field
-        val snippet = when (matchedField) {
-            "title" -> card.title
-            "summary" -> card.summary.take(150) + if (card.summary.length > 150) "..." else ""
-            "content" -> card.content.take(150) + if (card.content.length > 150) "..." else ""
-            "tags" -> "Tags: " + card.tags.joinToString(", ")
-            "source" -> "Source: " + card.source
+        val snippet = when (hit.matchedField) {
+            "title" -> title
+            "summary" -> summary.take(150) + if (summary.length > 150) "..." else ""
+            "content" -> content.take(150) + if (content.length > 150) "..." else ""
+            "tags" -> "Tags: " + tags.joinToString(", ")
+            "source" -> "Source: " + source
             "metadata" -> "Metadata match"
-            else -> card.summary.take(150) + if (card.summary.length > 150) "..." else ""
+            else -> summary.take(150) + if (summary.length > 150) "..." else ""
         }
 
         return SearchResult(
-            id = card.id,
-            title = card.title,
+            id = id,
+            title = title,
             snippet = snippet,
-            type = cardType,
-            tags = card.tags,
-            source = card.source,
-            thumbnailUrl = card.thumbnailUrl,
-            matchedField = matchedField,
-            createdAt = card.createdAt,
-            updatedAt = card.updatedAt
+            type = hit.type,
+            tags = tags,
+            source = source,
+            thumbnailUrl = thumbnailUrl,
+            matchedField = hit.matchedField,
+            score = hit.score,
+            createdAt = createdAt,
+            updatedAt = updatedAt
         )
     }
 
     /**
-     * Convert a NoteSearchResult to a unified SearchResult
+     * Convert a Note to a unified SearchResult
      */
-    private fun NoteSearchResult.toSearchResult(): SearchResult {
+    private fun Note.toSearchResult(hit: SearchHit): SearchResult {
         // Create a snippet based on the matched field
-        val snippet = when (matchedField) {
-            "title" -> note.title
-            "content" -> note.content.take(150) + if (note.content.length > 150) "..." else ""
-            else -> note.content.take(150) + if (note.content.length > 150) "..." else ""
+        val snippet = when (hit.matchedField) {
+            "title" -> title
+            "content" -> content.take(150) + if (content.length > 150) "..." else ""
+            else -> content.take(150) + if (content.length > 150) "..." else ""
         }
 
         return SearchResult(
-            id = note.id,
-            title = note.title,
+            id = id,
+            title = title,
             snippet = snippet,
             type = SearchResultType.NOTE,
-            matchedField = matchedField,
-            createdAt = note.createdAt.time,
-            updatedAt = note.updatedAt.time
+            matchedField = hit.matchedField,
+            score = hit.score,
+            createdAt = createdAt.time,
+            updatedAt = updatedAt.time
         )
     }
 
+    companion object {
+        private val TOKEN_SEPARATOR = Regex("[^\\p{L}\\p{N}]+")
+
+        /**
+         * Turn free-form user input into an FTS MATCH expression.
+         * Every word becomes a prefix term and all terms must match, so "sec bra" finds "Second Brain".
+         * FTS operators and quotes are stripped so user input can never produce a malformed query.
+         * @return The MATCH expression, or null if the input contains no searchable words
+         */
+        fun toFtsQuery(query: String): String? {
+            val tokens = query.lowercase()
+                .split(TOKEN_SEPARATOR)
+                .filter { it.isNotBlank() }
+            if (tokens.isEmpty()) return null
+            return tokens.joinToString(" ") { "$it*" }
+        }
+    }
+
     /**
-     * Filter search results by type
+     * Filter search hits by type
      */
-    fun filterByType(results: List<SearchResult>, type: SearchResultType?): List<SearchResult> {
+    fun filterByType(hits: List<SearchHit>, type: SearchResultType?): List<SearchHit> {
         return if (type == null) {
-            results
+            hits
         } else {
-            results.filter { it.type == type }
+            hits.filter { it.type == type }
         }
     }
 }
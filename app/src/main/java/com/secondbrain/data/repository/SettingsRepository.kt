@@ -4,6 +4,7 @@ import android.content.Context
 import androidx.datastore.core.DataStore
 import androidx.datastore.preferences.core.Preferences
 import androidx.datastore.preferences.core.booleanPreferencesKey
+import androidx.datastore.preferences.core.doublePreferencesKey
 import androidx.datastore.preferences.core.edit
 import androidx.datastore.preferences.core.stringPreferencesKey
 import androidx.datastore.preferences.preferencesDataStore
@@ -37,6 +38,10 @@ class SettingsRepository @Inject constructor(
         val SELECTED_GEMINI_MODEL_KEY = stringPreferencesKey("selected_gemini_model")
         val SELECTED_DEEPSEEK_MODEL_KEY = stringPreferencesKey("selected_deepseek_model")
         val SELECTED_OPENROUTER_MODEL_KEY = stringPreferencesKey("selected_openrouter_model")
+        val HEDGE_REQUESTS_KEY = booleanPreferencesKey("hedge_requests")
+        val HEDGE_COST_MULTIPLIER_KEY = doublePreferencesKey("hedge_cost_multiplier")
+
+        const val DEFAULT_HEDGE_COST_MULTIPLIER = 1.2
     }
 
     // Dark mode settings
@@ -72,6 +77,27 @@ class SettingsRepository @Inject constructor(
         }
     }
 
+    // Hedged title and tag requests
+    val hedgeRequestsFlow: Flow<Boolean> = dataStore.data.map { preferences ->
+        preferences[HEDGE_REQUESTS_KEY] ?: false // Opt-in
+    }
+
+    suspend fun setHedgeRequests(enabled: Boolean) {
+        dataStore.edit { preferences ->
+            preferences[HEDGE_REQUESTS_KEY] = enabled
+        }
+    }
+
+    val hedgeCostMultiplierFlow: Flow<Double> = dataStore.data.map { preferences ->
+        preferences[HEDGE_COST_MULTIPLIER_KEY] ?: DEFAULT_HEDGE_COST_MULTIPLIER
+    }
+
+    suspend fun setHedgeCostMultiplier(multiplier: Double) {
+        dataStore.edit { preferences ->
+            preferences[HEDGE_COST_MULTIPLIER_KEY] = multiplier
+        }
+    }
+
     // Default language
     val defaultLanguageFlow: Flow<String> = dataStore.data.map { preferences ->
         preferences[DEFAULT_LANGUAGE_KEY] ?: "English" // Default to English
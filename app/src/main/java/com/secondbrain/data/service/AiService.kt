@@ -3,6 +3,7 @@ package com.secondbrain.data.service
 import com.secondbrain.data.model.CardType
 import com.secondbrain.data.service.ai.AiServiceManager
 import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.flow.Flow
 import kotlinx.coroutines.withContext
 import javax.inject.Inject
 import javax.inject.Singleton
@@ -25,6 +26,7 @@ class AiService @Inject constructor(
      * @param aiModel The AI model to use for summarization
      * @param customInstructions Optional custom instructions for the AI
      * @param contentType The type of content being summarized
+     * @param bypassCache Skip cached responses and always call the AI model
      * @return The generated summary
      */
     suspend fun summarize(
@@ -33,7 +35,8 @@ class AiService @Inject constructor(
         language: String,
         aiModel: String,
         customInstructions: String? = null,
-        contentType: CardType? = null
+        contentType: CardType? = null,
+        bypassCache: Boolean = false
     ): Result<String> = withContext(Dispatchers.IO) {
         try {
             // Delegate to the AiServiceManager
@@ -43,29 +46,59 @@ class AiService @Inject constructor(
                 language = language,
                 aiModel = aiModel,
                 customInstructions = customInstructions,
-                contentType = contentType
+                contentType = contentType,
+                bypassCache = bypassCache
             )
         } catch (e: Exception) {
             Result.failure(e)
         }
     }
 
+    /**
+     * Stream a summary from the specified AI model as it is generated
+     *
+     * @param content The content to summarize
+     * @param summaryType The type of summary to generate (concise, detailed, etc.)
+     * @param language The language to use for the summary
+     * @param aiModel The AI model to use for summarization
+     * @param customInstructions Optional custom instructions for the AI
+     * @param contentType The type of content being summarized
+     * @return A Flow of summary text fragments
+     */
+    fun summarizeStream(
+        content: String,
+        summaryType: String,
+        language: String,
+        aiModel: String,
+        customInstructions: String? = null,
+        contentType: CardType? = null
+    ): Flow<String> = aiServiceManager.summarizeStream(
+        content = content,
+        summaryType = summaryType,
+        language = language,
+        aiModel = aiModel,
+        customInstructions = customInstructions,
+        contentType = contentType
+    )
+
     /**
      * Extract tags from content
      *
      * @param content The content to extract tags from
      * @param language The language to use for tag generation
      * @param aiModel The AI model to use for tag generation
+     * @param bypassCache Skip cached responses and always call the AI model
      * @return A list of suggested tags
      */
-    suspend fun extractTags(content: String, language: String = "English", aiModel: String? = null, maxTags: Int = 15): Result<List<String>> = withContext(Dispatchers.IO) {
+    suspend fun extractTags(content: String, language: String = "English", aiModel: String? = null, maxTags: Int = 15, bypassCache: Boolean = false): Result<List<String>> = withContext(Dispatchers.IO) {
         try {
             // Delegate to the AiServiceManager
             aiServiceManager.generateTags(
                 content = content,
                 language = language,
                 aiModel = aiModel,
-                maxTags = maxTags
+                maxTags = maxTags,
+                bypassCache = bypassCache
             )
         } catch (e: Exception) {
             Result.failure(e)
@@ -78,15 +111,17 @@ class AiService @Inject constructor(
      * @param content The content to generate a title for
      * @param language The language to use for title generation
      * @param aiModel The AI model to use for title generation
+     * @param bypassCache Skip cached responses and always call the AI model
      * @return A suggested title
      */
-    suspend fun generateTitle(content: String, language: String = "English", aiModel: String? = null): Result<String> = withContext(Dispatchers.IO) {
+    suspend fun generateTitle(content: String, language: String = "English", aiModel: String? = null, bypassCache: Boolean = false): Result<String> = withContext(Dispatchers.IO) {
         try {
             // Delegate to the AiServiceManager
             aiServiceManager.generateTitle(
                 content = content,
                 language = language,
-                aiModel = aiModel
+                aiModel = aiModel,
+                bypassCache = bypassCache
             )
         } catch (e: Exception) {
             Result.failure(e)
@@ -0,0 +1,171 @@
+package com.secondbrain.data.service
+
+import android.util.Log
+import com.secondbrain.util.await
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.withContext
+import okhttp3.Cache
+import okhttp3.CacheControl
+import okhttp3.OkHttpClient
+import okhttp3.Request
+import okhttp3.Response
+import okhttp3.ResponseBody
+import org.jsoup.Jsoup
+import org.jsoup.nodes.Document
+import java.io.IOException
+import java.io.InputStream
+import java.util.concurrent.TimeUnit
+import javax.inject.Inject
+import javax.inject.Singleton
+
+/**
+ * Fetches web pages and files for the scraping services over the shared OkHttp transport.
+ *
+ * GET responses go through an on-disk HTTP cache: unchanged pages are revalidated with a
+ * conditional request and come back as 304s, and cached copies are served when offline.
+ */
+@Singleton
+class HttpFetcher @Inject constructor(
+    client: OkHttpClient,
+    cache: Cache
+) {
+    companion object {
+        private const val TAG = "HttpFetcher"
+        const val DEFAULT_USER_AGENT = "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/91.0.4472.124 Safari/537.36"
+        const val DEFAULT_TIMEOUT_MS = 10000
+    }
+
+    private val client = client.newBuilder()
+        .cache(cache)
+        .build()
+
+    /**
+     * Fetch and parse an HTML page
+     * @throws IOException if the request fails or the server doesn't answer with a 2xx status
+     */
+    suspend fun fetchDocument(
+        url: String,
+        userAgent: String = DEFAULT_USER_AGENT,
+        timeoutMs: Int = DEFAULT_TIMEOUT_MS
+    ): Document {
+        // Jsoup decodes the bytes with the charset from Content-Type or the page's <meta charset>
+        return fetchBody(url, userAgent, timeoutMs) { body ->
+            Jsoup.parse(body.byteStream(), body.contentType()?.charset()?.name(), url)
+        }
+    }
+
+    /**
+     * Fetch a response body as text in the charset of its Content-Type (UTF-8 by default),
+     * whatever its content type
+     * @throws IOException if the request fails or the server doesn't answer with a 2xx status
+     */
+    suspend fun fetchString(
+        url: String,
+        userAgent: String = DEFAULT_USER_AGENT,
+        timeoutMs: Int = DEFAULT_TIMEOUT_MS
+    ): String {
+        return fetchBody(url, userAgent, timeoutMs) { it.string() }
+    }
+
+    /**
+     * Fetch a response body and hand its stream to [read]
+     *
+     * @param contentType Top-level media type the response must have, e.g. "image"; checked from
+     * the response headers before any of the body is read
+     * @param useCache Whether the response may be read from and written to the HTTP cache; image
+     * downloads pass false so they don't evict the scraped pages the cache is sized for
+     * @throws IOException if the request fails, the server doesn't answer with a 2xx status or the
+     * response has a different content type
+     */
+    suspend fun <T> download(
+        url: String,
+        userAgent: String = DEFAULT_USER_AGENT,
+        timeoutMs: Int = DEFAULT_TIMEOUT_MS,
+        contentType: String? = null,
+        useCache: Boolean = true,
+        read: (InputStream) -> T
+    ): T = fetchBody(url, userAgent, timeoutMs, contentType, useCache) { read(it.byteStream()) }
+
+    private suspend fun <T> fetchBody(
+        url: String,
+        userAgent: String,
+        timeoutMs: Int,
+        contentType: String? = null,
+        useCache: Boolean = true,
+        read: (ResponseBody) -> T
+    ): T = withContext(Dispatchers.IO) {
+        val request = Request.Builder()
+            .url(url)
+            .header("User-Agent", userAgent)
+            .apply { if (!useCache) cacheControl(CacheControl.Builder().noStore().build()) }
+            .build()
+
+        val call = client.newCall(request)
+        call.timeout().timeout(timeoutMs.toLong(), TimeUnit.MILLISECONDS)
+
+        val response = try {
+            call.await()
+        } catch (e: IOException) {
+            if (!useCache) throw e
+            // Unreachable or offline: use a cached copy, however old, if there is one
+            cachedResponse(request, timeoutMs) ?: throw e
+        }
+
+        response.use {
+            logCacheUse(response)
+            if (!response.isSuccessful) {
+                throw IOException("HTTP ${response.code} fetching $url")
+            }
+            val body = response.body ?: throw IOException("Empty response fetching $url")
+            if (contentType != null && body.contentType()?.type != contentType) {
+                throw IOException("Expected $contentType content fetching $url but got ${body.contentType()}")
+            }
+            read(body)
+        }
+    }
+
+    private suspend fun cachedResponse(request: Request, timeoutMs: Int): Response? {
+        val call = client.newCall(request.newBuilder().cacheControl(CacheControl.FORCE_CACHE).build())
+        call.timeout().timeout(timeoutMs.toLong(), TimeUnit.MILLISECONDS)
+        val response = call.await()
+
+        // OkHttp answers 504 when a cache-only request has no cached copy
+        if (response.code == 504) {
+            response.close()
+            return null
+        }
+        Log.d(TAG, "Serving cached copy of ${request.url} while offline")
+        return response
+    }
+
+    private fun logCacheUse(response: Response) {
+        when {
+            response.networkResponse?.code == 304 -> Log.d(TAG, "Revalidated cached ${response.request.url}")
+            response.networkResponse == null && response.cacheResponse != null ->
+                Log.d(TAG, "Served ${response.request.url} from cache")
+        }
+    }
+
+    /**
+     * Check with a HEAD request whether a URL answers 200 OK
+     */
+    suspend fun isAccessible(
+        url: String,
+        userAgent: String = DEFAULT_USER_AGENT,
+        timeoutMs: Int = DEFAULT_TIMEOUT_MS
+    ): Boolean {
+        return try {
+            val request = Request.Builder()
+                .url(url)
+                .head()
+                .header("User-Agent", userAgent)
+                .build()
+
+            val call = client.newCall(request)
+            call.timeout().timeout(timeoutMs.toLong(), TimeUnit.MILLISECONDS)
+            call.await().use { it.code == 200 }
+        } catch (e: Exception) {
+            false
+        }
+    }
+}
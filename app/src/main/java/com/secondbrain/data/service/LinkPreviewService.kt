@@ -5,7 +5,6 @@ import android.util.Log
 import dagger.hilt.android.qualifiers.ApplicationContext
 import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.withContext
-import org.jsoup.Jsoup
 import java.io.IOException
 import javax.inject.Inject
 import javax.inject.Singleton
@@ -15,7 +14,8 @@ import javax.inject.Singleton
  */
 @Singleton
 class LinkPreviewService @Inject constructor(
-    @ApplicationContext private val context: Context
+    @ApplicationContext private val context: Context,
+    private val pageSnapshotCache: PageSnapshotCache
 ) {
     companion object {
         private const val TAG = "LinkPreviewService"
@@ -45,31 +45,14 @@ class LinkPreviewService @Inject constructor(
         try {
             Log.d(TAG, "Getting preview for URL: $url")
 
-            // Fetch the webpage
-            val doc = Jsoup.connect(url)
-                .userAgent(USER_AGENT)
-                .timeout(TIMEOUT_MS)
-                .get()
+            // Fetch the webpage, or reuse the copy fetched for the same card
+            val metadata = pageSnapshotCache.get(url, USER_AGENT, TIMEOUT_MS).metadata
 
-            // Extract metadata
-            val title = doc.title()
-            val description = doc.select("meta[name=description]").attr("content")
-                .ifEmpty { doc.select("meta[property=og:description]").attr("content") }
-
-            // Get the thumbnail image - try multiple sources
-            var imageUrl = doc.select("meta[property=og:image]").attr("content")
-
-            // If no OpenGraph image, try Twitter card image
-            if (imageUrl.isEmpty()) {
-                imageUrl = doc.select("meta[name=twitter:image]").attr("content")
-            }
-
-            // Get site name
-            val siteName = doc.select("meta[property=og:site_name]").attr("content")
-                .ifEmpty { extractDomain(url) }
-
-            // Get favicon
-            val favIcon = doc.select("link[rel~=icon]").attr("href")
+            val title = metadata.title
+            val description = metadata.description.orEmpty()
+            val imageUrl = metadata.imageUrl.orEmpty()
+            val siteName = metadata.siteName ?: extractDomain(url)
+            val favIcon = metadata.favIcon.orEmpty()
 
             // Make sure URLs are absolute
             val absoluteImageUrl = makeAbsoluteUrl(imageUrl, url)
@@ -0,0 +1,143 @@
+package com.secondbrain.data.service
+
+import android.os.SystemClock
+import android.util.Log
+import com.secondbrain.data.service.ai.SingleFlight
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.SupervisorJob
+import org.jsoup.nodes.Document
+import java.net.URI
+import javax.inject.Inject
+import javax.inject.Singleton
+
+/**
+ * Short-lived cache of fetched and parsed pages, so saving a URL card downloads and parses the
+ * page once for content extraction, link preview and thumbnail lookup
+ */
+@Singleton
+class PageSnapshotCache @Inject constructor(
+    private val httpFetcher: HttpFetcher
+) {
+    companion object {
+        private const val TAG = "PageSnapshotCache"
+
+        // Long enough to cover the services that handle one card, short enough not to serve stale pages
+        private const val TTL_MS = 2 * 60_000L
+
+        // Parsed documents can be large, so only the most recent few are kept
+        private const val MAX_ENTRIES = 4
+
+        /**
+         * Cache key for a URL: scheme and host are case-insensitive, fragments and default ports
+         * don't change the page
+         */
+        fun normalizeUrl(url: String): String {
+            return try {
+                val uri = URI(url.trim())
+                val scheme = uri.scheme?.lowercase() ?: return url.trim()
+                val host = uri.host?.lowercase() ?: return url.trim()
+                val port = uri.port.takeUnless {
+                    it == -1 || (scheme == "http" && it == 80) || (scheme == "https" && it == 443)
+                }
+                val path = uri.rawPath.orEmpty().ifEmpty { "/" }
+                val query = uri.rawQuery?.let { "?$it" }.orEmpty()
+                "$scheme://$host${port?.let { ":$it" }.orEmpty()}$path$query"
+            } catch (e: Exception) {
+                url.trim()
+            }
+        }
+    }
+
+    /**
+     * A parsed page and its preview metadata.
+     *
+     * The document is shared between callers and must not be modified; clone elements before
+     * removing anything from them.
+     */
+    class PageSnapshot(
+        val url: String,
+        val document: Document,
+        val metadata: PageMetadata
+    )
+
+    /**
+     * OpenGraph/Twitter card metadata of a page, as written in the page (URLs may be relative)
+     */
+    data class PageMetadata(
+        val title: String,
+        val description: String?,
+        val imageUrl: String?,
+        val siteName: String?,
+        val favIcon: String?
+    )
+
+    private class Entry(val snapshot: PageSnapshot, val fetchedAt: Long)
+
+    private val entries = object : LinkedHashMap<String, Entry>(MAX_ENTRIES, 0.75f, true) {
+        override fun removeEldestEntry(eldest: MutableMap.MutableEntry<String, Entry>): Boolean {
+            return size > MAX_ENTRIES
+        }
+    }
+
+    private val inFlightFetches = SingleFlight<PageSnapshot>(CoroutineScope(SupervisorJob() + Dispatchers.IO))
+
+    /**
+     * Return a recent snapshot of [url], fetching and parsing the page if there is none.
+     * Concurrent calls for the same page share one fetch.
+     *
+     * @throws java.io.IOException if the page can't be fetched
+     */
+    suspend fun get(
+        url: String,
+        userAgent: String = HttpFetcher.DEFAULT_USER_AGENT,
+        timeoutMs: Int = HttpFetcher.DEFAULT_TIMEOUT_MS
+    ): PageSnapshot {
+        val key = normalizeUrl(url)
+        cached(key)?.let { return it }
+
+        return inFlightFetches.run(key) {
+            cached(key) ?: fetch(url, userAgent, timeoutMs).also { snapshot ->
+                synchronized(entries) { entries[key] = Entry(snapshot, SystemClock.elapsedRealtime()) }
+            }
+        }
+    }
+
+    /**
+     * Drop the snapshot of [url], e.g. when the caller needs the live page
+     */
+    fun invalidate(url: String) {
+        synchronized(entries) { entries.remove(normalizeUrl(url)) }
+    }
+
+    private fun cached(key: String): PageSnapshot? {
+        synchronized(entries) {
+            val entry = entries[key] ?: return null
+            if (SystemClock.elapsedRealtime() - entry.fetchedAt > TTL_MS) {
+                entries.remove(key)
+                return null
+            }
+            Log.d(TAG, "Using page snapshot for $key")
+            return entry.snapshot
+        }
+    }
+
+    private suspend fun fetch(url: String, userAgent: String, timeoutMs: Int): PageSnapshot {
+        val doc = httpFetcher.fetchDocument(url, userAgent, timeoutMs)
+
+        val metadata = PageMetadata(
+            title = doc.title(),
+            description = doc.select("meta[name=description]").attr("content")
+                .ifEmpty { doc.select("meta[property=og:description]").attr("content") }
+                .ifEmpty { null },
+            // Prefer the OpenGraph image, then the Twitter card image
+            imageUrl = doc.select("meta[property=og:image]").attr("content")
+                .ifEmpty { doc.select("meta[name=twitter:image]").attr("content") }
+                .ifEmpty { null },
+            siteName = doc.select("meta[property=og:site_name]").attr("content").ifEmpty { null },
+            favIcon = doc.select("link[rel~=icon]").attr("href").ifEmpty { null }
+        )
+
+        return PageSnapshot(url, doc, metadata)
+    }
+}
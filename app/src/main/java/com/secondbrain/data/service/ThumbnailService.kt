@@ -16,16 +16,12 @@ import com.secondbrain.data.model.CardType
 import com.secondbrain.data.service.youtube.YouTubeThumbnailService
 import com.secondbrain.util.ContentExtractor
 import com.secondbrain.util.PdfProcessor
+import com.secondbrain.util.ThumbnailStore
 import dagger.hilt.android.qualifiers.ApplicationContext
 import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.withContext
-import org.jsoup.Jsoup
-import java.io.File
-import java.io.FileOutputStream
 import java.io.IOException
-import java.net.HttpURLConnection
 import java.net.URL
-import java.security.MessageDigest
 import javax.inject.Inject
 import javax.inject.Singleton
 
@@ -36,7 +32,9 @@ import javax.inject.Singleton
 class ThumbnailService @Inject constructor(
     @ApplicationContext private val context: Context,
     private val youTubeThumbnailService: YouTubeThumbnailService,
-    private val linkPreviewService: LinkPreviewService
+    private val linkPreviewService: LinkPreviewService,
+    private val httpFetcher: HttpFetcher,
+    private val pageSnapshotCache: PageSnapshotCache
 ) {
     companion object {
         private const val TAG = "ThumbnailService"
@@ -87,8 +85,13 @@ class ThumbnailService @Inject constructor(
             // Check cache first
             val cacheKey = "${url}_${type.name}"
             thumbnailUrlCache.get(cacheKey)?.let {
-                Log.d(TAG, "Thumbnail URL cache hit for: $cacheKey")
-                return@withContext it
+                if (ThumbnailStore.isMissingLocalFile(it)) {
+                    // The thumbnail was evicted from the store, so generate it again
+                    thumbnailUrlCache.remove(cacheKey)
+                } else {
+                    Log.d(TAG, "Thumbnail URL cache hit for: $cacheKey")
+                    return@withContext it
+                }
             }
 
             // Get thumbnail based on content type
@@ -162,7 +165,7 @@ class ThumbnailService @Inject constructor(
                 Log.d(TAG, "Found thumbnail using LinkPreviewService: $linkPreviewThumbnail")
 
                 // If it's a remote URL, download it locally
-                if (linkPreviewThumbnail.startsWith("http") && isUrlAccessible(linkPreviewThumbnail)) {
+                if (linkPreviewThumbnail.startsWith("http")) {
                     val localThumbnail = downloadAndSaveThumbnail(linkPreviewThumbnail)
                     if (localThumbnail != null) {
                         Log.d(TAG, "Downloaded LinkPreview thumbnail to: $localThumbnail")
@@ -177,21 +180,13 @@ class ThumbnailService @Inject constructor(
             Log.d(TAG, "LinkPreviewService failed, falling back to manual extraction")
 
             try {
-                // Try to get the webpage
-                val doc = Jsoup.connect(url)
-                    .userAgent(USER_AGENT)
-                    .timeout(CONNECT_TIMEOUT)
-                    .get()
-
-                // Try OpenGraph image
-                var thumbnailUrl = doc.select("meta[property=og:image]").attr("content")
-                Log.d(TAG, "OpenGraph image: $thumbnailUrl")
+                // Reuse the page fetched by LinkPreviewService; it is only fetched again if that failed
+                val snapshot = pageSnapshotCache.get(url, USER_AGENT, CONNECT_TIMEOUT)
+                val doc = snapshot.document
 
-                // If no OpenGraph image, try Twitter card image
-                if (thumbnailUrl.isEmpty()) {
-                    thumbnailUrl = doc.select("meta[name=twitter:image]").attr("content")
-                    Log.d(TAG, "Twitter card image: $thumbnailUrl")
-                }
+                // Try OpenGraph or Twitter card image
+                var thumbnailUrl = snapshot.metadata.imageUrl.orEmpty()
+                Log.d(TAG, "OpenGraph/Twitter card image: $thumbnailUrl")
 
                 // If still no image, try to find the largest image in the content
                 if (thumbnailUrl.isEmpty()) {
@@ -211,20 +206,17 @@ class ThumbnailService @Inject constructor(
                     Log.d(TAG, "Converted to absolute URL: $thumbnailUrl")
                 }
 
-                // If we have a valid thumbnail URL, download it locally
-                if (thumbnailUrl.isNotEmpty() && thumbnailUrl.startsWith("http") && isUrlAccessible(thumbnailUrl)) {
+                // If we have a valid thumbnail URL, download it locally; if that fails try the favicon
+                if (thumbnailUrl.isNotEmpty() && thumbnailUrl.startsWith("http")) {
                     val localThumbnail = downloadAndSaveThumbnail(thumbnailUrl)
                     if (localThumbnail != null) {
                         Log.d(TAG, "Downloaded thumbnail to: $localThumbnail")
                         return@withContext localThumbnail
                     }
-
-                    // If we couldn't download it, still return the URL
-                    return@withContext thumbnailUrl
                 }
 
                 // If we still don't have a valid thumbnail, try favicon
-                val favicon = doc.select("link[rel~=icon]").attr("href")
+                val favicon = snapshot.metadata.favIcon.orEmpty()
                 if (favicon.isNotEmpty()) {
                     val faviconUrl = if (favicon.startsWith("http")) {
                         favicon
@@ -236,15 +228,12 @@ class ThumbnailService @Inject constructor(
                     }
 
                     Log.d(TAG, "Trying favicon: $faviconUrl")
-                    if (faviconUrl.startsWith("http") && isUrlAccessible(faviconUrl)) {
+                    if (faviconUrl.startsWith("http")) {
                         val localFavicon = downloadAndSaveThumbnail(faviconUrl)
                         if (localFavicon != null) {
                             Log.d(TAG, "Downloaded favicon to: $localFavicon")
                             return@withContext localFavicon
                         }
-
-                        // If we couldn't download it, still return the URL
-                        return@withContext faviconUrl
                     }
                 }
             } catch (e: Exception) {
@@ -288,9 +277,7 @@ class ThumbnailService @Inject constructor(
                 val fileId = url.substringAfter("id=").substringBefore("&")
                 if (fileId.isNotEmpty()) {
                     val thumbnailUrl = "https://drive.google.com/thumbnail?id=$fileId&sz=w1000"
-                    if (isUrlAccessible(thumbnailUrl)) {
-                        return@withContext thumbnailUrl
-                    }
+                    downloadAndSaveThumbnail(thumbnailUrl)?.let { return@withContext it }
                 }
             }
 
@@ -331,12 +318,7 @@ class ThumbnailService @Inject constructor(
             val encodedTitle = java.net.URLEncoder.encode(title, "UTF-8")
             val apiUrl = "https://en.wikipedia.org/w/api.php?action=query&titles=$encodedTitle&prop=pageimages&format=json&pithumbsize=500"
 
-            val response = Jsoup.connect(apiUrl)
-                .userAgent(USER_AGENT)
-                .timeout(CONNECT_TIMEOUT)
-                .ignoreContentType(true)
-                .execute()
-                .body()
+            val response = httpFetcher.fetchString(apiUrl, USER_AGENT, CONNECT_TIMEOUT)
 
             val jsonResponse = org.json.JSONObject(response)
             val pages = jsonResponse.getJSONObject("query").getJSONObject("pages")
@@ -358,16 +340,11 @@ class ThumbnailService @Inject constructor(
      */
     suspend fun generateTextThumbnail(text: String, type: CardType): String = withContext(Dispatchers.IO) {
         try {
-            // Create a unique filename based on the text
-            val hash = MessageDigest.getInstance("MD5").digest(text.toByteArray())
-                .joinToString("") { "%02x".format(it) }
-            val filename = "thumbnail_$hash.png"
-
-            // Check if the file already exists
-            val file = File(context.cacheDir, filename)
-            if (file.exists()) {
-                Log.d(TAG, "Using existing thumbnail file: ${file.absolutePath}")
-                return@withContext "file://${file.absolutePath}"
+            // Reuse the thumbnail if this text was rendered before
+            val key = ThumbnailStore.keyFor("text", text, type.name)
+            ThumbnailStore.get(context, key)?.let { path ->
+                Log.d(TAG, "Using existing thumbnail file: $path")
+                return@withContext "file://$path"
             }
 
             // Create a bitmap for the thumbnail
@@ -406,15 +383,14 @@ class ThumbnailService @Inject constructor(
             val yPos = (height / 2) - ((paint.descent() + paint.ascent()) / 2)
             canvas.drawText(letter, xPos.toFloat(), yPos, paint)
 
-            // Save the bitmap to a file
-            FileOutputStream(file).use { out ->
-                bitmap.compress(Bitmap.CompressFormat.PNG, 100, out)
-            }
+            // Save the bitmap to the thumbnail store
+            val path = ThumbnailStore.putBitmap(context, bitmap, key)
+            bitmap.recycle()
 
-            Log.d(TAG, "Generated new thumbnail file: ${file.absolutePath}")
+            Log.d(TAG, "Generated new thumbnail file: $path")
 
             // Return a proper file URI that can be used by AsyncImage
-            val fileUri = "file://${file.absolutePath}"
+            val fileUri = "file://$path"
             Log.d(TAG, "Returning thumbnail URI: $fileUri")
             return@withContext fileUri
         } catch (e: Exception) {
@@ -434,41 +410,20 @@ class ThumbnailService @Inject constructor(
                 return@withContext null
             }
 
-            // Create a unique filename based on the URL
-            val hash = MessageDigest.getInstance("MD5").digest(url.toByteArray())
-                .joinToString("") { "%02x".format(it) }
-            val filename = "thumbnail_$hash.png"
-
-            // Check if the file already exists
-            val file = File(context.cacheDir, filename)
-            if (file.exists()) {
-                Log.d(TAG, "Using existing downloaded thumbnail: ${file.absolutePath}")
-                return@withContext "file://${file.absolutePath}"
-            }
-
             Log.d(TAG, "Downloading thumbnail from URL: $url")
 
-            // Download the image
-            val connection = URL(url).openConnection() as HttpURLConnection
-            connection.connectTimeout = CONNECT_TIMEOUT
-            connection.readTimeout = READ_TIMEOUT
-            connection.setRequestProperty("User-Agent", USER_AGENT)
-
-            val inputStream = connection.inputStream
-            val bitmap = android.graphics.BitmapFactory.decodeStream(inputStream)
-            inputStream.close()
-            connection.disconnect()
-
-            if (bitmap != null) {
-                // Save the bitmap to a file
-                FileOutputStream(file).use { out ->
-                    bitmap.compress(Bitmap.CompressFormat.PNG, 90, out)
-                }
+            // Download the encoded image in a single request that fails fast on errors and non-images;
+            // it is decoded downsampled to the thumbnail size
+            val bytes = httpFetcher.download(url, USER_AGENT, CONNECT_TIMEOUT + READ_TIMEOUT, contentType = "image", useCache = false) { inputStream ->
+                inputStream.readBytes()
+            }
 
-                Log.d(TAG, "Successfully downloaded and saved thumbnail: ${file.absolutePath}")
+            val path = ThumbnailStore.putEncodedImage(context, bytes)
+            if (path != null) {
+                Log.d(TAG, "Successfully downloaded and saved thumbnail: $path")
 
                 // Return a proper file URI that can be used by AsyncImage
-                val fileUri = "file://${file.absolutePath}"
+                val fileUri = "file://$path"
                 Log.d(TAG, "Returning downloaded thumbnail URI: $fileUri")
                 return@withContext fileUri
             } else {
@@ -482,25 +437,6 @@ class ThumbnailService @Inject constructor(
         }
     }
 
-    /**
-     * Check if a URL is accessible
-     */
-    private suspend fun isUrlAccessible(url: String): Boolean = withContext(Dispatchers.IO) {
-        try {
-            val connection = URL(url).openConnection() as HttpURLConnection
-            connection.requestMethod = "HEAD"
-            connection.connectTimeout = CONNECT_TIMEOUT
-            connection.readTimeout = READ_TIMEOUT
-
-            val responseCode = connection.responseCode
-            connection.disconnect()
-
-            return@withContext responseCode == HttpURLConnection.HTTP_OK
-        } catch (e: Exception) {
-            return@withContext false
-        }
-    }
-
     /**
      * Find the largest image in a document
      */
@@ -1,46 +1,55 @@
 package com.secondbrain.data.service
 
+import android.content.Context
 import android.util.Log
+import androidx.work.Constraints
+import androidx.work.ExistingWorkPolicy
+import androidx.work.NetworkType
+import androidx.work.OneTimeWorkRequestBuilder
+import androidx.work.WorkManager
 import com.secondbrain.data.model.Card
 import com.secondbrain.data.repository.CardRepository
+import com.secondbrain.data.service.worker.ThumbnailBackfillWorker
+import dagger.hilt.android.qualifiers.ApplicationContext
 import kotlinx.coroutines.Dispatchers
-import kotlinx.coroutines.flow.first
 import kotlinx.coroutines.withContext
 import javax.inject.Inject
 import javax.inject.Singleton
 
 @Singleton
 class ThumbnailUpdateService @Inject constructor(
+    @ApplicationContext private val context: Context,
     private val cardRepository: CardRepository,
     private val thumbnailService: ThumbnailService
 ) {
-    private val TAG = "ThumbnailUpdateService"
+    companion object {
+        private const val TAG = "ThumbnailUpdateService"
+        private const val WORK_BACKFILL = "thumbnail_backfill"
+    }
+
+    private val workManager by lazy { WorkManager.getInstance(context) }
     
     /**
-     * Generate thumbnails for all cards that don't have one
+     * Generate thumbnails for all cards that don't have one in a background job. A backfill that
+     * is already queued or running is left alone, and an interrupted one resumes where it stopped.
      */
-    suspend fun updateAllCardThumbnails() = withContext(Dispatchers.IO) {
+    fun updateAllCardThumbnails() {
         try {
-            Log.d(TAG, "Starting thumbnail update for all cards")
-            
-            // Get all cards
-            val cards = cardRepository.getCards().first()
-            
-            // Count of cards that need thumbnails
-            val cardsWithoutThumbnails = cards.filter { it.thumbnailUrl.isNullOrEmpty() }
-            Log.d(TAG, "Found ${cardsWithoutThumbnails.size} cards without thumbnails out of ${cards.size} total cards")
-            
-            // Update thumbnails for each card
-            cardsWithoutThumbnails.forEach { card ->
-                updateCardThumbnail(card)
-            }
-            
-            Log.d(TAG, "Finished updating thumbnails for all cards")
+            val workRequest = OneTimeWorkRequestBuilder<ThumbnailBackfillWorker>()
+                .setConstraints(
+                    Constraints.Builder()
+                        .setRequiredNetworkType(NetworkType.CONNECTED)
+                        .build()
+                )
+                .build()
+
+            workManager.enqueueUniqueWork(WORK_BACKFILL, ExistingWorkPolicy.KEEP, workRequest)
+            Log.d(TAG, "Scheduled thumbnail backfill")
         } catch (e: Exception) {
-            Log.e(TAG, "Error updating thumbnails for all cards", e)
+            Log.e(TAG, "Error scheduling thumbnail backfill", e)
         }
     }
-    
+
     /**
      * Generate a thumbnail for a specific card
      */
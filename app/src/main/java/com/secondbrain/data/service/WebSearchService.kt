@@ -15,7 +15,9 @@ import javax.inject.Singleton
  * Service for performing web searches
  */
 @Singleton
-class WebSearchService @Inject constructor() {
+class WebSearchService @Inject constructor(
+    private val httpFetcher: HttpFetcher
+) {
 
     companion object {
         private const val TAG = "WebSearchService"
@@ -38,13 +40,8 @@ class WebSearchService @Inject constructor() {
             val url = "https://html.duckduckgo.com/html/?q=$encodedQuery"
             Log.d(TAG, "DuckDuckGo search URL: $url")
 
-            val connection = Jsoup.connect(url)
-                .userAgent(USER_AGENT)
-                .timeout(TIMEOUT_MS)
-                .followRedirects(true)
-
             Log.d(TAG, "Executing DuckDuckGo search request...")
-            val doc = connection.get()
+            val doc = httpFetcher.fetchDocument(url, USER_AGENT, TIMEOUT_MS)
             Log.d(TAG, "DuckDuckGo search response received, document title: ${doc.title()}")
 
             // Extract search results
@@ -140,12 +137,7 @@ class WebSearchService @Inject constructor() {
             val encodedQuery = URLEncoder.encode(query, "UTF-8")
             val url = "$WIKIPEDIA_API_URL?action=query&list=search&srsearch=$encodedQuery&format=json&utf8=1"
 
-            val response = Jsoup.connect(url)
-                .userAgent(USER_AGENT)
-                .timeout(TIMEOUT_MS)
-                .ignoreContentType(true)
-                .execute()
-                .body()
+            val response = httpFetcher.fetchString(url, USER_AGENT, TIMEOUT_MS)
 
             val jsonObject = JSONObject(response)
             val searchResults = jsonObject.getJSONObject("query").getJSONArray("search")
@@ -163,12 +155,7 @@ class WebSearchService @Inject constructor() {
                 // Try to get a thumbnail
                 val thumbnailUrl = try {
                     val pageImageUrl = "$WIKIPEDIA_API_URL?action=query&titles=${URLEncoder.encode(title, "UTF-8")}&prop=pageimages&format=json&pithumbsize=100"
-                    val pageImageResponse = Jsoup.connect(pageImageUrl)
-                        .userAgent(USER_AGENT)
-                        .timeout(TIMEOUT_MS)
-                        .ignoreContentType(true)
-                        .execute()
-                        .body()
+                    val pageImageResponse = httpFetcher.fetchString(pageImageUrl, USER_AGENT, TIMEOUT_MS)
 
                     val pageImageJson = JSONObject(pageImageResponse)
                     val pages = pageImageJson.getJSONObject("query").getJSONObject("pages")
@@ -209,12 +196,7 @@ class WebSearchService @Inject constructor() {
             val encodedQuery = URLEncoder.encode(query, "UTF-8")
             val url = "$WIKIDATA_API_URL?action=wbsearchentities&search=$encodedQuery&language=en&format=json"
 
-            val response = Jsoup.connect(url)
-                .userAgent(USER_AGENT)
-                .timeout(TIMEOUT_MS)
-                .ignoreContentType(true)
-                .execute()
-                .body()
+            val response = httpFetcher.fetchString(url, USER_AGENT, TIMEOUT_MS)
 
             val jsonObject = JSONObject(response)
             val searchResults = jsonObject.getJSONArray("search")
@@ -0,0 +1,43 @@
+package com.secondbrain.data.service.ai
+
+import android.util.Log
+import kotlinx.coroutines.flow.MutableStateFlow
+import kotlinx.coroutines.flow.StateFlow
+import kotlinx.coroutines.flow.asStateFlow
+import javax.inject.Inject
+import javax.inject.Singleton
+
+/**
+ * In-memory latency metrics for AI requests, keyed by provider name
+ */
+@Singleton
+class AiMetrics @Inject constructor() {
+
+    companion object {
+        private const val TAG = "AiMetrics"
+        private const val MAX_SAMPLES = 50
+    }
+
+    private val timeToFirstTokenSamples = mutableMapOf<String, ArrayDeque<Long>>()
+
+    private val _medianTimeToFirstToken = MutableStateFlow<Map<String, Long>>(emptyMap())
+
+    /**
+     * Median time to first streamed token over the recent samples of each provider, in milliseconds
+     */
+    val medianTimeToFirstToken: StateFlow<Map<String, Long>> = _medianTimeToFirstToken.asStateFlow()
+
+    /**
+     * Record how long a streaming request took to produce its first token
+     */
+    fun recordTimeToFirstToken(provider: String, elapsedMs: Long) {
+        val median = synchronized(timeToFirstTokenSamples) {
+            val samples = timeToFirstTokenSamples.getOrPut(provider) { ArrayDeque() }
+            samples.addLast(elapsedMs)
+            if (samples.size > MAX_SAMPLES) samples.removeFirst()
+            samples.sorted()[samples.size / 2]
+        }
+        _medianTimeToFirstToken.value = _medianTimeToFirstToken.value + (provider to median)
+        Log.d(TAG, "Time to first token for $provider: ${elapsedMs}ms (median ${median}ms)")
+    }
+}
@@ -3,50 +3,126 @@ package com.secondbrain.data.service.ai
 import android.content.Context
 import android.net.Uri
 import android.util.Log
-import androidx.lifecycle.LiveData
+import androidx.lifecycle.Observer
 import androidx.work.Constraints
 import androidx.work.Data
-import androidx.work.ExistingWorkPolicy
 import androidx.work.NetworkType
 import androidx.work.OneTimeWorkRequestBuilder
 import androidx.work.WorkInfo
 import androidx.work.WorkManager
 import com.secondbrain.data.model.CardType
+import com.secondbrain.data.service.ai.worker.AiPayloadStore
 import com.secondbrain.data.service.ai.worker.AiProcessingWorker
 import dagger.hilt.android.qualifiers.ApplicationContext
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.Job
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.delay
 import kotlinx.coroutines.flow.MutableStateFlow
 import kotlinx.coroutines.flow.StateFlow
 import kotlinx.coroutines.flow.asStateFlow
+import kotlinx.coroutines.launch
+import org.json.JSONArray
+import org.json.JSONObject
 import java.util.UUID
+import java.util.concurrent.TimeUnit
 import javax.inject.Inject
 import javax.inject.Singleton
 
 /**
- * Service for managing AI processing tasks
+ * Service for managing AI processing tasks.
+ *
+ * Interactive tasks are enqueued right away. Backfill tasks wait in an in-memory queue with only
+ * a few work requests outstanding at a time, so bulk re-processing doesn't flood WorkManager.
+ * Tag and title tasks are collected for a short window and run as one batched work request.
+ *
+ * Task IDs, states, the backfill queue and pending batches live only in memory, because results
+ * reach callers only through [processingState]. Work left over from an earlier process is
+ * cancelled at startup, since its results could no longer be delivered. Backfill callers must
+ * therefore track their own progress and re-submit unfinished tasks after the process restarts.
  */
 @Singleton
 class AiProcessingService @Inject constructor(
-    @ApplicationContext private val context: Context
+    @ApplicationContext private val context: Context,
+    private val payloadStore: AiPayloadStore
 ) {
     companion object {
         private const val TAG = "AiProcessingService"
 
-        // Work names
-        private const val WORK_SUMMARIZE_PREFIX = "summarize_"
-        private const val WORK_TRANSCRIBE_PREFIX = "transcribe_"
-        private const val WORK_EXTRACT_TEXT_PREFIX = "extract_text_"
-        private const val WORK_GENERATE_TAGS_PREFIX = "generate_tags_"
-        private const val WORK_GENERATE_TITLE_PREFIX = "generate_title_"
+        private const val WORK_TAG = "ai_processing"
+
+        // Backfill work requests enqueued at a time; the rest wait in the queue
+        private const val MAX_ACTIVE_BACKFILL_WORK = 2
+
+        private const val MAX_BATCH_SIZE = 10
+        private const val INTERACTIVE_BATCH_WINDOW_MS = 300L
+        private const val BACKFILL_BATCH_WINDOW_MS = 5_000L
+
+        // Finished task states kept for callers to read; older ones are dropped
+        private const val MAX_FINISHED_STATES = 100
+
+        // Payloads of tasks whose outcome was never observed are kept this long
+        private val STALE_PAYLOAD_AGE_MS = TimeUnit.DAYS.toMillis(7)
+
+        /**
+         * Drop the oldest finished states beyond [maxFinished], keeping every task in progress
+         */
+        fun retainStates(states: Map<String, ProcessingState>, maxFinished: Int): Map<String, ProcessingState> {
+            var excess = states.values.count { it != ProcessingState.PROCESSING } - maxFinished
+            if (excess <= 0) return states
+
+            val retained = LinkedHashMap<String, ProcessingState>()
+            for ((taskId, state) in states) {
+                if (state != ProcessingState.PROCESSING && excess > 0) {
+                    excess--
+                } else {
+                    retained[taskId] = state
+                }
+            }
+            return retained
+        }
     }
 
+    /**
+     * A work request to enqueue and the tasks it runs
+     */
+    private class QueuedWork(
+        val taskIds: List<String>,
+        val inputData: Data,
+        val priority: TaskPriority,
+        val batchId: String? = null
+    )
+
     private val workManager = WorkManager.getInstance(context)
+    private val scope = CoroutineScope(SupervisorJob() + Dispatchers.IO)
+
+    // Guards the queue, pending batches and work IDs below
+    private val lock = Any()
+    private val backfillQueue = ArrayDeque<QueuedWork>()
+    private var activeBackfillWork = 0
+    private val pendingBatches = mutableMapOf<TaskPriority, MutableList<JSONObject>>()
+    private val batchFlushJobs = mutableMapOf<TaskPriority, Job>()
+    private val taskWorkIds = mutableMapOf<String, UUID>()
+
+    // Content payload used by each task, so shared payloads are deleted only when the last task ends
+    private val contentIds = mutableMapOf<String, String>()
+
+    init {
+        // Nothing in this process observes earlier work, so it would only spend provider quota
+        workManager.cancelAllWorkByTag(WORK_TAG)
+        scope.launch { payloadStore.deleteStale(STALE_PAYLOAD_AGE_MS) }
+    }
 
     // Processing state
     private val _processingState = MutableStateFlow<Map<String, ProcessingState>>(emptyMap())
     val processingState: StateFlow<Map<String, ProcessingState>> = _processingState.asStateFlow()
 
     /**
-     * Summarize content in the background
+     * Summarize content in the background.
+     *
+     * Content of any length is written to a payload file that the worker reads; this and the
+     * other content-based methods therefore do disk I/O and should be called off the main thread.
      */
     fun summarizeContent(
         content: String,
@@ -56,6 +132,7 @@ class AiProcessingService @Inject constructor(
         customInstructions: String? = null,
         aiModel: String? = null,
         contentType: CardType? = null,
+        priority: TaskPriority = TaskPriority.INTERACTIVE,
         taskId: String = UUID.randomUUID().toString()
     ): String {
         Log.d(TAG, "Scheduling summarize task: $taskId")
@@ -63,7 +140,7 @@ class AiProcessingService @Inject constructor(
         // Create input data
         val inputData = Data.Builder()
             .putString(AiProcessingWorker.KEY_TASK_TYPE, AiProcessingWorker.TASK_SUMMARIZE)
-            .putString(AiProcessingWorker.KEY_CONTENT, content)
+            .putString(AiProcessingWorker.KEY_CONTENT_ID, storeContent(taskId, content))
             .putString(AiProcessingWorker.KEY_LANGUAGE, language)
             .putString(AiProcessingWorker.KEY_SUMMARY_TYPE, summaryType)
             .apply {
@@ -74,25 +151,7 @@ class AiProcessingService @Inject constructor(
             }
             .build()
 
-        // Create work request
-        val workRequest = OneTimeWorkRequestBuilder<AiProcessingWorker>()
-            .setInputData(inputData)
-            .setConstraints(createNetworkConstraints())
-            .build()
-
-        // Enqueue work
-        workManager.enqueueUniqueWork(
-            "$WORK_SUMMARIZE_PREFIX$taskId",
-            ExistingWorkPolicy.REPLACE,
-            workRequest
-        )
-
-        // Update processing state
-        updateProcessingState(taskId, ProcessingState.PROCESSING)
-
-        // Observe work
-        observeWork(workRequest.id, taskId)
-
+        schedule(QueuedWork(listOf(taskId), inputData, priority))
         return taskId
     }
 
@@ -103,6 +162,7 @@ class AiProcessingService @Inject constructor(
         audioUri: Uri,
         language: String,
         aiModel: String? = null,
+        priority: TaskPriority = TaskPriority.INTERACTIVE,
         taskId: String = UUID.randomUUID().toString()
     ): String {
         Log.d(TAG, "Scheduling transcribe task: $taskId")
@@ -117,25 +177,7 @@ class AiProcessingService @Inject constructor(
             }
             .build()
 
-        // Create work request
-        val workRequest = OneTimeWorkRequestBuilder<AiProcessingWorker>()
-            .setInputData(inputData)
-            .setConstraints(createNetworkConstraints())
-            .build()
-
-        // Enqueue work
-        workManager.enqueueUniqueWork(
-            "$WORK_TRANSCRIBE_PREFIX$taskId",
-            ExistingWorkPolicy.REPLACE,
-            workRequest
-        )
-
-        // Update processing state
-        updateProcessingState(taskId, ProcessingState.PROCESSING)
-
-        // Observe work
-        observeWork(workRequest.id, taskId)
-
+        schedule(QueuedWork(listOf(taskId), inputData, priority))
         return taskId
     }
 
@@ -146,6 +188,7 @@ class AiProcessingService @Inject constructor(
         imageUri: Uri,
         language: String,
         aiModel: String? = null,
+        priority: TaskPriority = TaskPriority.INTERACTIVE,
         taskId: String = UUID.randomUUID().toString()
     ): String {
         Log.d(TAG, "Scheduling extract text task: $taskId")
@@ -160,113 +203,43 @@ class AiProcessingService @Inject constructor(
             }
             .build()
 
-        // Create work request
-        val workRequest = OneTimeWorkRequestBuilder<AiProcessingWorker>()
-            .setInputData(inputData)
-            .setConstraints(createNetworkConstraints())
-            .build()
-
-        // Enqueue work
-        workManager.enqueueUniqueWork(
-            "$WORK_EXTRACT_TEXT_PREFIX$taskId",
-            ExistingWorkPolicy.REPLACE,
-            workRequest
-        )
-
-        // Update processing state
-        updateProcessingState(taskId, ProcessingState.PROCESSING)
-
-        // Observe work
-        observeWork(workRequest.id, taskId)
-
+        schedule(QueuedWork(listOf(taskId), inputData, priority))
         return taskId
     }
 
     /**
-     * Generate tags in the background
+     * Generate tags in the background, batched with other small tasks
      */
     fun generateTags(
         content: String,
         language: String,
         maxTags: Int = 5,
         aiModel: String? = null,
+        priority: TaskPriority = TaskPriority.INTERACTIVE,
         taskId: String = UUID.randomUUID().toString()
     ): String {
         Log.d(TAG, "Scheduling generate tags task: $taskId")
 
-        // Create input data
-        val inputData = Data.Builder()
-            .putString(AiProcessingWorker.KEY_TASK_TYPE, AiProcessingWorker.TASK_GENERATE_TAGS)
-            .putString(AiProcessingWorker.KEY_CONTENT, content)
-            .putString(AiProcessingWorker.KEY_LANGUAGE, language)
-            .putInt(AiProcessingWorker.KEY_MAX_TAGS, maxTags)
-            .apply {
-                aiModel?.let { putString(AiProcessingWorker.KEY_AI_MODEL, it) }
-            }
-            .build()
-
-        // Create work request
-        val workRequest = OneTimeWorkRequestBuilder<AiProcessingWorker>()
-            .setInputData(inputData)
-            .setConstraints(createNetworkConstraints())
-            .build()
-
-        // Enqueue work
-        workManager.enqueueUniqueWork(
-            "$WORK_GENERATE_TAGS_PREFIX$taskId",
-            ExistingWorkPolicy.REPLACE,
-            workRequest
-        )
-
-        // Update processing state
-        updateProcessingState(taskId, ProcessingState.PROCESSING)
-
-        // Observe work
-        observeWork(workRequest.id, taskId)
-
+        val item = batchItem(taskId, AiProcessingWorker.TASK_GENERATE_TAGS, content, language, aiModel)
+            .put(AiProcessingWorker.KEY_MAX_TAGS, maxTags)
+        addToBatch(taskId, item, priority)
         return taskId
     }
 
     /**
-     * Generate title in the background
+     * Generate title in the background, batched with other small tasks
      */
     fun generateTitle(
         content: String,
         language: String,
         aiModel: String? = null,
+        priority: TaskPriority = TaskPriority.INTERACTIVE,
         taskId: String = UUID.randomUUID().toString()
     ): String {
         Log.d(TAG, "Scheduling generate title task: $taskId")
 
-        // Create input data
-        val inputData = Data.Builder()
-            .putString(AiProcessingWorker.KEY_TASK_TYPE, AiProcessingWorker.TASK_GENERATE_TITLE)
-            .putString(AiProcessingWorker.KEY_CONTENT, content)
-            .putString(AiProcessingWorker.KEY_LANGUAGE, language)
-            .apply {
-                aiModel?.let { putString(AiProcessingWorker.KEY_AI_MODEL, it) }
-            }
-            .build()
-
-        // Create work request
-        val workRequest = OneTimeWorkRequestBuilder<AiProcessingWorker>()
-            .setInputData(inputData)
-            .setConstraints(createNetworkConstraints())
-            .build()
-
-        // Enqueue work
-        workManager.enqueueUniqueWork(
-            "$WORK_GENERATE_TITLE_PREFIX$taskId",
-            ExistingWorkPolicy.REPLACE,
-            workRequest
-        )
-
-        // Update processing state
-        updateProcessingState(taskId, ProcessingState.PROCESSING)
-
-        // Observe work
-        observeWork(workRequest.id, taskId)
-
+        val item = batchItem(taskId, AiProcessingWorker.TASK_GENERATE_TITLE, content, language, aiModel)
+        addToBatch(taskId, item, priority)
         return taskId
     }
 
@@ -283,62 +256,261 @@ class AiProcessingService @Inject constructor(
     fun cancelTask(taskId: String) {
         Log.d(TAG, "Cancelling task: $taskId")
 
-        // Cancel work
-        workManager.cancelUniqueWork("$WORK_SUMMARIZE_PREFIX$taskId")
-        workManager.cancelUniqueWork("$WORK_TRANSCRIBE_PREFIX$taskId")
-        workManager.cancelUniqueWork("$WORK_EXTRACT_TEXT_PREFIX$taskId")
-        workManager.cancelUniqueWork("$WORK_GENERATE_TAGS_PREFIX$taskId")
-        workManager.cancelUniqueWork("$WORK_GENERATE_TITLE_PREFIX$taskId")
+        val workToCancel = synchronized(lock) {
+            pendingBatches.values.forEach { items ->
+                items.removeAll { it.getString(AiProcessingWorker.BATCH_TASK_ID) == taskId }
+            }
+            backfillQueue.removeAll { it.taskIds == listOf(taskId) }
+
+            // A batch keeps running while other tasks still need it; this task's result is ignored
+            taskWorkIds.remove(taskId)?.takeIf { it !in taskWorkIds.values }
+        }
+        workToCancel?.let { workManager.cancelWorkById(it) }
 
-        // Update processing state
+        releaseContent(taskId)
         updateProcessingState(taskId, ProcessingState.CANCELLED)
     }
 
     /**
-     * Create network constraints for work requests
+     * Create constraints for work requests; backfill work also waits for a healthy battery
      */
-    private fun createNetworkConstraints(): Constraints {
+    private fun createConstraints(priority: TaskPriority): Constraints {
         return Constraints.Builder()
             .setRequiredNetworkType(NetworkType.CONNECTED)
+            .setRequiresBatteryNotLow(priority == TaskPriority.BACKFILL)
+            .build()
+    }
+
+    private fun batchItem(
+        taskId: String,
+        taskType: String,
+        content: String,
+        language: String,
+        aiModel: String?
+    ): JSONObject {
+        return JSONObject()
+            .put(AiProcessingWorker.BATCH_TASK_ID, taskId)
+            .put(AiProcessingWorker.KEY_TASK_TYPE, taskType)
+            .put(AiProcessingWorker.KEY_CONTENT_ID, storeContent(taskId, content))
+            .put(AiProcessingWorker.KEY_LANGUAGE, language)
+            .apply { aiModel?.let { put(AiProcessingWorker.KEY_AI_MODEL, it) } }
+    }
+
+    /**
+     * Add a small task to the pending batch for [priority], sending the batch once it is full
+     * or its window has passed
+     */
+    private fun addToBatch(taskId: String, item: JSONObject, priority: TaskPriority) {
+        updateProcessingState(taskId, ProcessingState.PROCESSING)
+
+        val fullBatch = synchronized(lock) {
+            val items = pendingBatches.getOrPut(priority) { mutableListOf() }
+            items.add(item)
+            if (items.size >= MAX_BATCH_SIZE) {
+                batchFlushJobs.remove(priority)?.cancel()
+                pendingBatches.remove(priority)
+            } else {
+                if (priority !in batchFlushJobs) {
+                    val windowMs = if (priority == TaskPriority.INTERACTIVE) {
+                        INTERACTIVE_BATCH_WINDOW_MS
+                    } else {
+                        BACKFILL_BATCH_WINDOW_MS
+                    }
+                    batchFlushJobs[priority] = scope.launch {
+                        delay(windowMs)
+                        flushBatch(priority)
+                    }
+                }
+                null
+            }
+        }
+        fullBatch?.let { scheduleBatch(it, priority) }
+    }
+
+    private fun flushBatch(priority: TaskPriority) {
+        val items = synchronized(lock) {
+            batchFlushJobs.remove(priority)
+            pendingBatches.remove(priority)
+        }
+        if (!items.isNullOrEmpty()) {
+            scheduleBatch(items, priority)
+        }
+    }
+
+    private fun scheduleBatch(items: List<JSONObject>, priority: TaskPriority) {
+        val batchId = payloadStore.putContent(JSONArray(items).toString())
+        val inputData = Data.Builder()
+            .putString(AiProcessingWorker.KEY_TASK_TYPE, AiProcessingWorker.TASK_BATCH)
+            .putString(AiProcessingWorker.KEY_BATCH_ID, batchId)
             .build()
+
+        Log.d(TAG, "Scheduling batch of ${items.size} tasks")
+        val taskIds = items.map { it.getString(AiProcessingWorker.BATCH_TASK_ID) }
+        schedule(QueuedWork(taskIds, inputData, priority, batchId))
     }
 
     /**
-     * Observe work and update processing state
+     * Enqueue interactive work now; queue backfill work while enough of it is already enqueued
      */
-    private fun observeWork(workId: UUID, taskId: String) {
-        val workInfoLiveData: LiveData<WorkInfo> = workManager.getWorkInfoByIdLiveData(workId)
-
-        workInfoLiveData.observeForever { workInfo ->
-            when (workInfo.state) {
-                WorkInfo.State.SUCCEEDED -> {
-                    val result = workInfo.outputData.getString(AiProcessingWorker.KEY_RESULT)
-                    updateProcessingState(taskId, ProcessingState.Completed(result ?: ""))
+    private fun schedule(work: QueuedWork) {
+        work.taskIds.forEach { updateProcessingState(it, ProcessingState.PROCESSING) }
+
+        val enqueueNow = synchronized(lock) {
+            when {
+                work.priority == TaskPriority.INTERACTIVE -> true
+                activeBackfillWork < MAX_ACTIVE_BACKFILL_WORK -> {
+                    activeBackfillWork++
+                    true
                 }
-                WorkInfo.State.FAILED -> {
-                    val error = workInfo.outputData.getString(AiProcessingWorker.KEY_ERROR)
-                    updateProcessingState(taskId, ProcessingState.Error(error ?: "Unknown error"))
+                else -> {
+                    backfillQueue.addLast(work)
+                    false
                 }
-                WorkInfo.State.CANCELLED -> {
-                    updateProcessingState(taskId, ProcessingState.CANCELLED)
+            }
+        }
+        if (enqueueNow) enqueue(work)
+    }
+
+    private fun enqueue(work: QueuedWork) {
+        val workRequest = OneTimeWorkRequestBuilder<AiProcessingWorker>()
+            .setInputData(work.inputData)
+            .setConstraints(createConstraints(work.priority))
+            .addTag(WORK_TAG)
+            .build()
+
+        synchronized(lock) {
+            // Tasks cancelled while their batch was queued are not tracked, so their results are ignored
+            work.taskIds
+                .filter { _processingState.value[it] != ProcessingState.CANCELLED }
+                .forEach { taskWorkIds[it] = workRequest.id }
+        }
+        workManager.enqueue(workRequest)
+        observeWork(workRequest.id, work)
+    }
+
+    /**
+     * Observe work until it finishes, then remove the observer and publish the results
+     */
+    private fun observeWork(workId: UUID, work: QueuedWork) {
+        // LiveData observers must be added on the main thread
+        scope.launch(Dispatchers.Main) {
+            val workInfoLiveData = workManager.getWorkInfoByIdLiveData(workId)
+            workInfoLiveData.observeForever(object : Observer<WorkInfo?> {
+                override fun onChanged(value: WorkInfo?) {
+                    val workInfo = value ?: return
+                    if (!workInfo.state.isFinished) return
+
+                    workInfoLiveData.removeObserver(this)
+                    scope.launch { onWorkFinished(workInfo, work) }
                 }
-                else -> {
-                    // Do nothing for other states
+            })
+        }
+    }
+
+    private fun onWorkFinished(workInfo: WorkInfo, work: QueuedWork) {
+        when (workInfo.state) {
+            WorkInfo.State.SUCCEEDED -> {
+                val result = payloadStore.takeResult(workInfo.id)
+                if (work.batchId != null) {
+                    val results = result?.let { JSONObject(it) } ?: JSONObject()
+                    work.taskIds.forEach { taskId ->
+                        val taskResult = results.optJSONObject(taskId)
+                        val state = when {
+                            taskResult?.has(AiProcessingWorker.BATCH_RESULT) == true ->
+                                ProcessingState.Completed(taskResult.getString(AiProcessingWorker.BATCH_RESULT))
+                            else -> ProcessingState.Error(
+                                taskResult?.optString(AiProcessingWorker.BATCH_ERROR) ?: "Unknown error"
+                            )
+                        }
+                        finishTask(taskId, workInfo.id, state)
+                    }
+                } else {
+                    work.taskIds.forEach { finishTask(it, workInfo.id, ProcessingState.Completed(result ?: "")) }
                 }
             }
+            WorkInfo.State.FAILED -> {
+                val error = workInfo.outputData.getString(AiProcessingWorker.KEY_ERROR) ?: "Unknown error"
+                work.taskIds.forEach { finishTask(it, workInfo.id, ProcessingState.Error(error)) }
+            }
+            else -> work.taskIds.forEach { finishTask(it, workInfo.id, ProcessingState.CANCELLED) }
+        }
+
+        work.batchId?.let { payloadStore.deleteContent(it) }
+        if (work.priority == TaskPriority.BACKFILL) {
+            enqueueNextBackfill()
+        }
+    }
+
+    private fun enqueueNextBackfill() {
+        val next = synchronized(lock) {
+            activeBackfillWork--
+            backfillQueue.removeFirstOrNull()?.also { activeBackfillWork++ }
+        }
+        next?.let { enqueue(it) }
+    }
+
+    /**
+     * Publish a task's final state unless it was cancelled or rescheduled in the meantime
+     */
+    private fun finishTask(taskId: String, workId: UUID, state: ProcessingState) {
+        synchronized(lock) {
+            if (taskWorkIds[taskId] != workId) return
+            taskWorkIds.remove(taskId)
+        }
+        releaseContent(taskId)
+        updateProcessingState(taskId, state)
+    }
+
+    /**
+     * Write a task's content to a payload file and remember that [taskId] uses it
+     */
+    private fun storeContent(taskId: String, content: String): String {
+        // Under the lock so a finishing task can't delete a payload that is being reused
+        return synchronized(contentIds) {
+            payloadStore.putContent(content).also { contentIds[taskId] = it }
+        }
+    }
+
+    /**
+     * Delete a finished task's content unless another task still uses the same payload
+     */
+    private fun releaseContent(taskId: String) {
+        synchronized(contentIds) {
+            val contentId = contentIds.remove(taskId) ?: return
+            if (contentId !in contentIds.values) {
+                payloadStore.deleteContent(contentId)
+            }
         }
     }
 
     /**
-     * Update processing state
+     * Update processing state, keeping only the most recent finished states
      */
     private fun updateProcessingState(taskId: String, state: ProcessingState) {
-        val currentState = _processingState.value.toMutableMap()
-        currentState[taskId] = state
-        _processingState.value = currentState
+        synchronized(_processingState) {
+            // Re-inserting moves the task to the end, so the oldest finished states are dropped first
+            val currentState = LinkedHashMap(_processingState.value)
+            currentState.remove(taskId)
+            currentState[taskId] = state
+            _processingState.value = retainStates(currentState, MAX_FINISHED_STATES)
+        }
     }
 }
 
+/**
+ * Scheduling priority of an AI task
+ */
+enum class TaskPriority {
+    /** The user is waiting for the result */
+    INTERACTIVE,
+
+    /**
+     * Bulk re-processing that can wait for capacity. Queued tasks are lost if the process dies,
+     * so callers re-submit whatever has no result yet.
+     */
+    BACKFILL
+}
+
 /**
  * Processing state for AI tasks
  */
@@ -3,6 +3,8 @@ package com.secondbrain.data.service.ai
 import android.net.Uri
 import com.secondbrain.util.PdfContent
 import com.secondbrain.util.UrlContent
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.flow
 
 /**
  * Interface for AI providers (Gemini, OpenAI, Claude, etc.)
@@ -18,6 +20,12 @@ interface AiProvider {
      */
     val availableModels: List<AiModel>
 
+    /**
+     * Whether the provider honours [SummarizationOptions.jsonOutput] and returns a bare JSON object
+     */
+    val supportsStructuredOutput: Boolean
+        get() = false
+
     /**
      * Check if the provider is configured with valid API keys
      */
@@ -35,6 +43,22 @@ interface AiProvider {
         options: SummarizationOptions
     ): Result<String>
 
+    /**
+     * Stream a summary as it is generated
+     *
+     * Providers without streaming support emit the complete summary as a single chunk.
+     *
+     * @param content The text content to summarize
+     * @param options The summarization options
+     * @return A Flow of summary text fragments in generation order
+     */
+    fun summarizeTextStream(
+        content: String,
+        options: SummarizationOptions
+    ): Flow<String> = flow {
+        emit(summarizeText(content, options).getOrThrow())
+    }
+
     /**
      * Transcribe audio content
      *
@@ -121,7 +145,8 @@ data class SummarizationOptions(
     val language: String,
     val maxLength: Int? = null,
     val customInstructions: String? = null,
-    val systemPrompt: String? = null
+    val systemPrompt: String? = null,
+    val jsonOutput: Boolean = false // Ask providers that support structured output for a JSON object
 )
 
 /**
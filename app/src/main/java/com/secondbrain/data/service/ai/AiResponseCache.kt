@@ -0,0 +1,91 @@
+package com.secondbrain.data.service.ai
+
+import android.util.Log
+import com.secondbrain.data.db.AiResponseCacheDao
+import com.secondbrain.data.model.AiResponseCacheEntry
+import java.security.MessageDigest
+import java.util.concurrent.TimeUnit
+import javax.inject.Inject
+import javax.inject.Singleton
+
+/**
+ * Disk-backed cache of AI responses, keyed by provider, model and normalized request
+ */
+@Singleton
+class AiResponseCache @Inject constructor(
+    private val aiResponseCacheDao: AiResponseCacheDao
+) {
+
+    companion object {
+        private const val TAG = "AiResponseCache"
+
+        // Bump when prompts or response handling change so older cached responses are not reused
+        private const val CACHE_VERSION = 1
+        private val TTL_MS = TimeUnit.DAYS.toMillis(7)
+        private const val MAX_CACHE_BYTES = 5L * 1024 * 1024
+
+        /**
+         * Cache key for [operation] on [provider]/[modelId] with the given request parts
+         */
+        fun cacheKey(provider: String, modelId: String?, operation: String, vararg requestParts: String?): String {
+            val normalized = requestParts.joinToString("\u0000") { normalize(it.orEmpty()) }
+            return MessageDigest.getInstance("SHA-256")
+                .digest("$CACHE_VERSION\u0000$provider\u0000$modelId\u0000$operation\u0000$normalized".toByteArray())
+                .joinToString("") { "%02x".format(it) }
+        }
+
+        /**
+         * Ignore line-ending and surrounding whitespace differences between otherwise identical requests
+         */
+        fun normalize(text: String): String {
+            return text.replace("\r\n", "\n").trim()
+        }
+    }
+
+    /**
+     * Read a fresh cached response and mark it as recently used
+     */
+    suspend fun get(key: String): String? {
+        return try {
+            val entry = aiResponseCacheDao.getEntry(key) ?: return null
+            if (entry.createdAt < System.currentTimeMillis() - TTL_MS) {
+                aiResponseCacheDao.deleteEntry(key)
+                return null
+            }
+            aiResponseCacheDao.touch(key)
+            Log.d(TAG, "Using cached AI response")
+            entry.response
+        } catch (e: Exception) {
+            Log.e(TAG, "Error reading AI response cache", e)
+            null
+        }
+    }
+
+    /**
+     * Store a response, evicting expired and least recently used entries beyond the size limit
+     */
+    suspend fun put(key: String, response: String) {
+        try {
+            val now = System.currentTimeMillis()
+            aiResponseCacheDao.putEntry(
+                AiResponseCacheEntry(
+                    key = key,
+                    response = response,
+                    sizeBytes = response.toByteArray().size,
+                    createdAt = now
+                ),
+                maxBytes = MAX_CACHE_BYTES,
+                createdBefore = now - TTL_MS
+            )
+        } catch (e: Exception) {
+            Log.e(TAG, "Error writing AI response cache", e)
+        }
+    }
+
+    /**
+     * Remove all cached responses
+     */
+    suspend fun clear() {
+        aiResponseCacheDao.clear()
+    }
+}
@@ -2,16 +2,29 @@ package com.secondbrain.data.service.ai
 
 import android.content.Context
 import android.net.Uri
+import android.os.SystemClock
 import android.util.Log
 import com.secondbrain.data.model.CardType
 import com.secondbrain.data.repository.SettingsRepository
 import com.secondbrain.data.repository.SystemPromptRepository
+import com.secondbrain.data.service.ai.resilience.ProviderHealthMonitor
+import com.secondbrain.data.service.ai.resilience.RequestHedger
+import com.secondbrain.util.ApiPaymentRequiredException
+import com.secondbrain.util.CircuitOpenException
+import com.secondbrain.util.NetworkUtils
 import com.secondbrain.util.PdfContent
 import com.secondbrain.util.UrlContent
 import dagger.hilt.android.qualifiers.ApplicationContext
+import kotlinx.coroutines.CancellationException
+import kotlinx.coroutines.CoroutineScope
 import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.flow.Flow
 import kotlinx.coroutines.flow.first
+import kotlinx.coroutines.flow.flow
+import kotlinx.coroutines.flow.flowOn
 import kotlinx.coroutines.withContext
+import org.json.JSONArray
 import javax.inject.Inject
 import javax.inject.Singleton
 
@@ -27,12 +40,23 @@ class AiServiceManager @Inject constructor(
     private val openAiProvider: OpenAiProvider,
     private val claudeProvider: ClaudeProvider,
     private val deepSeekProvider: DeepSeekProvider,
-    private val openRouterProvider: OpenRouterProvider
+    private val openRouterProvider: OpenRouterProvider,
+    private val aiMetrics: AiMetrics,
+    private val aiResponseCache: AiResponseCache,
+    private val providerHealthMonitor: ProviderHealthMonitor,
+    private val requestHedger: RequestHedger
 ) {
 
     companion object {
         private const val TAG = "AiServiceManager"
+        private const val MAX_FALLBACK_MODELS = 2
+
+        // Summaries are generated before the response arrives, so a long one legitimately takes minutes
+        private const val SUMMARY_LATENCY_THRESHOLD_MS = 120_000L
     }
+
+    // Identical requests made while one is still running share its result
+    private val inFlightRequests = SingleFlight<Result<String>>(CoroutineScope(SupervisorJob() + Dispatchers.IO))
     // Map of provider names to provider instances
     private val providers = mapOf(
         geminiProvider.name to geminiProvider,
@@ -82,6 +106,28 @@ class AiServiceManager @Inject constructor(
             ?: throw Exception("No AI provider is configured. Please add an API key in Settings.")
     }
 
+    /**
+     * Identify the provider and model that default requests are sent to, e.g. "OpenRouter/<model id>"
+     */
+    suspend fun getDefaultModelId(): String {
+        val provider = getDefaultProvider()
+        return listOfNotNull(provider.name, selectedModelId(provider)).joinToString("/")
+    }
+
+    /**
+     * ID of the model a provider currently sends requests to
+     */
+    private fun selectedModelId(provider: AiProvider): String? {
+        return when (provider) {
+            is GeminiProvider -> provider.selectedModel.value?.id
+            is OpenAiProvider -> provider.selectedModel.value?.id
+            is ClaudeProvider -> provider.selectedModel.value?.id
+            is DeepSeekProvider -> provider.selectedModel.value?.id
+            is OpenRouterProvider -> provider.selectedModel.value?.id
+            else -> null
+        }
+    }
+
     /**
      * Summarize content using the specified or default AI provider
      */
@@ -89,83 +135,306 @@ class AiServiceManager @Inject constructor(
         content: String,
         options: SummarizationOptions,
         aiModel: String? = null,
-        contentType: CardType? = null
+        contentType: CardType? = null,
+        bypassCache: Boolean = false
     ): Result<String> = withContext(Dispatchers.IO) {
         try {
             // Log the requested AI model
             Log.d(TAG, "Summarizing with AI model: $aiModel")
 
-            // Determine which provider to use
-            val provider = if (aiModel != null) {
-                // Try to get the specified provider
-                val selectedProvider = when {
-                    aiModel.contains("Gemini", ignoreCase = true) -> geminiProvider
-                    aiModel.contains("OpenAI", ignoreCase = true) -> openAiProvider
-                    aiModel.contains("Claude", ignoreCase = true) -> claudeProvider
-                    aiModel.contains("DeepSeek", ignoreCase = true) -> deepSeekProvider
-                    aiModel.contains("OpenRouter", ignoreCase = true) -> openRouterProvider
-                    else -> null
+            val provider = resolveProvider(aiModel)
+            val optionsWithSystemPrompt = withSystemPrompt(content, options, contentType)
+
+            // Call the provider unless the same request was answered before or is in flight
+            val cacheKey = AiResponseCache.cacheKey(
+                provider.name, selectedModelId(provider), "summarize", optionsWithSystemPrompt.toString(), content
+            )
+            cachedRequest(cacheKey, bypassCache) {
+                withFailover(provider, SUMMARY_LATENCY_THRESHOLD_MS) { route ->
+                    if (route.modelId != null && route.provider is OpenRouterProvider) {
+                        route.provider.summarizeText(content, optionsWithSystemPrompt, route.modelId)
+                    } else {
+                        route.provider.summarizeText(content, optionsWithSystemPrompt)
+                    }
                 }
+            }
+        } catch (e: Exception) {
+            Log.e(TAG, "Error summarizing content", e)
+            Result.failure(e)
+        }
+    }
+
+    /**
+     * Check whether the provider that would serve [aiModel] can return structured JSON output
+     */
+    suspend fun supportsStructuredOutput(aiModel: String? = null): Boolean {
+        return try {
+            resolveProvider(aiModel).supportsStructuredOutput
+        } catch (e: Exception) {
+            false
+        }
+    }
 
-                // If the provider is configured, use it
-                if (selectedProvider != null && selectedProvider.isConfigured()) {
-                    // Log the selected provider
-                    Log.d(TAG, "Using provider: ${selectedProvider.name}")
-                    selectedProvider
-                } else {
-                    // Otherwise, find any configured provider
-                    Log.d(TAG, "Requested provider not configured, finding alternative")
-                    providers.values.firstOrNull { it.isConfigured() }
-                        ?: throw Exception("No AI provider is configured. Please add an API key in Settings.")
+    /**
+     * Stream a summary as it is generated, recording the time to the first token
+     */
+    fun summarizeStream(
+        content: String,
+        options: SummarizationOptions,
+        aiModel: String? = null,
+        contentType: CardType? = null
+    ): Flow<String> = flow {
+        Log.d(TAG, "Streaming summary with AI model: $aiModel")
+
+        // Skip providers whose circuit is open; a half-open one gets this stream as its trial
+        val requestedProvider = resolveProvider(aiModel)
+        val provider = (listOf(requestedProvider) + fallbackProviders(requestedProvider))
+            .firstOrNull { providerHealthMonitor.tryAcquire(routeKey(Route(it, null))) }
+            ?: requestedProvider
+        val optionsWithSystemPrompt = withSystemPrompt(content, options, contentType)
+
+        // The HTTP layer reports the attempts through the recorder; a stream that breaks after
+        // it started is recorded here
+        val recorder = providerHealthMonitor.attemptRecorder(
+            routeKey(Route(provider, null)),
+            SUMMARY_LATENCY_THRESHOLD_MS
+        )
+        val startedAt = SystemClock.elapsedRealtime()
+        var receivedFirstToken = false
+        try {
+            provider.summarizeTextStream(content, optionsWithSystemPrompt).flowOn(recorder).collect { delta ->
+                if (!receivedFirstToken) {
+                    receivedFirstToken = true
+                    aiMetrics.recordTimeToFirstToken(provider.name, SystemClock.elapsedRealtime() - startedAt)
                 }
-            } else {
-                getDefaultProvider()
+                emit(delta)
+            }
+        } catch (e: CancellationException) {
+            throw e
+        } catch (e: Exception) {
+            if (receivedFirstToken && NetworkUtils.isRetryableError(e)) {
+                recorder.record(healthy = false, latencyMs = SystemClock.elapsedRealtime() - startedAt)
+            }
+            throw e
+        }
+    }.flowOn(Dispatchers.IO)
+
+    /**
+     * Serve a request from the response cache, joining an identical request that is already in flight.
+     *
+     * [cacheKey] names the primary route, so only answers from that route are stored; an answer
+     * from a fallback or hedge route is returned but not cached, so the selected model's own answer
+     * is used once it recovers.
+     *
+     * @param bypassCache Skip the lookup and always call [fetch]; a fresh primary answer still
+     * replaces the cached one
+     */
+    private suspend fun cachedRequest(
+        cacheKey: String,
+        bypassCache: Boolean,
+        fetch: suspend () -> Result<Answer<String>>
+    ): Result<String> {
+        // A bypassing caller must not be handed a cached response through a non-bypassing flight
+        val flightKey = if (bypassCache) "$cacheKey/fresh" else cacheKey
+        return inFlightRequests.run(flightKey) {
+            if (!bypassCache) {
+                aiResponseCache.get(cacheKey)?.let { return@run Result.success(it) }
             }
 
-            // For OpenRouter, make sure we're using the selected model
-            if (provider is OpenRouterProvider) {
-                Log.d(TAG, "Using OpenRouter with model: ${provider.selectedModel.value?.name ?: "default"}")
+            fetch().map { answer ->
+                if (!answer.fromPrimaryRoute) {
+                    Log.d(TAG, "Not caching an answer from fallback route ${routeKey(answer.route)}")
+                } else if (answer.value.isNotBlank()) {
+                    aiResponseCache.put(cacheKey, answer.value)
+                }
+                answer.value
             }
+        }
+    }
+
+    /**
+     * A provider and, for OpenRouter fallbacks, the model to send a request to
+     */
+    private class Route(val provider: AiProvider, val modelId: String?)
+
+    /**
+     * A successful response and the route that produced it
+     */
+    private class Answer<T>(val value: T, val route: Route, val fromPrimaryRoute: Boolean) {
+        fun <R> map(transform: (T) -> R) = Answer(transform(value), route, fromPrimaryRoute)
+    }
 
-            // Get the appropriate system prompt if not already provided
-            val optionsWithSystemPrompt = if (options.systemPrompt == null) {
-                // Check if this is YouTube content
-                val isYouTube = contentType == CardType.URL &&
-                    content.contains("YouTube Video:") &&
-                    (content.contains("Video ID:") || content.contains("Transcript:"))
-
-                val systemPrompt = if (isYouTube) {
-                    // Use YouTube-specific prompt
-                    Log.d(TAG, "Using YouTube-specific prompt for ${options.summaryType.name}")
-                    // Create a temporary CardType for YouTube
-                    val youtubeType = CardType.URL
-                    systemPromptRepository.getSystemPrompt(
-                        youtubeType,
-                        options.summaryType
-                    ).first()
-                } else if (contentType != null) {
-                    // Use regular content type prompt
-                    Log.d(TAG, "Using system prompt for ${contentType.name} and ${options.summaryType.name}")
-                    systemPromptRepository.getSystemPrompt(
-                        contentType,
-                        options.summaryType
-                    ).first()
-                } else {
-                    // Fallback to default prompt
-                    null
+    private fun routeKey(route: Route): String {
+        return listOfNotNull(route.provider.name, route.modelId ?: selectedModelId(route.provider)).joinToString("/")
+    }
+
+    /**
+     * Send a request to [primary], moving on to fallback models and then to the other configured
+     * providers while a route's circuit is open or it fails with a transient error. The answer
+     * records which route produced it.
+     */
+    private suspend fun <T> withFailover(
+        primary: AiProvider,
+        latencyThresholdMs: Long = ProviderHealthMonitor.DEFAULT_LATENCY_THRESHOLD_MS,
+        request: suspend (Route) -> Result<T>
+    ): Result<Answer<T>> {
+        val primaryRoute = Route(primary, null)
+        val routes = ArrayDeque(listOf(primaryRoute))
+        var fallbacksAdded = false
+        var lastFailure: Throwable? = null
+
+        while (routes.isNotEmpty()) {
+            val route = routes.removeFirst()
+            val key = routeKey(route)
+            val result = providerHealthMonitor.call(key, latencyThresholdMs) { request(route) }
+            val error = result.exceptionOrNull()
+                ?: return result.map { Answer(it, route, fromPrimaryRoute = route === primaryRoute) }
+
+            val canFailOver = error is CircuitOpenException ||
+                error is ApiPaymentRequiredException ||
+                NetworkUtils.isRetryableError(error)
+            if (!canFailOver) return Result.failure(error)
+
+            Log.w(TAG, "Request to $key failed, trying the next route: ${error.message}")
+            lastFailure = error
+
+            // Only look up fallbacks once the primary route has failed
+            if (!fallbacksAdded) {
+                fallbacksAdded = true
+                if (primary is OpenRouterProvider) {
+                    routes.addAll(primary.getFallbackModelIds().take(MAX_FALLBACK_MODELS).map { Route(primary, it) })
                 }
+                routes.addAll(fallbackProviders(primary).map { Route(it, null) })
+            }
+        }
+
+        return Result.failure(lastFailure ?: Exception("No AI provider is available"))
+    }
+
+    /**
+     * [withFailover] for short, latency-critical requests: when hedging is enabled in settings, a
+     * slow primary request is raced against the same request on a second route. A winning hedge
+     * is reported as a non-primary answer, so it isn't cached for the primary route.
+     */
+    private suspend fun <T> withHedging(
+        primary: AiProvider,
+        request: suspend (Route) -> Result<T>
+    ): Result<Answer<T>> {
+        if (!settingsRepository.hedgeRequestsFlow.first()) {
+            return withFailover(primary, request = request)
+        }
+        val hedgeRoute = hedgeRoute(primary) ?: return withFailover(primary, request = request)
+
+        return requestHedger.hedge(
+            primaryRoute = routeKey(Route(primary, null)),
+            hedgeRoute = routeKey(hedgeRoute),
+            costMultiplier = settingsRepository.hedgeCostMultiplierFlow.first(),
+            primary = { withFailover(primary, request = request) },
+            hedge = {
+                providerHealthMonitor.call(routeKey(hedgeRoute)) { request(hedgeRoute) }
+                    .map { Answer(it, hedgeRoute, fromPrimaryRoute = false) }
+            }
+        )
+    }
+
+    /**
+     * The second route for a hedged request: another configured provider, or for OpenRouter the
+     * first fallback model when no other provider is configured
+     */
+    private suspend fun hedgeRoute(primary: AiProvider): Route? {
+        fallbackProviders(primary)
+            .map { Route(it, null) }
+            .firstOrNull { providerHealthMonitor.isAvailable(routeKey(it)) }
+            ?.let { return it }
+
+        if (primary !is OpenRouterProvider) return null
+        return primary.getFallbackModelIds()
+            .map { Route(primary, it) }
+            .firstOrNull { providerHealthMonitor.isAvailable(routeKey(it)) }
+    }
+
+    private fun fallbackProviders(primary: AiProvider): List<AiProvider> {
+        return providers.values.filter { it !== primary && it.isConfigured() }
+    }
+
+    /**
+     * Pick the provider for a text request, falling back to any configured provider
+     */
+    private suspend fun resolveProvider(aiModel: String?): AiProvider {
+        val provider = if (aiModel != null) {
+            // Try to get the specified provider
+            val selectedProvider = when {
+                aiModel.contains("Gemini", ignoreCase = true) -> geminiProvider
+                aiModel.contains("OpenAI", ignoreCase = true) -> openAiProvider
+                aiModel.contains("Claude", ignoreCase = true) -> claudeProvider
+                aiModel.contains("DeepSeek", ignoreCase = true) -> deepSeekProvider
+                aiModel.contains("OpenRouter", ignoreCase = true) -> openRouterProvider
+                else -> null
+            }
 
-                // Create new options with the system prompt
-                options.copy(systemPrompt = systemPrompt)
+            // If the provider is configured, use it
+            if (selectedProvider != null && selectedProvider.isConfigured()) {
+                // Log the selected provider
+                Log.d(TAG, "Using provider: ${selectedProvider.name}")
+                selectedProvider
             } else {
-                options
+                // Otherwise, find any configured provider
+                Log.d(TAG, "Requested provider not configured, finding alternative")
+                providers.values.firstOrNull { it.isConfigured() }
+                    ?: throw Exception("No AI provider is configured. Please add an API key in Settings.")
             }
+        } else {
+            getDefaultProvider()
+        }
 
-            // Call the provider
-            provider.summarizeText(content, optionsWithSystemPrompt)
-        } catch (e: Exception) {
-            Log.e(TAG, "Error summarizing content", e)
-            Result.failure(e)
+        // For OpenRouter, make sure we're using the selected model
+        if (provider is OpenRouterProvider) {
+            Log.d(TAG, "Using OpenRouter with model: ${provider.selectedModel.value?.name ?: "default"}")
+        }
+
+        return provider
+    }
+
+    /**
+     * Attach the system prompt for the content type unless the caller already supplied one
+     */
+    private suspend fun withSystemPrompt(
+        content: String,
+        options: SummarizationOptions,
+        contentType: CardType?
+    ): SummarizationOptions {
+        // Get the appropriate system prompt if not already provided
+        return if (options.systemPrompt == null) {
+            // Check if this is YouTube content
+            val isYouTube = contentType == CardType.URL &&
+                content.contains("YouTube Video:") &&
+                (content.contains("Video ID:") || content.contains("Transcript:"))
+
+            val systemPrompt = if (isYouTube) {
+                // Use YouTube-specific prompt
+                Log.d(TAG, "Using YouTube-specific prompt for ${options.summaryType.name}")
+                // Create a temporary CardType for YouTube
+                val youtubeType = CardType.URL
+                systemPromptRepository.getSystemPrompt(
+                    youtubeType,
+                    options.summaryType
+                ).first()
+            } else if (contentType != null) {
+                // Use regular content type prompt
+                Log.d(TAG, "Using system prompt for ${contentType.name} and ${options.summaryType.name}")
+                systemPromptRepository.getSystemPrompt(
+                    contentType,
+                    options.summaryType
+                ).first()
+            } else {
+                // Fallback to default prompt
+                null
+            }
+
+            // Create new options with the system prompt
+            options.copy(systemPrompt = systemPrompt)
+        } else {
+            options
         }
     }
 
@@ -246,43 +515,14 @@ class AiServiceManager @Inject constructor(
         content: String,
         language: String,
         maxTags: Int = 15,
-        aiModel: String? = null
+        aiModel: String? = null,
+        bypassCache: Boolean = false
     ): Result<List<String>> = withContext(Dispatchers.IO) {
         try {
             // Log the requested AI model
             Log.d(TAG, "Generating tags with AI model: $aiModel")
 
-            // Determine which provider to use
-            val provider = if (aiModel != null) {
-                // Try to get the specified provider
-                val selectedProvider = when {
-                    aiModel.contains("Gemini", ignoreCase = true) -> geminiProvider
-                    aiModel.contains("OpenAI", ignoreCase = true) -> openAiProvider
-                    aiModel.contains("Claude", ignoreCase = true) -> claudeProvider
-                    aiModel.contains("DeepSeek", ignoreCase = true) -> deepSeekProvider
-                    aiModel.contains("OpenRouter", ignoreCase = true) -> openRouterProvider
-                    else -> null
-                }
-
-                // If the provider is configured, use it
-                if (selectedProvider != null && selectedProvider.isConfigured()) {
-                    // Log the selected provider
-                    Log.d(TAG, "Using provider: ${selectedProvider.name}")
-                    selectedProvider
-                } else {
-                    // Otherwise, find any configured provider
-                    Log.d(TAG, "Requested provider not configured, finding alternative")
-                    providers.values.firstOrNull { it.isConfigured() }
-                        ?: throw Exception("No AI provider is configured. Please add an API key in Settings.")
-                }
-            } else {
-                getDefaultProvider()
-            }
-
-            // For OpenRouter, make sure we're using the selected model
-            if (provider is OpenRouterProvider) {
-                Log.d(TAG, "Using OpenRouter with model: ${provider.selectedModel.value?.name ?: "default"}")
-            }
+            val provider = resolveProvider(aiModel)
 
             // Create options
             val options = TagGenerationOptions(
@@ -290,8 +530,22 @@ class AiServiceManager @Inject constructor(
                 language = language
             )
 
-            // Call the provider
-            provider.generateTags(content, options)
+            // Call the provider unless the same request was answered before or is in flight
+            val cacheKey = AiResponseCache.cacheKey(
+                provider.name, selectedModelId(provider), "tags", options.toString(), content
+            )
+            cachedRequest(cacheKey, bypassCache) {
+                withHedging(provider) { route ->
+                    if (route.modelId != null && route.provider is OpenRouterProvider) {
+                        route.provider.generateTags(content, options, route.modelId)
+                    } else {
+                        route.provider.generateTags(content, options)
+                    }
+                }.map { answer -> answer.map { tags -> JSONArray(tags).toString() } }
+            }.mapCatching { json ->
+                val tags = JSONArray(json)
+                List(tags.length()) { tags.getString(it) }
+            }
         } catch (e: Exception) {
             Result.failure(e)
         }
@@ -303,51 +557,33 @@ class AiServiceManager @Inject constructor(
     suspend fun generateTitle(
         content: String,
         language: String,
-        aiModel: String? = null
+        aiModel: String? = null,
+        bypassCache: Boolean = false
     ): Result<String> = withContext(Dispatchers.IO) {
         try {
             // Log the requested AI model
             Log.d(TAG, "Generating title with AI model: $aiModel")
 
-            // Determine which provider to use
-            val provider = if (aiModel != null) {
-                // Try to get the specified provider
-                val selectedProvider = when {
-                    aiModel.contains("Gemini", ignoreCase = true) -> geminiProvider
-                    aiModel.contains("OpenAI", ignoreCase = true) -> openAiProvider
-                    aiModel.contains("Claude", ignoreCase = true) -> claudeProvider
-                    aiModel.contains("DeepSeek", ignoreCase = true) -> deepSeekProvider
-                    aiModel.contains("OpenRouter", ignoreCase = true) -> openRouterProvider
-                    else -> null
-                }
-
-                // If the provider is configured, use it
-                if (selectedProvider != null && selectedProvider.isConfigured()) {
-                    // Log the selected provider
-                    Log.d(TAG, "Using provider: ${selectedProvider.name}")
-                    selectedProvider
-                } else {
-                    // Otherwise, find any configured provider
-                    Log.d(TAG, "Requested provider not configured, finding alternative")
-                    providers.values.firstOrNull { it.isConfigured() }
-                        ?: throw Exception("No AI provider is configured. Please add an API key in Settings.")
-                }
-            } else {
-                getDefaultProvider()
-            }
-
-            // For OpenRouter, make sure we're using the selected model
-            if (provider is OpenRouterProvider) {
-                Log.d(TAG, "Using OpenRouter with model: ${provider.selectedModel.value?.name ?: "default"}")
-            }
+            val provider = resolveProvider(aiModel)
 
             // Create options
             val options = TitleGenerationOptions(
                 language = language
             )
 
-            // Call the provider
-            provider.generateTitle(content, options)
+            // Call the provider unless the same request was answered before or is in flight
+            val cacheKey = AiResponseCache.cacheKey(
+                provider.name, selectedModelId(provider), "title", options.toString(), content
+            )
+            cachedRequest(cacheKey, bypassCache) {
+                withHedging(provider) { route ->
+                    if (route.modelId != null && route.provider is OpenRouterProvider) {
+                        route.provider.generateTitle(content, options, route.modelId)
+                    } else {
+                        route.provider.generateTitle(content, options)
+                    }
+                }
+            }
         } catch (e: Exception) {
             Result.failure(e)
         }
@@ -362,8 +598,33 @@ class AiServiceManager @Inject constructor(
         language: String,
         aiModel: String? = null,
         customInstructions: String? = null,
-        contentType: CardType? = null
+        contentType: CardType? = null,
+        bypassCache: Boolean = false
     ): Result<String> {
+        val options = summarizationOptions(summaryType, language, customInstructions)
+        return summarize(content, options, aiModel, contentType, bypassCache)
+    }
+
+    /**
+     * Streaming counterpart of the string-based [summarize] overload
+     */
+    fun summarizeStream(
+        content: String,
+        summaryType: String,
+        language: String,
+        aiModel: String? = null,
+        customInstructions: String? = null,
+        contentType: CardType? = null
+    ): Flow<String> {
+        val options = summarizationOptions(summaryType, language, customInstructions)
+        return summarizeStream(content, options, aiModel, contentType)
+    }
+
+    private fun summarizationOptions(
+        summaryType: String,
+        language: String,
+        customInstructions: String?
+    ): SummarizationOptions {
         // Convert summary type string to enum
         val summaryTypeEnum = when (summaryType) {
             "Concise summary" -> SummaryType.CONCISE
@@ -374,13 +635,10 @@ class AiServiceManager @Inject constructor(
             else -> SummaryType.CONCISE
         }
 
-        // Create options
-        val options = SummarizationOptions(
+        return SummarizationOptions(
             summaryType = summaryTypeEnum,
             language = language,
             customInstructions = customInstructions
         )
-
-        return summarize(content, options, aiModel, contentType)
     }
 }
@@ -2,12 +2,18 @@ package com.secondbrain.data.service.ai
 
 import android.util.Log
 import com.secondbrain.data.model.ai.ContentType
+import com.secondbrain.data.model.ai.CostTier
 import com.secondbrain.data.model.ai.Feature
 import com.secondbrain.data.model.ai.ModelCapability
 import com.secondbrain.data.service.ai.api.OpenRouterApiClient
 import com.secondbrain.data.service.ai.SummarizationOptions
 import com.secondbrain.data.service.ai.SummaryType
 import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.async
+import kotlinx.coroutines.awaitAll
+import kotlinx.coroutines.coroutineScope
+import kotlinx.coroutines.sync.Semaphore
+import kotlinx.coroutines.sync.withPermit
 import kotlinx.coroutines.withContext
 import javax.inject.Inject
 import javax.inject.Singleton
@@ -26,6 +32,43 @@ class ContentProcessor @Inject constructor(
         private const val TOKENS_PER_CHAR_TEXT = 0.25
         private const val TOKENS_PER_CHAR_CODE = 0.33
         private const val CHUNK_OVERLAP = 100 // Characters to overlap between chunks
+
+        // Chunks summarized at once; free models have much tighter provider rate limits
+        private const val FREE_MODEL_CHUNK_CONCURRENCY = 2
+        private const val PAID_MODEL_CHUNK_CONCURRENCY = 4
+
+        // Summaries combined per merge call
+        const val DEFAULT_MERGE_FAN_IN = 4
+
+        private const val PART_SEPARATOR = "\n\n--- Next Part ---\n\n"
+
+        /**
+         * Split [count] summaries into consecutive merge groups of at most [fanIn] each
+         */
+        fun planMergeGroups(count: Int, fanIn: Int): List<IntRange> {
+            val groupSize = fanIn.coerceAtLeast(2)
+            return (0 until count step groupSize).map { start -> start until minOf(start + groupSize, count) }
+        }
+
+        /**
+         * Default number of chunks to summarize concurrently with the given model
+         */
+        fun defaultChunkConcurrency(model: ModelCapability): Int {
+            return if (model.costTier == CostTier.FREE) FREE_MODEL_CHUNK_CONCURRENCY else PAID_MODEL_CHUNK_CONCURRENCY
+        }
+    }
+
+    /**
+     * Result of [processContent]
+     * @property failedChunks Chunks left out of [text] because they could not be summarized; when
+     * non-zero the summary only covers part of the content
+     */
+    data class ProcessedContent(
+        val text: String,
+        val chunkCount: Int,
+        val failedChunks: Int
+    ) {
+        val isComplete: Boolean get() = failedChunks == 0
     }
 
     /**
@@ -37,8 +80,10 @@ class ContentProcessor @Inject constructor(
         model: ModelCapability,
         apiKey: String,
         systemPrompt: String = "You are a helpful assistant that summarizes content accurately and concisely.",
-        userPromptTemplate: String = "Please summarize the following content:\n\n{content}"
-    ): Result<String> = withContext(Dispatchers.IO) {
+        userPromptTemplate: String = "Please summarize the following content:\n\n{content}",
+        maxConcurrency: Int = defaultChunkConcurrency(model),
+        mergeFanIn: Int = DEFAULT_MERGE_FAN_IN
+    ): Result<ProcessedContent> = withContext(Dispatchers.IO) {
         try {
             // Preprocess content based on type
             val preprocessedContent = preprocessContent(content, contentType)
@@ -52,7 +97,9 @@ class ContentProcessor @Inject constructor(
                     model = model,
                     apiKey = apiKey,
                     systemPrompt = systemPrompt,
-                    userPromptTemplate = userPromptTemplate
+                    userPromptTemplate = userPromptTemplate,
+                    maxConcurrency = maxConcurrency,
+                    mergeFanIn = mergeFanIn
                 )
             }
 
@@ -76,12 +123,12 @@ class ContentProcessor @Inject constructor(
                 modelId = model.id
             )
 
-            if (result.isFailure) {
-                Log.e(TAG, "Error processing content with model ${model.name}", result.exceptionOrNull())
-                return@withContext result
+            result.exceptionOrNull()?.let { error ->
+                Log.e(TAG, "Error processing content with model ${model.name}", error)
+                return@withContext Result.failure(error)
             }
 
-            Result.success(result.getOrNull() ?: "")
+            Result.success(ProcessedContent(result.getOrNull() ?: "", chunkCount = 1, failedChunks = 0))
         } catch (e: Exception) {
             Log.e(TAG, "Error in content processing", e)
             Result.failure(e)
@@ -147,7 +194,9 @@ class ContentProcessor @Inject constructor(
     }
 
     /**
-     * Process content in chunks and merge results
+     * Process content in chunks and merge results.
+     * Chunks are summarized concurrently, at most [maxConcurrency] at a time, and merged in their original order.
+     * Chunks that fail are left out and counted in the result; the job only fails if no chunk succeeds.
      */
     private suspend fun processInChunks(
         content: String,
@@ -155,68 +204,90 @@ class ContentProcessor @Inject constructor(
         model: ModelCapability,
         apiKey: String,
         systemPrompt: String,
-        userPromptTemplate: String
-    ): Result<String> = withContext(Dispatchers.IO) {
+        userPromptTemplate: String,
+        maxConcurrency: Int,
+        mergeFanIn: Int
+    ): Result<ProcessedContent> = withContext(Dispatchers.IO) {
         try {
             // Split content into chunks
             val chunks = splitIntoChunks(content, model, contentType)
-            Log.d(TAG, "Split content into ${chunks.size} chunks")
-
-            // Process each chunk
-            val chunkResults = mutableListOf<String>()
-
-            for ((index, chunk) in chunks.withIndex()) {
-                Log.d(TAG, "Processing chunk ${index + 1}/${chunks.size}")
-
-                // Create chunk-specific prompts
-                val chunkSystemPrompt = if (chunks.size > 1) {
-                    "$systemPrompt\nThis is part ${index + 1} of ${chunks.size}. Focus on extracting the key information from this part."
-                } else {
-                    systemPrompt
-                }
-
-                val chunkUserPrompt = userPromptTemplate.replace("{content}", chunk)
-
-                // Process chunk
-                val chunkOptions = SummarizationOptions(
-                    summaryType = SummaryType.DETAILED,
-                    language = "English",
-                    maxLength = model.maxTokens / 2, // Use half of max tokens for output
-                    customInstructions = null,
-                    systemPrompt = chunkSystemPrompt
-                )
+            Log.d(TAG, "Split content into ${chunks.size} chunks, processing up to $maxConcurrency at a time")
+
+            // Process chunks concurrently; awaitAll keeps the results in chunk order
+            val semaphore = Semaphore(maxConcurrency.coerceAtLeast(1))
+            val results = coroutineScope {
+                chunks.mapIndexed { index, chunk ->
+                    async {
+                        semaphore.withPermit {
+                            processChunk(chunk, index, chunks.size, model, apiKey, systemPrompt)
+                        }
+                    }
+                }.awaitAll()
+            }
 
-                val result = openRouterApiClient.summarizeText(
-                    content = chunk,
-                    options = chunkOptions,
-                    apiKey = apiKey,
-                    modelId = model.id
+            val chunkResults = results.mapNotNull { it.getOrNull() }
+            if (chunkResults.isEmpty()) {
+                return@withContext Result.failure(
+                    results.firstNotNullOfOrNull { it.exceptionOrNull() } ?: Exception("Failed to process content")
                 )
-
-                if (result.isFailure) {
-                    Log.e(TAG, "Error processing chunk ${index + 1}", result.exceptionOrNull())
-                    return@withContext result
-                }
-
-                val chunkOutput = result.getOrNull() ?: ""
-                chunkResults.add(chunkOutput)
+            }
+            val failedChunks = chunks.size - chunkResults.size
+            if (failedChunks > 0) {
+                Log.w(TAG, "Continuing with ${chunkResults.size} of ${chunks.size} chunks after failures")
             }
 
             // If we only had one chunk, return its result directly
-            if (chunkResults.size == 1) {
-                return@withContext Result.success(chunkResults.first())
+            val text = if (chunkResults.size == 1) {
+                chunkResults.first()
+            } else {
+                mergeChunkResults(chunkResults, model, apiKey, mergeFanIn, semaphore)
             }
 
-            // Merge chunk results
-            val mergedResult = mergeChunkResults(chunkResults, model, apiKey, systemPrompt)
-
-            Result.success(mergedResult)
+            Result.success(ProcessedContent(text, chunks.size, failedChunks))
         } catch (e: Exception) {
             Log.e(TAG, "Error processing content in chunks", e)
             Result.failure(e)
         }
     }
 
+    /**
+     * Summarize a single chunk. The API client already retries transient failures with backoff,
+     * so a chunk that fails here is not retried again.
+     */
+    private suspend fun processChunk(
+        chunk: String,
+        index: Int,
+        chunkCount: Int,
+        model: ModelCapability,
+        apiKey: String,
+        systemPrompt: String
+    ): Result<String> {
+        // Create chunk-specific prompts
+        val chunkSystemPrompt = if (chunkCount > 1) {
+            "$systemPrompt\nThis is part ${index + 1} of $chunkCount. Focus on extracting the key information from this part."
+        } else {
+            systemPrompt
+        }
+
+        val chunkOptions = SummarizationOptions(
+            summaryType = SummaryType.DETAILED,
+            language = "English",
+            maxLength = model.maxTokens / 2, // Use half of max tokens for output
+            customInstructions = null,
+            systemPrompt = chunkSystemPrompt
+        )
+
+        Log.d(TAG, "Processing chunk ${index + 1}/$chunkCount")
+        val result = openRouterApiClient.summarizeText(
+            content = chunk,
+            options = chunkOptions,
+            apiKey = apiKey,
+            modelId = model.id
+        )
+        result.exceptionOrNull()?.let { Log.e(TAG, "Error processing chunk ${index + 1}", it) }
+        return result
+    }
+
     /**
      * Split content into chunks that fit within model's token limit
      */
@@ -270,86 +341,96 @@ class ContentProcessor @Inject constructor(
     }
 
     /**
-     * Merge results from multiple chunks
+     * Merge results from multiple chunks by tree reduction.
+     * Each level merges groups of up to [fanIn] summaries, so n chunks take about log_fanIn(n) rounds.
+     * Every summary in a group gets an equal share of the model's input budget, and intermediate
+     * merges are asked for no more than that share, so no merge prompt can outgrow the context window.
      */
     private suspend fun mergeChunkResults(
         chunkResults: List<String>,
         model: ModelCapability,
         apiKey: String,
-        systemPrompt: String
+        fanIn: Int,
+        semaphore: Semaphore
     ): String = withContext(Dispatchers.IO) {
-        // If we have a small number of chunks, we can merge them directly
-        if (chunkResults.size <= 3) {
-            val combinedChunks = chunkResults.joinToString("\n\n--- Next Part ---\n\n")
-
-            // Create merge prompt
-            val mergeSystemPrompt = "You are a helpful assistant that combines multiple summaries into a single coherent summary. Eliminate redundancy and create a well-structured final summary."
-            val mergeUserPrompt = "I have multiple summaries of different parts of a document. Please combine them into a single coherent summary, removing any redundancy and ensuring good flow between sections.\n\nHere are the summaries:\n\n$combinedChunks"
-
-            // Process merge
-            val mergeOptions = SummarizationOptions(
-                summaryType = SummaryType.DETAILED,
-                language = "English",
-                maxLength = model.maxTokens / 2,
-                customInstructions = null,
-                systemPrompt = mergeSystemPrompt
-            )
+        val groupSize = fanIn.coerceAtLeast(2)
+        val maxInputTokens = (model.maxTokens * 0.7).toInt() // Leave 30% for output
+        val maxTokensPerPart = maxInputTokens / groupSize
+        val maxCharsPerPart = (maxTokensPerPart / TOKENS_PER_CHAR_TEXT).toInt()
+
+        var level = chunkResults
+        var depth = 0
+        while (level.size > 1) {
+            val isFinal = level.size <= groupSize
+            val groups = planMergeGroups(level.size, groupSize)
+            depth++
+            Log.d(TAG, "Merge round $depth: ${level.size} summaries in ${groups.size} groups")
+
+            val current = level
+            level = coroutineScope {
+                groups.map { range ->
+                    async {
+                        val parts = current.subList(range.first, range.last + 1)
+                        if (parts.size == 1) {
+                            parts.first()
+                        } else {
+                            semaphore.withPermit {
+                                mergeGroup(
+                                    parts = parts.map { it.take(maxCharsPerPart) },
+                                    model = model,
+                                    apiKey = apiKey,
+                                    isFinal = isFinal,
+                                    maxOutputTokens = if (isFinal) model.maxTokens / 2 else maxTokensPerPart
+                                )
+                            }
+                        }
+                    }
+                }.awaitAll()
+            }
+        }
 
-            val result = openRouterApiClient.summarizeText(
-                content = combinedChunks,
-                options = mergeOptions,
-                apiKey = apiKey,
-                modelId = model.id
-            )
+        level.firstOrNull() ?: ""
+    }
 
-            if (result.isFailure) {
-                Log.e(TAG, "Error merging chunk results", result.exceptionOrNull())
-                // If merging fails, just concatenate the chunks
-                return@withContext chunkResults.joinToString("\n\n")
-            }
+    /**
+     * Merge one group of summaries, falling back to concatenating them if the call fails
+     */
+    private suspend fun mergeGroup(
+        parts: List<String>,
+        model: ModelCapability,
+        apiKey: String,
+        isFinal: Boolean,
+        maxOutputTokens: Int
+    ): String {
+        val combinedChunks = parts.joinToString(PART_SEPARATOR)
 
-            return@withContext result.getOrNull() ?: chunkResults.joinToString("\n\n")
+        val mergeSystemPrompt = if (isFinal) {
+            "You are a helpful assistant that combines multiple summaries into a single coherent summary. Eliminate redundancy and create a well-structured final summary."
         } else {
-            // For many chunks, we need to merge hierarchically
-            // First, merge adjacent pairs
-            val firstLevelMerges = mutableListOf<String>()
-
-            for (i in chunkResults.indices step 2) {
-                if (i + 1 < chunkResults.size) {
-                    // Merge pair
-                    val pair = "${chunkResults[i]}\n\n--- Next Part ---\n\n${chunkResults[i + 1]}"
-
-                    val mergeSystemPrompt = "You are a helpful assistant that combines multiple summaries into a single coherent summary. Eliminate redundancy and create a well-structured partial summary."
-                    val mergeUserPrompt = "Please combine these two partial summaries into a single coherent summary, removing any redundancy:\n\n$pair"
-
-                    val pairMergeOptions = SummarizationOptions(
-                        summaryType = SummaryType.DETAILED,
-                        language = "English",
-                        maxLength = model.maxTokens / 2,
-                        customInstructions = null,
-                        systemPrompt = mergeSystemPrompt
-                    )
-
-                    val result = openRouterApiClient.summarizeText(
-                        content = pair,
-                        options = pairMergeOptions,
-                        apiKey = apiKey,
-                        modelId = model.id
-                    )
-
-                    if (result.isSuccess) {
-                        firstLevelMerges.add(result.getOrNull() ?: pair)
-                    } else {
-                        firstLevelMerges.add(pair)
-                    }
-                } else {
-                    // Add the last odd chunk
-                    firstLevelMerges.add(chunkResults[i])
-                }
-            }
+            "You are a helpful assistant that combines multiple summaries into a single coherent summary. Eliminate redundancy and create a well-structured partial summary."
+        }
 
-            // Recursively merge until we have a single result
-            return@withContext mergeChunkResults(firstLevelMerges, model, apiKey, systemPrompt)
+        val mergeOptions = SummarizationOptions(
+            summaryType = SummaryType.DETAILED,
+            language = "English",
+            maxLength = maxOutputTokens,
+            customInstructions = null,
+            systemPrompt = mergeSystemPrompt
+        )
+
+        val result = openRouterApiClient.summarizeText(
+            content = combinedChunks,
+            options = mergeOptions,
+            apiKey = apiKey,
+            modelId = model.id
+        )
+
+        if (result.isFailure) {
+            Log.e(TAG, "Error merging chunk results", result.exceptionOrNull())
+            // If merging fails, just concatenate the chunks
+            return parts.joinToString("\n\n")
         }
+
+        return result.getOrNull() ?: parts.joinToString("\n\n")
     }
 }
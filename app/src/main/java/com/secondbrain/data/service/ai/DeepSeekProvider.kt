@@ -4,6 +4,7 @@ import android.content.Context
 import android.net.Uri
 import android.util.Log
 import com.secondbrain.data.repository.SettingsRepository
+import com.secondbrain.data.service.ai.api.DeepSeekApiClient
 import com.secondbrain.data.service.ai.provider.DeepSeekPromptFormatter
 import com.secondbrain.util.SecureStorage
 import dagger.hilt.android.qualifiers.ApplicationContext
@@ -22,7 +23,8 @@ import javax.inject.Singleton
 class DeepSeekProvider @Inject constructor(
     @ApplicationContext private val context: Context,
     private val settingsRepository: SettingsRepository,
-    private val secureStorage: SecureStorage
+    private val secureStorage: SecureStorage,
+    private val apiClient: DeepSeekApiClient
 ) : BaseAiProvider {
 
     companion object {
@@ -91,9 +93,6 @@ class DeepSeekProvider @Inject constructor(
     override val availableModels: List<AiModel>
         get() = _allModels.value
 
-    // API client
-    private val apiClient = com.secondbrain.data.service.ai.api.DeepSeekApiClient()
-
     // Get API key from secure storage
     private suspend fun getApiKey(): String? {
         return secureStorage.getString(SecureStorage.KEY_DEEPSEEK_API_KEY)
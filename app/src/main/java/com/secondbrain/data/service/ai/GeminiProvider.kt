@@ -9,9 +9,12 @@ import com.secondbrain.data.service.ai.provider.GeminiPromptFormatter
 import com.secondbrain.util.SecureStorage
 import dagger.hilt.android.qualifiers.ApplicationContext
 import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.flow.Flow
 import kotlinx.coroutines.flow.MutableStateFlow
 import kotlinx.coroutines.flow.StateFlow
 import kotlinx.coroutines.flow.asStateFlow
+import kotlinx.coroutines.flow.emitAll
+import kotlinx.coroutines.flow.flow
 import kotlinx.coroutines.withContext
 import javax.inject.Inject
 import javax.inject.Singleton
@@ -23,7 +26,8 @@ import javax.inject.Singleton
 class GeminiProvider @Inject constructor(
     @ApplicationContext private val context: Context,
     private val settingsRepository: SettingsRepository,
-    private val secureStorage: SecureStorage
+    private val secureStorage: SecureStorage,
+    private val apiClient: GeminiApiClient
 ) : BaseAiProvider {
 
     companion object {
@@ -35,6 +39,8 @@ class GeminiProvider @Inject constructor(
     override val systemPromptFormat: SystemPromptHandler.SystemPromptFormat =
         SystemPromptHandler.SystemPromptFormat.CONVERSATION_BASED
 
+    override val supportsStructuredOutput: Boolean = true
+
     /**
      * Process a system prompt according to Gemini's requirements
      * For Gemini, we use a conversation-based approach
@@ -115,9 +121,6 @@ class GeminiProvider @Inject constructor(
     override val availableModels: List<AiModel>
         get() = _allModels.value
 
-    // API client
-    private val apiClient = GeminiApiClient()
-
     // Get API key from secure storage
     private suspend fun getApiKey(): String? {
         return secureStorage.getString(SecureStorage.KEY_GEMINI_API_KEY)
@@ -187,6 +190,18 @@ class GeminiProvider @Inject constructor(
         }
     }
 
+    override fun summarizeTextStream(
+        content: String,
+        options: SummarizationOptions
+    ): Flow<String> = flow {
+        val apiKey = getApiKey()
+        if (apiKey.isNullOrEmpty()) {
+            throw Exception("Gemini API key not configured")
+        }
+
+        emitAll(apiClient.summarizeTextStream(content, options, apiKey, _selectedModel.value?.id))
+    }
+
     override suspend fun transcribeAudio(
         audioUri: Uri,
         options: TranscriptionOptions
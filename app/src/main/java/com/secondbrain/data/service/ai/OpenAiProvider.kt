@@ -9,9 +9,12 @@ import com.secondbrain.data.service.ai.provider.OpenAiPromptFormatter
 import com.secondbrain.util.SecureStorage
 import dagger.hilt.android.qualifiers.ApplicationContext
 import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.flow.Flow
 import kotlinx.coroutines.flow.MutableStateFlow
 import kotlinx.coroutines.flow.StateFlow
 import kotlinx.coroutines.flow.asStateFlow
+import kotlinx.coroutines.flow.emitAll
+import kotlinx.coroutines.flow.flow
 import kotlinx.coroutines.withContext
 import java.io.File
 import javax.inject.Inject
@@ -24,7 +27,8 @@ import javax.inject.Singleton
 class OpenAiProvider @Inject constructor(
     @ApplicationContext private val context: Context,
     private val settingsRepository: SettingsRepository,
-    private val secureStorage: SecureStorage
+    private val secureStorage: SecureStorage,
+    private val apiClient: OpenAiApiClient
 ) : BaseAiProvider {
 
     companion object {
@@ -36,6 +40,8 @@ class OpenAiProvider @Inject constructor(
     override val systemPromptFormat: SystemPromptHandler.SystemPromptFormat =
         SystemPromptHandler.SystemPromptFormat.DEDICATED_SYSTEM_MESSAGE
 
+    override val supportsStructuredOutput: Boolean = true
+
     /**
      * Process a system prompt according to OpenAI's requirements
      * For OpenAI, we use a dedicated system message
@@ -112,9 +118,6 @@ class OpenAiProvider @Inject constructor(
     override val availableModels: List<AiModel>
         get() = _allModels.value
 
-    // API client
-    private val apiClient = OpenAiApiClient()
-
     // Get API key from secure storage
     private suspend fun getApiKey(): String? {
         return secureStorage.getString(SecureStorage.KEY_OPENAI_API_KEY)
@@ -181,6 +184,18 @@ class OpenAiProvider @Inject constructor(
         }
     }
 
+    override fun summarizeTextStream(
+        content: String,
+        options: SummarizationOptions
+    ): Flow<String> = flow {
+        val apiKey = getApiKey()
+        if (apiKey.isNullOrEmpty()) {
+            throw Exception("OpenAI API key not configured")
+        }
+
+        emitAll(apiClient.summarizeTextStream(content, options, apiKey))
+    }
+
     override suspend fun transcribeAudio(
         audioUri: Uri,
         options: TranscriptionOptions
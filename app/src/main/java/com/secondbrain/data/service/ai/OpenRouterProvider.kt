@@ -3,14 +3,19 @@ package com.secondbrain.data.service.ai
 import android.content.Context
 import android.net.Uri
 import android.util.Log
+import com.secondbrain.data.model.ai.ContentType
 import com.secondbrain.data.repository.SettingsRepository
+import com.secondbrain.data.service.ai.api.OpenRouterApiClient
 import com.secondbrain.data.service.ai.provider.OpenRouterPromptFormatter
 import com.secondbrain.util.SecureStorage
 import dagger.hilt.android.qualifiers.ApplicationContext
 import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.flow.Flow
 import kotlinx.coroutines.flow.MutableStateFlow
 import kotlinx.coroutines.flow.StateFlow
 import kotlinx.coroutines.flow.asStateFlow
+import kotlinx.coroutines.flow.emitAll
+import kotlinx.coroutines.flow.flow
 import kotlinx.coroutines.withContext
 import javax.inject.Inject
 import javax.inject.Singleton
@@ -23,7 +28,10 @@ import javax.inject.Singleton
 class OpenRouterProvider @Inject constructor(
     @ApplicationContext private val context: Context,
     private val settingsRepository: SettingsRepository,
-    private val secureStorage: SecureStorage
+    private val secureStorage: SecureStorage,
+    private val apiClient: OpenRouterApiClient,
+    private val modelRepository: OpenRouterModelRepository,
+    private val freeFirstModelSelector: FreeFirstModelSelector
 ) : BaseAiProvider {
 
     companion object {
@@ -158,9 +166,6 @@ class OpenRouterProvider @Inject constructor(
                 return@withContext Result.failure(Exception("OpenRouter API key not configured"))
             }
 
-            // Create API client
-            val apiClient = com.secondbrain.data.service.ai.api.OpenRouterApiClient()
-
             // Call the API to get models
             val result = apiClient.fetchAvailableModels(apiKey)
 
@@ -180,30 +185,74 @@ class OpenRouterProvider @Inject constructor(
 
 
 
+    /**
+     * Fallback models for the selected model, most reliable first, as ranked by [FreeFirstModelSelector]
+     */
+    suspend fun getFallbackModelIds(): List<String> {
+        return try {
+            val apiKey = getApiKey()
+            if (apiKey.isNullOrEmpty()) return emptyList()
+
+            val selectedId = (selectedModel.value ?: availableModels.first()).id
+            val primaryModel = modelRepository.getAllModels(apiKey).getOrNull()
+                ?.firstOrNull { it.id == selectedId }
+                ?: return emptyList()
+
+            freeFirstModelSelector.getFallbackModels(apiKey, primaryModel, ContentType.TEXT)
+                .getOrNull()
+                ?.map { it.id }
+                ?: emptyList()
+        } catch (e: Exception) {
+            Log.e(TAG, "Error getting fallback models", e)
+            emptyList()
+        }
+    }
+
     override suspend fun summarizeText(
         content: String,
         options: SummarizationOptions
+    ): Result<String> = summarizeText(content, options, null)
+
+    /**
+     * Summarize text with [modelId], or the selected model when it is null
+     */
+    suspend fun summarizeText(
+        content: String,
+        options: SummarizationOptions,
+        modelId: String?
     ): Result<String> = withContext(Dispatchers.IO) {
         try {
-            val model = selectedModel.value ?: availableModels.first()
-            Log.d(TAG, "Summarizing text with OpenRouter (${model.name}): ${content.take(100)}...")
+            val targetModelId = modelId ?: (selectedModel.value ?: availableModels.first()).id
+            Log.d(TAG, "Summarizing text with OpenRouter ($targetModelId): ${content.take(100)}...")
 
             val apiKey = getApiKey()
             if (apiKey.isNullOrEmpty()) {
                 return@withContext Result.failure(Exception("OpenRouter API key not configured"))
             }
 
-            // Create API client
-            val apiClient = com.secondbrain.data.service.ai.api.OpenRouterApiClient()
-
             // Call the API to summarize text
-            apiClient.summarizeText(content, options, apiKey, model.id)
+            apiClient.summarizeText(content, options, apiKey, targetModelId)
         } catch (e: Exception) {
             Log.e(TAG, "Error summarizing text with OpenRouter", e)
             Result.failure(e)
         }
     }
 
+    override fun summarizeTextStream(
+        content: String,
+        options: SummarizationOptions
+    ): Flow<String> = flow {
+        val model = selectedModel.value ?: availableModels.first()
+        Log.d(TAG, "Streaming summary with OpenRouter (${model.name})")
+
+        val apiKey = getApiKey()
+        if (apiKey.isNullOrEmpty()) {
+            throw Exception("OpenRouter API key not configured")
+        }
+
+        emitAll(apiClient.summarizeTextStream(content, options, apiKey, model.id))
+    }
+
     override suspend fun transcribeAudio(
         audioUri: Uri,
         options: TranscriptionOptions
@@ -252,9 +301,6 @@ class OpenRouterProvider @Inject constructor(
                 return@withContext Result.failure(Exception("OpenRouter API key not configured"))
             }
 
-            // Create API client
-            val apiClient = com.secondbrain.data.service.ai.api.OpenRouterApiClient()
-
             // Call the API to extract text from image
             apiClient.extractTextFromImage(imageUri, options, apiKey, model.id, context)
         } catch (e: Exception) {
@@ -266,21 +312,27 @@ class OpenRouterProvider @Inject constructor(
     override suspend fun generateTags(
         content: String,
         options: TagGenerationOptions
+    ): Result<List<String>> = generateTags(content, options, null)
+
+    /**
+     * Generate tags with [modelId], or the selected model when it is null
+     */
+    suspend fun generateTags(
+        content: String,
+        options: TagGenerationOptions,
+        modelId: String?
     ): Result<List<String>> = withContext(Dispatchers.IO) {
         try {
-            val model = selectedModel.value ?: availableModels.first()
-            Log.d(TAG, "Generating tags with OpenRouter (${model.name}): ${content.take(100)}...")
+            val targetModelId = modelId ?: (selectedModel.value ?: availableModels.first()).id
+            Log.d(TAG, "Generating tags with OpenRouter ($targetModelId): ${content.take(100)}...")
 
             val apiKey = getApiKey()
             if (apiKey.isNullOrEmpty()) {
                 return@withContext Result.failure(Exception("OpenRouter API key not configured"))
             }
 
-            // Create API client
-            val apiClient = com.secondbrain.data.service.ai.api.OpenRouterApiClient()
-
             // Call the API to generate tags
-            apiClient.generateTags(content, options, apiKey, model.id)
+            apiClient.generateTags(content, options, apiKey, targetModelId)
         } catch (e: Exception) {
             Log.e(TAG, "Error generating tags with OpenRouter", e)
             Result.failure(e)
@@ -290,21 +342,27 @@ class OpenRouterProvider @Inject constructor(
     override suspend fun generateTitle(
         content: String,
         options: TitleGenerationOptions
+    ): Result<String> = generateTitle(content, options, null)
+
+    /**
+     * Generate a title with [modelId], or the selected model when it is null
+     */
+    suspend fun generateTitle(
+        content: String,
+        options: TitleGenerationOptions,
+        modelId: String?
     ): Result<String> = withContext(Dispatchers.IO) {
         try {
-            val model = selectedModel.value ?: availableModels.first()
-            Log.d(TAG, "Generating title with OpenRouter (${model.name}): ${content.take(100)}...")
+            val targetModelId = modelId ?: (selectedModel.value ?: availableModels.first()).id
+            Log.d(TAG, "Generating title with OpenRouter ($targetModelId): ${content.take(100)}...")
 
             val apiKey = getApiKey()
             if (apiKey.isNullOrEmpty()) {
                 return@withContext Result.failure(Exception("OpenRouter API key not configured"))
             }
 
-            // Create API client
-            val apiClient = com.secondbrain.data.service.ai.api.OpenRouterApiClient()
-
             // Call the API to generate title
-            apiClient.generateTitle(content, options, apiKey, model.id)
+            apiClient.generateTitle(content, options, apiKey, targetModelId)
         } catch (e: Exception) {
             Log.e(TAG, "Error generating title with OpenRouter", e)
             Result.failure(e)
@@ -0,0 +1,66 @@
+package com.secondbrain.data.service.ai
+
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.CoroutineStart
+import kotlinx.coroutines.Deferred
+import kotlinx.coroutines.async
+
+/**
+ * Coalesces concurrent calls with the same key so they share one in-flight [Deferred].
+ *
+ * The shared work runs in [scope], so a caller that is cancelled does not cancel it for the
+ * others; it is only cancelled once every caller waiting on it has gone away.
+ */
+class SingleFlight<T>(private val scope: CoroutineScope) {
+
+    private class Call<T>(val deferred: Deferred<T>) {
+        var waiters = 0
+    }
+
+    private val calls = mutableMapOf<String, Call<T>>()
+
+    /**
+     * Run [block] for [key], or join the call already running for it
+     */
+    suspend fun run(key: String, block: suspend () -> T): T {
+        var newCall: Call<T>? = null
+        val call = synchronized(calls) {
+            val existing = calls[key]?.takeIf { !it.deferred.isCompleted }
+            (existing ?: Call(scope.async(start = CoroutineStart.LAZY) { block() }).also {
+                calls[key] = it
+                newCall = it
+            }).also { it.waiters++ }
+        }
+
+        newCall?.let { started ->
+            started.deferred.invokeOnCompletion { remove(key, started) }
+            started.deferred.start()
+        }
+
+        try {
+            return call.deferred.await()
+        } finally {
+            val abandoned = synchronized(calls) {
+                call.waiters--
+                (call.waiters == 0 && !call.deferred.isCompleted).also { abandoned ->
+                    // Later callers must start over rather than join work that is being cancelled
+                    if (abandoned) remove(key, call)
+                }
+            }
+            if (abandoned) {
+                call.deferred.cancel()
+            }
+        }
+    }
+
+    /**
+     * Number of distinct keys with work in flight
+     */
+    fun inFlightCount(): Int = synchronized(calls) { calls.size }
+
+    private fun remove(key: String, call: Call<T>) {
+        synchronized(calls) {
+            if (calls[key] === call) calls.remove(key)
+        }
+    }
+}
@@ -12,28 +12,41 @@ import com.secondbrain.data.service.ai.SummaryType
 import com.secondbrain.data.service.ai.TagGenerationOptions
 import com.secondbrain.data.service.ai.TitleGenerationOptions
 import com.secondbrain.data.service.ai.provider.ClaudePromptFormatter
+import com.secondbrain.data.service.ai.ratelimit.ProviderRateLimiter
 import com.secondbrain.util.ApiAuthenticationException
 import com.secondbrain.util.ApiInvalidRequestException
 import com.secondbrain.util.ApiRateLimitException
 import com.secondbrain.util.ApiTemporaryErrorException
 import com.secondbrain.util.NetworkUtils
+import com.secondbrain.util.ServerSentEvents
+import com.secondbrain.util.await
 import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.flow.Flow
 import kotlinx.coroutines.withContext
+import okhttp3.Call
 import okhttp3.MediaType.Companion.toMediaType
 import okhttp3.OkHttpClient
 import okhttp3.Request
+import okhttp3.Response
 import okhttp3.RequestBody.Companion.toRequestBody
 import okhttp3.logging.HttpLoggingInterceptor
 import org.json.JSONObject
 import java.io.IOException
 import java.util.concurrent.TimeUnit
+import javax.inject.Inject
+import javax.inject.Singleton
 
 /**
  * API client for Anthropic's Claude
  */
-class ClaudeApiClient {
+@Singleton
+class ClaudeApiClient @Inject constructor(
+    private val httpClient: OkHttpClient,
+    private val rateLimiter: ProviderRateLimiter
+) {
     companion object {
         private const val TAG = "ClaudeApiClient"
+        private const val PROVIDER = "Claude"
         private const val BASE_URL = "https://api.anthropic.com/v1"
         private const val MESSAGES_ENDPOINT = "$BASE_URL/messages"
         private const val CLAUDE_3_OPUS = "claude-3-opus-20240229"
@@ -48,7 +61,8 @@ class ClaudeApiClient {
             level = HttpLoggingInterceptor.Level.BASIC
         }
 
-        OkHttpClient.Builder()
+        // Derived from the shared client so calls reuse its connection pool and dispatcher
+        httpClient.newBuilder()
             .addInterceptor(loggingInterceptor)
             .connectTimeout(30, TimeUnit.SECONDS)
             .readTimeout(60, TimeUnit.SECONDS)
@@ -58,6 +72,14 @@ class ClaudeApiClient {
 
     private val gson = Gson()
 
+    /**
+     * Execute a request within the rate limits shared by all callers of this provider
+     */
+    private suspend fun executeRequest(request: Request): Response = executeCall(client.newCall(request))
+
+    private suspend fun executeCall(call: Call): Response =
+        rateLimiter.execute(PROVIDER, call.request()) { call.await() }
+
     /**
      * Fetch available models from Claude API
      * Note: Claude API doesn't have a models endpoint, so we'll return the known models
@@ -75,7 +97,7 @@ class ClaudeApiClient {
                     .build()
 
                 // Execute request to check if API key is valid
-                val response = client.newCall(request).execute()
+                val response = executeRequest(request)
 
                 // If unauthorized, throw an exception
                 if (response.code == 401) {
@@ -151,55 +173,10 @@ class ClaudeApiClient {
     ): Result<String> = withContext(Dispatchers.IO) {
         return@withContext NetworkUtils.retryWithExponentialBackoff {
             try {
-                // Use provided system prompt or create one based on summary type
-                val systemPrompt = options.systemPrompt ?: when (options.summaryType) {
-                    SummaryType.CONCISE -> "You are a helpful assistant that creates concise summaries. Keep the summary brief and to the point, focusing only on the most important information."
-                    SummaryType.DETAILED -> "You are a helpful assistant that creates detailed summaries. Include all important details, explanations, and context in your summary."
-                    SummaryType.BULLET_POINTS -> "You are a helpful assistant that creates bullet point summaries. Format your summary as a list of bullet points, each covering a key point from the content."
-                    SummaryType.QUESTION_ANSWER -> "You are a helpful assistant that creates Q&A summaries. Format your summary as a series of questions and answers that cover the key points from the content."
-                    SummaryType.KEY_FACTS -> "You are a helpful assistant that extracts key facts. Identify and list the most important facts from the content."
-                }
-
-                // Create user prompt based on summary type
-                val userPrompt = when (options.summaryType) {
-                    SummaryType.CONCISE -> "Create a concise summary of the following content in ${options.language}:"
-                    SummaryType.DETAILED -> "Create a detailed summary of the following content in ${options.language}:"
-                    SummaryType.BULLET_POINTS -> "Summarize the following content as bullet points in ${options.language}:"
-                    SummaryType.QUESTION_ANSWER -> "Create a Q&A summary of the following content in ${options.language}:"
-                    SummaryType.KEY_FACTS -> "Extract the key facts from the following content in ${options.language}:"
-                }
-
-                // Add custom instructions if provided
-                val fullUserPrompt = if (options.customInstructions.isNullOrEmpty()) {
-                    "$userPrompt\n\n$content"
-                } else {
-                    "$userPrompt\n\nAdditional instructions: ${options.customInstructions}\n\n$content"
-                }
-
-                // Create request body using the formatter
-                val (formattedSystemPrompt, formattedMessages) = ClaudePromptFormatter.formatPrompt(systemPrompt, fullUserPrompt)
-
-                val requestBody = ClaudeRequest(
-                    model = DEFAULT_MODEL,
-                    maxTokens = options.maxLength ?: 1000,
-                    messages = formattedMessages,
-                    system = formattedSystemPrompt,
-                    temperature = 0.3
-                )
-
-                val jsonBody = gson.toJson(requestBody)
-
-                // Create request
-                val request = Request.Builder()
-                    .url(MESSAGES_ENDPOINT)
-                    .addHeader("Content-Type", "application/json")
-                    .addHeader("x-api-key", apiKey)
-                    .addHeader("anthropic-version", ANTHROPIC_VERSION)
-                    .post(jsonBody.toRequestBody("application/json".toMediaType()))
-                    .build()
+                val request = createSummarizeRequest(content, options, apiKey, stream = false)
 
                 // Execute request
-                val response = client.newCall(request).execute()
+                val response = executeRequest(request)
                 val responseBody = response.body?.string()
 
                 if (!response.isSuccessful || responseBody == null) {
@@ -223,6 +200,85 @@ class ClaudeApiClient {
         }
     }
 
+    /**
+     * Build the summarization request; [stream] asks for a server-sent event response
+     */
+    private fun createSummarizeRequest(
+        content: String,
+        options: SummarizationOptions,
+        apiKey: String,
+        stream: Boolean
+    ): Request {
+        // Use provided system prompt or create one based on summary type
+        val systemPrompt = options.systemPrompt ?: when (options.summaryType) {
+            SummaryType.CONCISE -> "You are a helpful assistant that creates concise summaries. Keep the summary brief and to the point, focusing only on the most important information."
+            SummaryType.DETAILED -> "You are a helpful assistant that creates detailed summaries. Include all important details, explanations, and context in your summary."
+            SummaryType.BULLET_POINTS -> "You are a helpful assistant that creates bullet point summaries. Format your summary as a list of bullet points, each covering a key point from the content."
+            SummaryType.QUESTION_ANSWER -> "You are a helpful assistant that creates Q&A summaries. Format your summary as a series of questions and answers that cover the key points from the content."
+            SummaryType.KEY_FACTS -> "You are a helpful assistant that extracts key facts. Identify and list the most important facts from the content."
+        }
+
+        // Create user prompt based on summary type
+        val userPrompt = when (options.summaryType) {
+            SummaryType.CONCISE -> "Create a concise summary of the following content in ${options.language}:"
+            SummaryType.DETAILED -> "Create a detailed summary of the following content in ${options.language}:"
+            SummaryType.BULLET_POINTS -> "Summarize the following content as bullet points in ${options.language}:"
+            SummaryType.QUESTION_ANSWER -> "Create a Q&A summary of the following content in ${options.language}:"
+            SummaryType.KEY_FACTS -> "Extract the key facts from the following content in ${options.language}:"
+        }
+
+        // Add custom instructions if provided
+        val fullUserPrompt = if (options.customInstructions.isNullOrEmpty()) {
+            "$userPrompt\n\n$content"
+        } else {
+            "$userPrompt\n\nAdditional instructions: ${options.customInstructions}\n\n$content"
+        }
+
+        // Create request body using the formatter
+        val (formattedSystemPrompt, formattedMessages) = ClaudePromptFormatter.formatPrompt(systemPrompt, fullUserPrompt)
+
+        val requestBody = ClaudeRequest(
+            model = DEFAULT_MODEL,
+            maxTokens = options.maxLength ?: 1000,
+            messages = formattedMessages,
+            system = formattedSystemPrompt,
+            temperature = 0.3,
+            stream = if (stream) true else null
+        )
+
+        val jsonBody = gson.toJson(requestBody)
+
+        // Create request
+        val request = Request.Builder()
+            .url(MESSAGES_ENDPOINT)
+            .addHeader("Content-Type", "application/json")
+            .addHeader("x-api-key", apiKey)
+            .addHeader("anthropic-version", ANTHROPIC_VERSION)
+            .post(jsonBody.toRequestBody("application/json".toMediaType()))
+            .build()
+
+        return request
+    }
+
+    /**
+     * Stream a summary from Claude as it is generated
+     */
+    fun summarizeTextStream(
+        content: String,
+        options: SummarizationOptions,
+        apiKey: String
+    ): Flow<String> {
+        val request = createSummarizeRequest(content, options, apiKey, stream = true)
+        return ServerSentEvents.stream(client.newCall(request), ::executeCall, ::handleErrorResponse) { data ->
+            val json = JSONObject(data)
+            when (json.optString("type")) {
+                "content_block_delta" -> json.optJSONObject("delta")?.optString("text")
+                "error" -> throw IOException("API error: ${json.optJSONObject("error")?.optString("message")}")
+                else -> null
+            }
+        }
+    }
+
     /**
      * Extract text from an image using Claude
      */
@@ -292,7 +348,7 @@ class ClaudeApiClient {
                     .build()
 
                 // Execute request
-                val response = client.newCall(request).execute()
+                val response = executeRequest(request)
                 val responseBody = response.body?.string()
 
                 if (!response.isSuccessful || responseBody == null) {
@@ -355,7 +411,7 @@ class ClaudeApiClient {
                     .build()
 
                 // Execute request
-                val response = client.newCall(request).execute()
+                val response = executeRequest(request)
                 val responseBody = response.body?.string()
 
                 if (!response.isSuccessful || responseBody == null) {
@@ -424,7 +480,7 @@ class ClaudeApiClient {
                     .build()
 
                 // Execute request
-                val response = client.newCall(request).execute()
+                val response = executeRequest(request)
                 val responseBody = response.body?.string()
 
                 if (!response.isSuccessful || responseBody == null) {
@@ -488,7 +544,8 @@ class ClaudeApiClient {
         @SerializedName("max_tokens") val maxTokens: Int,
         val messages: List<ClaudeMessage>,
         val system: String,
-        val temperature: Double = 0.7
+        val temperature: Double = 0.7,
+        val stream: Boolean? = null
     )
 
     data class ClaudeMessage(
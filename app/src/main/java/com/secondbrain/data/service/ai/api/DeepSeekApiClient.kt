@@ -10,28 +10,41 @@ import com.secondbrain.data.service.ai.SummaryType
 import com.secondbrain.data.service.ai.TagGenerationOptions
 import com.secondbrain.data.service.ai.TitleGenerationOptions
 import com.secondbrain.data.service.ai.provider.DeepSeekPromptFormatter
+import com.secondbrain.data.service.ai.ratelimit.ProviderRateLimiter
 import com.secondbrain.util.ApiAuthenticationException
 import com.secondbrain.util.ApiInvalidRequestException
 import com.secondbrain.util.ApiRateLimitException
 import com.secondbrain.util.ApiTemporaryErrorException
 import com.secondbrain.util.NetworkUtils
+import com.secondbrain.util.ServerSentEvents
+import com.secondbrain.util.await
 import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.flow.Flow
 import kotlinx.coroutines.withContext
+import okhttp3.Call
 import okhttp3.MediaType.Companion.toMediaType
 import okhttp3.OkHttpClient
 import okhttp3.Request
+import okhttp3.Response
 import okhttp3.RequestBody.Companion.toRequestBody
 import okhttp3.logging.HttpLoggingInterceptor
 import org.json.JSONObject
 import java.io.IOException
 import java.util.concurrent.TimeUnit
+import javax.inject.Inject
+import javax.inject.Singleton
 
 /**
  * API client for DeepSeek AI
  */
-class DeepSeekApiClient {
+@Singleton
+class DeepSeekApiClient @Inject constructor(
+    private val httpClient: OkHttpClient,
+    private val rateLimiter: ProviderRateLimiter
+) {
     companion object {
         private const val TAG = "DeepSeekApiClient"
+        private const val PROVIDER = "DeepSeek"
         private const val BASE_URL = "https://api.deepseek.com/v1"
         private const val CHAT_ENDPOINT = "$BASE_URL/chat/completions"
         private const val DEFAULT_MODEL = "deepseek-chat"
@@ -43,7 +56,8 @@ class DeepSeekApiClient {
             level = HttpLoggingInterceptor.Level.BASIC
         }
 
-        OkHttpClient.Builder()
+        // Derived from the shared client so calls reuse its connection pool and dispatcher
+        httpClient.newBuilder()
             .addInterceptor(loggingInterceptor)
             .connectTimeout(30, TimeUnit.SECONDS)
             .readTimeout(60, TimeUnit.SECONDS)
@@ -53,6 +67,14 @@ class DeepSeekApiClient {
 
     private val gson = Gson()
 
+    /**
+     * Execute a request within the rate limits shared by all callers of this provider
+     */
+    private suspend fun executeRequest(request: Request): Response = executeCall(client.newCall(request))
+
+    private suspend fun executeCall(call: Call): Response =
+        rateLimiter.execute(PROVIDER, call.request()) { call.await() }
+
     /**
      * Fetch available models from DeepSeek API
      * Note: DeepSeek API doesn't have a models endpoint, so we'll return the known models
@@ -81,7 +103,7 @@ class DeepSeekApiClient {
                     .build()
 
                 // Execute request to check if API key is valid
-                val response = client.newCall(request).execute()
+                val response = executeRequest(request)
 
                 // If unauthorized, throw an exception
                 if (response.code == 401) {
@@ -149,53 +171,10 @@ class DeepSeekApiClient {
     ): Result<String> = withContext(Dispatchers.IO) {
         return@withContext NetworkUtils.retryWithExponentialBackoff {
             try {
-                // Create system prompt based on summary type
-                val systemPrompt = when (options.summaryType) {
-                    SummaryType.CONCISE -> "You are a helpful assistant that creates concise summaries. Keep the summary brief and to the point, focusing only on the most important information."
-                    SummaryType.DETAILED -> "You are a helpful assistant that creates detailed summaries. Include all important details, explanations, and context in your summary."
-                    SummaryType.BULLET_POINTS -> "You are a helpful assistant that creates bullet point summaries. Format your summary as a list of bullet points, each covering a key point from the content."
-                    SummaryType.QUESTION_ANSWER -> "You are a helpful assistant that creates Q&A summaries. Format your summary as a series of questions and answers that cover the key points from the content."
-                    SummaryType.KEY_FACTS -> "You are a helpful assistant that extracts key facts. Identify and list the most important facts from the content."
-                }
-
-                // Create user prompt based on summary type
-                val userPrompt = when (options.summaryType) {
-                    SummaryType.CONCISE -> "Create a concise summary of the following content in ${options.language}:"
-                    SummaryType.DETAILED -> "Create a detailed summary of the following content in ${options.language}:"
-                    SummaryType.BULLET_POINTS -> "Summarize the following content as bullet points in ${options.language}:"
-                    SummaryType.QUESTION_ANSWER -> "Create a Q&A summary of the following content in ${options.language}:"
-                    SummaryType.KEY_FACTS -> "Extract the key facts from the following content in ${options.language}:"
-                }
-
-                // Add custom instructions if provided
-                val fullUserPrompt = if (options.customInstructions.isNullOrEmpty()) {
-                    "$userPrompt\n\n$content"
-                } else {
-                    "$userPrompt\n\nAdditional instructions: ${options.customInstructions}\n\n$content"
-                }
-
-                // Create request body using the formatter
-                val messages = DeepSeekPromptFormatter.formatPrompt(systemPrompt, fullUserPrompt)
-
-                val requestBody = DeepSeekRequest(
-                    model = DEFAULT_MODEL,
-                    messages = messages,
-                    temperature = 0.3,
-                    maxTokens = options.maxLength ?: 1000
-                )
-
-                val jsonBody = gson.toJson(requestBody)
-
-                // Create request
-                val request = Request.Builder()
-                    .url(CHAT_ENDPOINT)
-                    .addHeader("Content-Type", "application/json")
-                    .addHeader("Authorization", "Bearer $apiKey")
-                    .post(jsonBody.toRequestBody("application/json".toMediaType()))
-                    .build()
+                val request = createSummarizeRequest(content, options, apiKey, stream = false)
 
                 // Execute request
-                val response = client.newCall(request).execute()
+                val response = executeRequest(request)
                 val responseBody = response.body?.string()
 
                 if (!response.isSuccessful || responseBody == null) {
@@ -237,6 +216,76 @@ class DeepSeekApiClient {
         }
     }
 
+    /**
+     * Build the summarization request; [stream] asks for a server-sent event response
+     */
+    private fun createSummarizeRequest(
+        content: String,
+        options: SummarizationOptions,
+        apiKey: String,
+        stream: Boolean
+    ): Request {
+        // Create system prompt based on summary type
+        val systemPrompt = when (options.summaryType) {
+            SummaryType.CONCISE -> "You are a helpful assistant that creates concise summaries. Keep the summary brief and to the point, focusing only on the most important information."
+            SummaryType.DETAILED -> "You are a helpful assistant that creates detailed summaries. Include all important details, explanations, and context in your summary."
+            SummaryType.BULLET_POINTS -> "You are a helpful assistant that creates bullet point summaries. Format your summary as a list of bullet points, each covering a key point from the content."
+            SummaryType.QUESTION_ANSWER -> "You are a helpful assistant that creates Q&A summaries. Format your summary as a series of questions and answers that cover the key points from the content."
+            SummaryType.KEY_FACTS -> "You are a helpful assistant that extracts key facts. Identify and list the most important facts from the content."
+        }
+
+        // Create user prompt based on summary type
+        val userPrompt = when (options.summaryType) {
+            SummaryType.CONCISE -> "Create a concise summary of the following content in ${options.language}:"
+            SummaryType.DETAILED -> "Create a detailed summary of the following content in ${options.language}:"
+            SummaryType.BULLET_POINTS -> "Summarize the following content as bullet points in ${options.language}:"
+            SummaryType.QUESTION_ANSWER -> "Create a Q&A summary of the following content in ${options.language}:"
+            SummaryType.KEY_FACTS -> "Extract the key facts from the following content in ${options.language}:"
+        }
+
+        // Add custom instructions if provided
+        val fullUserPrompt = if (options.customInstructions.isNullOrEmpty()) {
+            "$userPrompt\n\n$content"
+        } else {
+            "$userPrompt\n\nAdditional instructions: ${options.customInstructions}\n\n$content"
+        }
+
+        // Create request body using the formatter
+        val messages = DeepSeekPromptFormatter.formatPrompt(systemPrompt, fullUserPrompt)
+
+        val requestBody = DeepSeekRequest(
+            model = DEFAULT_MODEL,
+            messages = messages,
+            temperature = 0.3,
+            maxTokens = options.maxLength ?: 1000,
+            stream = if (stream) true else null
+        )
+
+        val jsonBody = gson.toJson(requestBody)
+
+        // Create request
+        val request = Request.Builder()
+            .url(CHAT_ENDPOINT)
+            .addHeader("Content-Type", "application/json")
+            .addHeader("Authorization", "Bearer $apiKey")
+            .post(jsonBody.toRequestBody("application/json".toMediaType()))
+            .build()
+
+        return request
+    }
+
+    /**
+     * Stream a summary from DeepSeek as it is generated
+     */
+    fun summarizeTextStream(
+        content: String,
+        options: SummarizationOptions,
+        apiKey: String
+    ): Flow<String> {
+        val request = createSummarizeRequest(content, options, apiKey, stream = true)
+        return ServerSentEvents.stream(client.newCall(request), ::executeCall, ::handleErrorResponse, ServerSentEvents::chatCompletionDelta)
+    }
+
     /**
      * Generate tags from content
      */
@@ -274,7 +323,7 @@ class DeepSeekApiClient {
                     .build()
 
                 // Execute request
-                val response = client.newCall(request).execute()
+                val response = executeRequest(request)
                 val responseBody = response.body?.string()
 
                 if (!response.isSuccessful || responseBody == null) {
@@ -359,7 +408,7 @@ class DeepSeekApiClient {
                     .build()
 
                 // Execute request
-                val response = client.newCall(request).execute()
+                val response = executeRequest(request)
                 val responseBody = response.body?.string()
 
                 if (!response.isSuccessful || responseBody == null) {
@@ -439,7 +488,8 @@ class DeepSeekApiClient {
         val model: String,
         val messages: List<DeepSeekMessage>,
         val temperature: Double = 0.7,
-        @SerializedName("max_tokens") val maxTokens: Int = 1000
+        @SerializedName("max_tokens") val maxTokens: Int = 1000,
+        val stream: Boolean? = null
     )
 
     data class DeepSeekMessage(
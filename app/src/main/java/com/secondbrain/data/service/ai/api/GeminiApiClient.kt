@@ -12,28 +12,41 @@ import com.secondbrain.data.service.ai.SummaryType
 import com.secondbrain.data.service.ai.TagGenerationOptions
 import com.secondbrain.data.service.ai.TitleGenerationOptions
 import com.secondbrain.data.service.ai.provider.GeminiPromptFormatter
+import com.secondbrain.data.service.ai.ratelimit.ProviderRateLimiter
 import com.secondbrain.util.ApiAuthenticationException
 import com.secondbrain.util.ApiInvalidRequestException
 import com.secondbrain.util.ApiRateLimitException
 import com.secondbrain.util.ApiTemporaryErrorException
 import com.secondbrain.util.NetworkUtils
+import com.secondbrain.util.ServerSentEvents
+import com.secondbrain.util.await
 import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.flow.Flow
 import kotlinx.coroutines.withContext
+import okhttp3.Call
 import okhttp3.MediaType.Companion.toMediaType
 import okhttp3.OkHttpClient
 import okhttp3.Request
+import okhttp3.Response
 import okhttp3.RequestBody.Companion.toRequestBody
 import okhttp3.logging.HttpLoggingInterceptor
 import org.json.JSONObject
 import java.io.IOException
 import java.util.concurrent.TimeUnit
+import javax.inject.Inject
+import javax.inject.Singleton
 
 /**
  * API client for Google's Gemini AI
  */
-class GeminiApiClient {
+@Singleton
+class GeminiApiClient @Inject constructor(
+    private val httpClient: OkHttpClient,
+    private val rateLimiter: ProviderRateLimiter
+) {
     companion object {
         private const val TAG = "GeminiApiClient"
+        private const val PROVIDER = "Gemini"
         private const val BASE_URL = "https://generativelanguage.googleapis.com/v1"
 
         // Default models
@@ -52,7 +65,8 @@ class GeminiApiClient {
             level = HttpLoggingInterceptor.Level.BASIC
         }
 
-        OkHttpClient.Builder()
+        // Derived from the shared client so calls reuse its connection pool and dispatcher
+        httpClient.newBuilder()
             .addInterceptor(loggingInterceptor)
             .connectTimeout(30, TimeUnit.SECONDS)
             .readTimeout(60, TimeUnit.SECONDS)
@@ -62,6 +76,14 @@ class GeminiApiClient {
 
     private val gson = Gson()
 
+    /**
+     * Execute a request within the rate limits shared by all callers of this provider
+     */
+    private suspend fun executeRequest(request: Request): Response = executeCall(client.newCall(request))
+
+    private suspend fun executeCall(call: Call): Response =
+        rateLimiter.execute(PROVIDER, call.request()) { call.await() }
+
     /**
      * Get the appropriate model path based on the model ID
      */
@@ -88,7 +110,7 @@ class GeminiApiClient {
                     .build()
 
                 // Execute request
-                val response = client.newCall(request).execute()
+                val response = executeRequest(request)
                 val responseBody = response.body?.string()
 
                 if (!response.isSuccessful || responseBody == null) {
@@ -176,57 +198,10 @@ class GeminiApiClient {
     ): Result<String> = withContext(Dispatchers.IO) {
         return@withContext NetworkUtils.retryWithExponentialBackoff {
             try {
-                // Create prompt based on system prompt (if provided) and summary type
-                val systemPrompt = options.systemPrompt
-
-                // Create user prompt based on summary type
-                val prompt = when (options.summaryType) {
-                    SummaryType.CONCISE -> "Create a concise summary of the following content in ${options.language}:"
-                    SummaryType.DETAILED -> "Create a detailed summary of the following content in ${options.language}:"
-                    SummaryType.BULLET_POINTS -> "Summarize the following content as bullet points in ${options.language}:"
-                    SummaryType.QUESTION_ANSWER -> "Create a Q&A summary of the following content in ${options.language}:"
-                    SummaryType.KEY_FACTS -> "Extract the key facts from the following content in ${options.language}:"
-                }
-
-                // Add custom instructions if provided
-                val fullPrompt = if (options.customInstructions.isNullOrEmpty()) {
-                    "$prompt\n\n$content"
-                } else {
-                    "$prompt\n\nAdditional instructions: ${options.customInstructions}\n\n$content"
-                }
-
-                // Create request body using the formatter
-                val contents = GeminiPromptFormatter.formatPrompt(systemPrompt, fullPrompt)
-
-                val requestBody = GeminiRequest(
-                    contents = contents,
-                    generationConfig = GenerationConfig(
-                        temperature = 0.3f,
-                        maxOutputTokens = options.maxLength ?: 1000,
-                        topP = 0.95f
-                    )
-                )
-
-                val jsonBody = gson.toJson(requestBody)
-
-                // Get the appropriate model path
-                val modelPath = getModelPath(modelId)
-
-                // Create request URL with API key
-                val url = "$BASE_URL/$modelPath:generateContent?key=$apiKey"
-
-                // Log the model being used
-                Log.d(TAG, "Using Gemini model: $modelPath")
-
-                // Create request
-                val request = Request.Builder()
-                    .url(url)
-                    .addHeader("Content-Type", "application/json")
-                    .post(jsonBody.toRequestBody("application/json".toMediaType()))
-                    .build()
+                val request = createSummarizeRequest(content, options, apiKey, modelId, stream = false)
 
                 // Execute request
-                val response = client.newCall(request).execute()
+                val response = executeRequest(request)
                 val responseBody = response.body?.string()
 
                 if (!response.isSuccessful || responseBody == null) {
@@ -271,6 +246,93 @@ class GeminiApiClient {
         }
     }
 
+    /**
+     * Build the summarization request; [stream] asks for a server-sent event response
+     */
+    private fun createSummarizeRequest(
+        content: String,
+        options: SummarizationOptions,
+        apiKey: String,
+        modelId: String?,
+        stream: Boolean
+    ): Request {
+        // Create prompt based on system prompt (if provided) and summary type
+        val systemPrompt = options.systemPrompt
+
+        // Create user prompt based on summary type
+        val prompt = when (options.summaryType) {
+            SummaryType.CONCISE -> "Create a concise summary of the following content in ${options.language}:"
+            SummaryType.DETAILED -> "Create a detailed summary of the following content in ${options.language}:"
+            SummaryType.BULLET_POINTS -> "Summarize the following content as bullet points in ${options.language}:"
+            SummaryType.QUESTION_ANSWER -> "Create a Q&A summary of the following content in ${options.language}:"
+            SummaryType.KEY_FACTS -> "Extract the key facts from the following content in ${options.language}:"
+        }
+
+        // Add custom instructions if provided
+        val fullPrompt = if (options.customInstructions.isNullOrEmpty()) {
+            "$prompt\n\n$content"
+        } else {
+            "$prompt\n\nAdditional instructions: ${options.customInstructions}\n\n$content"
+        }
+
+        // Create request body using the formatter
+        val contents = GeminiPromptFormatter.formatPrompt(systemPrompt, fullPrompt)
+
+        val requestBody = GeminiRequest(
+            contents = contents,
+            generationConfig = GenerationConfig(
+                temperature = 0.3f,
+                maxOutputTokens = options.maxLength ?: 1000,
+                topP = 0.95f,
+                responseMimeType = if (options.jsonOutput) "application/json" else null
+            )
+        )
+
+        val jsonBody = gson.toJson(requestBody)
+
+        // Get the appropriate model path
+        val modelPath = getModelPath(modelId)
+
+        // Create request URL with API key
+        val url = if (stream) {
+            "$BASE_URL/$modelPath:streamGenerateContent?alt=sse&key=$apiKey"
+        } else {
+            "$BASE_URL/$modelPath:generateContent?key=$apiKey"
+        }
+
+        // Log the model being used
+        Log.d(TAG, "Using Gemini model: $modelPath")
+
+        // Create request
+        val request = Request.Builder()
+            .url(url)
+            .addHeader("Content-Type", "application/json")
+            .post(jsonBody.toRequestBody("application/json".toMediaType()))
+            .build()
+
+        return request
+    }
+
+    /**
+     * Stream a summary from Gemini as it is generated
+     */
+    fun summarizeTextStream(
+        content: String,
+        options: SummarizationOptions,
+        apiKey: String,
+        modelId: String? = null
+    ): Flow<String> {
+        val request = createSummarizeRequest(content, options, apiKey, modelId, stream = true)
+        return ServerSentEvents.stream(client.newCall(request), ::executeCall, ::handleErrorResponse) { data ->
+            JSONObject(data).optJSONArray("candidates")
+                ?.optJSONObject(0)
+                ?.optJSONObject("content")
+                ?.optJSONArray("parts")
+                ?.optJSONObject(0)
+                ?.optString("text")
+        }
+    }
+
     /**
      * Extract text from an image using Gemini Vision
      */
@@ -340,7 +402,7 @@ class GeminiApiClient {
                     .build()
 
                 // Execute request
-                val response = client.newCall(request).execute()
+                val response = executeRequest(request)
                 val responseBody = response.body?.string()
 
                 if (!response.isSuccessful || responseBody == null) {
@@ -434,7 +496,7 @@ class GeminiApiClient {
                     .build()
 
                 // Execute request
-                val response = client.newCall(request).execute()
+                val response = executeRequest(request)
                 val responseBody = response.body?.string()
 
                 if (!response.isSuccessful || responseBody == null) {
@@ -534,7 +596,7 @@ class GeminiApiClient {
                     .build()
 
                 // Execute request
-                val response = client.newCall(request).execute()
+                val response = executeRequest(request)
                 val responseBody = response.body?.string()
 
                 if (!response.isSuccessful || responseBody == null) {
@@ -646,6 +708,7 @@ class GeminiApiClient {
     data class GenerationConfig(
         val temperature: Float,
         @SerializedName("max_output_tokens") val maxOutputTokens: Int,
-        @SerializedName("top_p") val topP: Float
+        @SerializedName("top_p") val topP: Float,
+        @SerializedName("response_mime_type") val responseMimeType: String? = null
     )
 }
@@ -13,17 +13,23 @@ import com.secondbrain.data.service.ai.TagGenerationOptions
 import com.secondbrain.data.service.ai.TitleGenerationOptions
 import com.secondbrain.data.service.ai.TranscriptionOptions
 import com.secondbrain.data.service.ai.provider.OpenAiPromptFormatter
+import com.secondbrain.data.service.ai.ratelimit.ProviderRateLimiter
 import com.secondbrain.util.ApiAuthenticationException
 import com.secondbrain.util.ApiInvalidRequestException
 import com.secondbrain.util.ApiRateLimitException
 import com.secondbrain.util.ApiTemporaryErrorException
 import com.secondbrain.util.NetworkUtils
+import com.secondbrain.util.ServerSentEvents
+import com.secondbrain.util.await
 import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.flow.Flow
 import kotlinx.coroutines.withContext
+import okhttp3.Call
 import okhttp3.MediaType.Companion.toMediaType
 import okhttp3.MultipartBody
 import okhttp3.OkHttpClient
 import okhttp3.Request
+import okhttp3.Response
 import okhttp3.RequestBody.Companion.asRequestBody
 import okhttp3.RequestBody.Companion.toRequestBody
 import okhttp3.logging.HttpLoggingInterceptor
@@ -31,13 +37,20 @@ import org.json.JSONObject
 import java.io.File
 import java.io.IOException
 import java.util.concurrent.TimeUnit
+import javax.inject.Inject
+import javax.inject.Singleton
 
 /**
  * API client for OpenAI
  */
-class OpenAiApiClient {
+@Singleton
+class OpenAiApiClient @Inject constructor(
+    private val httpClient: OkHttpClient,
+    private val rateLimiter: ProviderRateLimiter
+) {
     companion object {
         private const val TAG = "OpenAiApiClient"
+        private const val PROVIDER = "OpenAI"
         private const val BASE_URL = "https://api.openai.com/v1"
         private const val CHAT_ENDPOINT = "$BASE_URL/chat/completions"
         private const val AUDIO_TRANSCRIPTION_ENDPOINT = "$BASE_URL/audio/transcriptions"
@@ -51,7 +64,8 @@ class OpenAiApiClient {
             level = HttpLoggingInterceptor.Level.BASIC
         }
 
-        OkHttpClient.Builder()
+        // Derived from the shared client so calls reuse its connection pool and dispatcher
+        httpClient.newBuilder()
             .addInterceptor(loggingInterceptor)
             .connectTimeout(30, TimeUnit.SECONDS)
             .readTimeout(60, TimeUnit.SECONDS)
@@ -61,6 +75,14 @@ class OpenAiApiClient {
 
     private val gson = Gson()
 
+    /**
+     * Execute a request within the rate limits shared by all callers of this provider
+     */
+    private suspend fun executeRequest(request: Request): Response = executeCall(client.newCall(request))
+
+    private suspend fun executeCall(call: Call): Response =
+        rateLimiter.execute(PROVIDER, call.request()) { call.await() }
+
     /**
      * Fetch available models from OpenAI API
      */
@@ -75,7 +97,7 @@ class OpenAiApiClient {
                     .build()
 
                 // Execute request
-                val response = client.newCall(request).execute()
+                val response = executeRequest(request)
                 val responseBody = response.body?.string()
 
                 if (!response.isSuccessful || responseBody == null) {
@@ -184,53 +206,10 @@ class OpenAiApiClient {
     ): Result<String> = withContext(Dispatchers.IO) {
         return@withContext NetworkUtils.retryWithExponentialBackoff {
             try {
-                // Use provided system prompt or create one based on summary type
-                val systemPrompt = options.systemPrompt ?: when (options.summaryType) {
-                    SummaryType.CONCISE -> "You are a helpful assistant that creates concise summaries. Keep the summary brief and to the point, focusing only on the most important information."
-                    SummaryType.DETAILED -> "You are a helpful assistant that creates detailed summaries. Include all important details, explanations, and context in your summary."
-                    SummaryType.BULLET_POINTS -> "You are a helpful assistant that creates bullet point summaries. Format your summary as a list of bullet points, each covering a key point from the content."
-                    SummaryType.QUESTION_ANSWER -> "You are a helpful assistant that creates Q&A summaries. Format your summary as a series of questions and answers that cover the key points from the content."
-                    SummaryType.KEY_FACTS -> "You are a helpful assistant that extracts key facts. Identify and list the most important facts from the content."
-                }
-
-                // Create user prompt based on summary type
-                val userPrompt = when (options.summaryType) {
-                    SummaryType.CONCISE -> "Create a concise summary of the following content in ${options.language}:"
-                    SummaryType.DETAILED -> "Create a detailed summary of the following content in ${options.language}:"
-                    SummaryType.BULLET_POINTS -> "Summarize the following content as bullet points in ${options.language}:"
-                    SummaryType.QUESTION_ANSWER -> "Create a Q&A summary of the following content in ${options.language}:"
-                    SummaryType.KEY_FACTS -> "Extract the key facts from the following content in ${options.language}:"
-                }
-
-                // Add custom instructions if provided
-                val fullUserPrompt = if (options.customInstructions.isNullOrEmpty()) {
-                    "$userPrompt\n\n$content"
-                } else {
-                    "$userPrompt\n\nAdditional instructions: ${options.customInstructions}\n\n$content"
-                }
-
-                // Create request body with appropriate message format using the formatter
-                val messages = OpenAiPromptFormatter.formatPrompt(systemPrompt, fullUserPrompt)
-
-                val requestBody = ChatCompletionRequest(
-                    model = DEFAULT_MODEL,
-                    messages = messages,
-                    temperature = 0.3,
-                    maxTokens = options.maxLength ?: 1000
-                )
-
-                val jsonBody = gson.toJson(requestBody)
-
-                // Create request
-                val request = Request.Builder()
-                    .url(CHAT_ENDPOINT)
-                    .addHeader("Content-Type", "application/json")
-                    .addHeader("Authorization", "Bearer $apiKey")
-                    .post(jsonBody.toRequestBody("application/json".toMediaType()))
-                    .build()
+                val request = createSummarizeRequest(content, options, apiKey, stream = false)
 
                 // Execute request
-                val response = client.newCall(request).execute()
+                val response = executeRequest(request)
                 val responseBody = response.body?.string()
 
                 if (!response.isSuccessful || responseBody == null) {
@@ -255,6 +234,77 @@ class OpenAiApiClient {
         }
     }
 
+    /**
+     * Build the summarization request; [stream] asks for a server-sent event response
+     */
+    private fun createSummarizeRequest(
+        content: String,
+        options: SummarizationOptions,
+        apiKey: String,
+        stream: Boolean
+    ): Request {
+        // Use provided system prompt or create one based on summary type
+        val systemPrompt = options.systemPrompt ?: when (options.summaryType) {
+            SummaryType.CONCISE -> "You are a helpful assistant that creates concise summaries. Keep the summary brief and to the point, focusing only on the most important information."
+            SummaryType.DETAILED -> "You are a helpful assistant that creates detailed summaries. Include all important details, explanations, and context in your summary."
+            SummaryType.BULLET_POINTS -> "You are a helpful assistant that creates bullet point summaries. Format your summary as a list of bullet points, each covering a key point from the content."
+            SummaryType.QUESTION_ANSWER -> "You are a helpful assistant that creates Q&A summaries. Format your summary as a series of questions and answers that cover the key points from the content."
+            SummaryType.KEY_FACTS -> "You are a helpful assistant that extracts key facts. Identify and list the most important facts from the content."
+        }
+
+        // Create user prompt based on summary type
+        val userPrompt = when (options.summaryType) {
+            SummaryType.CONCISE -> "Create a concise summary of the following content in ${options.language}:"
+            SummaryType.DETAILED -> "Create a detailed summary of the following content in ${options.language}:"
+            SummaryType.BULLET_POINTS -> "Summarize the following content as bullet points in ${options.language}:"
+            SummaryType.QUESTION_ANSWER -> "Create a Q&A summary of the following content in ${options.language}:"
+            SummaryType.KEY_FACTS -> "Extract the key facts from the following content in ${options.language}:"
+        }
+
+        // Add custom instructions if provided
+        val fullUserPrompt = if (options.customInstructions.isNullOrEmpty()) {
+            "$userPrompt\n\n$content"
+        } else {
+            "$userPrompt\n\nAdditional instructions: ${options.customInstructions}\n\n$content"
+        }
+
+        // Create request body with appropriate message format using the formatter
+        val messages = OpenAiPromptFormatter.formatPrompt(systemPrompt, fullUserPrompt)
+
+        val requestBody = ChatCompletionRequest(
+            model = DEFAULT_MODEL,
+            messages = messages,
+            temperature = 0.3,
+            maxTokens = options.maxLength ?: 1000,
+            stream = if (stream) true else null,
+            responseFormat = if (options.jsonOutput) ResponseFormat(type = "json_object") else null
+        )
+
+        val jsonBody = gson.toJson(requestBody)
+
+        // Create request
+        val request = Request.Builder()
+            .url(CHAT_ENDPOINT)
+            .addHeader("Content-Type", "application/json")
+            .addHeader("Authorization", "Bearer $apiKey")
+            .post(jsonBody.toRequestBody("application/json".toMediaType()))
+            .build()
+
+        return request
+    }
+
+    /**
+     * Stream a summary from OpenAI as it is generated
+     */
+    fun summarizeTextStream(
+        content: String,
+        options: SummarizationOptions,
+        apiKey: String
+    ): Flow<String> {
+        val request = createSummarizeRequest(content, options, apiKey, stream = true)
+        return ServerSentEvents.stream(client.newCall(request), ::executeCall, ::handleErrorResponse, ServerSentEvents::chatCompletionDelta)
+    }
+
     /**
      * Transcribe audio using OpenAI's Whisper model
      */
@@ -290,7 +340,7 @@ class OpenAiApiClient {
                     .build()
 
                 // Execute request
-                val response = client.newCall(request).execute()
+                val response = executeRequest(request)
                 val responseBody = response.body?.string()
 
                 if (!response.isSuccessful || responseBody == null) {
@@ -371,7 +421,7 @@ class OpenAiApiClient {
                     .build()
 
                 // Execute request
-                val response = client.newCall(request).execute()
+                val response = executeRequest(request)
                 val responseBody = response.body?.string()
 
                 if (!response.isSuccessful || responseBody == null) {
@@ -434,7 +484,7 @@ class OpenAiApiClient {
                     .build()
 
                 // Execute request
-                val response = client.newCall(request).execute()
+                val response = executeRequest(request)
                 val responseBody = response.body?.string()
 
                 if (!response.isSuccessful || responseBody == null) {
@@ -503,7 +553,7 @@ class OpenAiApiClient {
                     .build()
 
                 // Execute request
-                val response = client.newCall(request).execute()
+                val response = executeRequest(request)
                 val responseBody = response.body?.string()
 
                 if (!response.isSuccessful || responseBody == null) {
@@ -566,7 +616,13 @@ class OpenAiApiClient {
         val model: String,
         val messages: List<Message>,
         val temperature: Double = 0.7,
-        @SerializedName("max_tokens") val maxTokens: Int = 1000
+        @SerializedName("max_tokens") val maxTokens: Int = 1000,
+        val stream: Boolean? = null,
+        @SerializedName("response_format") val responseFormat: ResponseFormat? = null
+    )
+
+    data class ResponseFormat(
+        val type: String
     )
 
     data class Message(
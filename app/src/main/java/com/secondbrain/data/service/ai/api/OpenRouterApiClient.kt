@@ -13,6 +13,7 @@ import com.secondbrain.data.service.ai.TagGenerationOptions
 import com.secondbrain.data.service.ai.TitleGenerationOptions
 import com.secondbrain.data.service.ai.TranscriptionOptions
 import com.secondbrain.data.service.ai.provider.OpenRouterPromptFormatter
+import com.secondbrain.data.service.ai.ratelimit.ProviderRateLimiter
 import com.secondbrain.util.ApiAuthenticationException
 import com.secondbrain.util.ApiInvalidRequestException
 import com.secondbrain.util.ApiPaymentRequiredException
@@ -20,12 +21,17 @@ import com.secondbrain.util.ApiRateLimitException
 import com.secondbrain.util.ApiServerOverloadException
 import com.secondbrain.util.ApiTemporaryErrorException
 import com.secondbrain.util.NetworkUtils
+import com.secondbrain.util.ServerSentEvents
+import com.secondbrain.util.await
 import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.flow.Flow
 import kotlinx.coroutines.withContext
+import okhttp3.Call
 import okhttp3.MediaType.Companion.toMediaType
 import okhttp3.MultipartBody
 import okhttp3.OkHttpClient
 import okhttp3.Request
+import okhttp3.Response
 import okhttp3.RequestBody.Companion.asRequestBody
 import okhttp3.RequestBody.Companion.toRequestBody
 import okhttp3.logging.HttpLoggingInterceptor
@@ -41,9 +47,13 @@ import javax.inject.Singleton
  * API client for OpenRouter
  */
 @Singleton
-class OpenRouterApiClient @Inject constructor() {
+class OpenRouterApiClient @Inject constructor(
+    private val httpClient: OkHttpClient,
+    private val rateLimiter: ProviderRateLimiter
+) {
     companion object {
         private const val TAG = "OpenRouterApiClient"
+        private const val PROVIDER = "OpenRouter"
         private const val BASE_URL = "https://openrouter.ai/api/v1"
         private const val CHAT_ENDPOINT = "$BASE_URL/chat/completions"
         private const val MODELS_ENDPOINT = "$BASE_URL/models"
@@ -55,7 +65,8 @@ class OpenRouterApiClient @Inject constructor() {
             level = HttpLoggingInterceptor.Level.BASIC
         }
 
-        OkHttpClient.Builder()
+        // Derived from the shared client so calls reuse its connection pool and dispatcher
+        httpClient.newBuilder()
             .addInterceptor(loggingInterceptor)
             .connectTimeout(30, TimeUnit.SECONDS)
             .readTimeout(60, TimeUnit.SECONDS)
@@ -65,6 +76,14 @@ class OpenRouterApiClient @Inject constructor() {
 
     private val gson = Gson()
 
+    /**
+     * Execute a request within the rate limits shared by all callers of this provider
+     */
+    private suspend fun executeRequest(request: Request): Response = executeCall(client.newCall(request))
+
+    private suspend fun executeCall(call: Call): Response =
+        rateLimiter.execute(PROVIDER, call.request()) { call.await() }
+
     /**
      * Fetch available models from OpenRouter
      */
@@ -79,7 +98,7 @@ class OpenRouterApiClient @Inject constructor() {
                     .build()
 
                 // Execute request
-                val response = client.newCall(request).execute()
+                val response = executeRequest(request)
                 val responseBody = response.body?.string()
 
                 if (!response.isSuccessful || responseBody == null) {
@@ -176,73 +195,10 @@ class OpenRouterApiClient @Inject constructor() {
     ): Result<String> = withContext(Dispatchers.IO) {
         return@withContext NetworkUtils.retryWithExponentialBackoff {
             try {
-                // Create system prompt based on summary type
-                val systemPrompt = when (options.summaryType) {
-                    SummaryType.CONCISE -> "You are a helpful assistant that creates concise summaries. Keep the summary brief and to the point, focusing only on the most important information."
-                    SummaryType.DETAILED -> "You are a helpful assistant that creates detailed summaries. Include all important details, explanations, and context in your summary."
-                    SummaryType.BULLET_POINTS -> "You are a helpful assistant that creates bullet point summaries. Format your summary as a list of bullet points, each covering a key point from the content."
-                    SummaryType.QUESTION_ANSWER -> "You are a helpful assistant that creates Q&A summaries. Format your summary as a series of questions and answers that cover the key points from the content."
-                    SummaryType.KEY_FACTS -> "You are a helpful assistant that extracts key facts. Identify and list the most important facts from the content."
-                }
-
-                // Create user prompt based on summary type
-                val userPrompt = when (options.summaryType) {
-                    SummaryType.CONCISE -> "Create a concise summary of the following content in ${options.language}:"
-                    SummaryType.DETAILED -> "Create a detailed summary of the following content in ${options.language}:"
-                    SummaryType.BULLET_POINTS -> "Summarize the following content as bullet points in ${options.language}:"
-                    SummaryType.QUESTION_ANSWER -> "Create a Q&A summary of the following content in ${options.language}:"
-                    SummaryType.KEY_FACTS -> "Extract the key facts from the following content in ${options.language}:"
-                }
-
-                // Add custom instructions if provided
-                val fullUserPrompt = if (options.customInstructions.isNullOrEmpty()) {
-                    "$userPrompt\n\n$content"
-                } else {
-                    "$userPrompt\n\nAdditional instructions: ${options.customInstructions}\n\n$content"
-                }
-
-                // Create request body using the formatter
-                val messages = OpenRouterPromptFormatter.formatPrompt(systemPrompt, fullUserPrompt, modelId)
-
-                // Calculate a reasonable token limit based on content length
-                // Use a conservative estimate: for summarization, output is typically shorter than input
-                // Default to 300 tokens if no specific length is provided
-                val estimatedTokens = estimateRequiredTokens(content.length, options.summaryType)
-                val requestedTokens = options.maxLength ?: estimatedTokens
-
-                // Use the smaller of the requested tokens or estimated tokens to avoid credit issues
-                val maxTokens = minOf(requestedTokens, 300) // Conservative default max of 300 tokens
-
-                // Log detailed token usage information
-                Log.d(TAG, "TOKEN USAGE - Summarization request details:")
-                Log.d(TAG, "TOKEN USAGE - Content length: ${content.length} characters")
-                Log.d(TAG, "TOKEN USAGE - Summary type: ${options.summaryType}")
-                Log.d(TAG, "TOKEN USAGE - Estimated tokens needed: $estimatedTokens")
-                Log.d(TAG, "TOKEN USAGE - Requested tokens: $requestedTokens")
-                Log.d(TAG, "TOKEN USAGE - Final max_tokens: $maxTokens")
-                Log.d(TAG, "TOKEN USAGE - Model: $modelId")
-
-                val requestBody = OpenRouterRequest(
-                    model = modelId,
-                    messages = messages,
-                    temperature = 0.3,
-                    maxTokens = maxTokens
-                )
-
-                val jsonBody = gson.toJson(requestBody)
-
-                // Create request
-                val request = Request.Builder()
-                    .url(CHAT_ENDPOINT)
-                    .addHeader("Content-Type", "application/json")
-                    .addHeader("Authorization", "Bearer $apiKey")
-                    .addHeader("HTTP-Referer", "https://secondbrain.app") // Required by OpenRouter
-                    .addHeader("X-Title", "Second Brain App") // Required by OpenRouter
-                    .post(jsonBody.toRequestBody("application/json".toMediaType()))
-                    .build()
+                val request = createSummarizeRequest(content, options, apiKey, modelId, stream = false)
 
                 // Execute request
-                val response = client.newCall(request).execute()
+                val response = executeRequest(request)
                 val responseBody = response.body?.string()
 
                 if (!response.isSuccessful || responseBody == null) {
@@ -291,9 +247,10 @@ class OpenRouterApiClient @Inject constructor() {
                         val availableTokens = matchResult?.groupValues?.get(1)?.toIntOrNull()
 
                         if (availableTokens != null) {
+                            val requestedMaxTokens = minOf(options.maxLength ?: estimateRequiredTokens(content.length, options.summaryType), 300)
                             Log.e(TAG, "TOKEN USAGE - Available tokens: $availableTokens")
-                            Log.e(TAG, "TOKEN USAGE - Requested max_tokens: ${requestBody.maxTokens}")
-                            Log.e(TAG, "TOKEN USAGE - Difference: ${requestBody.maxTokens - availableTokens}")
+                            Log.e(TAG, "TOKEN USAGE - Requested max_tokens: $requestedMaxTokens")
+                            Log.e(TAG, "TOKEN USAGE - Difference: ${requestedMaxTokens - availableTokens}")
                         }
                     }
 
@@ -343,6 +300,98 @@ class OpenRouterApiClient @Inject constructor() {
         }
     }
 
+    /**
+     * Build the summarization request; [stream] asks for a server-sent event response
+     */
+    private fun createSummarizeRequest(
+        content: String,
+        options: SummarizationOptions,
+        apiKey: String,
+        modelId: String,
+        stream: Boolean
+    ): Request {
+        // Create system prompt based on summary type
+        val systemPrompt = when (options.summaryType) {
+            SummaryType.CONCISE -> "You are a helpful assistant that creates concise summaries. Keep the summary brief and to the point, focusing only on the most important information."
+            SummaryType.DETAILED -> "You are a helpful assistant that creates detailed summaries. Include all important details, explanations, and context in your summary."
+            SummaryType.BULLET_POINTS -> "You are a helpful assistant that creates bullet point summaries. Format your summary as a list of bullet points, each covering a key point from the content."
+            SummaryType.QUESTION_ANSWER -> "You are a helpful assistant that creates Q&A summaries. Format your summary as a series of questions and answers that cover the key points from the content."
+            SummaryType.KEY_FACTS -> "You are a helpful assistant that extracts key facts. Identify and list the most important facts from the content."
+        }
+
+        // Create user prompt based on summary type
+        val userPrompt = when (options.summaryType) {
+            SummaryType.CONCISE -> "Create a concise summary of the following content in ${options.language}:"
+            SummaryType.DETAILED -> "Create a detailed summary of the following content in ${options.language}:"
+            SummaryType.BULLET_POINTS -> "Summarize the following content as bullet points in ${options.language}:"
+            SummaryType.QUESTION_ANSWER -> "Create a Q&A summary of the following content in ${options.language}:"
+            SummaryType.KEY_FACTS -> "Extract the key facts from the following content in ${options.language}:"
+        }
+
+        // Add custom instructions if provided
+        val fullUserPrompt = if (options.customInstructions.isNullOrEmpty()) {
+            "$userPrompt\n\n$content"
+        } else {
+            "$userPrompt\n\nAdditional instructions: ${options.customInstructions}\n\n$content"
+        }
+
+        // Create request body using the formatter
+        val messages = OpenRouterPromptFormatter.formatPrompt(systemPrompt, fullUserPrompt, modelId)
+
+        // Calculate a reasonable token limit based on content length
+        // Use a conservative estimate: for summarization, output is typically shorter than input
+        // Default to 300 tokens if no specific length is provided
+        val estimatedTokens = estimateRequiredTokens(content.length, options.summaryType)
+        val requestedTokens = options.maxLength ?: estimatedTokens
+
+        // Use the smaller of the requested tokens or estimated tokens to avoid credit issues
+        val maxTokens = minOf(requestedTokens, 300) // Conservative default max of 300 tokens
+
+        // Log detailed token usage information
+        Log.d(TAG, "TOKEN USAGE - Summarization request details:")
+        Log.d(TAG, "TOKEN USAGE - Content length: ${content.length} characters")
+        Log.d(TAG, "TOKEN USAGE - Summary type: ${options.summaryType}")
+        Log.d(TAG, "TOKEN USAGE - Estimated tokens needed: $estimatedTokens")
+        Log.d(TAG, "TOKEN USAGE - Requested tokens: $requestedTokens")
+        Log.d(TAG, "TOKEN USAGE - Final max_tokens: $maxTokens")
+        Log.d(TAG, "TOKEN USAGE - Model: $modelId")
+
+        val requestBody = OpenRouterRequest(
+            model = modelId,
+            messages = messages,
+            temperature = 0.3,
+            maxTokens = maxTokens,
+            stream = if (stream) true else null
+        )
+
+        val jsonBody = gson.toJson(requestBody)
+
+        // Create request
+        val request = Request.Builder()
+            .url(CHAT_ENDPOINT)
+            .addHeader("Content-Type", "application/json")
+            .addHeader("Authorization", "Bearer $apiKey")
+            .addHeader("HTTP-Referer", "https://secondbrain.app") // Required by OpenRouter
+            .addHeader("X-Title", "Second Brain App") // Required by OpenRouter
+            .post(jsonBody.toRequestBody("application/json".toMediaType()))
+            .build()
+
+        return request
+    }
+
+    /**
+     * Stream a summary from OpenRouter as it is generated
+     */
+    fun summarizeTextStream(
+        content: String,
+        options: SummarizationOptions,
+        apiKey: String,
+        modelId: String = DEFAULT_MODEL
+    ): Flow<String> {
+        val request = createSummarizeRequest(content, options, apiKey, modelId, stream = true)
+        return ServerSentEvents.stream(client.newCall(request), ::executeCall, ::handleErrorResponse, ServerSentEvents::chatCompletionDelta)
+    }
+
     /**
      * Extract text from an image using OpenRouter
      */
@@ -434,7 +483,7 @@ class OpenRouterApiClient @Inject constructor() {
                     .build()
 
                 // Execute request
-                val response = client.newCall(request).execute()
+                val response = executeRequest(request)
                 val responseBody = response.body?.string()
 
                 if (!response.isSuccessful || responseBody == null) {
@@ -547,7 +596,7 @@ class OpenRouterApiClient @Inject constructor() {
                     .build()
 
                 // Execute request
-                val response = client.newCall(request).execute()
+                val response = executeRequest(request)
                 val responseBody = response.body?.string()
 
                 if (!response.isSuccessful || responseBody == null) {
@@ -666,7 +715,7 @@ class OpenRouterApiClient @Inject constructor() {
                     .build()
 
                 // Execute request
-                val response = client.newCall(request).execute()
+                val response = executeRequest(request)
                 val responseBody = response.body?.string()
 
                 if (!response.isSuccessful || responseBody == null) {
@@ -795,7 +844,8 @@ class OpenRouterApiClient @Inject constructor() {
         val model: String,
         val messages: List<OpenRouterMessage>,
         val temperature: Double = 0.7,
-        @SerializedName("max_tokens") val maxTokens: Int = 1000
+        @SerializedName("max_tokens") val maxTokens: Int = 1000,
+        val stream: Boolean? = null
     )
 
     data class OpenRouterMessage(
@@ -5,7 +5,10 @@ import com.secondbrain.data.service.ai.AiServiceManager
 import com.secondbrain.data.service.ai.SummarizationOptions
 import com.secondbrain.data.service.ai.SummaryType
 import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.async
+import kotlinx.coroutines.coroutineScope
 import kotlinx.coroutines.withContext
+import org.json.JSONObject
 import javax.inject.Inject
 import javax.inject.Singleton
 
@@ -21,8 +24,31 @@ class ContentAwareSummarizer @Inject constructor(
 ) {
     companion object {
         private const val TAG = "ContentAwareSummarizer"
+
+        // Below this length type detection and entity extraction are rule-based, so there is nothing to fuse
+        private const val STRUCTURED_MIN_CONTENT_LENGTH = 500
+
+        // Output tokens reserved for the type and entity fields of the structured response
+        private const val STRUCTURED_EXTRA_TOKENS = 1000
+        private const val DEFAULT_SUMMARY_TOKENS = 1000
+
+        private val STRUCTURED_OUTPUT_INSTRUCTIONS = """
+            Respond with a single JSON object and nothing else, using this structure:
+            {
+              "contentType": "one of: academic, news, technical, creative, business, personal",
+              "entities": [
+                {
+                  "name": "Entity name",
+                  "type": "PERSON, ORGANIZATION, LOCATION, CONCEPT, TECHNOLOGY, EVENT, or OTHER",
+                  "description": "Brief description"
+                }
+              ],
+              "summary": "The summary, formatted as requested"
+            }
+            Limit entities to the 10 most important ones that are central to understanding the content.
+        """.trimIndent()
     }
-    
+
     /**
      * Summarize content with content-aware prompts
      */
@@ -36,52 +62,141 @@ class ContentAwareSummarizer @Inject constructor(
     ): Result<SummarizationResult> = withContext(Dispatchers.IO) {
         try {
             Log.d(TAG, "Summarizing content with content-aware prompts: ${content.take(100)}...")
-            
-            // Detect content type
-            val contentTypeResult = contentTypeDetector.detectContentType(content)
-            if (contentTypeResult.isFailure) {
-                return@withContext Result.failure(contentTypeResult.exceptionOrNull() ?: Exception("Failed to detect content type"))
+
+            // Detect the type, extract entities and summarize in a single request when the provider allows it
+            if (content.length >= STRUCTURED_MIN_CONTENT_LENGTH && aiServiceManager.supportsStructuredOutput(aiModel)) {
+                // A failed request would fail again as separate requests, so only an unusable response falls back
+                val structuredResult = summarizeStructured(content, summaryType, language, maxLength, customInstructions, aiModel)
+                    .getOrElse { return@withContext Result.failure(it) }
+                if (structuredResult != null) {
+                    return@withContext Result.success(structuredResult)
+                }
+                Log.d(TAG, "Structured response was unusable, falling back to separate requests")
             }
-            
-            val contentType = contentTypeResult.getOrNull() ?: ContentType.UNKNOWN
-            Log.d(TAG, "Detected content type: $contentType")
-            
-            // Generate specialized prompts
-            val systemPrompt = promptGenerator.generateSystemPrompt(contentType, summaryType)
-            val userPrompt = promptGenerator.generateUserPrompt(contentType, summaryType, language, customInstructions)
-            
-            // Create summarization options
-            val options = SummarizationOptions(
-                summaryType = summaryType,
-                language = language,
-                maxLength = maxLength,
-                customInstructions = userPrompt
-            )
-            
-            // Extract entities
-            val entitiesResult = entityExtractor.extractEntities(content)
-            val entities = entitiesResult.getOrNull() ?: emptyList()
-            
-            // Summarize content
-            val summaryResult = aiServiceManager.summarize(content, options, aiModel)
-            
-            if (summaryResult.isSuccess) {
-                val summary = summaryResult.getOrNull() ?: ""
-                
-                // Create summarization result
-                val result = SummarizationResult(
+
+            summarizeConcurrently(content, summaryType, language, maxLength, customInstructions, aiModel)
+        } catch (e: Exception) {
+            Log.e(TAG, "Error summarizing content with content-aware prompts", e)
+            Result.failure(e)
+        }
+    }
+
+    /**
+     * Ask for the content type, entities and summary as one JSON object
+     *
+     * @return The parsed result, success with null if the response could not be parsed, or a
+     * failure if the request failed
+     */
+    private suspend fun summarizeStructured(
+        content: String,
+        summaryType: SummaryType,
+        language: String,
+        maxLength: Int?,
+        customInstructions: String?,
+        aiModel: String?
+    ): Result<SummarizationResult?> {
+        val systemPrompt = promptGenerator.generateSystemPrompt(ContentType.UNKNOWN, summaryType)
+        val userPrompt = promptGenerator.generateUserPrompt(ContentType.UNKNOWN, summaryType, language, customInstructions)
+
+        val options = SummarizationOptions(
+            summaryType = summaryType,
+            language = language,
+            maxLength = (maxLength ?: DEFAULT_SUMMARY_TOKENS) + STRUCTURED_EXTRA_TOKENS,
+            customInstructions = "$userPrompt\n\n$STRUCTURED_OUTPUT_INSTRUCTIONS",
+            systemPrompt = systemPrompt,
+            jsonOutput = true
+        )
+
+        val response = aiServiceManager.summarize(content, options, aiModel).getOrElse { error ->
+            Log.e(TAG, "Structured summarization request failed", error)
+            return Result.failure(error)
+        }
+
+        return try {
+            Result.success(parseStructuredResponse(response))
+        } catch (e: Exception) {
+            Log.e(TAG, "Error parsing structured summarization response", e)
+            Result.success(null)
+        }
+    }
+
+    /**
+     * Read a structured response, or return null when it has no usable summary
+     */
+    private fun parseStructuredResponse(response: String): SummarizationResult? {
+        val startIndex = response.indexOf('{')
+        val endIndex = response.lastIndexOf('}')
+        if (startIndex == -1 || endIndex <= startIndex) return null
+
+        val json = JSONObject(response.substring(startIndex, endIndex + 1))
+        val summary = json.optString("summary").trim()
+        if (summary.isEmpty()) return null
+
+        val contentType = ContentTypeDetector.parseContentType(json.optString("contentType"))
+        val entities = json.optJSONArray("entities")?.let { EntityExtractor.parseEntityArray(it) } ?: emptyList()
+        Log.d(TAG, "Structured summarization returned type $contentType and ${entities.size} entities")
+
+        return SummarizationResult(
+            summary = summary,
+            contentType = contentType,
+            entities = entities
+        )
+    }
+
+    /**
+     * Fallback for providers without structured output: extract entities while the type is
+     * detected and the specialized summary is generated
+     */
+    private suspend fun summarizeConcurrently(
+        content: String,
+        summaryType: SummaryType,
+        language: String,
+        maxLength: Int?,
+        customInstructions: String?,
+        aiModel: String?
+    ): Result<SummarizationResult> = coroutineScope {
+        val entitiesDeferred = async { entityExtractor.extractEntities(content) }
+
+        // Detect content type
+        val contentTypeResult = contentTypeDetector.detectContentType(content)
+        if (contentTypeResult.isFailure) {
+            entitiesDeferred.cancel()
+            return@coroutineScope Result.failure(contentTypeResult.exceptionOrNull() ?: Exception("Failed to detect content type"))
+        }
+
+        val contentType = contentTypeResult.getOrNull() ?: ContentType.UNKNOWN
+        Log.d(TAG, "Detected content type: $contentType")
+
+        // Generate specialized prompts
+        val systemPrompt = promptGenerator.generateSystemPrompt(contentType, summaryType)
+        val userPrompt = promptGenerator.generateUserPrompt(contentType, summaryType, language, customInstructions)
+
+        // Create summarization options
+        val options = SummarizationOptions(
+            summaryType = summaryType,
+            language = language,
+            maxLength = maxLength,
+            customInstructions = userPrompt,
+            systemPrompt = systemPrompt
+        )
+
+        // Summarize content
+        val summaryResult = aiServiceManager.summarize(content, options, aiModel)
+        val entities = entitiesDeferred.await().getOrNull() ?: emptyList()
+
+        if (summaryResult.isSuccess) {
+            val summary = summaryResult.getOrNull() ?: ""
+
+            // Create summarization result
+            Result.success(
+                SummarizationResult(
                     summary = summary,
                     contentType = contentType,
                     entities = entities
                 )
-                
-                Result.success(result)
-            } else {
-                Result.failure(summaryResult.exceptionOrNull() ?: Exception("Failed to summarize content"))
-            }
-        } catch (e: Exception) {
-            Log.e(TAG, "Error summarizing content with content-aware prompts", e)
-            Result.failure(e)
+            )
+        } else {
+            Result.failure(summaryResult.exceptionOrNull() ?: Exception("Failed to summarize content"))
         }
     }
 }
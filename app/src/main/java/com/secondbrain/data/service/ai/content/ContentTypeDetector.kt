@@ -27,6 +27,22 @@ class ContentTypeDetector @Inject constructor(
         const val TYPE_BUSINESS = "business"
         const val TYPE_PERSONAL = "personal"
         const val TYPE_UNKNOWN = "unknown"
+
+        /**
+         * Map a type name returned by the AI to a [ContentType]
+         */
+        fun parseContentType(typeString: String): ContentType {
+            val normalized = typeString.trim().lowercase()
+            return when {
+                normalized.contains(TYPE_ACADEMIC) -> ContentType.ACADEMIC
+                normalized.contains(TYPE_NEWS) -> ContentType.NEWS
+                normalized.contains(TYPE_TECHNICAL) -> ContentType.TECHNICAL
+                normalized.contains(TYPE_CREATIVE) -> ContentType.CREATIVE
+                normalized.contains(TYPE_BUSINESS) -> ContentType.BUSINESS
+                normalized.contains(TYPE_PERSONAL) -> ContentType.PERSONAL
+                else -> ContentType.UNKNOWN
+            }
+        }
     }
 
     /**
@@ -55,18 +71,8 @@ class ContentTypeDetector @Inject constructor(
             val result = aiServiceManager.summarize(prompt, options, null)
 
             if (result.isSuccess) {
-                val typeString = result.getOrNull()?.trim()?.lowercase() ?: TYPE_UNKNOWN
-                val contentType = when {
-                    typeString.contains(TYPE_ACADEMIC) -> ContentType.ACADEMIC
-                    typeString.contains(TYPE_NEWS) -> ContentType.NEWS
-                    typeString.contains(TYPE_TECHNICAL) -> ContentType.TECHNICAL
-                    typeString.contains(TYPE_CREATIVE) -> ContentType.CREATIVE
-                    typeString.contains(TYPE_BUSINESS) -> ContentType.BUSINESS
-                    typeString.contains(TYPE_PERSONAL) -> ContentType.PERSONAL
-                    else -> ContentType.UNKNOWN
-                }
-
-                Result.success(contentType)
+                val typeString = result.getOrNull() ?: TYPE_UNKNOWN
+                Result.success(parseContentType(typeString))
             } else {
                 // Fallback to rule-based approach if AI fails
                 Result.success(detectContentTypeRuleBased(content))
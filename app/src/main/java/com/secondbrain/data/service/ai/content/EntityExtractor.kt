@@ -1,6 +1,8 @@
 package com.secondbrain.data.service.ai.content
 
 import android.util.Log
+import com.secondbrain.data.db.EntityCacheDao
+import com.secondbrain.data.model.EntityCacheEntry
 import com.secondbrain.data.service.ai.AiServiceManager
 import com.secondbrain.data.service.ai.SummarizationOptions
 import com.secondbrain.data.service.ai.SummaryType
@@ -8,6 +10,7 @@ import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.withContext
 import org.json.JSONArray
 import org.json.JSONObject
+import java.security.MessageDigest
 import javax.inject.Inject
 import javax.inject.Singleton
 
@@ -16,10 +19,53 @@ import javax.inject.Singleton
  */
 @Singleton
 class EntityExtractor @Inject constructor(
-    private val aiServiceManager: AiServiceManager
+    private val aiServiceManager: AiServiceManager,
+    private val entityCacheDao: EntityCacheDao
 ) {
     companion object {
         private const val TAG = "EntityExtractor"
+
+        // Bump when the extraction prompt changes so older cached results are not reused
+        private const val PROMPT_VERSION = 1
+        private const val MAX_CACHE_ENTRIES = 500
+
+        /**
+         * Cache key for the entities of [content] extracted by [modelId]
+         */
+        fun cacheKey(content: String, modelId: String): String {
+            return MessageDigest.getInstance("SHA-256")
+                .digest("$PROMPT_VERSION\u0000$modelId\u0000$content".toByteArray())
+                .joinToString("") { "%02x".format(it) }
+        }
+
+        /**
+         * Read entities from a JSON array of {"name", "type", "description"} objects
+         */
+        fun parseEntityArray(jsonArray: JSONArray): List<Entity> {
+            val entities = mutableListOf<Entity>()
+            for (i in 0 until jsonArray.length()) {
+                val jsonObject = jsonArray.getJSONObject(i)
+
+                val name = jsonObject.getString("name")
+                val typeString = jsonObject.getString("type").uppercase()
+                val description = jsonObject.getString("description")
+
+                val type = try {
+                    EntityType.valueOf(typeString)
+                } catch (e: Exception) {
+                    EntityType.OTHER
+                }
+
+                entities.add(
+                    Entity(
+                        name = name,
+                        type = type,
+                        description = description
+                    )
+                )
+            }
+            return entities
+        }
     }
 
     /**
@@ -34,6 +80,15 @@ class EntityExtractor @Inject constructor(
                 return@withContext Result.success(extractEntitiesSimple(content))
             }
 
+            // Reuse an earlier AI extraction of the same content with the same model
+            val modelId = try {
+                aiServiceManager.getDefaultModelId()
+            } catch (e: Exception) {
+                return@withContext Result.success(extractEntitiesSimple(content))
+            }
+            val cacheKey = cacheKey(content, modelId)
+            getCachedEntities(cacheKey)?.let { return@withContext Result.success(it) }
+
             // For longer content, use AI to extract entities
             val prompt = """
                 Extract the key entities from the following content. For each entity, provide:
@@ -67,7 +122,9 @@ class EntityExtractor @Inject constructor(
 
             if (result.isSuccess) {
                 val jsonString = result.getOrNull() ?: "[]"
-                return@withContext parseEntitiesJson(jsonString)
+                val parsed = parseEntitiesJson(jsonString)
+                parsed.getOrNull()?.let { cacheEntities(cacheKey, it) }
+                return@withContext parsed
             } else {
                 // Fallback to simple approach if AI fails
                 Result.success(extractEntitiesSimple(content))
@@ -78,6 +135,41 @@ class EntityExtractor @Inject constructor(
         }
     }
 
+    /**
+     * Read cached entities and mark the entry as recently used
+     */
+    private suspend fun getCachedEntities(key: String): List<Entity>? {
+        return try {
+            val entry = entityCacheDao.getEntry(key) ?: return null
+            entityCacheDao.touch(key)
+            Log.d(TAG, "Using cached entities")
+            parseEntitiesJson(entry.entitiesJson).getOrNull()
+        } catch (e: Exception) {
+            Log.e(TAG, "Error reading entity cache", e)
+            null
+        }
+    }
+
+    /**
+     * Store extracted entities, evicting the least recently used entries beyond the cache size
+     */
+    private suspend fun cacheEntities(key: String, entities: List<Entity>) {
+        try {
+            val json = JSONArray()
+            for (entity in entities) {
+                json.put(
+                    JSONObject()
+                        .put("name", entity.name)
+                        .put("type", entity.type.name)
+                        .put("description", entity.description)
+                )
+            }
+            entityCacheDao.putEntry(EntityCacheEntry(key = key, entitiesJson = json.toString()), MAX_CACHE_ENTRIES)
+        } catch (e: Exception) {
+            Log.e(TAG, "Error writing entity cache", e)
+        }
+    }
+
     /**
      * Extract entities using a simple approach
      */
@@ -152,34 +244,12 @@ class EntityExtractor @Inject constructor(
      */
     private fun parseEntitiesJson(jsonString: String): Result<List<Entity>> {
         return try {
-            val entities = mutableListOf<Entity>()
-
             // Try to find JSON array in the string
             val jsonArrayString = extractJsonArray(jsonString)
-            if (jsonArrayString.isNotEmpty()) {
-                val jsonArray = JSONArray(jsonArrayString)
-
-                for (i in 0 until jsonArray.length()) {
-                    val jsonObject = jsonArray.getJSONObject(i)
-
-                    val name = jsonObject.getString("name")
-                    val typeString = jsonObject.getString("type").uppercase()
-                    val description = jsonObject.getString("description")
-
-                    val type = try {
-                        EntityType.valueOf(typeString)
-                    } catch (e: Exception) {
-                        EntityType.OTHER
-                    }
-
-                    entities.add(
-                        Entity(
-                            name = name,
-                            type = type,
-                            description = description
-                        )
-                    )
-                }
+            val entities = if (jsonArrayString.isNotEmpty()) {
+                parseEntityArray(JSONArray(jsonArrayString))
+            } else {
+                emptyList()
             }
 
             Result.success(entities)
@@ -0,0 +1,75 @@
+package com.secondbrain.data.service.ai.ratelimit
+
+import kotlinx.coroutines.CancellationException
+import kotlinx.coroutines.CompletableDeferred
+
+/**
+ * Concurrency limit that adapts to throttling: it halves when a request is throttled and grows by
+ * one after a full window of successful requests, up to [maxLimit].
+ */
+class AdaptiveConcurrencyLimit(private val maxLimit: Int) {
+
+    private val lock = Any()
+    private val waiters = ArrayDeque<CompletableDeferred<Unit>>()
+    private var inFlight = 0
+    private var successesSinceIncrease = 0
+
+    /**
+     * Current number of requests allowed in flight
+     */
+    var limit: Int = maxLimit
+        private set
+
+    /**
+     * Suspend until a request may start
+     */
+    suspend fun acquire() {
+        val waiter = synchronized(lock) {
+            if (inFlight < limit) {
+                inFlight++
+                null
+            } else {
+                CompletableDeferred<Unit>().also { waiters.addLast(it) }
+            }
+        } ?: return
+
+        try {
+            waiter.await()
+        } catch (e: CancellationException) {
+            synchronized(lock) {
+                // A permit granted just before cancellation has to be handed on
+                if (!waiters.remove(waiter)) {
+                    inFlight--
+                    grantWaiters()
+                }
+            }
+            throw e
+        }
+    }
+
+    /**
+     * Finish a request started with [acquire]
+     *
+     * @param throttled Whether the server rejected the request for exceeding its rate limit
+     */
+    fun release(throttled: Boolean) {
+        synchronized(lock) {
+            inFlight--
+            if (throttled) {
+                limit = (limit / 2).coerceAtLeast(1)
+                successesSinceIncrease = 0
+            } else if (limit < maxLimit && ++successesSinceIncrease >= limit) {
+                limit++
+                successesSinceIncrease = 0
+            }
+            grantWaiters()
+        }
+    }
+
+    private fun grantWaiters() {
+        while (inFlight < limit && waiters.isNotEmpty()) {
+            inFlight++
+            waiters.removeFirst().complete(Unit)
+        }
+    }
+}
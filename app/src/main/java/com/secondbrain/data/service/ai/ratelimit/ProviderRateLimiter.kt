@@ -0,0 +1,254 @@
+package com.secondbrain.data.service.ai.ratelimit
+
+import android.util.Log
+import com.secondbrain.data.service.ai.resilience.HttpAttemptRecorder
+import kotlinx.coroutines.currentCoroutineContext
+import kotlinx.coroutines.delay
+import okhttp3.Headers
+import okhttp3.MediaType
+import okhttp3.Request
+import okhttp3.Response
+import okhttp3.ResponseBody
+import okio.BufferedSource
+import okio.ForwardingSource
+import okio.buffer
+import java.io.IOException
+import java.time.ZonedDateTime
+import java.time.format.DateTimeFormatter
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.AtomicBoolean
+import javax.inject.Inject
+import javax.inject.Singleton
+
+/**
+ * Per-provider request and token budgets shared by every caller of the AI API clients.
+ *
+ * Each provider gets a requests-per-minute bucket, a tokens-per-minute bucket and an adaptive
+ * concurrency limit. Limits start from conservative defaults and follow the rate-limit headers
+ * of responses; a 429, or a 503 with Retry-After, pauses the provider until its Retry-After and
+ * halves its concurrency.
+ */
+@Singleton
+class ProviderRateLimiter @Inject constructor() {
+
+    companion object {
+        private const val TAG = "ProviderRateLimiter"
+
+        // Rough request-size estimate; the server's remaining-tokens header corrects the balance
+        private const val BYTES_PER_TOKEN = 4
+        private const val DEFAULT_RETRY_AFTER_MS = 10_000L
+        private const val MAX_RETRY_AFTER_MS = 5 * 60_000L
+
+        private val DEFAULT_LIMITS = RateLimits(requestsPerMinute = 60, tokensPerMinute = 100_000, maxConcurrency = 4)
+
+        // Starting points based on the providers' entry-level tiers
+        private val PROVIDER_LIMITS = mapOf(
+            "Gemini" to RateLimits(requestsPerMinute = 15, tokensPerMinute = 1_000_000, maxConcurrency = 4),
+            "OpenAI" to RateLimits(requestsPerMinute = 500, tokensPerMinute = 30_000, maxConcurrency = 8),
+            "Claude" to RateLimits(requestsPerMinute = 50, tokensPerMinute = 40_000, maxConcurrency = 4),
+            "DeepSeek" to RateLimits(requestsPerMinute = 120, tokensPerMinute = 1_000_000, maxConcurrency = 8),
+            "OpenRouter" to RateLimits(requestsPerMinute = 20, tokensPerMinute = 1_000_000, maxConcurrency = 4)
+        )
+
+        private val REQUEST_LIMIT_HEADERS = listOf("x-ratelimit-limit-requests", "anthropic-ratelimit-requests-limit")
+        private val REQUEST_REMAINING_HEADERS = listOf("x-ratelimit-remaining-requests", "anthropic-ratelimit-requests-remaining")
+        private val TOKEN_LIMIT_HEADERS = listOf("x-ratelimit-limit-tokens", "anthropic-ratelimit-tokens-limit")
+        private val TOKEN_REMAINING_HEADERS = listOf("x-ratelimit-remaining-tokens", "anthropic-ratelimit-tokens-remaining")
+
+        /**
+         * Parse a Retry-After value given either in seconds or as an HTTP date
+         *
+         * @return The delay in milliseconds, or null if the value can't be parsed
+         */
+        fun parseRetryAfter(value: String?, nowMs: Long): Long? {
+            val trimmed = value?.trim().takeUnless { it.isNullOrEmpty() } ?: return null
+            trimmed.toDoubleOrNull()?.let { seconds -> return (seconds * 1000).toLong().coerceAtLeast(0) }
+            return try {
+                val date = ZonedDateTime.parse(trimmed, DateTimeFormatter.RFC_1123_DATE_TIME)
+                (date.toInstant().toEpochMilli() - nowMs).coerceAtLeast(0)
+            } catch (e: Exception) {
+                null
+            }
+        }
+
+        /**
+         * First numeric value among [names] in [headers]
+         */
+        fun headerNumber(headers: Headers, names: List<String>): Double? {
+            return names.firstNotNullOfOrNull { headers[it]?.trim()?.toDoubleOrNull() }
+        }
+    }
+
+    /**
+     * Starting limits for a provider
+     */
+    data class RateLimits(
+        val requestsPerMinute: Int,
+        val tokensPerMinute: Int,
+        val maxConcurrency: Int
+    )
+
+    private class ProviderState(limits: RateLimits, nowMs: Long) {
+        val requests = TokenBucket(limits.requestsPerMinute.toDouble(), nowMs)
+        val tokens = TokenBucket(limits.tokensPerMinute.toDouble(), nowMs)
+        val concurrency = AdaptiveConcurrencyLimit(limits.maxConcurrency)
+    }
+
+    private val states = ConcurrentHashMap<String, ProviderState>()
+
+    /**
+     * Run [call] for [request] once [provider]'s budgets allow it, then update them from the response.
+     *
+     * The concurrency slot is normally freed when the response headers arrive. For a streaming
+     * (SSE) response the body is still being generated, so the slot is held until the body is closed.
+     */
+    suspend fun execute(provider: String, request: Request, call: suspend () -> Response): Response {
+        val state = states.getOrPut(provider) {
+            ProviderState(PROVIDER_LIMITS[provider] ?: DEFAULT_LIMITS, System.currentTimeMillis())
+        }
+        val estimatedTokens = estimateTokens(request)
+
+        state.concurrency.acquire()
+        var throttled = false
+        var releaseOnBodyClose = false
+        try {
+            awaitBudget(provider, state, estimatedTokens)
+            val response = timedAttempt(call)
+            throttled = isThrottled(response)
+            updateFromResponse(provider, state, response)
+
+            val body = response.body
+            if (response.isSuccessful && body != null && isEventStream(body)) {
+                releaseOnBodyClose = true
+                return response.newBuilder()
+                    .body(ReleaseOnCloseBody(body) { state.concurrency.release(throttled = false) })
+                    .build()
+            }
+            return response
+        } finally {
+            if (!releaseOnBodyClose) {
+                state.concurrency.release(throttled)
+            }
+        }
+    }
+
+    /**
+     * Run one HTTP attempt and report it to the route's breaker, if the caller is tracking one.
+     * Only the attempt itself is timed, not the wait for budget.
+     */
+    private suspend fun timedAttempt(call: suspend () -> Response): Response {
+        val recorder = currentCoroutineContext()[HttpAttemptRecorder]
+        val startedAt = System.currentTimeMillis()
+        val response = try {
+            call()
+        } catch (e: IOException) {
+            recorder?.record(healthy = false, latencyMs = System.currentTimeMillis() - startedAt)
+            throw e
+        }
+        val healthy = response.code != 429 && response.code !in 500..599
+        recorder?.record(healthy, System.currentTimeMillis() - startedAt)
+        return response
+    }
+
+    /**
+     * Current concurrency limit of a provider, for diagnostics
+     */
+    fun concurrencyLimit(provider: String): Int? = states[provider]?.concurrency?.limit
+
+    private suspend fun awaitBudget(provider: String, state: ProviderState, estimatedTokens: Double) {
+        while (true) {
+            val waitMs = synchronized(state) {
+                val now = System.currentTimeMillis()
+                val wait = maxOf(
+                    state.requests.waitTimeFor(1.0, now),
+                    state.tokens.waitTimeFor(estimatedTokens, now)
+                )
+                if (wait == 0L) {
+                    state.requests.consume(1.0, now)
+                    state.tokens.consume(estimatedTokens, now)
+                }
+                wait
+            }
+            if (waitMs == 0L) return
+
+            Log.d(TAG, "$provider budget exhausted, waiting ${waitMs}ms")
+            delay(waitMs)
+        }
+    }
+
+    private fun updateFromResponse(provider: String, state: ProviderState, response: Response) {
+        val headers = response.headers
+        synchronized(state) {
+            val now = System.currentTimeMillis()
+            headerNumber(headers, REQUEST_LIMIT_HEADERS)?.let { state.requests.updateCapacity(it, now) }
+            headerNumber(headers, REQUEST_REMAINING_HEADERS)?.let { state.requests.updateAvailable(it, now) }
+            headerNumber(headers, TOKEN_LIMIT_HEADERS)?.let { state.tokens.updateCapacity(it, now) }
+            headerNumber(headers, TOKEN_REMAINING_HEADERS)?.let { state.tokens.updateAvailable(it, now) }
+
+            if (isThrottled(response)) {
+                val retryAfterMs = (parseRetryAfter(headers["Retry-After"], now) ?: DEFAULT_RETRY_AFTER_MS)
+                    .coerceAtMost(MAX_RETRY_AFTER_MS)
+                state.requests.blockUntil(now + retryAfterMs)
+                Log.w(TAG, "$provider throttled (HTTP ${response.code}), pausing for ${retryAfterMs}ms")
+            }
+        }
+    }
+
+    /**
+     * Whether the provider asked us to back off: a 429, or a 503 that says when to retry
+     */
+    private fun isThrottled(response: Response): Boolean {
+        return response.code == 429 || (response.code == 503 && response.headers["Retry-After"] != null)
+    }
+
+    private fun isEventStream(body: ResponseBody): Boolean {
+        val contentType = body.contentType() ?: return false
+        return contentType.type == "text" && contentType.subtype == "event-stream"
+    }
+
+    private fun estimateTokens(request: Request): Double {
+        // Only JSON prompts count against token budgets; uploads such as audio files are metered differently
+        val bodyBytes = request.body
+            ?.takeIf { it.contentType()?.subtype == "json" }
+            ?.contentLength()
+            ?.takeIf { it > 0 } ?: 0L
+        return (bodyBytes / BYTES_PER_TOKEN).coerceAtLeast(1).toDouble()
+    }
+}
+
+/**
+ * Response body that runs [onClose] once, when it is closed directly or through its source
+ */
+private class ReleaseOnCloseBody(
+    private val delegate: ResponseBody,
+    onClose: () -> Unit
+) : ResponseBody() {
+    private val closed = AtomicBoolean(false)
+    private val onCloseOnce = { if (closed.compareAndSet(false, true)) onClose() }
+
+    private val source: BufferedSource by lazy {
+        object : ForwardingSource(delegate.source()) {
+            override fun close() {
+                try {
+                    super.close()
+                } finally {
+                    onCloseOnce()
+                }
+            }
+        }.buffer()
+    }
+
+    override fun contentType(): MediaType? = delegate.contentType()
+
+    override fun contentLength(): Long = delegate.contentLength()
+
+    override fun source(): BufferedSource = source
+
+    override fun close() {
+        try {
+            delegate.close()
+        } finally {
+            onCloseOnce()
+        }
+    }
+}
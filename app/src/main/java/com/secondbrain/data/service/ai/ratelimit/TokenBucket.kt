@@ -0,0 +1,74 @@
+package com.secondbrain.data.service.ai.ratelimit
+
+import kotlin.math.ceil
+
+/**
+ * Token bucket holding up to [capacity] units and refilling continuously at [capacity] per minute.
+ *
+ * Not thread-safe; callers synchronize access. Times are passed in so the bucket stays testable.
+ */
+class TokenBucket(capacity: Double, nowMs: Long) {
+
+    var capacity: Double = capacity
+        private set
+
+    private var available = capacity
+    private var lastRefillMs = nowMs
+    private var blockedUntilMs = 0L
+
+    /**
+     * Milliseconds until [amount] units can be taken, or 0 if they are available now.
+     * Requests larger than the whole bucket only wait for it to be full.
+     */
+    fun waitTimeFor(amount: Double, nowMs: Long): Long {
+        if (nowMs < blockedUntilMs) return blockedUntilMs - nowMs
+        refill(nowMs)
+        val needed = amount.coerceAtMost(capacity)
+        if (available >= needed) return 0
+        return ceil((needed - available) * MS_PER_MINUTE / capacity).toLong().coerceAtLeast(1)
+    }
+
+    /**
+     * Take [amount] units; the balance may go negative for requests larger than the bucket
+     */
+    fun consume(amount: Double, nowMs: Long) {
+        refill(nowMs)
+        available -= amount
+    }
+
+    /**
+     * Change the per-minute limit, e.g. from a rate-limit header
+     */
+    fun updateCapacity(newCapacity: Double, nowMs: Long) {
+        if (newCapacity <= 0 || newCapacity == capacity) return
+        refill(nowMs)
+        capacity = newCapacity
+        available = available.coerceAtMost(capacity)
+    }
+
+    /**
+     * Align the balance with the remaining budget reported by the server
+     */
+    fun updateAvailable(remaining: Double, nowMs: Long) {
+        refill(nowMs)
+        available = remaining.coerceIn(0.0, capacity)
+    }
+
+    /**
+     * Refuse all requests until [untilMs], e.g. after a 429 with Retry-After
+     */
+    fun blockUntil(untilMs: Long) {
+        blockedUntilMs = maxOf(blockedUntilMs, untilMs)
+        available = available.coerceAtMost(0.0)
+    }
+
+    private fun refill(nowMs: Long) {
+        if (nowMs <= lastRefillMs) return
+        available = (available + (nowMs - lastRefillMs) * capacity / MS_PER_MINUTE).coerceAtMost(capacity)
+        lastRefillMs = nowMs
+    }
+
+    private companion object {
+        const val MS_PER_MINUTE = 60_000.0
+    }
+}
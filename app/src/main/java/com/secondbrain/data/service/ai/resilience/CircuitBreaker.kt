@@ -0,0 +1,135 @@
+package com.secondbrain.data.service.ai.resilience
+
+/**
+ * Circuit breaker over a rolling window of call outcomes.
+ *
+ * The breaker opens when at least [minCalls] calls in the last [windowMs] have an error rate of
+ * [errorRateThreshold] or more, or a p95 latency of [p95LatencyThresholdMs] or more. After
+ * [openDurationMs] it lets a single trial call through; the trial's outcome closes or reopens it.
+ * Times are passed in so the breaker stays testable.
+ */
+class CircuitBreaker(
+    private val windowMs: Long = 60_000,
+    private val minCalls: Int = 5,
+    private val errorRateThreshold: Double = 0.5,
+    private val p95LatencyThresholdMs: Long = 30_000,
+    private val openDurationMs: Long = 30_000
+) {
+
+    enum class State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private class Outcome(val timeMs: Long, val success: Boolean, val latencyMs: Long)
+
+    private val outcomes = ArrayDeque<Outcome>()
+    private var openedAtMs = 0L
+    private var trialStartedAtMs: Long? = null
+
+    var state: State = State.CLOSED
+        private set
+
+    /**
+     * Whether a call may be made now; in the half-open state this reserves the single trial call
+     */
+    @Synchronized
+    fun allowRequest(nowMs: Long): Boolean {
+        return when (state) {
+            State.CLOSED -> true
+            State.OPEN -> {
+                if (nowMs - openedAtMs < openDurationMs) return false
+                state = State.HALF_OPEN
+                trialStartedAtMs = nowMs
+                true
+            }
+            State.HALF_OPEN -> {
+                // Allow a new trial if the previous one never reported back
+                val trialStartedAt = trialStartedAtMs
+                if (trialStartedAt != null && nowMs - trialStartedAt < openDurationMs) return false
+                trialStartedAtMs = nowMs
+                true
+            }
+        }
+    }
+
+    /**
+     * Whether [allowRequest] would let a call through now, without reserving the half-open trial
+     */
+    @Synchronized
+    fun isAvailable(nowMs: Long): Boolean {
+        return when (state) {
+            State.CLOSED -> true
+            State.OPEN -> nowMs - openedAtMs >= openDurationMs
+            State.HALF_OPEN -> {
+                val trialStartedAt = trialStartedAtMs
+                trialStartedAt == null || nowMs - trialStartedAt >= openDurationMs
+            }
+        }
+    }
+
+    /**
+     * Record the outcome of a call allowed by [allowRequest]
+     *
+     * @param latencyThresholdMs Latency that counts as too slow for this kind of call; the latency
+     * is scaled so that it compares with [p95LatencyThresholdMs] the way it compares with this
+     */
+    @Synchronized
+    fun record(success: Boolean, latencyMs: Long, nowMs: Long, latencyThresholdMs: Long = p95LatencyThresholdMs) {
+        val scaledLatencyMs = latencyMs * p95LatencyThresholdMs / latencyThresholdMs.coerceAtLeast(1)
+        when (state) {
+            State.HALF_OPEN -> {
+                trialStartedAtMs = null
+                if (success && scaledLatencyMs < p95LatencyThresholdMs) {
+                    state = State.CLOSED
+                    outcomes.clear()
+                } else {
+                    open(nowMs)
+                }
+            }
+            State.OPEN -> Unit // Late result of a call made before the breaker opened
+            State.CLOSED -> {
+                outcomes.addLast(Outcome(nowMs, success, scaledLatencyMs))
+                prune(nowMs)
+                if (outcomes.size >= minCalls &&
+                    (errorRate() >= errorRateThreshold || p95LatencyMs() >= p95LatencyThresholdMs)
+                ) {
+                    open(nowMs)
+                }
+            }
+        }
+    }
+
+    /**
+     * Share of failed calls in the current window
+     */
+    @Synchronized
+    fun errorRate(): Double {
+        if (outcomes.isEmpty()) return 0.0
+        return outcomes.count { !it.success }.toDouble() / outcomes.size
+    }
+
+    /**
+     * 95th percentile latency of the calls in the current window
+     */
+    @Synchronized
+    fun p95LatencyMs(): Long {
+        if (outcomes.isEmpty()) return 0
+        val latencies = outcomes.map { it.latencyMs }.sorted()
+        val index = (kotlin.math.ceil(latencies.size * 0.95).toInt() - 1).coerceIn(0, latencies.size - 1)
+        return latencies[index]
+    }
+
+    private fun open(nowMs: Long) {
+        state = State.OPEN
+        openedAtMs = nowMs
+        outcomes.clear()
+    }
+
+    private fun prune(nowMs: Long) {
+        while (outcomes.isNotEmpty() && nowMs - outcomes.first().timeMs > windowMs) {
+            outcomes.removeFirst()
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.secondbrain.data.service.ai.resilience
+
+/**
+ * Decides when a request is hedged and whether the hedging budget allows it.
+ *
+ * The hedge delay is the p90 of the route's recent successful latencies, so roughly one request
+ * in ten is hedged. Hedges are limited to `costMultiplier - 1` per primary request, e.g. a
+ * multiplier of 1.2 allows at most one hedge for every five primary requests.
+ */
+class HedgePolicy(
+    private val maxSamples: Int = 50,
+    private val minSamples: Int = 5,
+    private val percentile: Double = 0.9,
+    private val defaultDelayMs: Long = 3_000
+) {
+
+    private val latencies = mutableMapOf<String, ArrayDeque<Long>>()
+    private var primaryRequests = 0L
+    private var hedgedRequests = 0L
+
+    /**
+     * Record the latency of a successful request to [route]
+     */
+    @Synchronized
+    fun recordLatency(route: String, latencyMs: Long) {
+        val samples = latencies.getOrPut(route) { ArrayDeque() }
+        samples.addLast(latencyMs)
+        while (samples.size > maxSamples) {
+            samples.removeFirst()
+        }
+    }
+
+    /**
+     * How long to wait for [route] before hedging; the default until enough samples are known
+     */
+    @Synchronized
+    fun hedgeDelayMs(route: String): Long {
+        val samples = latencies[route]?.takeIf { it.size >= minSamples } ?: return defaultDelayMs
+        val sorted = samples.sorted()
+        val index = (kotlin.math.ceil(sorted.size * percentile).toInt() - 1).coerceIn(0, sorted.size - 1)
+        return sorted[index]
+    }
+
+    /**
+     * Count a primary request, which earns hedging budget
+     */
+    @Synchronized
+    fun recordPrimary() {
+        primaryRequests++
+    }
+
+    /**
+     * Reserve budget for one hedge if it keeps the total cost within [costMultiplier]
+     */
+    @Synchronized
+    fun tryAcquireHedge(costMultiplier: Double): Boolean {
+        // Tolerance for multipliers such as 1.2 that have no exact binary representation
+        val allowed = hedgedRequests + 1 <= (costMultiplier - 1.0) * primaryRequests + 1e-9
+        if (allowed) hedgedRequests++
+        return allowed
+    }
+}
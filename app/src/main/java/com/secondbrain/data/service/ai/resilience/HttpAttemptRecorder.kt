@@ -0,0 +1,25 @@
+package com.secondbrain.data.service.ai.resilience
+
+import kotlin.coroutines.AbstractCoroutineContextElement
+import kotlin.coroutines.CoroutineContext
+
+/**
+ * Coroutine context element through which the HTTP layer reports each attempt of a request made
+ * inside [ProviderHealthMonitor.call], so the route's breaker sees every attempt with its own
+ * latency rather than one outcome for a whole run of retries and rate-limit waits
+ */
+class HttpAttemptRecorder(
+    private val onAttempt: (healthy: Boolean, latencyMs: Long) -> Unit
+) : AbstractCoroutineContextElement(Key) {
+
+    companion object Key : CoroutineContext.Key<HttpAttemptRecorder>
+
+    /**
+     * @param healthy False for attempts that failed in a way that says the route is in trouble:
+     * network errors, throttling and server errors
+     * @param latencyMs Time from sending the request to receiving the response headers
+     */
+    fun record(healthy: Boolean, latencyMs: Long) {
+        onAttempt(healthy, latencyMs)
+    }
+}
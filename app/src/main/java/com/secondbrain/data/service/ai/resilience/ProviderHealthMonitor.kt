@@ -0,0 +1,89 @@
+package com.secondbrain.data.service.ai.resilience
+
+import android.os.SystemClock
+import android.util.Log
+import com.secondbrain.util.CircuitOpenException
+import kotlinx.coroutines.CancellationException
+import kotlinx.coroutines.withContext
+import java.util.concurrent.ConcurrentHashMap
+import javax.inject.Inject
+import javax.inject.Singleton
+
+/**
+ * Tracks the health of each provider/model route with a [CircuitBreaker]
+ */
+@Singleton
+class ProviderHealthMonitor @Inject constructor() {
+
+    companion object {
+        private const val TAG = "ProviderHealthMonitor"
+
+        // Time to a response that counts as slow for short requests such as tags and titles
+        const val DEFAULT_LATENCY_THRESHOLD_MS = 30_000L
+    }
+
+    private val breakers = ConcurrentHashMap<String, CircuitBreaker>()
+
+    /**
+     * Whether [route] may currently be used, including an open route whose open period is over
+     * and that would take a trial request
+     */
+    fun isAvailable(route: String): Boolean {
+        return breakers[route]?.isAvailable(SystemClock.elapsedRealtime()) ?: true
+    }
+
+    /**
+     * Like [isAvailable], but reserves the trial request of a half-open route, for callers that
+     * make the request themselves rather than through [call]
+     */
+    fun tryAcquire(route: String): Boolean {
+        return breaker(route).allowRequest(SystemClock.elapsedRealtime())
+    }
+
+    /**
+     * Run [block] through the breaker for [route].
+     *
+     * Fails fast with [CircuitOpenException] while the breaker is open. The HTTP layer reports
+     * every attempt [block] makes through [HttpAttemptRecorder], so client retries and time spent
+     * waiting for the rate limiter don't count as latency. Only transient errors (timeouts,
+     * server errors, throttling) count against the route; errors caused by the request itself or
+     * by credentials do not.
+     *
+     * @param latencyThresholdMs Response time that counts as slow for this kind of request
+     */
+    suspend fun <T> call(
+        route: String,
+        latencyThresholdMs: Long = DEFAULT_LATENCY_THRESHOLD_MS,
+        block: suspend () -> Result<T>
+    ): Result<T> {
+        val breaker = breaker(route)
+        if (!breaker.allowRequest(SystemClock.elapsedRealtime())) {
+            return Result.failure(CircuitOpenException("$route is temporarily unavailable"))
+        }
+
+        return try {
+            withContext(attemptRecorder(route, latencyThresholdMs)) { block() }
+        } catch (e: CancellationException) {
+            // A cancelled call says nothing about the route; an unfinished trial is retried later
+            throw e
+        } catch (e: Exception) {
+            Result.failure(e)
+        }
+    }
+
+    /**
+     * Recorder that feeds the attempts of requests to [route] into its breaker
+     */
+    fun attemptRecorder(route: String, latencyThresholdMs: Long = DEFAULT_LATENCY_THRESHOLD_MS): HttpAttemptRecorder {
+        val breaker = breaker(route)
+        return HttpAttemptRecorder { healthy, latencyMs ->
+            val wasOpen = breaker.state == CircuitBreaker.State.OPEN
+            breaker.record(healthy, latencyMs, SystemClock.elapsedRealtime(), latencyThresholdMs)
+            if (!wasOpen && breaker.state == CircuitBreaker.State.OPEN) {
+                Log.w(TAG, "Circuit opened for $route")
+            }
+        }
+    }
+
+    private fun breaker(route: String): CircuitBreaker = breakers.getOrPut(route) { CircuitBreaker() }
+}
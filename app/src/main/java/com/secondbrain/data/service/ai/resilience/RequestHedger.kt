@@ -0,0 +1,91 @@
+package com.secondbrain.data.service.ai.resilience
+
+import android.os.SystemClock
+import android.util.Log
+import kotlinx.coroutines.CancellationException
+import kotlinx.coroutines.Deferred
+import kotlinx.coroutines.async
+import kotlinx.coroutines.coroutineScope
+import kotlinx.coroutines.selects.select
+import kotlinx.coroutines.withTimeoutOrNull
+import javax.inject.Inject
+import javax.inject.Singleton
+
+/**
+ * Sends a second copy of a slow request to another route and keeps whichever answers first
+ */
+@Singleton
+class RequestHedger @Inject constructor() {
+
+    companion object {
+        private const val TAG = "RequestHedger"
+    }
+
+    private val policy = HedgePolicy()
+
+    /**
+     * Run [primary]; if it has not answered within [primaryRoute]'s p90 latency and the budget
+     * allows, also run [hedge]. The first successful result wins and the other request is cancelled.
+     *
+     * @param costMultiplier Upper bound on requests sent per primary request, e.g. 1.2
+     */
+    suspend fun <T> hedge(
+        primaryRoute: String,
+        hedgeRoute: String,
+        costMultiplier: Double,
+        primary: suspend () -> Result<T>,
+        hedge: suspend () -> Result<T>
+    ): Result<T> = coroutineScope {
+        policy.recordPrimary()
+        val primaryCall = async { timed(primaryRoute, primary) }
+
+        val delayMs = policy.hedgeDelayMs(primaryRoute)
+        withTimeoutOrNull(delayMs) { primaryCall.await() }?.let { return@coroutineScope it }
+
+        if (!policy.tryAcquireHedge(costMultiplier)) {
+            return@coroutineScope primaryCall.await()
+        }
+
+        Log.d(TAG, "$primaryRoute has not answered after ${delayMs}ms, hedging to $hedgeRoute")
+        val hedgeCall = async { timed(hedgeRoute, hedge) }
+        firstSuccess(listOf(primaryCall, hedgeCall))
+    }
+
+    /**
+     * Wait for the first successful result, cancelling the calls still running; if every call
+     * fails, return the first failure
+     */
+    private suspend fun <T> firstSuccess(calls: List<Deferred<Result<T>>>): Result<T> {
+        val pending = calls.toMutableList()
+        var firstFailure: Result<T>? = null
+
+        while (pending.isNotEmpty()) {
+            val (call, result) = select {
+                pending.forEach { call -> call.onAwait { call to it } }
+            }
+            pending.remove(call)
+            if (result.isSuccess) {
+                pending.forEach { it.cancel() }
+                return result
+            }
+            if (firstFailure == null) firstFailure = result
+        }
+
+        return firstFailure ?: Result.failure(IllegalStateException("No request was made"))
+    }
+
+    private suspend fun <T> timed(route: String, block: suspend () -> Result<T>): Result<T> {
+        val startedAt = SystemClock.elapsedRealtime()
+        val result = try {
+            block()
+        } catch (e: CancellationException) {
+            throw e
+        } catch (e: Exception) {
+            Result.failure(e)
+        }
+        if (result.isSuccess) {
+            policy.recordLatency(route, SystemClock.elapsedRealtime() - startedAt)
+        }
+        return result
+    }
+}
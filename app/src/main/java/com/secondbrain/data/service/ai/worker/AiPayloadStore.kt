@@ -0,0 +1,118 @@
+package com.secondbrain.data.service.ai.worker
+
+import android.content.Context
+import android.util.Log
+import dagger.hilt.android.qualifiers.ApplicationContext
+import java.io.File
+import java.security.MessageDigest
+import java.util.UUID
+import javax.inject.Inject
+import javax.inject.Singleton
+
+/**
+ * File-backed payloads for [AiProcessingWorker].
+ *
+ * WorkManager [androidx.work.Data] is limited to 10 KB and is stored in WorkManager's database,
+ * so task content and results are written to files and only their IDs are passed to the worker.
+ * Content is addressed by its SHA-256 hash, so the summary, tag and title tasks for the same text
+ * share one file; results are keyed by work request ID.
+ */
+@Singleton
+class AiPayloadStore @Inject constructor(
+    @ApplicationContext private val context: Context
+) {
+
+    companion object {
+        private const val TAG = "AiPayloadStore"
+        private const val DIRECTORY = "ai_payloads"
+    }
+
+    private val contentDir: File
+        get() = File(context.noBackupFilesDir, "$DIRECTORY/content").apply { mkdirs() }
+
+    private val resultDir: File
+        get() = File(context.noBackupFilesDir, "$DIRECTORY/results").apply { mkdirs() }
+
+    /**
+     * Store task content and return its ID
+     */
+    fun putContent(content: String): String {
+        val bytes = content.toByteArray()
+        val id = MessageDigest.getInstance("SHA-256").digest(bytes).joinToString("") { "%02x".format(it) }
+
+        val target = File(contentDir, id)
+        if (target.exists()) {
+            // Same content is already stored; refresh it so the stale sweep keeps it
+            target.setLastModified(System.currentTimeMillis())
+            return id
+        }
+
+        // Write to a temporary file first so the worker never reads a partial payload
+        val temp = File.createTempFile("content", ".tmp", contentDir)
+        try {
+            temp.writeBytes(bytes)
+            if (!temp.renameTo(target)) {
+                throw IllegalStateException("Could not store task content")
+            }
+            return id
+        } finally {
+            temp.delete()
+        }
+    }
+
+    /**
+     * Read task content, or null if it no longer exists
+     */
+    fun getContent(id: String): String? {
+        val file = File(contentDir, id).takeIf { it.isFile } ?: return null
+        return file.bufferedReader().use { it.readText() }
+    }
+
+    /**
+     * Delete task content that no task refers to any more
+     */
+    fun deleteContent(id: String) {
+        File(contentDir, id).delete()
+    }
+
+    /**
+     * Store the result of a work request
+     */
+    fun putResult(workId: UUID, result: String) {
+        val temp = File.createTempFile("result", ".tmp", resultDir)
+        try {
+            temp.bufferedWriter().use { it.write(result) }
+            if (!temp.renameTo(File(resultDir, workId.toString()))) {
+                throw IllegalStateException("Could not store task result")
+            }
+        } finally {
+            temp.delete()
+        }
+    }
+
+    /**
+     * Read and delete the result of a work request
+     */
+    fun takeResult(workId: UUID): String? {
+        val file = File(resultDir, workId.toString()).takeIf { it.isFile } ?: return null
+        return try {
+            file.bufferedReader().use { it.readText() }
+        } finally {
+            file.delete()
+        }
+    }
+
+    /**
+     * Delete payloads left behind by tasks whose outcome was never observed, e.g. after the
+     * process was killed
+     */
+    fun deleteStale(maxAgeMs: Long) {
+        val cutoff = System.currentTimeMillis() - maxAgeMs
+        val stale = (contentDir.listFiles().orEmpty() + resultDir.listFiles().orEmpty())
+            .filter { it.lastModified() < cutoff }
+        stale.forEach { it.delete() }
+        if (stale.isNotEmpty()) {
+            Log.d(TAG, "Deleted ${stale.size} stale payloads")
+        }
+    }
+}
@@ -15,7 +15,12 @@ import com.secondbrain.data.service.ai.TitleGenerationOptions
 import dagger.assisted.Assisted
 import dagger.assisted.AssistedInject
 import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.async
+import kotlinx.coroutines.awaitAll
+import kotlinx.coroutines.coroutineScope
 import kotlinx.coroutines.withContext
+import org.json.JSONArray
+import org.json.JSONObject
 
 /**
  * Worker for processing AI tasks in the background
@@ -23,7 +28,8 @@ import kotlinx.coroutines.withContext
 class AiProcessingWorker @AssistedInject constructor(
     @Assisted private val context: Context,
     @Assisted private val params: WorkerParameters,
-    private val aiServiceManager: AiServiceManager
+    private val aiServiceManager: AiServiceManager,
+    private val payloadStore: AiPayloadStore
 ) : CoroutineWorker(context, params) {
 
     companion object {
@@ -31,7 +37,8 @@ class AiProcessingWorker @AssistedInject constructor(
 
         // Input keys
         const val KEY_TASK_TYPE = "task_type"
-        const val KEY_CONTENT = "content"
+        const val KEY_CONTENT_ID = "content_id"
+        const val KEY_CONTENT = "content" // Inline content of work enqueued before payloads moved to files
         const val KEY_URI = "uri"
         const val KEY_LANGUAGE = "language"
         const val KEY_SUMMARY_TYPE = "summary_type"
@@ -40,9 +47,14 @@ class AiProcessingWorker @AssistedInject constructor(
         const val KEY_CUSTOM_INSTRUCTIONS = "custom_instructions"
         const val KEY_AI_MODEL = "ai_model"
         const val KEY_CONTENT_TYPE = "content_type"
+        const val KEY_BATCH_ID = "batch_id"
 
-        // Output keys
-        const val KEY_RESULT = "result"
+        // Fields of batch items and batch results, besides the input keys above
+        const val BATCH_TASK_ID = "task_id"
+        const val BATCH_RESULT = "result"
+        const val BATCH_ERROR = "error"
+
+        // Output keys; the result itself is stored in AiPayloadStore under the work request ID
         const val KEY_ERROR = "error"
 
         // Task types
@@ -51,6 +63,7 @@ class AiProcessingWorker @AssistedInject constructor(
         const val TASK_EXTRACT_TEXT = "extract_text"
         const val TASK_GENERATE_TAGS = "generate_tags"
         const val TASK_GENERATE_TITLE = "generate_title"
+        const val TASK_BATCH = "batch"
     }
 
     override suspend fun doWork(): Result = withContext(Dispatchers.IO) {
@@ -66,10 +79,12 @@ class AiProcessingWorker @AssistedInject constructor(
                 TASK_EXTRACT_TEXT -> processExtractTextTask()
                 TASK_GENERATE_TAGS -> processGenerateTagsTask()
                 TASK_GENERATE_TITLE -> processGenerateTitleTask()
+                TASK_BATCH -> processBatchTask()
                 else -> return@withContext Result.failure(createErrorData("Unknown task type: $taskType"))
             }
 
-            Result.success(result)
+            // Task errors are reported as failures so the caller doesn't look for a stored result
+            if (result.getString(KEY_ERROR) != null) Result.failure(result) else Result.success(result)
         } catch (e: Exception) {
             Log.e(TAG, "Error processing AI task", e)
             Result.failure(createErrorData(e.message ?: "Unknown error"))
@@ -80,7 +95,7 @@ class AiProcessingWorker @AssistedInject constructor(
      * Process a summarize task
      */
     private suspend fun processSummarizeTask(): Data {
-        val content = inputData.getString(KEY_CONTENT)
+        val content = readContent()
             ?: return createErrorData("Content not specified")
 
         val language = inputData.getString(KEY_LANGUAGE) ?: "en"
@@ -118,9 +133,7 @@ class AiProcessingWorker @AssistedInject constructor(
         val result = aiServiceManager.summarize(content, options, aiModel, contentType)
 
         return if (result.isSuccess) {
-            Data.Builder()
-                .putString(KEY_RESULT, result.getOrNull())
-                .build()
+            createResultData(result.getOrNull())
         } else {
             createErrorData(result.exceptionOrNull()?.message ?: "Error summarizing content")
         }
@@ -140,9 +153,7 @@ class AiProcessingWorker @AssistedInject constructor(
         val result = aiServiceManager.transcribeAudio(uri, language, aiModel)
 
         return if (result.isSuccess) {
-            Data.Builder()
-                .putString(KEY_RESULT, result.getOrNull())
-                .build()
+            createResultData(result.getOrNull())
         } else {
             createErrorData(result.exceptionOrNull()?.message ?: "Error transcribing audio")
         }
@@ -162,9 +173,7 @@ class AiProcessingWorker @AssistedInject constructor(
         val result = aiServiceManager.extractTextFromImage(uri, language, aiModel)
 
         return if (result.isSuccess) {
-            Data.Builder()
-                .putString(KEY_RESULT, result.getOrNull())
-                .build()
+            createResultData(result.getOrNull())
         } else {
             createErrorData(result.exceptionOrNull()?.message ?: "Error extracting text from image")
         }
@@ -174,7 +183,7 @@ class AiProcessingWorker @AssistedInject constructor(
      * Process a generate tags task
      */
     private suspend fun processGenerateTagsTask(): Data {
-        val content = inputData.getString(KEY_CONTENT)
+        val content = readContent()
             ?: return createErrorData("Content not specified")
 
         val language = inputData.getString(KEY_LANGUAGE) ?: "en"
@@ -189,10 +198,7 @@ class AiProcessingWorker @AssistedInject constructor(
         val result = aiServiceManager.generateTags(content, language, maxTags, aiModel)
 
         return if (result.isSuccess) {
-            val tags = result.getOrNull()?.joinToString(",") ?: ""
-            Data.Builder()
-                .putString(KEY_RESULT, tags)
-                .build()
+            createResultData(result.getOrNull()?.joinToString(","))
         } else {
             createErrorData(result.exceptionOrNull()?.message ?: "Error generating tags")
         }
@@ -202,7 +208,7 @@ class AiProcessingWorker @AssistedInject constructor(
      * Process a generate title task
      */
     private suspend fun processGenerateTitleTask(): Data {
-        val content = inputData.getString(KEY_CONTENT)
+        val content = readContent()
             ?: return createErrorData("Content not specified")
 
         val language = inputData.getString(KEY_LANGUAGE) ?: "en"
@@ -216,14 +222,69 @@ class AiProcessingWorker @AssistedInject constructor(
         val result = aiServiceManager.generateTitle(content, language, aiModel)
 
         return if (result.isSuccess) {
-            Data.Builder()
-                .putString(KEY_RESULT, result.getOrNull())
-                .build()
+            createResultData(result.getOrNull())
         } else {
             createErrorData(result.exceptionOrNull()?.message ?: "Error generating title")
         }
     }
 
+    /**
+     * Process a batch of small tag and title tasks in one work request.
+     *
+     * The batch payload is a JSON array of items using the input keys; the result is a JSON object
+     * with a `result` or `error` for each task ID. A failed item does not fail the batch.
+     */
+    private suspend fun processBatchTask(): Data {
+        val batch = inputData.getString(KEY_BATCH_ID)?.let { payloadStore.getContent(it) }
+            ?: return createErrorData("Batch not specified")
+        val items = JSONArray(batch).let { array -> List(array.length()) { array.getJSONObject(it) } }
+
+        Log.d(TAG, "Processing batch of ${items.size} tasks")
+        val results = coroutineScope {
+            items.map { item -> async { item.getString(BATCH_TASK_ID) to processBatchItem(item) } }.awaitAll()
+        }
+
+        val output = JSONObject()
+        results.forEach { (taskId, result) ->
+            output.put(taskId, JSONObject().apply {
+                result.onSuccess { put(BATCH_RESULT, it) }
+                result.onFailure { put(BATCH_ERROR, it.message ?: "Unknown error") }
+            })
+        }
+        return createResultData(output.toString())
+    }
+
+    private suspend fun processBatchItem(item: JSONObject): kotlin.Result<String> {
+        val content = payloadStore.getContent(item.optString(KEY_CONTENT_ID))
+            ?: return kotlin.Result.failure(IllegalStateException("Content not specified"))
+        val language = item.optString(KEY_LANGUAGE, "en")
+        val aiModel = item.optString(KEY_AI_MODEL).takeIf { it.isNotEmpty() }
+
+        return when (val taskType = item.optString(KEY_TASK_TYPE)) {
+            TASK_GENERATE_TAGS -> aiServiceManager
+                .generateTags(content, language, item.optInt(KEY_MAX_TAGS, 5), aiModel)
+                .map { it.joinToString(",") }
+            TASK_GENERATE_TITLE -> aiServiceManager.generateTitle(content, language, aiModel)
+            else -> kotlin.Result.failure(IllegalArgumentException("Task type can't be batched: $taskType"))
+        }
+    }
+
+    /**
+     * Read the task content from its payload file
+     */
+    private fun readContent(): String? {
+        return inputData.getString(KEY_CONTENT_ID)?.let { payloadStore.getContent(it) }
+            ?: inputData.getString(KEY_CONTENT)
+    }
+
+    /**
+     * Store the result outside WorkManager, which limits output data to 10 KB
+     */
+    private fun createResultData(result: String?): Data {
+        payloadStore.putResult(id, result.orEmpty())
+        return Data.EMPTY
+    }
+
     /**
      * Create error data
      */
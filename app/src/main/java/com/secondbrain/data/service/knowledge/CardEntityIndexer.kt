@@ -0,0 +1,123 @@
+package com.secondbrain.data.service.knowledge
+
+import android.util.Log
+import com.secondbrain.data.db.CardDao
+import com.secondbrain.data.db.EntityDao
+import com.secondbrain.data.model.Card
+import com.secondbrain.data.model.IndexedEntity
+import com.secondbrain.data.model.KnowledgeEntity
+import com.secondbrain.data.service.ai.content.Entity
+import com.secondbrain.data.service.ai.content.EntityExtractor
+import com.secondbrain.data.service.ai.content.EntityType
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.withContext
+import javax.inject.Inject
+import javax.inject.Singleton
+
+/**
+ * Maintains the persistent entity index (entities and card_entities tables) used by the knowledge graph
+ */
+@Singleton
+class CardEntityIndexer @Inject constructor(
+    private val cardDao: CardDao,
+    private val entityDao: EntityDao,
+    private val entityExtractor: EntityExtractor
+) {
+    companion object {
+        private const val TAG = "CardEntityIndexer"
+
+        /**
+         * Calculate connection strength between a card and an entity, normalized to 0-1
+         */
+        fun connectionStrength(card: Card, entityName: String): Float {
+            // Count occurrences of entity in card content
+            val contentOccurrences = card.content.split(entityName, ignoreCase = true).size - 1
+
+            // Check if entity appears in title
+            val titleOccurrence = if (card.title.contains(entityName, ignoreCase = true)) 3 else 0
+
+            // Check if entity appears in tags
+            val tagOccurrence = if (card.tags.any { it.contains(entityName, ignoreCase = true) }) 2 else 0
+
+            val totalScore = contentOccurrences + titleOccurrence + tagOccurrence
+            return minOf(totalScore / 10f, 1f)
+        }
+    }
+
+    /**
+     * Extract the entities of a stored card and replace its index rows.
+     * A card deleted in the meantime has nothing to index.
+     */
+    suspend fun indexCard(cardId: String): Result<List<IndexedEntity>> = withContext(Dispatchers.IO) {
+        val card = cardDao.getCardByIdSync(cardId)
+            ?: return@withContext Result.success(emptyList())
+        indexCard(card)
+    }
+
+    /**
+     * Extract the entities of a card and replace its index rows
+     */
+    suspend fun indexCard(card: Card): Result<List<IndexedEntity>> = withContext(Dispatchers.IO) {
+        try {
+            val entities = entityExtractor.extractEntities(card.content).getOrElse {
+                return@withContext Result.failure(it)
+            }
+
+            val weighted = entities
+                .filter { it.name.isNotBlank() }
+                .distinctBy { it.name.lowercase() }
+                .map { entity ->
+                    KnowledgeEntity(
+                        name = entity.name.trim(),
+                        type = entity.type.name,
+                        description = entity.description
+                    ) to connectionStrength(card, entity.name)
+                }
+
+            entityDao.replaceCardEntities(card.id, weighted)
+            Log.d(TAG, "Indexed ${weighted.size} entities for card: ${card.id}")
+
+            Result.success(entityDao.getEntitiesForCard(card.id))
+        } catch (e: Exception) {
+            Log.e(TAG, "Error indexing entities for card: ${card.id}", e)
+            Result.failure(e)
+        }
+    }
+
+    /**
+     * Get the indexed entities of a card, indexing it first if it has never been indexed
+     * (cards saved before the index existed)
+     */
+    suspend fun getEntities(card: Card): Result<List<IndexedEntity>> = withContext(Dispatchers.IO) {
+        if (entityDao.isCardIndexed(card.id)) {
+            Result.success(entityDao.getEntitiesForCard(card.id))
+        } else {
+            indexCard(card)
+        }
+    }
+
+    /**
+     * Other cards sharing entities with the given card, strongest overlap first
+     */
+    suspend fun getCardsSharingEntities(cardId: String, limit: Int = 10): List<Card> =
+        withContext(Dispatchers.IO) {
+            entityDao.getCardsSharingEntities(cardId, limit)
+        }
+
+    /**
+     * Entities of [cardId] that also appear in [otherCardIds], with each other card's weight
+     */
+    suspend fun getSharedEntities(cardId: String, otherCardIds: List<String>): List<IndexedEntity> =
+        withContext(Dispatchers.IO) {
+            if (otherCardIds.isEmpty()) emptyList() else entityDao.getSharedEntities(cardId, otherCardIds)
+        }
+}
+
+/**
+ * Convert a stored entity back to the extractor's model
+ */
+fun IndexedEntity.toEntity(): Entity = Entity(
+    name = name,
+    type = EntityType.values().firstOrNull { it.name == type } ?: EntityType.OTHER,
+    description = description
+)
@@ -0,0 +1,80 @@
+package com.secondbrain.data.service.knowledge
+
+import android.content.Context
+import android.util.Log
+import androidx.work.Constraints
+import androidx.work.Data
+import androidx.work.ExistingWorkPolicy
+import androidx.work.NetworkType
+import androidx.work.OneTimeWorkRequestBuilder
+import androidx.work.WorkManager
+import com.secondbrain.data.service.knowledge.worker.EntityIndexBackfillWorker
+import com.secondbrain.data.service.knowledge.worker.EntityIndexWorker
+import dagger.hilt.android.qualifiers.ApplicationContext
+import javax.inject.Inject
+import javax.inject.Singleton
+
+/**
+ * Schedules background entity indexing for saved cards
+ */
+@Singleton
+class EntityIndexScheduler @Inject constructor(
+    @ApplicationContext private val context: Context
+) {
+    companion object {
+        private const val TAG = "EntityIndexScheduler"
+        private const val WORK_INDEX_PREFIX = "entity_index_"
+        private const val WORK_BACKFILL = "entity_index_backfill"
+    }
+
+    private val workManager by lazy { WorkManager.getInstance(context) }
+
+    /**
+     * (Re)index a card's entities; a newer request for the same card replaces a pending one
+     */
+    fun scheduleIndexing(cardId: String) {
+        enqueue(cardId, ExistingWorkPolicy.REPLACE)
+    }
+
+    /**
+     * Index cards that have never been indexed, e.g. cards saved before the entity index existed,
+     * so they can be found as related cards. A backfill that is already queued or running is kept.
+     */
+    fun scheduleBackfill() {
+        try {
+            val workRequest = OneTimeWorkRequestBuilder<EntityIndexBackfillWorker>()
+                .setConstraints(
+                    Constraints.Builder()
+                        .setRequiredNetworkType(NetworkType.CONNECTED)
+                        .build()
+                )
+                .build()
+
+            workManager.enqueueUniqueWork(WORK_BACKFILL, ExistingWorkPolicy.KEEP, workRequest)
+        } catch (e: Exception) {
+            Log.e(TAG, "Error scheduling entity index backfill", e)
+        }
+    }
+
+    private fun enqueue(cardId: String, policy: ExistingWorkPolicy) {
+        try {
+            val workRequest = OneTimeWorkRequestBuilder<EntityIndexWorker>()
+                .setInputData(
+                    Data.Builder()
+                        .putString(EntityIndexWorker.KEY_CARD_ID, cardId)
+                        .build()
+                )
+                .setConstraints(
+                    Constraints.Builder()
+                        .setRequiredNetworkType(NetworkType.CONNECTED)
+                        .build()
+                )
+                .build()
+
+            workManager.enqueueUniqueWork("$WORK_INDEX_PREFIX$cardId", policy, workRequest)
+        } catch (e: Exception) {
+            // The index is also filled lazily, so a scheduling failure only delays it
+            Log.e(TAG, "Error scheduling entity indexing for card: $cardId", e)
+        }
+    }
+}
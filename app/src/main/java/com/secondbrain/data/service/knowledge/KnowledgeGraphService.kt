@@ -2,13 +2,16 @@ package com.secondbrain.data.service.knowledge
 
 import android.util.Log
 import com.secondbrain.data.model.Card
+import com.secondbrain.data.model.IndexedEntity
 import com.secondbrain.data.repository.CardRepository
 import com.secondbrain.data.service.ai.AiServiceManager
+import com.secondbrain.data.service.ai.SingleFlight
 import com.secondbrain.data.service.ai.SummarizationOptions
 import com.secondbrain.data.service.ai.SummaryType
 import com.secondbrain.data.service.ai.content.Entity
-import com.secondbrain.data.service.ai.content.EntityExtractor
+import kotlinx.coroutines.CoroutineScope
 import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.SupervisorJob
 import kotlinx.coroutines.flow.first
 import kotlinx.coroutines.withContext
 import org.json.JSONArray
@@ -22,17 +25,25 @@ import javax.inject.Singleton
 @Singleton
 class KnowledgeGraphService @Inject constructor(
     private val cardRepository: CardRepository,
-    private val entityExtractor: EntityExtractor,
+    private val cardEntityIndexer: CardEntityIndexer,
     private val aiServiceManager: AiServiceManager
 ) {
     companion object {
         private const val TAG = "KnowledgeGraphService"
+        private const val MAX_RELATED_CARDS = 10
     }
 
+    // Repeated requests for a card while its graph is being built share the first build
+    private val inFlightGraphs = SingleFlight<Result<KnowledgeGraph>>(CoroutineScope(SupervisorJob() + Dispatchers.IO))
+
     /**
      * Build the knowledge graph for a card
      */
-    suspend fun buildKnowledgeGraph(cardId: String): Result<KnowledgeGraph> = withContext(Dispatchers.IO) {
+    suspend fun buildKnowledgeGraph(cardId: String): Result<KnowledgeGraph> {
+        return inFlightGraphs.run(cardId) { buildKnowledgeGraphInternal(cardId) }
+    }
+
+    private suspend fun buildKnowledgeGraphInternal(cardId: String): Result<KnowledgeGraph> = withContext(Dispatchers.IO) {
         try {
             Log.d(TAG, "Building knowledge graph for card: $cardId")
 
@@ -40,24 +51,24 @@ class KnowledgeGraphService @Inject constructor(
             val card = cardRepository.getCardById(cardId).first()
                 ?: return@withContext Result.failure(Exception("Card not found"))
 
-            // Extract entities from the card content
-            val entitiesResult = entityExtractor.extractEntities(card.content)
+            // Load the card's entities from the index
+            val entitiesResult = cardEntityIndexer.getEntities(card)
             if (entitiesResult.isFailure) {
                 return@withContext Result.failure(entitiesResult.exceptionOrNull() ?: Exception("Failed to extract entities"))
             }
 
-            val entities = entitiesResult.getOrNull() ?: emptyList()
+            val indexedEntities = entitiesResult.getOrNull() ?: emptyList()
 
             // Find related cards
-            val relatedCards = findRelatedCards(card, entities)
+            val relatedCards = findRelatedCards(card)
 
             // Create connections between entities and cards
-            val connections = createConnections(card, entities, relatedCards)
+            val connections = createConnections(card, indexedEntities, relatedCards)
 
             // Create knowledge graph
             val knowledgeGraph = KnowledgeGraph(
                 centralCard = card,
-                entities = entities,
+                entities = indexedEntities.map { it.toEntity() },
                 relatedCards = relatedCards,
                 connections = connections
             )
@@ -70,45 +81,27 @@ class KnowledgeGraphService @Inject constructor(
     }
 
     /**
-     * Find cards related to the given card and entities
+     * Find cards related to the given card through shared entities or tags
      */
-    private suspend fun findRelatedCards(card: Card, entities: List<Entity>): List<Card> {
+    private suspend fun findRelatedCards(card: Card): List<Card> {
         val relatedCards = mutableListOf<Card>()
 
-        // Get all cards
-        val allCards = cardRepository.getCards().first()
-
-        // Filter out the current card
-        val otherCards = allCards.filter { it.id != card.id }
-
         // Find cards with matching entities
-        for (entity in entities) {
-            val matchingCards = otherCards.filter { otherCard ->
-                otherCard.content.contains(entity.name, ignoreCase = true) ||
-                        otherCard.title.contains(entity.name, ignoreCase = true) ||
-                        otherCard.tags.any { it.contains(entity.name, ignoreCase = true) }
-            }
-
-            relatedCards.addAll(matchingCards)
-        }
+        relatedCards.addAll(cardEntityIndexer.getCardsSharingEntities(card.id, MAX_RELATED_CARDS))
 
         // Find cards with matching tags
-        val matchingTagCards = otherCards.filter { otherCard ->
-            otherCard.tags.any { tag -> card.tags.contains(tag) }
-        }
-
-        relatedCards.addAll(matchingTagCards)
+        relatedCards.addAll(cardRepository.getCardsSharingTags(card.id))
 
         // Remove duplicates and limit to 10 cards
-        return relatedCards.distinctBy { it.id }.take(10)
+        return relatedCards.distinctBy { it.id }.take(MAX_RELATED_CARDS)
     }
 
     /**
      * Create connections between entities and cards
      */
-    private fun createConnections(
+    private suspend fun createConnections(
         centralCard: Card,
-        entities: List<Entity>,
+        entities: List<IndexedEntity>,
         relatedCards: List<Card>
     ): List<Connection> {
         val connections = mutableListOf<Connection>()
@@ -121,31 +114,25 @@ class KnowledgeGraphService @Inject constructor(
                     sourceType = NodeType.CARD,
                     targetId = entity.name,
                     targetType = NodeType.ENTITY,
-                    strength = calculateConnectionStrength(centralCard, entity),
+                    strength = entity.weight,
                     type = ConnectionType.CONTAINS
                 )
             )
         }
 
         // Create connections between entities and related cards
-        for (entity in entities) {
-            for (relatedCard in relatedCards) {
-                if (relatedCard.content.contains(entity.name, ignoreCase = true) ||
-                    relatedCard.title.contains(entity.name, ignoreCase = true) ||
-                    relatedCard.tags.any { it.contains(entity.name, ignoreCase = true) }
-                ) {
-                    connections.add(
-                        Connection(
-                            sourceId = entity.name,
-                            sourceType = NodeType.ENTITY,
-                            targetId = relatedCard.id,
-                            targetType = NodeType.CARD,
-                            strength = calculateConnectionStrength(relatedCard, entity),
-                            type = ConnectionType.APPEARS_IN
-                        )
-                    )
-                }
-            }
+        val sharedEntities = cardEntityIndexer.getSharedEntities(centralCard.id, relatedCards.map { it.id })
+        for (shared in sharedEntities) {
+            connections.add(
+                Connection(
+                    sourceId = shared.name,
+                    sourceType = NodeType.ENTITY,
+                    targetId = shared.cardId,
+                    targetType = NodeType.CARD,
+                    strength = shared.weight,
+                    type = ConnectionType.APPEARS_IN
+                )
+            )
         }
 
         // Create connections between central card and related cards
@@ -168,26 +155,6 @@ class KnowledgeGraphService @Inject constructor(
         return connections
     }
 
-    /**
-     * Calculate connection strength between a card and an entity
-     */
-    private fun calculateConnectionStrength(card: Card, entity: Entity): Float {
-        // Count occurrences of entity in card content
-        val contentOccurrences = card.content.split(entity.name, ignoreCase = true).size - 1
-
-        // Check if entity appears in title
-        val titleOccurrence = if (card.title.contains(entity.name, ignoreCase = true)) 3 else 0
-
-        // Check if entity appears in tags
-        val tagOccurrence = if (card.tags.any { it.contains(entity.name, ignoreCase = true) }) 2 else 0
-
-        // Calculate total score
-        val totalScore = contentOccurrences + titleOccurrence + tagOccurrence
-
-        // Normalize to 0-1 range
-        return minOf(totalScore / 10f, 1f)
-    }
-
     /**
      * Find connections between two cards
      */
@@ -202,45 +169,42 @@ class KnowledgeGraphService @Inject constructor(
             val card2 = cardRepository.getCardById(cardId2).first()
                 ?: return@withContext Result.failure(Exception("Card 2 not found"))
 
-            // Extract entities from both cards
-            val entities1Result = entityExtractor.extractEntities(card1.content)
-            val entities2Result = entityExtractor.extractEntities(card2.content)
+            // Load indexed entities for both cards
+            val entities1Result = cardEntityIndexer.getEntities(card1)
+            val entities2Result = cardEntityIndexer.getEntities(card2)
 
             if (entities1Result.isFailure || entities2Result.isFailure) {
                 return@withContext Result.failure(Exception("Failed to extract entities"))
             }
 
             val entities1 = entities1Result.getOrNull() ?: emptyList()
-            val entities2 = entities2Result.getOrNull() ?: emptyList()
-
-            // Find common entities
-            val commonEntities = entities1.filter { entity1 ->
-                entities2.any { entity2 -> entity1.name.equals(entity2.name, ignoreCase = true) }
-            }
+            val entities2 = entities2Result.getOrNull()?.associateBy { it.name.lowercase() } ?: emptyMap()
 
             // Create connections
             val connections = mutableListOf<Connection>()
 
             // Common entities connections
-            for (entity in commonEntities) {
+            for (entity1 in entities1) {
+                val entity2 = entities2[entity1.name.lowercase()] ?: continue
+
                 connections.add(
                     Connection(
                         sourceId = card1.id,
                         sourceType = NodeType.CARD,
-                        targetId = entity.name,
+                        targetId = entity1.name,
                         targetType = NodeType.ENTITY,
-                        strength = calculateConnectionStrength(card1, entity),
+                        strength = entity1.weight,
                         type = ConnectionType.CONTAINS
                     )
                 )
 
                 connections.add(
                     Connection(
-                        sourceId = entity.name,
+                        sourceId = entity1.name,
                         sourceType = NodeType.ENTITY,
                         targetId = card2.id,
                         targetType = NodeType.CARD,
-                        strength = calculateConnectionStrength(card2, entity),
+                        strength = entity2.weight,
                         type = ConnectionType.APPEARS_IN
                     )
                 )
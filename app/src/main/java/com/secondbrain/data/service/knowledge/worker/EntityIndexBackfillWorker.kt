@@ -0,0 +1,94 @@
+package com.secondbrain.data.service.knowledge.worker
+
+import android.content.Context
+import android.util.Log
+import androidx.work.CoroutineWorker
+import androidx.work.WorkerParameters
+import com.secondbrain.data.db.EntityDao
+import com.secondbrain.data.service.knowledge.CardEntityIndexer
+import dagger.assisted.Assisted
+import dagger.assisted.AssistedInject
+import kotlinx.coroutines.CancellationException
+
+/**
+ * Worker that indexes the entities of every card that has never been indexed, e.g. cards saved
+ * before the entity index existed.
+ *
+ * Cards are indexed one at a time in id order, so extraction requests go through the provider's
+ * rate limiter without a burst. The id of the last handled card is saved as a checkpoint, so a
+ * stopped or retried run resumes after it instead of starting over.
+ */
+class EntityIndexBackfillWorker @AssistedInject constructor(
+    @Assisted private val context: Context,
+    @Assisted private val params: WorkerParameters,
+    private val entityDao: EntityDao,
+    private val cardEntityIndexer: CardEntityIndexer
+) : CoroutineWorker(context, params) {
+
+    companion object {
+        private const val TAG = "EntityIndexBackfill"
+        private const val MAX_ATTEMPTS = 3
+        private const val PAGE_SIZE = 20
+
+        // Several failures in a row mean the provider is unavailable, not that the cards are bad
+        private const val MAX_CONSECUTIVE_FAILURES = 3
+
+        private const val CHECKPOINT_PREFS = "entity_index_backfill"
+        private const val KEY_LAST_CARD_ID = "last_card_id"
+    }
+
+    private val checkpoint by lazy {
+        context.getSharedPreferences(CHECKPOINT_PREFS, Context.MODE_PRIVATE)
+    }
+
+    override suspend fun doWork(): Result {
+        return try {
+            if (backfill()) {
+                Result.success()
+            } else if (runAttemptCount + 1 < MAX_ATTEMPTS) {
+                Result.retry()
+            } else {
+                Log.e(TAG, "Giving up entity index backfill until the next start")
+                Result.failure()
+            }
+        } catch (e: CancellationException) {
+            throw e
+        } catch (e: Exception) {
+            Log.e(TAG, "Entity index backfill failed", e)
+            if (runAttemptCount + 1 < MAX_ATTEMPTS) Result.retry() else Result.failure()
+        }
+    }
+
+    /**
+     * @return false if the run stopped early because indexing kept failing
+     */
+    private suspend fun backfill(): Boolean {
+        var lastCardId = checkpoint.getString(KEY_LAST_CARD_ID, "") ?: ""
+        var indexed = 0
+        var consecutiveFailures = 0
+
+        while (true) {
+            val page = entityDao.getUnindexedCards(lastCardId, PAGE_SIZE)
+            if (page.isEmpty()) break
+
+            for (card in page) {
+                val result = cardEntityIndexer.indexCard(card)
+                if (result.isSuccess) {
+                    indexed++
+                    consecutiveFailures = 0
+                } else if (++consecutiveFailures >= MAX_CONSECUTIVE_FAILURES) {
+                    // Resume at this card next time
+                    Log.w(TAG, "Stopping after $consecutiveFailures failures", result.exceptionOrNull())
+                    return false
+                }
+                lastCardId = card.id
+                checkpoint.edit().putString(KEY_LAST_CARD_ID, lastCardId).apply()
+            }
+        }
+
+        // Done: the next run starts from the beginning and retries the cards that failed this time
+        checkpoint.edit().remove(KEY_LAST_CARD_ID).apply()
+        Log.d(TAG, "Indexed $indexed cards")
+        return true
+    }
+}
@@ -0,0 +1,40 @@
+package com.secondbrain.data.service.knowledge.worker
+
+import android.content.Context
+import android.util.Log
+import androidx.work.CoroutineWorker
+import androidx.work.WorkerParameters
+import com.secondbrain.data.service.knowledge.CardEntityIndexer
+import dagger.assisted.Assisted
+import dagger.assisted.AssistedInject
+
+/**
+ * Worker that extracts a card's entities and stores them in the entity index
+ */
+class EntityIndexWorker @AssistedInject constructor(
+    @Assisted private val context: Context,
+    @Assisted private val params: WorkerParameters,
+    private val cardEntityIndexer: CardEntityIndexer
+) : CoroutineWorker(context, params) {
+
+    companion object {
+        private const val TAG = "EntityIndexWorker"
+        private const val MAX_ATTEMPTS = 3
+
+        const val KEY_CARD_ID = "card_id"
+    }
+
+    override suspend fun doWork(): Result {
+        val cardId = inputData.getString(KEY_CARD_ID) ?: return Result.failure()
+
+        val result = cardEntityIndexer.indexCard(cardId)
+        return when {
+            result.isSuccess -> Result.success()
+            runAttemptCount + 1 < MAX_ATTEMPTS -> Result.retry()
+            else -> {
+                Log.e(TAG, "Giving up indexing card: $cardId", result.exceptionOrNull())
+                Result.failure()
+            }
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.secondbrain.data.service.worker
+
+import kotlinx.coroutines.sync.Semaphore
+import kotlinx.coroutines.sync.withPermit
+
+/**
+ * Limits how many tasks run at once overall and against any one host
+ */
+class HostConcurrencyLimiter(
+    maxConcurrent: Int,
+    private val maxPerHost: Int
+) {
+    private val overall = Semaphore(maxConcurrent)
+    private val perHost = mutableMapOf<String, Semaphore>()
+
+    /**
+     * Run [block] once both a host slot and an overall slot are free. Tasks without a host only
+     * count against the overall limit.
+     */
+    suspend fun <T> withPermit(host: String?, block: suspend () -> T): T {
+        val hostSemaphore = host?.let { key ->
+            synchronized(perHost) { perHost.getOrPut(key.lowercase()) { Semaphore(maxPerHost) } }
+        }
+        // Take the host slot first so tasks queued behind a busy host don't hold overall slots
+        return if (hostSemaphore == null) {
+            overall.withPermit { block() }
+        } else {
+            hostSemaphore.withPermit { overall.withPermit { block() } }
+        }
+    }
+}
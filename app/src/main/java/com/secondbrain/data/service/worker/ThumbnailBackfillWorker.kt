@@ -0,0 +1,134 @@
+package com.secondbrain.data.service.worker
+
+import android.content.Context
+import android.util.Log
+import androidx.work.CoroutineWorker
+import androidx.work.WorkerParameters
+import androidx.work.workDataOf
+import com.secondbrain.data.db.CardDao
+import com.secondbrain.data.model.Card
+import com.secondbrain.data.service.ThumbnailService
+import com.secondbrain.util.ThumbnailStore
+import dagger.assisted.Assisted
+import dagger.assisted.AssistedInject
+import kotlinx.coroutines.CancellationException
+import kotlinx.coroutines.async
+import kotlinx.coroutines.awaitAll
+import kotlinx.coroutines.coroutineScope
+import java.net.URI
+
+/**
+ * Worker that generates thumbnails for every card that has none, or whose local thumbnail file
+ * has been evicted from [ThumbnailStore].
+ *
+ * Cards are processed in id order, a page at a time. Each page's thumbnails are written in one
+ * transaction and the id of its last card is saved as a checkpoint, so a stopped or retried run
+ * resumes after the last finished page instead of starting over.
+ */
+class ThumbnailBackfillWorker @AssistedInject constructor(
+    @Assisted private val context: Context,
+    @Assisted private val params: WorkerParameters,
+    private val cardDao: CardDao,
+    private val thumbnailService: ThumbnailService
+) : CoroutineWorker(context, params) {
+
+    companion object {
+        private const val TAG = "ThumbnailBackfillWorker"
+        private const val MAX_ATTEMPTS = 3
+
+        private const val PAGE_SIZE = 40
+        private const val MAX_CONCURRENT = 4
+
+        // Most cards come from a handful of sites, which shouldn't see a burst of requests from us
+        private const val MAX_PER_HOST = 2
+
+        private const val CHECKPOINT_PREFS = "thumbnail_backfill"
+        private const val KEY_LAST_CARD_ID = "last_card_id"
+
+        const val KEY_PROCESSED = "processed"
+        const val KEY_TOTAL = "total"
+
+        /**
+         * Host a card's thumbnail is fetched from, or null for sources that aren't web URLs
+         */
+        fun hostOf(source: String): String? {
+            return try {
+                URI(source.trim()).host?.lowercase()
+            } catch (e: Exception) {
+                null
+            }
+        }
+    }
+
+    private val checkpoint by lazy {
+        context.getSharedPreferences(CHECKPOINT_PREFS, Context.MODE_PRIVATE)
+    }
+
+    override suspend fun doWork(): Result {
+        return try {
+            backfill()
+            Result.success()
+        } catch (e: CancellationException) {
+            throw e
+        } catch (e: Exception) {
+            if (runAttemptCount + 1 < MAX_ATTEMPTS) {
+                Log.w(TAG, "Thumbnail backfill failed, retrying from checkpoint", e)
+                Result.retry()
+            } else {
+                Log.e(TAG, "Giving up thumbnail backfill", e)
+                Result.failure()
+            }
+        }
+    }
+
+    private suspend fun backfill() {
+        var lastCardId = checkpoint.getString(KEY_LAST_CARD_ID, "") ?: ""
+        val total = cardDao.countThumbnailBackfillCandidates(lastCardId)
+        Log.d(TAG, "Checking thumbnails of $total cards after '$lastCardId'")
+
+        val limiter = HostConcurrencyLimiter(MAX_CONCURRENT, MAX_PER_HOST)
+        var processed = 0
+        setProgress(workDataOf(KEY_PROCESSED to processed, KEY_TOTAL to total))
+
+        while (true) {
+            val page = cardDao.getThumbnailBackfillCandidates(lastCardId, PAGE_SIZE)
+            if (page.isEmpty()) break
+
+            val updates = coroutineScope {
+                page.filter { needsThumbnail(it) }.map { card ->
+                    async {
+                        limiter.withPermit(hostOf(card.source)) { generateThumbnail(card)?.let { card to it } }
+                    }
+                }.awaitAll()
+            }.filterNotNull()
+
+            cardDao.replaceThumbnails(updates)
+            lastCardId = page.last().id
+            checkpoint.edit().putString(KEY_LAST_CARD_ID, lastCardId).apply()
+
+            processed += page.size
+            setProgress(workDataOf(KEY_PROCESSED to processed, KEY_TOTAL to total))
+            Log.d(TAG, "Stored ${updates.size} thumbnails for ${page.size} cards ($processed/$total)")
+        }
+
+        // Done: the next run starts from the beginning and retries the cards that failed this time
+        checkpoint.edit().remove(KEY_LAST_CARD_ID).apply()
+    }
+
+    private fun needsThumbnail(card: Card): Boolean {
+        val thumbnailUrl = card.thumbnailUrl
+        return thumbnailUrl.isNullOrEmpty() || ThumbnailStore.isMissingLocalFile(thumbnailUrl)
+    }
+
+    private suspend fun generateThumbnail(card: Card): String? {
+        return try {
+            thumbnailService.getThumbnailForUrl(url = card.source, type = card.type, title = card.title)
+                ?.takeIf { it.isNotEmpty() }
+        } catch (e: CancellationException) {
+            throw e
+        } catch (e: Exception) {
+            Log.e(TAG, "Error generating thumbnail for card: ${card.id}", e)
+            null
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.secondbrain.data.service.youtube
 
 import android.content.Context
 import android.util.Log
+import com.secondbrain.data.service.HttpFetcher
 import com.secondbrain.data.service.ai.AiProvider
 import com.secondbrain.data.service.ai.SummarizationOptions
 import com.secondbrain.data.service.ai.SummaryType
@@ -10,7 +11,6 @@ import com.secondbrain.util.UrlContent
 import dagger.hilt.android.qualifiers.ApplicationContext
 import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.withContext
-import org.jsoup.Jsoup
 import java.io.IOException
 import javax.inject.Inject
 import javax.inject.Singleton
@@ -25,7 +25,8 @@ class YouTubeContentProcessor @Inject constructor(
     private val youTubeTranscriptScraper: YouTubeTranscriptScraper,
     private val youtubeThumbnailService: YouTubeThumbnailService,
     private val youTubePromptGenerator: YouTubePromptGenerator,
-    private val aiProvider: AiProvider
+    private val aiProvider: AiProvider,
+    private val httpFetcher: HttpFetcher
 ) {
     companion object {
         private const val TAG = "YouTubeContentProcessor"
@@ -143,10 +144,7 @@ class YouTubeContentProcessor @Inject constructor(
     private suspend fun extractBasicContent(url: String, videoId: String): Result<UrlContent> = withContext(Dispatchers.IO) {
         try {
             // Get video info using Jsoup
-            val doc = Jsoup.connect(url)
-                .userAgent(USER_AGENT)
-                .timeout(TIMEOUT_MS)
-                .get()
+            val doc = httpFetcher.fetchDocument(url, USER_AGENT, TIMEOUT_MS)
 
             val title = doc.select("meta[property=og:title]").attr("content")
             val description = doc.select("meta[property=og:description]").attr("content")
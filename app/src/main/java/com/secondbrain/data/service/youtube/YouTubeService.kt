@@ -2,10 +2,10 @@ package com.secondbrain.data.service.youtube
 
 import android.content.Context
 import android.util.Log
+import com.secondbrain.data.service.HttpFetcher
 import dagger.hilt.android.qualifiers.ApplicationContext
 import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.withContext
-import org.jsoup.Jsoup
 import java.io.IOException
 import javax.inject.Inject
 import javax.inject.Singleton
@@ -15,7 +15,8 @@ import javax.inject.Singleton
  */
 @Singleton
 class YouTubeService @Inject constructor(
-    @ApplicationContext private val context: Context
+    @ApplicationContext private val context: Context,
+    private val httpFetcher: HttpFetcher
 ) {
     companion object {
         private const val TAG = "YouTubeService"
@@ -50,10 +51,7 @@ class YouTubeService @Inject constructor(
 
             // Fetch the video page
             val url = "https://www.youtube.com/watch?v=$videoId"
-            val doc = Jsoup.connect(url)
-                .userAgent(USER_AGENT)
-                .timeout(TIMEOUT_MS)
-                .get()
+            val doc = httpFetcher.fetchDocument(url, USER_AGENT, TIMEOUT_MS)
 
             // Extract basic metadata
             val title = doc.select("meta[property=og:title]").attr("content")
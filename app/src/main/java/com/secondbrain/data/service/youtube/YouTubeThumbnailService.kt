@@ -5,12 +5,14 @@ import android.graphics.Bitmap
 import android.graphics.BitmapFactory
 import android.util.Log
 import android.util.LruCache
+import com.secondbrain.data.service.HttpFetcher
 import dagger.hilt.android.qualifiers.ApplicationContext
 import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.async
+import kotlinx.coroutines.awaitAll
+import kotlinx.coroutines.coroutineScope
 import kotlinx.coroutines.withContext
 import java.io.IOException
-import java.net.HttpURLConnection
-import java.net.URL
 import javax.inject.Inject
 import javax.inject.Singleton
 
@@ -19,7 +21,8 @@ import javax.inject.Singleton
  */
 @Singleton
 class YouTubeThumbnailService @Inject constructor(
-    @ApplicationContext private val context: Context
+    @ApplicationContext private val context: Context,
+    private val httpFetcher: HttpFetcher
 ) {
     companion object {
         private const val TAG = "YouTubeThumbnailService"
@@ -55,15 +58,24 @@ class YouTubeThumbnailService @Inject constructor(
         
         Log.d(TAG, "Finding best thumbnail for video ID: $videoId")
         
-        // Try each quality option in order
-        for (quality in THUMBNAIL_QUALITIES) {
-            val thumbnailUrl = "https://img.youtube.com/vi/$videoId/$quality"
-            if (isUrlAccessible(thumbnailUrl)) {
-                // Cache the result
-                thumbnailUrlCache.put(videoId, thumbnailUrl)
-                Log.d(TAG, "Found best thumbnail at quality: $quality")
-                return@withContext thumbnailUrl
+        // Probe every quality at once and take the best one that exists
+        val bestUrl = coroutineScope {
+            val probes = THUMBNAIL_QUALITIES.map { quality ->
+                val thumbnailUrl = "https://img.youtube.com/vi/$videoId/$quality"
+                thumbnailUrl to async { isUrlAccessible(thumbnailUrl) }
             }
+
+            // Waits only for the probes of better qualities; the remaining ones are cancelled
+            val best = probes.firstOrNull { (_, probe) -> probe.await() }?.first
+            probes.forEach { (_, probe) -> probe.cancel() }
+            best
+        }
+
+        if (bestUrl != null) {
+            // Cache the result
+            thumbnailUrlCache.put(videoId, bestUrl)
+            Log.d(TAG, "Found best thumbnail: $bestUrl")
+            return@withContext bestUrl
         }
         
         // Fallback to the lowest quality if none are accessible
@@ -76,21 +88,8 @@ class YouTubeThumbnailService @Inject constructor(
     /**
      * Check if a URL is accessible
      */
-    private fun isUrlAccessible(urlString: String): Boolean {
-        return try {
-            val url = URL(urlString)
-            val connection = url.openConnection() as HttpURLConnection
-            connection.connectTimeout = 5000
-            connection.readTimeout = 5000
-            connection.requestMethod = "HEAD"
-            val responseCode = connection.responseCode
-            connection.disconnect()
-            
-            responseCode == HttpURLConnection.HTTP_OK
-        } catch (e: Exception) {
-            Log.e(TAG, "Error checking URL accessibility: $urlString", e)
-            false
-        }
+    private suspend fun isUrlAccessible(urlString: String): Boolean {
+        return httpFetcher.isAccessible(urlString, timeoutMs = 5000)
     }
     
     /**
@@ -99,10 +98,15 @@ class YouTubeThumbnailService @Inject constructor(
      */
     suspend fun getAllThumbnailUrls(videoId: String): Map<String, String> = withContext(Dispatchers.IO) {
         val thumbnails = mutableMapOf<String, String>()
-        
-        for (quality in THUMBNAIL_QUALITIES) {
+
+        // Probe all qualities in parallel
+        val accessible = THUMBNAIL_QUALITIES.map { quality ->
+            async { isUrlAccessible("https://img.youtube.com/vi/$videoId/$quality") }
+        }.awaitAll()
+
+        THUMBNAIL_QUALITIES.forEachIndexed { index, quality ->
             val thumbnailUrl = "https://img.youtube.com/vi/$videoId/$quality"
-            if (isUrlAccessible(thumbnailUrl)) {
+            if (accessible[index]) {
                 val qualityName = when(quality) {
                     "maxresdefault.jpg" -> "HD (1080p)"
                     "sddefault.jpg" -> "SD (640p)"
@@ -124,15 +128,9 @@ class YouTubeThumbnailService @Inject constructor(
     suspend fun downloadThumbnail(videoId: String): Result<Bitmap> = withContext(Dispatchers.IO) {
         try {
             val thumbnailUrl = getBestThumbnailUrl(videoId)
-            val url = URL(thumbnailUrl)
-            val connection = url.openConnection() as HttpURLConnection
-            connection.connectTimeout = 10000
-            connection.readTimeout = 10000
-            
-            val inputStream = connection.inputStream
-            val bitmap = BitmapFactory.decodeStream(inputStream)
-            inputStream.close()
-            connection.disconnect()
+            val bitmap = httpFetcher.download(thumbnailUrl, timeoutMs = 20000, contentType = "image", useCache = false) { inputStream ->
+                BitmapFactory.decodeStream(inputStream)
+            }
             
             if (bitmap != null) {
                 Result.success(bitmap)
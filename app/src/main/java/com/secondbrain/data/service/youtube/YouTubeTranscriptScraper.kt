@@ -1,11 +1,11 @@
 package com.secondbrain.data.service.youtube
 
 import android.util.Log
+import com.secondbrain.data.service.HttpFetcher
 import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.withContext
 import org.json.JSONArray
 import org.json.JSONObject
-import org.jsoup.Jsoup
 import java.io.IOException
 import java.util.Locale
 import java.util.regex.Pattern
@@ -16,7 +16,9 @@ import javax.inject.Singleton
  * Service for scraping YouTube video transcripts with enhanced reliability and language support
  */
 @Singleton
-class YouTubeTranscriptScraper @Inject constructor() {
+class YouTubeTranscriptScraper @Inject constructor(
+    private val httpFetcher: HttpFetcher
+) {
     companion object {
         private const val TAG = "YouTubeTranscriptScraper"
         private const val USER_AGENT = "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/91.0.4472.124 Safari/537.36"
@@ -111,10 +113,7 @@ class YouTubeTranscriptScraper @Inject constructor() {
         try {
             // Fetch the video page
             val url = "https://www.youtube.com/watch?v=$videoId"
-            val doc = Jsoup.connect(url)
-                .userAgent(USER_AGENT)
-                .timeout(TIMEOUT_MS)
-                .get()
+            val doc = httpFetcher.fetchDocument(url, USER_AGENT, TIMEOUT_MS)
 
             // Extract the page source
             val html = doc.html()
@@ -138,12 +137,7 @@ class YouTubeTranscriptScraper @Inject constructor() {
             }
 
             // Fetch the transcript XML
-            val transcriptXml = Jsoup.connect(transcriptUrl)
-                .userAgent(USER_AGENT)
-                .timeout(TIMEOUT_MS)
-                .ignoreContentType(true)
-                .execute()
-                .body()
+            val transcriptXml = httpFetcher.fetchString(transcriptUrl, USER_AGENT, TIMEOUT_MS)
 
             // Parse the transcript XML
             val segments = parseTranscriptXml(transcriptXml)
@@ -207,10 +201,7 @@ class YouTubeTranscriptScraper @Inject constructor() {
 
             // Fetch the video page
             val url = "https://www.youtube.com/watch?v=$videoId"
-            val doc = Jsoup.connect(url)
-                .userAgent(USER_AGENT)
-                .timeout(TIMEOUT_MS)
-                .get()
+            val doc = httpFetcher.fetchDocument(url, USER_AGENT, TIMEOUT_MS)
 
             // Extract the page source
             val html = doc.html()
@@ -4,6 +4,7 @@ import android.content.Context
 import androidx.room.Room
 import com.secondbrain.data.db.CardDao
 import com.secondbrain.data.db.NoteDatabase
+import com.secondbrain.data.model.CardTag
 import dagger.Module
 import dagger.Provides
 import dagger.hilt.InstallIn
@@ -59,11 +60,233 @@ object AppModule {
                     database.execSQL("ALTER TABLE `cards` ADD COLUMN `hasTranscript` INTEGER DEFAULT 0")
                     database.execSQL("ALTER TABLE `cards` ADD COLUMN `metadata` TEXT")
                 }
+            },
+            // Migration from version 3 to 4 (full-text search indexes for cards and notes)
+            object : androidx.room.migration.Migration(3, 4) {
+                override fun migrate(database: androidx.sqlite.db.SupportSQLiteDatabase) {
+                    createFtsTable(
+                        database,
+                        ftsTable = "cards_fts",
+                        contentTable = "cards",
+                        columns = listOf("title", "content", "summary", "source", "tags", "metadata"),
+                        nullableColumns = setOf("metadata")
+                    )
+                    createFtsTable(
+                        database,
+                        ftsTable = "notes_fts",
+                        contentTable = "notes",
+                        columns = listOf("title", "content")
+                    )
+                }
+            },
+            // Migration from version 4 to 5 (card_tags junction table)
+            object : androidx.room.migration.Migration(4, 5) {
+                override fun migrate(database: androidx.sqlite.db.SupportSQLiteDatabase) {
+                    database.execSQL(
+                        "CREATE TABLE IF NOT EXISTS `card_tags` " +
+                        "(`cardId` TEXT NOT NULL, " +
+                        "`tag` TEXT NOT NULL COLLATE NOCASE, " +
+                        "PRIMARY KEY(`cardId`, `tag`), " +
+                        "FOREIGN KEY(`cardId`) REFERENCES `cards`(`id`) ON UPDATE NO ACTION ON DELETE CASCADE )"
+                    )
+                    database.execSQL("CREATE INDEX IF NOT EXISTS `index_card_tags_tag` ON `card_tags` (`tag`)")
+
+                    // Split the existing comma-joined tags into junction rows
+                    database.query("SELECT `id`, `tags` FROM `cards`").use { cursor ->
+                        while (cursor.moveToNext()) {
+                            val cardId = cursor.getString(0)
+                            val tags = CardTag.normalize(cursor.getString(1).orEmpty().split(","))
+                            for (tag in tags) {
+                                database.execSQL(
+                                    "INSERT OR IGNORE INTO `card_tags` (`cardId`, `tag`) VALUES (?, ?)",
+                                    arrayOf<Any>(cardId, tag)
+                                )
+                            }
+                        }
+                    }
+                }
+            },
+            // Migration from version 5 to 6 (NOCASE title and indexes for SQL-side sorting)
+            object : androidx.room.migration.Migration(5, 6) {
+                override fun migrate(database: androidx.sqlite.db.SupportSQLiteDatabase) {
+                    // SQLite can't change a column's collation in place, so rebuild the table.
+                    // Foreign keys are not enforced yet while migrations run, so card_tags rows survive the drop.
+                    // This also repairs hasTranscript, which the 2 -> 3 migration added as nullable.
+                    database.execSQL(
+                        "CREATE TABLE IF NOT EXISTS `cards_new` " +
+                        "(`id` TEXT NOT NULL, " +
+                        "`title` TEXT NOT NULL COLLATE NOCASE, " +
+                        "`content` TEXT NOT NULL, " +
+                        "`summary` TEXT NOT NULL, " +
+                        "`type` TEXT NOT NULL, " +
+                        "`source` TEXT NOT NULL, " +
+                        "`tags` TEXT NOT NULL, " +
+                        "`createdAt` INTEGER NOT NULL, " +
+                        "`updatedAt` INTEGER NOT NULL, " +
+                        "`language` TEXT NOT NULL, " +
+                        "`aiModel` TEXT NOT NULL, " +
+                        "`summaryType` TEXT NOT NULL, " +
+                        "`thumbnailUrl` TEXT, " +
+                        "`pageCount` INTEGER, " +
+                        "`videoId` TEXT, " +
+                        "`channelTitle` TEXT, " +
+                        "`videoDuration` TEXT, " +
+                        "`viewCount` TEXT, " +
+                        "`hasTranscript` INTEGER NOT NULL, " +
+                        "`metadata` TEXT, " +
+                        "PRIMARY KEY(`id`))"
+                    )
+                    // Copy rowid too so the cards_fts docids stay valid
+                    database.execSQL(
+                        "INSERT INTO `cards_new` (`rowid`, `id`, `title`, `content`, `summary`, `type`, `source`, " +
+                        "`tags`, `createdAt`, `updatedAt`, `language`, `aiModel`, `summaryType`, `thumbnailUrl`, " +
+                        "`pageCount`, `videoId`, `channelTitle`, `videoDuration`, `viewCount`, `hasTranscript`, `metadata`) " +
+                        "SELECT `rowid`, `id`, `title`, `content`, `summary`, `type`, `source`, " +
+                        "`tags`, `createdAt`, `updatedAt`, `language`, `aiModel`, `summaryType`, `thumbnailUrl`, " +
+                        "`pageCount`, `videoId`, `channelTitle`, `videoDuration`, `viewCount`, COALESCE(`hasTranscript`, 0), `metadata` " +
+                        "FROM `cards`"
+                    )
+                    database.execSQL("DROP TABLE `cards`")
+                    database.execSQL("ALTER TABLE `cards_new` RENAME TO `cards`")
+
+                    database.execSQL("CREATE INDEX IF NOT EXISTS `index_cards_createdAt` ON `cards` (`createdAt`)")
+                    database.execSQL("CREATE INDEX IF NOT EXISTS `index_cards_updatedAt` ON `cards` (`updatedAt`)")
+                    database.execSQL("CREATE INDEX IF NOT EXISTS `index_cards_title` ON `cards` (`title`)")
+                    database.execSQL("CREATE INDEX IF NOT EXISTS `index_cards_type` ON `cards` (`type`)")
+
+                    // Dropping the table dropped its FTS sync triggers; recreate them
+                    createFtsTable(
+                        database,
+                        ftsTable = "cards_fts",
+                        contentTable = "cards",
+                        columns = listOf("title", "content", "summary", "source", "tags", "metadata"),
+                        nullableColumns = setOf("metadata")
+                    )
+                }
+            },
+            // Migration from version 6 to 7 (persistent entity index)
+            object : androidx.room.migration.Migration(6, 7) {
+                override fun migrate(database: androidx.sqlite.db.SupportSQLiteDatabase) {
+                    database.execSQL(
+                        "CREATE TABLE IF NOT EXISTS `entities` " +
+                        "(`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, " +
+                        "`name` TEXT NOT NULL COLLATE NOCASE, " +
+                        "`type` TEXT NOT NULL, " +
+                        "`description` TEXT NOT NULL)"
+                    )
+                    database.execSQL("CREATE UNIQUE INDEX IF NOT EXISTS `index_entities_name` ON `entities` (`name`)")
+                    database.execSQL(
+                        "CREATE TABLE IF NOT EXISTS `card_entities` " +
+                        "(`cardId` TEXT NOT NULL, " +
+                        "`entityId` INTEGER NOT NULL, " +
+                        "`weight` REAL NOT NULL, " +
+                        "PRIMARY KEY(`cardId`, `entityId`), " +
+                        "FOREIGN KEY(`cardId`) REFERENCES `cards`(`id`) ON UPDATE NO ACTION ON DELETE CASCADE, " +
+                        "FOREIGN KEY(`entityId`) REFERENCES `entities`(`id`) ON UPDATE NO ACTION ON DELETE CASCADE)"
+                    )
+                    database.execSQL("CREATE INDEX IF NOT EXISTS `index_card_entities_entityId` ON `card_entities` (`entityId`)")
+                    // Existing cards are indexed by EntityIndexBackfillWorker once the app starts
+                }
+            },
+            // Migration from version 7 to 8 (entity extraction cache)
+            object : androidx.room.migration.Migration(7, 8) {
+                override fun migrate(database: androidx.sqlite.db.SupportSQLiteDatabase) {
+                    database.execSQL(
+                        "CREATE TABLE IF NOT EXISTS `entity_cache` " +
+                        "(`key` TEXT NOT NULL, " +
+                        "`entitiesJson` TEXT NOT NULL, " +
+                        "`lastAccessedAt` INTEGER NOT NULL, " +
+                        "PRIMARY KEY(`key`))"
+                    )
+                    database.execSQL("CREATE INDEX IF NOT EXISTS `index_entity_cache_lastAccessedAt` ON `entity_cache` (`lastAccessedAt`)")
+                }
+            },
+            // Migration from version 8 to 9 (AI response cache)
+            object : androidx.room.migration.Migration(8, 9) {
+                override fun migrate(database: androidx.sqlite.db.SupportSQLiteDatabase) {
+                    database.execSQL(
+                        "CREATE TABLE IF NOT EXISTS `ai_response_cache` " +
+                        "(`key` TEXT NOT NULL, " +
+                        "`response` TEXT NOT NULL, " +
+                        "`sizeBytes` INTEGER NOT NULL, " +
+                        "`createdAt` INTEGER NOT NULL, " +
+                        "`lastAccessedAt` INTEGER NOT NULL, " +
+                        "PRIMARY KEY(`key`))"
+                    )
+                    database.execSQL("CREATE INDEX IF NOT EXISTS `index_ai_response_cache_lastAccessedAt` ON `ai_response_cache` (`lastAccessedAt`)")
+                }
+            },
+            // Migration from version 9 to 10 (marker for cards whose entities have been indexed)
+            object : androidx.room.migration.Migration(9, 10) {
+                override fun migrate(database: androidx.sqlite.db.SupportSQLiteDatabase) {
+                    database.execSQL(
+                        "CREATE TABLE IF NOT EXISTS `indexed_cards` " +
+                        "(`cardId` TEXT NOT NULL, " +
+                        "`indexedAt` INTEGER NOT NULL, " +
+                        "PRIMARY KEY(`cardId`), " +
+                        "FOREIGN KEY(`cardId`) REFERENCES `cards`(`id`) ON UPDATE NO ACTION ON DELETE CASCADE)"
+                    )
+                    // Cards with entity rows were indexed; cards without any are indexed again once
+                    database.execSQL(
+                        "INSERT OR IGNORE INTO `indexed_cards` (`cardId`, `indexedAt`) " +
+                        "SELECT DISTINCT `cardId`, ${System.currentTimeMillis()} FROM `card_entities`"
+                    )
+                }
+            },
+            // Migration from version 10 to 11 (stored video flag for the home feed projection)
+            object : androidx.room.migration.Migration(10, 11) {
+                override fun migrate(database: androidx.sqlite.db.SupportSQLiteDatabase) {
+                    database.execSQL("ALTER TABLE `cards` ADD COLUMN `hasVideoMetadata` INTEGER NOT NULL DEFAULT 0")
+                    // Case-sensitive like Card.describesVideo, unlike LIKE
+                    database.execSQL("UPDATE `cards` SET `hasVideoMetadata` = 1 WHERE instr(`metadata`, 'video') > 0")
+                }
             }
         )
         .build()
     }
 
+    /**
+     * Create an external-content FTS4 table together with the sync triggers Room generates
+     * for @Fts4(contentEntity = ...), then build the index from the existing rows.
+     */
+    private fun createFtsTable(
+        database: androidx.sqlite.db.SupportSQLiteDatabase,
+        ftsTable: String,
+        contentTable: String,
+        columns: List<String>,
+        nullableColumns: Set<String> = emptySet()
+    ) {
+        val columnDefs = columns.joinToString(", ") { column ->
+            if (column in nullableColumns) "`$column` TEXT" else "`$column` TEXT NOT NULL"
+        }
+        val columnNames = columns.joinToString(", ") { "`$it`" }
+        val newValues = columns.joinToString(", ") { "NEW.`$it`" }
+
+        database.execSQL(
+            "CREATE VIRTUAL TABLE IF NOT EXISTS `$ftsTable` USING FTS4(" +
+            "$columnDefs, tokenize=unicode61, content=`$contentTable`)"
+        )
+        database.execSQL(
+            "CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_${ftsTable}_BEFORE_UPDATE " +
+            "BEFORE UPDATE ON `$contentTable` BEGIN DELETE FROM `$ftsTable` WHERE `docid`=OLD.`rowid`; END"
+        )
+        database.execSQL(
+            "CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_${ftsTable}_BEFORE_DELETE " +
+            "BEFORE DELETE ON `$contentTable` BEGIN DELETE FROM `$ftsTable` WHERE `docid`=OLD.`rowid`; END"
+        )
+        database.execSQL(
+            "CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_${ftsTable}_AFTER_UPDATE " +
+            "AFTER UPDATE ON `$contentTable` BEGIN INSERT INTO `$ftsTable`(`docid`, $columnNames) " +
+            "VALUES (NEW.`rowid`, $newValues); END"
+        )
+        database.execSQL(
+            "CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_${ftsTable}_AFTER_INSERT " +
+            "AFTER INSERT ON `$contentTable` BEGIN INSERT INTO `$ftsTable`(`docid`, $columnNames) " +
+            "VALUES (NEW.`rowid`, $newValues); END"
+        )
+        database.execSQL("INSERT INTO `$ftsTable`(`$ftsTable`) VALUES('rebuild')")
+    }
+
     @Provides
     @Singleton
     fun provideNoteDao(database: NoteDatabase) = database.noteDao()
@@ -71,4 +294,16 @@ object AppModule {
     @Provides
     @Singleton
     fun provideCardDao(database: NoteDatabase) = database.cardDao()
+
+    @Provides
+    @Singleton
+    fun provideEntityDao(database: NoteDatabase) = database.entityDao()
+
+    @Provides
+    @Singleton
+    fun provideEntityCacheDao(database: NoteDatabase) = database.entityCacheDao()
+
+    @Provides
+    @Singleton
+    fun provideAiResponseCacheDao(database: NoteDatabase) = database.aiResponseCacheDao()
 }
@@ -0,0 +1,68 @@
+package com.secondbrain.di
+
+import android.content.Context
+import com.secondbrain.BuildConfig
+import com.secondbrain.util.ResponseSizeLimitInterceptor
+import dagger.Module
+import dagger.Provides
+import dagger.hilt.InstallIn
+import dagger.hilt.android.qualifiers.ApplicationContext
+import dagger.hilt.components.SingletonComponent
+import okhttp3.Cache
+import okhttp3.ConnectionPool
+import okhttp3.Dispatcher
+import okhttp3.OkHttpClient
+import okhttp3.Protocol
+import java.io.File
+import java.util.concurrent.TimeUnit
+import javax.inject.Singleton
+
+/**
+ * Module providing the HTTP transport shared by all AI and scraping clients.
+ * Clients that need different timeouts or interceptors should derive from it with
+ * newBuilder(), which keeps the same connection pool and dispatcher.
+ */
+@Module
+@InstallIn(SingletonComponent::class)
+object NetworkModule {
+
+    private const val MAX_IDLE_CONNECTIONS = 10
+    private const val KEEP_ALIVE_MINUTES = 5L
+    private const val MAX_REQUESTS = 64
+    private const val MAX_REQUESTS_PER_HOST = 6
+    private const val MAX_RESPONSE_BYTES = 20L * 1024 * 1024
+
+    // Disk cache for scraped pages; least recently used responses are evicted beyond
+    // BuildConfig.SCRAPE_CACHE_BYTES, which a build type or flavor can override
+    private const val SCRAPE_CACHE_DIRECTORY = "scrape_http_cache"
+
+    @Provides
+    @Singleton
+    fun provideOkHttpClient(): OkHttpClient {
+        val dispatcher = Dispatcher().apply {
+            maxRequests = MAX_REQUESTS
+            maxRequestsPerHost = MAX_REQUESTS_PER_HOST
+        }
+
+        return OkHttpClient.Builder()
+            .connectionPool(ConnectionPool(MAX_IDLE_CONNECTIONS, KEEP_ALIVE_MINUTES, TimeUnit.MINUTES))
+            .dispatcher(dispatcher)
+            .protocols(listOf(Protocol.HTTP_2, Protocol.HTTP_1_1))
+            .addInterceptor(ResponseSizeLimitInterceptor(MAX_RESPONSE_BYTES))
+            .connectTimeout(15, TimeUnit.SECONDS)
+            .readTimeout(30, TimeUnit.SECONDS)
+            .writeTimeout(30, TimeUnit.SECONDS)
+            .followRedirects(true)
+            .build()
+    }
+
+    /**
+     * HTTP cache used by the scraping clients, which revalidate cached pages with
+     * If-None-Match/If-Modified-Since instead of downloading them again
+     */
+    @Provides
+    @Singleton
+    fun provideScrapeCache(@ApplicationContext context: Context): Cache {
+        return Cache(File(context.cacheDir, SCRAPE_CACHE_DIRECTORY), BuildConfig.SCRAPE_CACHE_BYTES)
+    }
+}
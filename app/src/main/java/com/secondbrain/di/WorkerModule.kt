@@ -5,6 +5,9 @@ import androidx.work.WorkerFactory
 import androidx.work.WorkerParameters
 import com.secondbrain.data.service.ai.AiServiceManager
 import com.secondbrain.data.service.ai.worker.AiProcessingWorker
+import com.secondbrain.data.service.knowledge.worker.EntityIndexBackfillWorker
+import com.secondbrain.data.service.knowledge.worker.EntityIndexWorker
+import com.secondbrain.data.service.worker.ThumbnailBackfillWorker
 import dagger.Module
 import dagger.Provides
 import dagger.assisted.AssistedFactory
@@ -26,9 +29,17 @@ object WorkerModule {
     @Provides
     @Singleton
     fun provideWorkerFactory(
-        aiProcessingWorkerFactory: AiProcessingWorkerFactory
+        aiProcessingWorkerFactory: AiProcessingWorkerFactory,
+        entityIndexWorkerFactory: EntityIndexWorkerFactory,
+        entityIndexBackfillWorkerFactory: EntityIndexBackfillWorkerFactory,
+        thumbnailBackfillWorkerFactory: ThumbnailBackfillWorkerFactory
     ): WorkerFactory {
-        return HiltWorkerFactory(aiProcessingWorkerFactory)
+        return HiltWorkerFactory(
+            aiProcessingWorkerFactory,
+            entityIndexWorkerFactory,
+            entityIndexBackfillWorkerFactory,
+            thumbnailBackfillWorkerFactory
+        )
     }
 }
 
@@ -43,11 +54,47 @@ interface AiProcessingWorkerFactory {
     ): AiProcessingWorker
 }
 
+/**
+ * Factory for creating EntityIndexWorker with Hilt dependencies
+ */
+@AssistedFactory
+interface EntityIndexWorkerFactory {
+    fun create(
+        context: Context,
+        params: WorkerParameters
+    ): EntityIndexWorker
+}
+
+/**
+ * Factory for creating EntityIndexBackfillWorker with Hilt dependencies
+ */
+@AssistedFactory
+interface EntityIndexBackfillWorkerFactory {
+    fun create(
+        context: Context,
+        params: WorkerParameters
+    ): EntityIndexBackfillWorker
+}
+
+/**
+ * Factory for creating ThumbnailBackfillWorker with Hilt dependencies
+ */
+@AssistedFactory
+interface ThumbnailBackfillWorkerFactory {
+    fun create(
+        context: Context,
+        params: WorkerParameters
+    ): ThumbnailBackfillWorker
+}
+
 /**
  * Custom WorkerFactory for creating workers with Hilt dependencies
  */
 class HiltWorkerFactory @Inject constructor(
-    private val aiProcessingWorkerFactory: AiProcessingWorkerFactory
+    private val aiProcessingWorkerFactory: AiProcessingWorkerFactory,
+    private val entityIndexWorkerFactory: EntityIndexWorkerFactory,
+    private val entityIndexBackfillWorkerFactory: EntityIndexBackfillWorkerFactory,
+    private val thumbnailBackfillWorkerFactory: ThumbnailBackfillWorkerFactory
 ) : WorkerFactory() {
     
     override fun createWorker(
@@ -59,6 +106,15 @@ class HiltWorkerFactory @Inject constructor(
             AiProcessingWorker::class.java.name -> {
                 aiProcessingWorkerFactory.create(appContext, workerParameters)
             }
+            EntityIndexWorker::class.java.name -> {
+                entityIndexWorkerFactory.create(appContext, workerParameters)
+            }
+            EntityIndexBackfillWorker::class.java.name -> {
+                entityIndexBackfillWorkerFactory.create(appContext, workerParameters)
+            }
+            ThumbnailBackfillWorker::class.java.name -> {
+                thumbnailBackfillWorkerFactory.create(appContext, workerParameters)
+            }
             else -> null
         }
     }
@@ -2,18 +2,16 @@ package com.secondbrain.ui
 
 import android.content.Intent
 import android.os.Bundle
-import android.util.Log
 import androidx.activity.ComponentActivity
 import androidx.activity.compose.setContent
 import androidx.compose.foundation.layout.fillMaxSize
 import androidx.compose.material3.MaterialTheme
 import androidx.compose.material3.Surface
 import androidx.compose.ui.Modifier
-import androidx.lifecycle.lifecycleScope
 import com.secondbrain.data.service.ThumbnailUpdateService
+import com.secondbrain.data.service.knowledge.EntityIndexScheduler
 import com.secondbrain.ui.theme.SecondBrainTheme
 import dagger.hilt.android.AndroidEntryPoint
-import kotlinx.coroutines.launch
 import javax.inject.Inject
 
 @AndroidEntryPoint
@@ -22,6 +20,9 @@ class MainActivity : ComponentActivity() {
     @Inject
     lateinit var thumbnailUpdateService: ThumbnailUpdateService
 
+    @Inject
+    lateinit var entityIndexScheduler: EntityIndexScheduler
+
     override fun onCreate(savedInstanceState: Bundle?) {
         super.onCreate(savedInstanceState)
 
@@ -47,19 +48,12 @@ class MainActivity : ComponentActivity() {
             }
         }
 
-        // Update thumbnails for all cards in the background
+        // Backfill missing card thumbnails and entity index rows in background jobs
         updateThumbnails()
+        entityIndexScheduler.scheduleBackfill()
     }
 
     private fun updateThumbnails() {
-        lifecycleScope.launch {
-            try {
-                Log.d("MainActivity", "Starting thumbnail update for all cards")
-                thumbnailUpdateService.updateAllCardThumbnails()
-                Log.d("MainActivity", "Finished thumbnail update for all cards")
-            } catch (e: Exception) {
-                Log.e("MainActivity", "Error updating thumbnails", e)
-            }
-        }
+        thumbnailUpdateService.updateAllCardThumbnails()
     }
 }
@@ -144,7 +144,7 @@ fun SummaryReviewScreen(
                         modifier = Modifier.weight(1f)
                     )
                     IconButton(
-                        onClick = { viewModel.generateTitle() },
+                        onClick = { viewModel.generateTitle(bypassCache = true) },
                         modifier = Modifier.align(Alignment.CenterVertically)
                     ) {
                         Icon(Icons.Default.Refresh, contentDescription = "Regenerate Title")
@@ -164,7 +164,7 @@ fun SummaryReviewScreen(
                         modifier = Modifier.padding(top = 8.dp)
                     )
 
-                    IconButton(onClick = { viewModel.generateTags() }) {
+                    IconButton(onClick = { viewModel.generateTags(bypassCache = true) }) {
                         Icon(Icons.Default.Refresh, contentDescription = "Regenerate Tags")
                     }
                 }
@@ -208,11 +208,18 @@ fun SummaryReviewScreen(
 
                     Spacer(modifier = Modifier.height(8.dp))
 
+                    // Show progress while the summary is still streaming in
+                    if (viewModel.isStreamingSummary) {
+                        LinearProgressIndicator(modifier = Modifier.fillMaxWidth())
+                        Spacer(modifier = Modifier.height(8.dp))
+                    }
+
                     // Edit field
                     OutlinedTextField(
                         value = viewModel.summary,
                         onValueChange = { viewModel.summary = it },
                         label = { Text("Edit Summary") },
+                        readOnly = viewModel.isStreamingSummary,
                         modifier = Modifier
                             .fillMaxWidth()
                             .heightIn(min = 150.dp),
@@ -251,6 +258,7 @@ fun SummaryReviewScreen(
                 ) {
                     Button(
                         onClick = { viewModel.regenerateSummary() },
+                        enabled = !viewModel.isStreamingSummary,
                         colors = ButtonDefaults.buttonColors(
                             containerColor = MaterialTheme.colorScheme.secondaryContainer,
                             contentColor = MaterialTheme.colorScheme.onSecondaryContainer
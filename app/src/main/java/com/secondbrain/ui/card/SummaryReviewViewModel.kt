@@ -43,6 +43,9 @@ class SummaryReviewViewModel @Inject constructor(
     // Loading state
     var isLoading by mutableStateOf(false)
 
+    // True while summary text is still arriving from the AI model
+    var isStreamingSummary by mutableStateOf(false)
+
     // Last operation state for retry functionality
     private var lastOperation: (() -> Unit)? = null
 
@@ -117,69 +120,81 @@ class SummaryReviewViewModel @Inject constructor(
         lastOperation = { regenerateSummary() }
 
         viewModelScope.launch {
+            val previousSummary = summary
             try {
-                isLoading = true
+                isStreamingSummary = true
                 android.util.Log.d("SummaryReviewViewModel", "regenerateSummary: Attempting to regenerate summary")
 
-                aiService.summarize(
+                // Render the summary incrementally as the model streams it
+                val streamedSummary = StringBuilder()
+                aiService.summarizeStream(
                     content = originalContent,
                     summaryType = summaryType,
                     language = language,
                     aiModel = aiModel
-                ).onSuccess { newSummary ->
-                    if (newSummary.isBlank()) {
-                        android.util.Log.e("SummaryReviewViewModel", "regenerateSummary: Generated summary is empty")
-                        errorMessage = "Failed to generate summary. Please try again or use a different AI model."
-                    } else {
-                        android.util.Log.d("SummaryReviewViewModel", "regenerateSummary: Successfully generated new summary of length ${newSummary.length}")
-                        summary = newSummary
+                ).collect { delta ->
+                    streamedSummary.append(delta)
+                    summary = streamedSummary.toString()
+                }
 
-                        // Save the updated card with the new summary
-                        saveCard()
-                    }
-                }.onFailure { error ->
-                    // Handle error
-                    android.util.Log.e("SummaryReviewViewModel", "Error regenerating summary", error)
+                val newSummary = streamedSummary.toString()
+                if (newSummary.isBlank()) {
+                    android.util.Log.e("SummaryReviewViewModel", "regenerateSummary: Generated summary is empty")
+                    summary = previousSummary
+                    errorMessage = "Failed to generate summary. Please try again or use a different AI model."
+                } else {
+                    android.util.Log.d("SummaryReviewViewModel", "regenerateSummary: Successfully generated new summary of length ${newSummary.length}")
+                    summary = newSummary
 
-                    // Provide more user-friendly error messages
-                    errorMessage = when (error) {
-                        is com.secondbrain.util.ApiServerOverloadException -> {
-                            "The AI server is currently overloaded. Please try again in a few moments."
-                        }
-                        is com.secondbrain.util.ApiPaymentRequiredException -> {
-                            val errorMsg = error.message?.substringAfter("Payment required: ") ?: ""
-                            if (errorMsg.contains("max_tokens", ignoreCase = true)) {
-                                // This is a token limit issue, provide a more helpful message
-                                "OpenRouter token limit exceeded. Try using a different model or reducing the content length."
-                            } else {
-                                "OpenRouter requires more credits: $errorMsg"
-                            }
-                        }
-                        is com.secondbrain.util.ApiRateLimitException -> {
-                            "Rate limit exceeded. Please try again later."
-                        }
-                        is com.secondbrain.util.ApiAuthenticationException -> {
-                            "Authentication error. Please check your API key in settings."
-                        }
-                        is com.secondbrain.util.ApiTemporaryErrorException -> {
-                            "Temporary server error. Please try again in a few moments."
-                        }
-                        else -> "Error generating summary: ${error.message}"
-                    }
+                    // Save the updated card with the new summary
+                    saveCard()
                 }
             } catch (e: Exception) {
-                android.util.Log.e("SummaryReviewViewModel", "Error in regenerateSummary", e)
-                errorMessage = "Error regenerating summary: ${e.message}"
+                android.util.Log.e("SummaryReviewViewModel", "Error regenerating summary", e)
+                summary = previousSummary
+                errorMessage = summaryErrorMessage(e)
             } finally {
-                isLoading = false
+                isStreamingSummary = false
+            }
+        }
+    }
+
+    /**
+     * Provide more user-friendly error messages for summary generation failures
+     */
+    private fun summaryErrorMessage(error: Throwable): String {
+        return when (error) {
+            is com.secondbrain.util.ApiServerOverloadException -> {
+                "The AI server is currently overloaded. Please try again in a few moments."
             }
+            is com.secondbrain.util.ApiPaymentRequiredException -> {
+                val errorMsg = error.message?.substringAfter("Payment required: ") ?: ""
+                if (errorMsg.contains("max_tokens", ignoreCase = true)) {
+                    // This is a token limit issue, provide a more helpful message
+                    "OpenRouter token limit exceeded. Try using a different model or reducing the content length."
+                } else {
+                    "OpenRouter requires more credits: $errorMsg"
+                }
+            }
+            is com.secondbrain.util.ApiRateLimitException -> {
+                "Rate limit exceeded. Please try again later."
+            }
+            is com.secondbrain.util.ApiAuthenticationException -> {
+                "Authentication error. Please check your API key in settings."
+            }
+            is com.secondbrain.util.ApiTemporaryErrorException -> {
+                "Temporary server error. Please try again in a few moments."
+            }
+            else -> "Error generating summary: ${error.message}"
         }
     }
 
     /**
      * Generate tags for the card content
+     *
+     * @param bypassCache Ask the AI model again instead of reusing a cached response
      */
-    fun generateTags() {
+    fun generateTags(bypassCache: Boolean = false) {
         viewModelScope.launch {
             try {
                 isLoading = true
@@ -189,7 +204,8 @@ class SummaryReviewViewModel @Inject constructor(
                     content = originalContent,
                     language = language,
                     aiModel = aiModel,
-                    maxTags = 15 // Generate between 10-20 tags
+                    maxTags = 15, // Generate between 10-20 tags
+                    bypassCache = bypassCache
                 ).onSuccess { newTags ->
                     android.util.Log.d("SummaryReviewViewModel", "generateTags: Successfully generated ${newTags.size} tags")
                     tags.clear()
@@ -212,14 +228,17 @@ class SummaryReviewViewModel @Inject constructor(
 
     /**
      * Generate a title for the card content
+     *
+     * @param bypassCache Ask the AI model again instead of reusing a cached response
      */
-    fun generateTitle() {
+    fun generateTitle(bypassCache: Boolean = false) {
         viewModelScope.launch {
             try {
                 aiService.generateTitle(
                     content = originalContent,
                     language = language,
-                    aiModel = aiModel
+                    aiModel = aiModel,
+                    bypassCache = bypassCache
                 ).onSuccess { newTitle ->
                     title = newTitle
                 }.onFailure { error ->
@@ -9,17 +9,17 @@ import androidx.compose.material3.Icon
 import androidx.compose.material3.Text
 import androidx.compose.runtime.Composable
 import androidx.compose.ui.Modifier
-import com.secondbrain.data.model.Card
+import com.secondbrain.data.model.CardListItem
 
 @Composable
 fun CardContextMenu(
-    card: Card,
+    card: CardListItem,
     expanded: Boolean,
     onDismiss: () -> Unit,
-    onDuplicate: (Card) -> Unit,
-    onPin: (Card) -> Unit,
-    onShare: (Card) -> Unit,
-    onDelete: (Card) -> Unit,
+    onDuplicate: (CardListItem) -> Unit,
+    onPin: (CardListItem) -> Unit,
+    onShare: (CardListItem) -> Unit,
+    onDelete: (CardListItem) -> Unit,
     modifier: Modifier = Modifier
 ) {
     Box(modifier = modifier) {
@@ -20,7 +20,7 @@ import androidx.compose.ui.text.style.TextOverflow
 import androidx.compose.ui.unit.dp
 import coil.compose.AsyncImage
 import coil.request.ImageRequest
-import com.secondbrain.data.model.Card
+import com.secondbrain.data.model.CardListItem
 
 /**
  * A custom component for displaying YouTube cards
@@ -28,7 +28,7 @@ import com.secondbrain.data.model.Card
 @OptIn(ExperimentalFoundationApi::class)
 @Composable
 fun YouTubeCardView(
-    card: Card,
+    card: CardListItem,
     onClick: () -> Unit,
     onLongClick: () -> Unit,
     modifier: Modifier = Modifier
@@ -176,7 +176,7 @@ fun YouTubeCardView(
 @OptIn(ExperimentalFoundationApi::class)
 @Composable
 fun YouTubeCardGridItem(
-    card: Card,
+    card: CardListItem,
     onClick: () -> Unit,
     onLongClick: () -> Unit,
     modifier: Modifier = Modifier
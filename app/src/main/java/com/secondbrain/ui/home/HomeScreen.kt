@@ -23,6 +23,7 @@ import androidx.compose.ui.graphics.Color
 import androidx.compose.foundation.background
 import androidx.compose.ui.platform.LocalContext
 import androidx.compose.ui.text.style.TextOverflow
+import androidx.compose.ui.unit.Dp
 import androidx.compose.ui.unit.dp
 import androidx.compose.ui.draw.clip
 import androidx.compose.foundation.shape.RoundedCornerShape
@@ -31,7 +32,7 @@ import androidx.compose.foundation.layout.FlowRow
 import androidx.compose.foundation.layout.ExperimentalLayoutApi
 import androidx.compose.ui.text.font.FontWeight
 import androidx.hilt.navigation.compose.hiltViewModel
-import com.secondbrain.data.model.Card
+import com.secondbrain.data.model.CardListItem
 import com.secondbrain.data.model.CardType
 import com.secondbrain.ui.card.CreateCardActivity
 import com.secondbrain.ui.components.CardContextMenu
@@ -40,6 +41,10 @@ import com.secondbrain.ui.components.YouTubeCardGridItem
 import android.content.Intent
 import android.widget.Toast
 import androidx.compose.runtime.collectAsState
+import androidx.paging.LoadState
+import androidx.paging.compose.LazyPagingItems
+import androidx.paging.compose.collectAsLazyPagingItems
+import androidx.paging.compose.itemKey
 import coil.compose.AsyncImage
 import coil.request.CachePolicy
 import coil.request.ImageRequest
@@ -72,18 +77,16 @@ fun HomeScreen(
         )
     }
     var viewType by remember { mutableStateOf(ViewType.LIST) }
-    val cards = remember { mutableStateOf<List<Card>>(emptyList()) }
+    val cards = viewModel.cards.collectAsLazyPagingItems()
+    val pinnedCards by viewModel.pinnedCardItems.collectAsState(initial = emptyList())
     val context = LocalContext.current
 
-    // Safely collect cards
-    LaunchedEffect(Unit) {
-        try {
-            viewModel.cards.collect {
-                cards.value = it
-            }
-        } catch (e: Exception) {
-            android.util.Log.e("HomeScreen", "Error collecting cards", e)
-            errorState.value = "Error loading cards: ${e.message}"
+    // Surface paging errors
+    val refreshState = cards.loadState.refresh
+    LaunchedEffect(refreshState) {
+        if (refreshState is LoadState.Error) {
+            android.util.Log.e("HomeScreen", "Error loading cards", refreshState.error)
+            errorState.value = "Error loading cards: ${refreshState.error.message}"
         }
     }
 
@@ -139,7 +142,11 @@ fun HomeScreen(
                 .fillMaxSize()
                 .padding(innerPadding)
         ) {
-            if (cards.value.isEmpty()) {
+            // Paging starts out NotLoading before the first page arrives, so also require that the
+            // load reached the end of the list; otherwise the empty state flashes on every start
+            val libraryIsEmpty = cards.itemCount == 0 && pinnedCards.isEmpty() &&
+                refreshState is LoadState.NotLoading && cards.loadState.append.endOfPaginationReached
+            if (libraryIsEmpty) {
                 // Empty state
                 Column(
                     modifier = Modifier.fillMaxSize(),
@@ -160,13 +167,15 @@ fun HomeScreen(
                 // Content
                 when (viewType) {
                     ViewType.LIST -> CardListView(
-                        cards = cards.value,
+                        cards = cards,
+                        pinnedCards = pinnedCards,
                         viewModel = viewModel,
                         onCardClick = { card -> onNavigateToCardDetail(card.id) },
                         onCardLongClick = { card -> viewModel.selectCard(card) }
                     )
                     ViewType.GRID -> CardGridView(
-                        cards = cards.value,
+                        cards = cards,
+                        pinnedCards = pinnedCards,
                         viewModel = viewModel,
                         onCardClick = { card -> onNavigateToCardDetail(card.id) },
                         onCardLongClick = { card -> viewModel.selectCard(card) }
@@ -196,14 +205,14 @@ fun HomeScreen(
 
 @Composable
 fun CardListView(
-    cards: List<Card>,
+    cards: LazyPagingItems<CardListItem>,
+    pinnedCards: List<CardListItem>,
     viewModel: HomeViewModel,
-    onCardClick: (Card) -> Unit,
-    onCardLongClick: (Card) -> Unit
+    onCardClick: (CardListItem) -> Unit,
+    onCardLongClick: (CardListItem) -> Unit
 ) {
     val context = LocalContext.current
     val selectedCard by viewModel.selectedCard.collectAsState()
-    val pinnedCards by viewModel.pinnedCards.collectAsState()
 
     // Show context menu for selected card
     selectedCard?.let { card ->
@@ -212,7 +221,7 @@ fun CardListView(
             expanded = true,
             onDismiss = { viewModel.selectCard(null) },
             onDuplicate = {
-                viewModel.duplicateCard(it) { newCardId ->
+                viewModel.duplicateCard(it.id) { newCardId ->
                     Toast.makeText(context, "Card duplicated", Toast.LENGTH_SHORT).show()
                 }
             },
@@ -226,8 +235,9 @@ fun CardListView(
                 }
             },
             onShare = {
-                val intent = viewModel.shareCard(it)
-                context.startActivity(Intent.createChooser(intent, "Share Card"))
+                viewModel.shareCard(it.id) { intent ->
+                    context.startActivity(Intent.createChooser(intent, "Share Card"))
+                }
             },
             onDelete = {
                 viewModel.deleteCard(it.id) {
@@ -253,10 +263,10 @@ fun CardListView(
             }
 
             items(
-                items = cards.filter { card -> pinnedCards.contains(card.id) },
+                items = pinnedCards,
                 key = { it.id }
             ) { card ->
-                CardListItem(
+                CardListRow(
                     card = card,
                     isPinned = true,
                     onClick = { onCardClick(card) },
@@ -274,37 +284,36 @@ fun CardListView(
             }
         }
 
-        // All cards (or unpinned cards if there are pinned cards)
-        val unpinnedCards = if (pinnedCards.isNotEmpty()) {
-            cards.filter { card -> !pinnedCards.contains(card.id) }
-        } else {
-            cards
-        }
-
+        // All cards (pinned cards are excluded from the pages)
         items(
-            items = unpinnedCards,
-            key = { it.id }
-        ) { card ->
-            CardListItem(
-                card = card,
-                isPinned = false,
-                onClick = { onCardClick(card) },
-                onLongClick = { onCardLongClick(card) }
-            )
+            count = cards.itemCount,
+            key = cards.itemKey { it.id }
+        ) { index ->
+            val card = cards[index]
+            if (card != null) {
+                CardListRow(
+                    card = card,
+                    isPinned = false,
+                    onClick = { onCardClick(card) },
+                    onLongClick = { onCardLongClick(card) }
+                )
+            } else {
+                CardPlaceholder(height = 120.dp)
+            }
         }
     }
 }
 
 @Composable
 fun CardGridView(
-    cards: List<Card>,
+    cards: LazyPagingItems<CardListItem>,
+    pinnedCards: List<CardListItem>,
     viewModel: HomeViewModel,
-    onCardClick: (Card) -> Unit,
-    onCardLongClick: (Card) -> Unit
+    onCardClick: (CardListItem) -> Unit,
+    onCardLongClick: (CardListItem) -> Unit
 ) {
     val context = LocalContext.current
     val selectedCard by viewModel.selectedCard.collectAsState()
-    val pinnedCards by viewModel.pinnedCards.collectAsState()
 
     // Show context menu for selected card
     selectedCard?.let { card ->
@@ -313,7 +322,7 @@ fun CardGridView(
             expanded = true,
             onDismiss = { viewModel.selectCard(null) },
             onDuplicate = {
-                viewModel.duplicateCard(it) { newCardId ->
+                viewModel.duplicateCard(it.id) { newCardId ->
                     Toast.makeText(context, "Card duplicated", Toast.LENGTH_SHORT).show()
                 }
             },
@@ -327,8 +336,9 @@ fun CardGridView(
                 }
             },
             onShare = {
-                val intent = viewModel.shareCard(it)
-                context.startActivity(Intent.createChooser(intent, "Share Card"))
+                viewModel.shareCard(it.id) { intent ->
+                    context.startActivity(Intent.createChooser(intent, "Share Card"))
+                }
             },
             onDelete = {
                 viewModel.deleteCard(it.id) {
@@ -356,7 +366,7 @@ fun CardGridView(
             }
 
             items(
-                items = cards.filter { card -> pinnedCards.contains(card.id) },
+                items = pinnedCards,
                 key = { it.id }
             ) { card ->
                 CardGridItem(
@@ -377,31 +387,43 @@ fun CardGridView(
             }
         }
 
-        // All cards (or unpinned cards if there are pinned cards)
-        val unpinnedCards = if (pinnedCards.isNotEmpty()) {
-            cards.filter { card -> !pinnedCards.contains(card.id) }
-        } else {
-            cards
-        }
-
+        // All cards (pinned cards are excluded from the pages)
         items(
-            items = unpinnedCards,
-            key = { it.id }
-        ) { card ->
-            CardGridItem(
-                card = card,
-                isPinned = false,
-                onClick = { onCardClick(card) },
-                onLongClick = { onCardLongClick(card) }
-            )
+            count = cards.itemCount,
+            key = cards.itemKey { it.id }
+        ) { index ->
+            val card = cards[index]
+            if (card != null) {
+                CardGridItem(
+                    card = card,
+                    isPinned = false,
+                    onClick = { onCardClick(card) },
+                    onLongClick = { onCardLongClick(card) }
+                )
+            } else {
+                CardPlaceholder(height = 220.dp)
+            }
         }
     }
 }
 
+/**
+ * Placeholder shown while a page of cards is loading
+ */
+@Composable
+fun CardPlaceholder(height: Dp) {
+    Card(
+        modifier = Modifier
+            .fillMaxWidth()
+            .height(height)
+            .padding(horizontal = 8.dp, vertical = 4.dp)
+    ) {}
+}
+
 @OptIn(ExperimentalFoundationApi::class, ExperimentalLayoutApi::class)
 @Composable
-fun CardListItem(
-    card: Card,
+fun CardListRow(
+    card: CardListItem,
     isPinned: Boolean = false,
     onClick: () -> Unit = {},
     onLongClick: () -> Unit = {}
@@ -436,7 +458,7 @@ fun CardListItem(
                 if (!card.thumbnailUrl.isNullOrEmpty()) {
                     val context = LocalContext.current
                     // Log the thumbnail URL for debugging
-                    android.util.Log.d("CardListItem", "Displaying thumbnail: ${card.thumbnailUrl}")
+                    android.util.Log.d("CardListRow", "Displaying thumbnail: ${card.thumbnailUrl}")
 
                     Box(
                         modifier = Modifier
@@ -457,16 +479,16 @@ fun CardListItem(
                                 .fillMaxSize()
                                 .clip(RoundedCornerShape(topStart = 12.dp, topEnd = 12.dp)),
                             onSuccess = {
-                                android.util.Log.d("CardListItem", "Thumbnail loaded successfully")
+                                android.util.Log.d("CardListRow", "Thumbnail loaded successfully")
                             },
                             onError = {
-                                android.util.Log.e("CardListItem", "Error loading thumbnail: ${card.thumbnailUrl}")
+                                android.util.Log.e("CardListRow", "Error loading thumbnail: ${card.thumbnailUrl}")
                             }
                         )
 
                         // Play button overlay for video content
                         if (card.type == CardType.URL && (card.source.contains("youtube") ||
-                            card.source.contains("vimeo") || card.metadata?.contains("video") == true)) {
+                            card.source.contains("vimeo") || card.hasVideoMetadata)) {
                             Box(
                                 modifier = Modifier
                                     .size(48.dp)
@@ -503,7 +525,7 @@ fun CardListItem(
                         }
                     }
                 } else {
-                    android.util.Log.d("CardListItem", "No thumbnail for card: ${card.id}, type: ${card.type}")
+                    android.util.Log.d("CardListRow", "No thumbnail for card: ${card.id}, type: ${card.type}")
                 }
 
                 // Content
@@ -557,7 +579,7 @@ fun CardListItem(
 @OptIn(ExperimentalFoundationApi::class, ExperimentalLayoutApi::class)
 @Composable
 fun CardGridItem(
-    card: Card,
+    card: CardListItem,
     isPinned: Boolean = false,
     onClick: () -> Unit = {},
     onLongClick: () -> Unit = {}
@@ -622,7 +644,7 @@ fun CardGridItem(
 
                         // Play button overlay for video content
                         if (card.type == CardType.URL && (card.source.contains("youtube") ||
-                            card.source.contains("vimeo") || card.metadata?.contains("video") == true)) {
+                            card.source.contains("vimeo") || card.hasVideoMetadata)) {
                             Box(
                                 modifier = Modifier
                                     .size(40.dp)
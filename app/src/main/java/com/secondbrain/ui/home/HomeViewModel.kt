@@ -12,17 +12,23 @@ import androidx.compose.runtime.mutableStateOf
 import androidx.compose.runtime.setValue
 import androidx.lifecycle.AndroidViewModel
 import androidx.lifecycle.viewModelScope
-import com.secondbrain.data.model.Card
+import androidx.paging.PagingData
+import androidx.paging.cachedIn
+import com.secondbrain.data.model.CardListItem
+import com.secondbrain.data.model.CardSortOrder
 import com.secondbrain.data.repository.CardRepository
 import com.secondbrain.data.repository.SettingsRepository
 import dagger.hilt.android.lifecycle.HiltViewModel
 import kotlinx.coroutines.flow.Flow
 import kotlinx.coroutines.flow.MutableStateFlow
 import kotlinx.coroutines.flow.StateFlow
+import kotlinx.coroutines.flow.combine
+import kotlinx.coroutines.flow.flatMapLatest
 import kotlinx.coroutines.flow.map
 import kotlinx.coroutines.launch
 import javax.inject.Inject
 
+@OptIn(kotlinx.coroutines.ExperimentalCoroutinesApi::class)
 @HiltViewModel
 class HomeViewModel @Inject constructor(
     private val cardRepository: CardRepository,
@@ -36,6 +42,7 @@ class HomeViewModel @Inject constructor(
     val sortOptions = listOf(
         "Date (newest first)",
         "Date (oldest first)",
+        "Recently updated",
         "Title (A-Z)",
         "Title (Z-A)"
     )
@@ -43,39 +50,44 @@ class HomeViewModel @Inject constructor(
     // Network state
     var isOnline by mutableStateOf(true)
 
-    // Cards data
-    private val _cards = MutableStateFlow<List<Card>>(emptyList())
-    val cards: Flow<List<Card>> = _cards
+    // Pinned card ids, persisted in settings
+    private val _pinnedCards = MutableStateFlow<List<String>>(emptyList())
+    val pinnedCards: StateFlow<List<String>> = _pinnedCards
 
-    init {
-        loadCards()
-        monitorNetworkConnectivity()
-    }
+    private val _sortOrder = MutableStateFlow(CardSortOrder.CREATED_NEWEST)
 
-    private fun loadCards() {
-        viewModelScope.launch {
-            try {
-                cardRepository.getCards().collect { cardList ->
-                    _cards.value = sortCardsList(cardList)
-                }
-            } catch (e: Exception) {
-                android.util.Log.e("HomeViewModel", "Error loading cards", e)
-                _cards.value = emptyList()
+    /**
+     * Pinned cards (list projection only; full cards are loaded on demand), in pin order
+     */
+    val pinnedCardItems: Flow<List<CardListItem>> = _pinnedCards
+        .flatMapLatest { ids ->
+            cardRepository.getCardListItemsByIds(ids).map { items ->
+                val itemsById = items.associateBy { it.id }
+                ids.mapNotNull { itemsById[it] }
             }
         }
-    }
 
-    fun sortCards() {
-        _cards.value = sortCardsList(_cards.value)
+    /**
+     * Paged unpinned cards in the selected order. Sorting and paging happen in SQL,
+     * so a sort change re-queries instead of re-sorting the whole library in memory.
+     */
+    val cards: Flow<PagingData<CardListItem>> = combine(_sortOrder, _pinnedCards) { sortOrder, pinned -> sortOrder to pinned }
+        .flatMapLatest { (sortOrder, pinned) ->
+            cardRepository.getCardListItemsPaged(sortOrder, excludedIds = pinned)
+        }
+        .cachedIn(viewModelScope)
+
+    init {
+        monitorNetworkConnectivity()
     }
 
-    private fun sortCardsList(cardList: List<Card>): List<Card> {
-        return when (selectedSortOption) {
-            "Date (newest first)" -> cardList.sortedByDescending { it.createdAt }
-            "Date (oldest first)" -> cardList.sortedBy { it.createdAt }
-            "Title (A-Z)" -> cardList.sortedBy { it.title }
-            "Title (Z-A)" -> cardList.sortedByDescending { it.title }
-            else -> cardList
+    fun sortCards() {
+        _sortOrder.value = when (selectedSortOption) {
+            "Date (oldest first)" -> CardSortOrder.CREATED_OLDEST
+            "Recently updated" -> CardSortOrder.UPDATED_NEWEST
+            "Title (A-Z)" -> CardSortOrder.TITLE_ASCENDING
+            "Title (Z-A)" -> CardSortOrder.TITLE_DESCENDING
+            else -> CardSortOrder.CREATED_NEWEST
         }
     }
 
@@ -111,11 +123,8 @@ class HomeViewModel @Inject constructor(
     }
 
     // Card actions
-    private val _selectedCard = MutableStateFlow<Card?>(null)
-    val selectedCard: StateFlow<Card?> = _selectedCard
-
-    private val _pinnedCards = MutableStateFlow<List<String>>(emptyList())
-    val pinnedCards: StateFlow<List<String>> = _pinnedCards
+    private val _selectedCard = MutableStateFlow<CardListItem?>(null)
+    val selectedCard: StateFlow<CardListItem?> = _selectedCard
 
     init {
         // Load pinned cards from settings
@@ -126,7 +135,7 @@ class HomeViewModel @Inject constructor(
         }
     }
 
-    fun selectCard(card: Card?) {
+    fun selectCard(card: CardListItem?) {
         _selectedCard.value = card
     }
 
@@ -147,9 +156,11 @@ class HomeViewModel @Inject constructor(
         }
     }
 
-    fun duplicateCard(card: Card, onSuccess: (String) -> Unit = {}) {
+    fun duplicateCard(cardId: String, onSuccess: (String) -> Unit = {}) {
         viewModelScope.launch {
             try {
+                val card = cardRepository.getCardOnce(cardId) ?: return@launch
+
                 // Create a copy with a new ID
                 val duplicatedCard = card.copy(
                     id = java.util.UUID.randomUUID().toString(),
@@ -202,12 +213,21 @@ class HomeViewModel @Inject constructor(
         return _pinnedCards.value.contains(cardId)
     }
 
-    fun shareCard(card: Card): Intent {
-        return Intent().apply {
-            action = Intent.ACTION_SEND
-            putExtra(Intent.EXTRA_TITLE, card.title)
-            putExtra(Intent.EXTRA_TEXT, "${card.title}\n\n${card.content}")
-            type = "text/plain"
+    fun shareCard(cardId: String, onReady: (Intent) -> Unit) {
+        viewModelScope.launch {
+            try {
+                val card = cardRepository.getCardOnce(cardId) ?: return@launch
+                onReady(
+                    Intent().apply {
+                        action = Intent.ACTION_SEND
+                        putExtra(Intent.EXTRA_TITLE, card.title)
+                        putExtra(Intent.EXTRA_TEXT, "${card.title}\n\n${card.content}")
+                        type = "text/plain"
+                    }
+                )
+            } catch (e: Exception) {
+                android.util.Log.e("HomeViewModel", "Error sharing card", e)
+            }
         }
     }
 }
@@ -12,7 +12,6 @@ import androidx.compose.foundation.layout.height
 import androidx.compose.foundation.layout.padding
 import androidx.compose.foundation.layout.width
 import androidx.compose.foundation.lazy.LazyColumn
-import androidx.compose.foundation.lazy.items
 import androidx.compose.material.icons.Icons
 import androidx.compose.material.icons.filled.Add
 import androidx.compose.material.icons.filled.Delete
@@ -29,8 +28,6 @@ import androidx.compose.material3.TopAppBar
 import androidx.compose.material3.ExperimentalMaterial3Api
 import androidx.compose.runtime.Composable
 import androidx.compose.runtime.LaunchedEffect
-import androidx.compose.runtime.collectAsState
-import androidx.compose.runtime.getValue
 import androidx.compose.ui.Alignment
 import androidx.compose.ui.Modifier
 import androidx.compose.ui.platform.LocalContext
@@ -39,6 +36,10 @@ import androidx.compose.ui.text.style.TextOverflow
 import androidx.compose.ui.unit.dp
 import androidx.hilt.navigation.compose.hiltViewModel
 import androidx.navigation.NavController
+import androidx.paging.LoadState
+import androidx.paging.compose.LazyPagingItems
+import androidx.paging.compose.collectAsLazyPagingItems
+import androidx.paging.compose.itemKey
 import com.secondbrain.R
 import java.text.SimpleDateFormat
 import java.util.Date
@@ -60,7 +61,7 @@ fun NoteListScreen(
         }
     }
 
-    val notesState by viewModel.notesState.collectAsState()
+    val notes = viewModel.notes.collectAsLazyPagingItems()
 
     Scaffold(
         topBar = {
@@ -90,23 +91,21 @@ fun NoteListScreen(
                 .padding(innerPadding),
             contentAlignment = Alignment.Center
         ) {
-            when (notesState) {
-                is NotesState.Loading -> {
-                    CircularProgressIndicator()
+            val refreshState = notes.loadState.refresh
+            when {
+                refreshState is LoadState.Error -> {
+                    Text("Error: ${refreshState.error.message ?: "Unknown error"}")
+                }
+                notes.itemCount > 0 -> {
+                    NotesList(notes = notes, navController = navController, onDeleteNote = { noteId ->
+                        viewModel.deleteNote(noteId)
+                    })
                 }
-                is NotesState.Success -> {
-                    val notes = (notesState as NotesState.Success).notes
-                    if (notes.isEmpty()) {
-                        Text("No notes yet. Create one by tapping the + button.")
-                    } else {
-                        NotesList(notes = notes, navController = navController, onDeleteNote = { noteId ->
-                            viewModel.deleteNote(noteId)
-                        })
-                    }
+                refreshState is LoadState.Loading -> {
+                    CircularProgressIndicator()
                 }
-                is NotesState.Error -> {
-                    val errorMessage = (notesState as NotesState.Error).message
-                    Text("Error: $errorMessage")
+                else -> {
+                    Text("No notes yet. Create one by tapping the + button.")
                 }
             }
         }
@@ -115,23 +114,44 @@ fun NoteListScreen(
 
 @Composable
 fun NotesList(
-    notes: List<com.secondbrain.data.model.Note>,
+    notes: LazyPagingItems<com.secondbrain.data.model.Note>,
     navController: NavController,
     onDeleteNote: (String) -> Unit
 ) {
     LazyColumn(
         modifier = Modifier.fillMaxSize()
     ) {
-        items(notes) { note ->
-            NoteItem(
-                note = note,
-                onClick = { navController.navigate("note/${note.id}") },
-                onDelete = { onDeleteNote(note.id) }
-            )
+        items(
+            count = notes.itemCount,
+            key = notes.itemKey { it.id }
+        ) { index ->
+            val note = notes[index]
+            if (note != null) {
+                NoteItem(
+                    note = note,
+                    onClick = { navController.navigate("note/${note.id}") },
+                    onDelete = { onDeleteNote(note.id) }
+                )
+            } else {
+                NoteItemPlaceholder()
+            }
         }
     }
 }
 
+/**
+ * Placeholder shown while a page of notes is loading
+ */
+@Composable
+fun NoteItemPlaceholder() {
+    Card(
+        modifier = Modifier
+            .fillMaxWidth()
+            .height(112.dp)
+            .padding(8.dp)
+    ) {}
+}
+
 @Composable
 fun NoteItem(
     note: com.secondbrain.data.model.Note,
@@ -15,7 +15,6 @@ import androidx.compose.foundation.layout.padding
 import androidx.compose.foundation.layout.size
 import androidx.compose.foundation.layout.width
 import androidx.compose.foundation.lazy.LazyColumn
-import androidx.compose.foundation.lazy.items
 import androidx.compose.foundation.rememberScrollState
 import androidx.compose.foundation.shape.CircleShape
 import androidx.compose.foundation.shape.RoundedCornerShape
@@ -62,6 +61,9 @@ import androidx.compose.ui.text.withStyle
 import androidx.compose.ui.unit.dp
 import androidx.hilt.navigation.compose.hiltViewModel
 import androidx.navigation.NavController
+import androidx.paging.compose.LazyPagingItems
+import androidx.paging.compose.collectAsLazyPagingItems
+import androidx.paging.compose.itemKey
 import coil.compose.AsyncImage
 import com.secondbrain.R
 import com.secondbrain.data.model.SearchResult
@@ -74,7 +76,8 @@ fun SearchScreen(
     viewModel: SearchViewModel = hiltViewModel()
 ) {
     val searchQuery by viewModel.searchQuery.collectAsState()
-    val filteredResults by viewModel.filteredResults.collectAsState()
+    val filteredResults = viewModel.filteredResults.collectAsLazyPagingItems()
+    val filteredCount by viewModel.filteredCount.collectAsState()
     val isSearching by viewModel.isSearching.collectAsState()
     val resultCounts by viewModel.resultCounts.collectAsState()
     val selectedFilter by viewModel.selectedFilter.collectAsState()
@@ -115,7 +118,7 @@ fun SearchScreen(
                 FilterChip(
                     selected = selectedFilter == null,
                     onClick = { viewModel.setFilter(null) },
-                    label = { Text("All (${filteredResults.size})") },
+                    label = { Text("All ($filteredCount)") },
                     leadingIcon = { Icon(Icons.Default.FilterAlt, contentDescription = null, Modifier.size(16.dp)) }
                 )
 
@@ -147,9 +150,9 @@ fun SearchScreen(
         ) {
             if (isSearching) {
                 CircularProgressIndicator()
-            } else if (filteredResults.isEmpty() && searchQuery.isNotEmpty()) {
+            } else if (filteredCount == 0 && searchQuery.isNotEmpty()) {
                 Text(stringResource(R.string.msg_no_results))
-            } else if (filteredResults.isNotEmpty()) {
+            } else if (filteredCount > 0) {
                 SearchResultsList(filteredResults, navController, searchQuery)
             } else {
                 Column(horizontalAlignment = Alignment.CenterHorizontally) {
@@ -177,14 +180,35 @@ fun SearchScreen(
 }
 
 @Composable
-fun SearchResultsList(results: List<SearchResult>, navController: NavController, searchQuery: String) {
+fun SearchResultsList(results: LazyPagingItems<SearchResult>, navController: NavController, searchQuery: String) {
     LazyColumn(verticalArrangement = Arrangement.spacedBy(8.dp)) {
-        items(results) { result ->
-            SearchResultItem(result, navController, searchQuery)
+        items(
+            count = results.itemCount,
+            key = results.itemKey { it.id }
+        ) { index ->
+            val result = results[index]
+            if (result != null) {
+                SearchResultItem(result, navController, searchQuery)
+            } else {
+                SearchResultPlaceholder()
+            }
         }
     }
 }
 
+/**
+ * Placeholder shown while a page of search results is loading
+ */
+@Composable
+fun SearchResultPlaceholder() {
+    Card(
+        modifier = Modifier
+            .fillMaxWidth()
+            .height(96.dp),
+        elevation = CardDefaults.cardElevation(defaultElevation = 2.dp)
+    ) {}
+}
+
 @OptIn(ExperimentalMaterial3Api::class)
 @Composable
 fun SearchResultItem(result: SearchResult, navController: NavController, searchQuery: String) {
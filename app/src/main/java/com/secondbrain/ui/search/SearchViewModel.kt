@@ -2,20 +2,26 @@ package com.secondbrain.ui.search
 
 import androidx.lifecycle.ViewModel
 import androidx.lifecycle.viewModelScope
+import androidx.paging.Pager
+import androidx.paging.PagingConfig
+import androidx.paging.PagingData
+import androidx.paging.cachedIn
+import com.secondbrain.data.model.SearchHit
 import com.secondbrain.data.model.SearchResult
 import com.secondbrain.data.model.SearchResultType
 import com.secondbrain.data.repository.SearchRepository
 import dagger.hilt.android.lifecycle.HiltViewModel
 import kotlinx.coroutines.FlowPreview
+import kotlinx.coroutines.flow.Flow
 import kotlinx.coroutines.flow.MutableStateFlow
 import kotlinx.coroutines.flow.StateFlow
 import kotlinx.coroutines.flow.asStateFlow
+import kotlinx.coroutines.flow.combine
 import kotlinx.coroutines.flow.debounce
 import kotlinx.coroutines.flow.distinctUntilChanged
 import kotlinx.coroutines.flow.filter
 import kotlinx.coroutines.flow.flatMapLatest
 import kotlinx.coroutines.flow.flowOf
-import kotlinx.coroutines.flow.map
 import kotlinx.coroutines.flow.onEach
 import kotlinx.coroutines.launch
 import javax.inject.Inject
@@ -26,11 +32,15 @@ class SearchViewModel @Inject constructor(
     private val searchRepository: SearchRepository
 ) : ViewModel() {
 
+    companion object {
+        private const val PAGE_SIZE = 20
+    }
+
     private val _searchQuery = MutableStateFlow("")
     val searchQuery: StateFlow<String> = _searchQuery.asStateFlow()
 
-    private val _searchResults = MutableStateFlow<List<SearchResult>>(emptyList())
-    val searchResults: StateFlow<List<SearchResult>> = _searchResults.asStateFlow()
+    // Ranked hits for the current query; results are only loaded for the visible pages
+    private val _searchHits = MutableStateFlow<List<SearchHit>>(emptyList())
 
     private val _isSearching = MutableStateFlow(false)
     val isSearching: StateFlow<Boolean> = _isSearching.asStateFlow()
@@ -38,13 +48,27 @@ class SearchViewModel @Inject constructor(
     private val _selectedFilter = MutableStateFlow<SearchResultType?>(null)
     val selectedFilter: StateFlow<SearchResultType?> = _selectedFilter.asStateFlow()
 
-    private val _filteredResults = MutableStateFlow<List<SearchResult>>(emptyList())
-    val filteredResults: StateFlow<List<SearchResult>> = _filteredResults.asStateFlow()
+    private val _filteredHits = MutableStateFlow<List<SearchHit>>(emptyList())
+
+    // Number of results after filtering
+    private val _filteredCount = MutableStateFlow(0)
+    val filteredCount: StateFlow<Int> = _filteredCount.asStateFlow()
 
     // Count of results by type
     private val _resultCounts = MutableStateFlow<Map<SearchResultType, Int>>(emptyMap())
     val resultCounts: StateFlow<Map<SearchResultType, Int>> = _resultCounts.asStateFlow()
 
+    /**
+     * Paged search results for the current query and filter
+     */
+    val filteredResults: Flow<PagingData<SearchResult>> = _filteredHits
+        .flatMapLatest { hits ->
+            Pager(PagingConfig(pageSize = PAGE_SIZE, enablePlaceholders = true)) {
+                searchRepository.pagingSource(hits)
+            }.flow
+        }
+        .cachedIn(viewModelScope)
+
     init {
         viewModelScope.launch {
             _searchQuery
@@ -56,23 +80,30 @@ class SearchViewModel @Inject constructor(
                     if (query.isBlank()) {
                         flowOf(emptyList())
                     } else {
-                        searchRepository.search(query)
+                        searchRepository.searchHits(query)
                     }
                 }
-                .collect { results ->
-                    _searchResults.value = results
-                    updateFilteredResults()
-                    updateResultCounts(results)
+                .collect { hits ->
+                    _searchHits.value = hits
+                    updateResultCounts(hits)
                     _isSearching.value = false
                 }
         }
+
+        viewModelScope.launch {
+            combine(_searchHits, _selectedFilter) { hits, filter ->
+                searchRepository.filterByType(hits, filter)
+            }.collect { hits ->
+                _filteredHits.value = hits
+                _filteredCount.value = hits.size
+            }
+        }
     }
 
     fun updateSearchQuery(query: String) {
         _searchQuery.value = query
         if (query.isBlank()) {
-            _searchResults.value = emptyList()
-            _filteredResults.value = emptyList()
+            _searchHits.value = emptyList()
             _resultCounts.value = emptyMap()
         }
     }
@@ -82,29 +113,14 @@ class SearchViewModel @Inject constructor(
      */
     fun setFilter(type: SearchResultType?) {
         _selectedFilter.value = type
-        updateFilteredResults()
-    }
-
-    /**
-     * Update filtered results based on the selected filter
-     */
-    private fun updateFilteredResults() {
-        val filter = _selectedFilter.value
-        val results = _searchResults.value
-
-        _filteredResults.value = if (filter == null) {
-            results
-        } else {
-            results.filter { it.type == filter }
-        }
     }
 
     /**
      * Update the counts of results by type
      */
-    private fun updateResultCounts(results: List<SearchResult>) {
+    private fun updateResultCounts(hits: List<SearchHit>) {
         val counts = SearchResultType.values().associateWith { type ->
-            results.count { it.type == type }
+            hits.count { it.type == type }
         }.filter { it.value > 0 }
 
         _resultCounts.value = counts
@@ -115,8 +131,7 @@ class SearchViewModel @Inject constructor(
      */
     fun clearSearch() {
         _searchQuery.value = ""
-        _searchResults.value = emptyList()
-        _filteredResults.value = emptyList()
+        _searchHits.value = emptyList()
         _resultCounts.value = emptyMap()
         _selectedFilter.value = null
     }
@@ -12,6 +12,7 @@ import androidx.compose.material3.HorizontalDivider
 import androidx.compose.material3.ExperimentalMaterial3Api
 import androidx.compose.material3.MaterialTheme
 import androidx.compose.material3.Scaffold
+import androidx.compose.material3.Slider
 import androidx.compose.material3.Switch
 import androidx.compose.material3.Text
 import androidx.compose.material3.TopAppBar
@@ -27,6 +28,7 @@ import androidx.compose.ui.unit.dp
 import androidx.hilt.navigation.compose.hiltViewModel
 
 import com.secondbrain.R
+import kotlin.math.roundToInt
 
 @OptIn(ExperimentalMaterial3Api::class)
 @Composable
@@ -40,6 +42,8 @@ fun SettingsScreen(
     val useDynamicColors by viewModel.useDynamicColors.collectAsState()
     val defaultAiModel by viewModel.defaultAiModel.collectAsState()
     val defaultLanguage by viewModel.defaultLanguage.collectAsState()
+    val hedgeRequests by viewModel.hedgeRequests.collectAsState()
+    val hedgeCostMultiplier by viewModel.hedgeCostMultiplier.collectAsState()
 
     Scaffold(
         topBar = {
@@ -180,6 +184,50 @@ fun SettingsScreen(
                         contentDescription = "Navigate to system prompt settings"
                     )
                 }
+
+                HorizontalDivider(modifier = Modifier.padding(horizontal = 16.dp))
+
+                // Hedged requests toggle
+                Row(
+                    modifier = Modifier
+                        .fillMaxWidth()
+                        .padding(horizontal = 16.dp, vertical = 8.dp),
+                    verticalAlignment = androidx.compose.ui.Alignment.CenterVertically
+                ) {
+                    Column(modifier = Modifier.weight(1f)) {
+                        Text(
+                            text = "Faster titles and tags",
+                            style = MaterialTheme.typography.bodyLarge
+                        )
+                        Text(
+                            text = "Retry slow requests on a second provider at the same time",
+                            style = MaterialTheme.typography.bodyMedium
+                        )
+                    }
+                    Switch(
+                        checked = hedgeRequests,
+                        onCheckedChange = { viewModel.setHedgeRequests(it) }
+                    )
+                }
+
+                if (hedgeRequests) {
+                    // Dragging only moves the local value; it is saved once, when the drag ends
+                    var costMultiplier by remember(hedgeCostMultiplier) {
+                        mutableStateOf(hedgeCostMultiplier.toFloat())
+                    }
+                    Column(modifier = Modifier.padding(horizontal = 16.dp, vertical = 8.dp)) {
+                        Text(
+                            text = "Maximum extra cost: ${((costMultiplier - 1) * 100).roundToInt()}%",
+                            style = MaterialTheme.typography.bodySmall
+                        )
+                        Slider(
+                            value = costMultiplier,
+                            onValueChange = { costMultiplier = it },
+                            onValueChangeFinished = { viewModel.setHedgeCostMultiplier(costMultiplier.toDouble()) },
+                            valueRange = 1.05f..1.5f
+                        )
+                    }
+                }
             }
 
             Spacer(modifier = Modifier.height(16.dp))
@@ -47,6 +47,21 @@ class SettingsViewModel @Inject constructor(
             initialValue = "English"
         )
 
+    // Hedged title and tag requests
+    val hedgeRequests: StateFlow<Boolean> = settingsRepository.hedgeRequestsFlow
+        .stateIn(
+            scope = viewModelScope,
+            started = SharingStarted.WhileSubscribed(5000),
+            initialValue = false
+        )
+
+    val hedgeCostMultiplier: StateFlow<Double> = settingsRepository.hedgeCostMultiplierFlow
+        .stateIn(
+            scope = viewModelScope,
+            started = SharingStarted.WhileSubscribed(5000),
+            initialValue = SettingsRepository.DEFAULT_HEDGE_COST_MULTIPLIER
+        )
+
     // Update dark mode setting
     fun setDarkMode(darkMode: String) {
         viewModelScope.launch {
@@ -74,4 +89,18 @@ class SettingsViewModel @Inject constructor(
             settingsRepository.setDefaultLanguage(language)
         }
     }
+
+    // Update hedged requests setting
+    fun setHedgeRequests(enabled: Boolean) {
+        viewModelScope.launch {
+            settingsRepository.setHedgeRequests(enabled)
+        }
+    }
+
+    // Update hedging cost limit
+    fun setHedgeCostMultiplier(multiplier: Double) {
+        viewModelScope.launch {
+            settingsRepository.setHedgeCostMultiplier(multiplier)
+        }
+    }
 }
@@ -2,6 +2,7 @@ package com.secondbrain.util
 
 import android.content.Context
 import android.util.Log
+import com.secondbrain.data.service.PageSnapshotCache
 import com.secondbrain.data.service.youtube.YouTubeContentProcessor
 import com.secondbrain.data.service.youtube.YouTubeService
 import com.secondbrain.data.service.youtube.YouTubeTranscriptScraper
@@ -9,7 +10,6 @@ import com.secondbrain.data.service.youtube.YouTubeVideoDetails
 import dagger.hilt.android.qualifiers.ApplicationContext
 import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.withContext
-import org.jsoup.Jsoup
 import org.jsoup.nodes.Document
 import java.io.IOException
 import java.net.URL
@@ -24,7 +24,8 @@ class ContentExtractor @Inject constructor(
     @ApplicationContext private val context: Context,
     private val youTubeService: YouTubeService,
     private val youTubeTranscriptScraper: YouTubeTranscriptScraper,
-    private val youTubeContentProcessor: YouTubeContentProcessor
+    private val youTubeContentProcessor: YouTubeContentProcessor,
+    private val pageSnapshotCache: PageSnapshotCache
 ) {
 
     companion object {
@@ -183,14 +184,11 @@ class ContentExtractor @Inject constructor(
     /**
      * Extract content from a webpage
      */
-    private fun extractWebpageContent(url: String): Result<UrlContent> {
+    private suspend fun extractWebpageContent(url: String): Result<UrlContent> {
         try {
-            val doc = Jsoup.connect(url)
-                .userAgent(USER_AGENT)
-                .timeout(TIMEOUT_MS)
-                .get()
+            val snapshot = pageSnapshotCache.get(url, USER_AGENT, TIMEOUT_MS)
 
-            return Result.success(extractContentFromDocument(doc, url))
+            return Result.success(extractContentFromDocument(snapshot, url))
         } catch (e: Exception) {
             Log.e(TAG, "Error extracting webpage content: $url", e)
             return Result.failure(e)
@@ -200,21 +198,16 @@ class ContentExtractor @Inject constructor(
     /**
      * Extract content from a Jsoup Document
      */
-    private fun extractContentFromDocument(doc: Document, url: String): UrlContent {
-        val title = doc.title()
+    private fun extractContentFromDocument(snapshot: PageSnapshotCache.PageSnapshot, url: String): UrlContent {
+        val doc = snapshot.document
+        val title = snapshot.metadata.title
 
         // Try to get the main content
         val content = extractMainContent(doc)
 
-        // Get the thumbnail image - try multiple sources
-        var thumbnailUrl = doc.select("meta[property=og:image]").attr("content")
-        Log.d(TAG, "OpenGraph image: $thumbnailUrl")
-
-        // If no OpenGraph image, try Twitter card image
-        if (thumbnailUrl.isEmpty()) {
-            thumbnailUrl = doc.select("meta[name=twitter:image]").attr("content")
-            Log.d(TAG, "Twitter card image: $thumbnailUrl")
-        }
+        // Get the thumbnail image - OpenGraph or Twitter card image first
+        var thumbnailUrl = snapshot.metadata.imageUrl.orEmpty()
+        Log.d(TAG, "OpenGraph/Twitter card image: $thumbnailUrl")
 
         // If still no image, try to find the largest image in the content
         if (thumbnailUrl.isEmpty()) {
@@ -333,14 +326,15 @@ class ContentExtractor @Inject constructor(
         for (selector in contentSelectors) {
             val element = doc.select(selector).first()
             if (element != null) {
-                // Remove unwanted elements
-                element.select("script, style, nav, header, footer, .comments, .sidebar, .ads").remove()
-                return element.text()
+                // Remove unwanted elements from a copy; the document is shared through the snapshot cache
+                return element.clone().apply {
+                    select("script, style, nav, header, footer, .comments, .sidebar, .ads").remove()
+                }.text()
             }
         }
 
         // If no main content found, use the body text
-        val body = doc.body()
+        val body = doc.body().clone()
         body.select("script, style, nav, header, footer, .comments, .sidebar, .ads").remove()
         return body.text()
     }
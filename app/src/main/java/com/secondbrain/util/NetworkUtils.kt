@@ -54,7 +54,7 @@ object NetworkUtils {
     /**
      * Check if an error is retryable
      */
-    private fun isRetryableError(error: Throwable?): Boolean {
+    fun isRetryableError(error: Throwable?): Boolean {
         if (error == null) return false
 
         return when (error) {
@@ -95,3 +95,4 @@ class ApiRateLimitException(message: String) : Exception(message)
 class ApiTemporaryErrorException(message: String) : Exception(message)
 class ApiAuthenticationException(message: String) : Exception(message)
 class ApiInvalidRequestException(message: String) : Exception(message)
+class CircuitOpenException(message: String) : Exception(message)
@@ -0,0 +1,36 @@
+package com.secondbrain.util
+
+import kotlinx.coroutines.ExperimentalCoroutinesApi
+import kotlinx.coroutines.suspendCancellableCoroutine
+import okhttp3.Call
+import okhttp3.Callback
+import okhttp3.Response
+import java.io.IOException
+import kotlin.coroutines.resumeWithException
+
+/**
+ * Execute the call on OkHttp's dispatcher, so the shared per-host limits apply, and suspend until
+ * the response headers arrive. Cancelling the coroutine cancels the call.
+ */
+@OptIn(ExperimentalCoroutinesApi::class)
+suspend fun Call.await(): Response = suspendCancellableCoroutine { continuation ->
+    enqueue(object : Callback {
+        override fun onResponse(call: Call, response: Response) {
+            // Closes the response if the coroutine was cancelled before it could take it
+            continuation.resume(response) { response.close() }
+        }
+
+        override fun onFailure(call: Call, e: IOException) {
+            if (!continuation.isCancelled) {
+                continuation.resumeWithException(e)
+            }
+        }
+    })
+    continuation.invokeOnCancellation {
+        try {
+            cancel()
+        } catch (e: Throwable) {
+            // Ignore cancellation failures
+        }
+    }
+}
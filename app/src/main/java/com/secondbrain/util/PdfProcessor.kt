@@ -2,6 +2,7 @@ package com.secondbrain.util
 
 import android.content.Context
 import android.graphics.Bitmap
+import android.graphics.Color
 import android.graphics.pdf.PdfRenderer
 import android.net.Uri
 import android.os.ParcelFileDescriptor
@@ -11,8 +12,6 @@ import com.itextpdf.kernel.pdf.PdfReader
 import com.itextpdf.kernel.pdf.canvas.parser.PdfTextExtractor
 import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.withContext
-import java.io.File
-import java.io.FileOutputStream
 import java.io.IOException
 
 /**
@@ -89,9 +88,6 @@ object PdfProcessor {
      */
     private suspend fun generateThumbnail(context: Context, uri: Uri): String? = withContext(Dispatchers.IO) {
         try {
-            // Create a temporary file to store the thumbnail
-            val thumbnailFile = File(context.cacheDir, "pdf_thumbnail_${System.currentTimeMillis()}.png")
-
             // Open the PDF file
             val fileDescriptor = context.contentResolver.openFileDescriptor(uri, "r")
                 ?: return@withContext null
@@ -103,27 +99,27 @@ object PdfProcessor {
             if (renderer.pageCount > 0) {
                 val page = renderer.openPage(0)
 
-                // Create a bitmap with the page dimensions
-                val bitmap = Bitmap.createBitmap(
-                    page.width * 2,
-                    page.height * 2,
-                    Bitmap.Config.ARGB_8888
-                )
+                // Render straight at thumbnail width rather than at full page resolution
+                val width = ThumbnailStore.TARGET_WIDTH
+                val height = (width.toLong() * page.height / page.width).toInt().coerceAtLeast(1)
+                val bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888)
 
-                // Render the page to the bitmap
-                page.render(bitmap, null, null, PdfRenderer.Page.RENDER_MODE_FOR_DISPLAY)
+                // Pages are transparent where nothing is drawn
+                bitmap.eraseColor(Color.WHITE)
 
-                // Save the bitmap to the file
-                FileOutputStream(thumbnailFile).use { outputStream ->
-                    bitmap.compress(Bitmap.CompressFormat.PNG, 100, outputStream)
-                }
+                // Render the page to the bitmap, scaled to fit it
+                page.render(bitmap, null, null, PdfRenderer.Page.RENDER_MODE_FOR_DISPLAY)
 
                 // Close resources
                 page.close()
                 renderer.close()
                 fileDescriptor.close()
 
-                return@withContext thumbnailFile.absolutePath
+                // Save the bitmap to the thumbnail store, deduplicated by its content
+                val path = ThumbnailStore.putBitmap(context, bitmap)
+                bitmap.recycle()
+
+                return@withContext path
             }
 
             // Close resources if no pages were rendered
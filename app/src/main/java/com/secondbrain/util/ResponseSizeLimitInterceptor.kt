@@ -0,0 +1,45 @@
+package com.secondbrain.util
+
+import okhttp3.Interceptor
+import okhttp3.Response
+import okhttp3.ResponseBody.Companion.asResponseBody
+import okio.Buffer
+import okio.ForwardingSource
+import okio.buffer
+import java.io.IOException
+
+/**
+ * Fails responses whose body is larger than [maxBytes], whether or not the server declared a length
+ */
+class ResponseSizeLimitInterceptor(private val maxBytes: Long) : Interceptor {
+
+    override fun intercept(chain: Interceptor.Chain): Response {
+        val response = chain.proceed(chain.request())
+        val body = response.body ?: return response
+
+        val contentLength = body.contentLength()
+        if (contentLength > maxBytes) {
+            response.close()
+            throw IOException("Response of $contentLength bytes from ${chain.request().url.host} exceeds the $maxBytes byte limit")
+        }
+
+        val limitedSource = object : ForwardingSource(body.source()) {
+            private var bytesRead = 0L
+
+            override fun read(sink: Buffer, byteCount: Long): Long {
+                val read = super.read(sink, byteCount)
+                if (read > 0) {
+                    bytesRead += read
+                    if (bytesRead > maxBytes) {
+                        throw IOException("Response from ${chain.request().url.host} exceeds the $maxBytes byte limit")
+                    }
+                }
+                return read
+            }
+        }
+
+        return response.newBuilder()
+            .body(limitedSource.buffer().asResponseBody(body.contentType(), contentLength))
+            .build()
+    }
+}
@@ -0,0 +1,99 @@
+package com.secondbrain.util
+
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.awaitCancellation
+import kotlinx.coroutines.coroutineScope
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.FlowCollector
+import kotlinx.coroutines.flow.flow
+import kotlinx.coroutines.flow.flowOn
+import kotlinx.coroutines.launch
+import okhttp3.Call
+import okhttp3.Response
+import org.json.JSONObject
+import java.io.IOException
+
+/**
+ * Helpers for reading server-sent event (SSE) streams from the AI APIs
+ */
+object ServerSentEvents {
+
+    private const val DATA_PREFIX = "data:"
+    private const val DONE_MARKER = "[DONE]"
+
+    /**
+     * Execute [call] and emit the text carried by each event of its SSE response as it arrives.
+     * Cancelling the collector cancels the call, so an abandoned stream stops right away.
+     *
+     * @param execute Sends the call, e.g. through the provider's rate limiter
+     * @param onError Called with the status code and body of an unsuccessful response; must throw
+     * @param parseEvent Extracts the text from one event's data, or returns null for events without text
+     */
+    fun stream(
+        call: Call,
+        execute: suspend (Call) -> Response,
+        onError: (Int, String?) -> Nothing,
+        parseEvent: (String) -> String?
+    ): Flow<String> = flow {
+        coroutineScope {
+            // Reading a line blocks without checking for cancellation, so cancel the call itself to
+            // close the connection when the collector goes away. Cancelling a finished call does nothing.
+            val cancelOnAbandon = launch {
+                try {
+                    awaitCancellation()
+                } finally {
+                    call.cancel()
+                }
+            }
+            try {
+                readEvents(execute(call), onError, parseEvent)
+            } finally {
+                cancelOnAbandon.cancel()
+            }
+        }
+    }.flowOn(Dispatchers.IO)
+
+    private suspend fun FlowCollector<String>.readEvents(
+        response: Response,
+        onError: (Int, String?) -> Nothing,
+        parseEvent: (String) -> String?
+    ) {
+        response.use {
+            if (!response.isSuccessful) {
+                onError(response.code, response.body?.string())
+            }
+
+            val source = response.body?.source() ?: throw IOException("Empty streaming response")
+            while (true) {
+                val line = source.readUtf8Line() ?: break
+                // Skip comments, event names and keep-alive blank lines
+                if (!line.startsWith(DATA_PREFIX)) continue
+
+                val data = line.substring(DATA_PREFIX.length).trim()
+                if (data == DONE_MARKER) break
+                if (data.isEmpty()) continue
+
+                val text = parseEvent(data)
+                if (!text.isNullOrEmpty()) {
+                    emit(text)
+                }
+            }
+        }
+    }
+
+    /**
+     * Text delta of an OpenAI-compatible chat completion chunk (OpenAI, DeepSeek, OpenRouter)
+     */
+    fun chatCompletionDelta(data: String): String? {
+        val json = JSONObject(data)
+        json.optJSONObject("error")?.let { error ->
+            throw IOException("API error: ${error.optString("message", "Unknown error")}")
+        }
+
+        val delta = json.optJSONArray("choices")
+            ?.optJSONObject(0)
+            ?.optJSONObject("delta")
+            ?: return null
+        return if (delta.has("content") && !delta.isNull("content")) delta.getString("content") else null
+    }
+}
@@ -14,9 +14,6 @@ import com.secondbrain.R
 import com.secondbrain.data.model.CardType
 import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.withContext
-import java.io.File
-import java.io.FileOutputStream
-import java.security.MessageDigest
 
 /**
  * Utility class for generating thumbnails
@@ -61,16 +58,9 @@ object ThumbnailGenerator {
         height: Int = 300
     ): String = withContext(Dispatchers.IO) {
         try {
-            // Create a unique filename based on the text and type
-            val hash = MessageDigest.getInstance("MD5").digest("${text}_${type.name}".toByteArray())
-                .joinToString("") { "%02x".format(it) }
-            val filename = "thumbnail_$hash.png"
-
-            // Check if the file already exists
-            val file = File(context.cacheDir, filename)
-            if (file.exists()) {
-                return@withContext file.absolutePath
-            }
+            // Reuse the thumbnail if this text and type were rendered before
+            val key = ThumbnailStore.keyFor("generated", text, type.name, "${width}x$height")
+            ThumbnailStore.get(context, key)?.let { return@withContext it }
 
             // Create a bitmap for the thumbnail
             val bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888)
@@ -135,12 +125,11 @@ object ThumbnailGenerator {
             // Draw a subtle pattern or texture
             drawSubtlePattern(canvas, width, height)
 
-            // Save the bitmap to a file
-            FileOutputStream(file).use { out ->
-                bitmap.compress(Bitmap.CompressFormat.PNG, 100, out)
-            }
+            // Save the bitmap to the thumbnail store
+            val path = ThumbnailStore.putBitmap(context, bitmap, key)
+            bitmap.recycle()
 
-            return@withContext file.absolutePath
+            return@withContext path
         } catch (e: Exception) {
             Log.e(TAG, "Error generating text thumbnail for: $text", e)
             return@withContext ""
@@ -182,16 +171,9 @@ object ThumbnailGenerator {
             // Extract the domain from the URL
             val domain = extractDomain(url)
 
-            // Create a unique filename based on the domain
-            val hash = MessageDigest.getInstance("MD5").digest(domain.toByteArray())
-                .joinToString("") { "%02x".format(it) }
-            val filename = "domain_$hash.png"
-
-            // Check if the file already exists
-            val file = File(context.cacheDir, filename)
-            if (file.exists()) {
-                return@withContext file.absolutePath
-            }
+            // Reuse the thumbnail if this domain was rendered before
+            val key = ThumbnailStore.keyFor("domain", domain, "${width}x$height")
+            ThumbnailStore.get(context, key)?.let { return@withContext it }
 
             // Create a bitmap for the thumbnail
             val bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888)
@@ -230,12 +212,11 @@ object ThumbnailGenerator {
                 icon.draw(canvas)
             }
 
-            // Save the bitmap to a file
-            FileOutputStream(file).use { out ->
-                bitmap.compress(Bitmap.CompressFormat.PNG, 100, out)
-            }
+            // Save the bitmap to the thumbnail store
+            val path = ThumbnailStore.putBitmap(context, bitmap, key)
+            bitmap.recycle()
 
-            return@withContext file.absolutePath
+            return@withContext path
         } catch (e: Exception) {
             Log.e(TAG, "Error generating domain thumbnail for: $url", e)
             return@withContext ""
@@ -0,0 +1,189 @@
+package com.secondbrain.util
+
+import android.content.Context
+import android.graphics.Bitmap
+import android.graphics.BitmapFactory
+import android.os.Build
+import android.util.Log
+import java.io.ByteArrayOutputStream
+import java.io.File
+import java.security.MessageDigest
+
+/**
+ * Size-bounded store for card thumbnails.
+ *
+ * Images are downsampled to the grid cell size, encoded as WebP and named by a hash of their
+ * content, so the same image is stored once however many cards use it. When the directory
+ * grows beyond its limit the least recently stored or reused thumbnails are deleted; cards left
+ * pointing at a deleted file get a new thumbnail from the thumbnail backfill (see [isMissingLocalFile]).
+ */
+object ThumbnailStore {
+    private const val TAG = "ThumbnailStore"
+
+    // Size of a thumbnail in the home grid
+    const val TARGET_WIDTH = 500
+    const val TARGET_HEIGHT = 300
+
+    private const val DIRECTORY = "thumbnails"
+    private const val EXTENSION = ".webp"
+    private const val WEBP_QUALITY = 80
+    private const val MAX_DIRECTORY_BYTES = 50L * 1024 * 1024
+
+    // Trim below the limit so that every new thumbnail doesn't trigger another trim
+    private const val TRIM_TARGET_BYTES = MAX_DIRECTORY_BYTES * 9 / 10
+
+    /**
+     * Largest power-of-two sample size that keeps the decoded image at least as large as the
+     * target in both dimensions
+     */
+    fun calculateInSampleSize(width: Int, height: Int, targetWidth: Int, targetHeight: Int): Int {
+        var sampleSize = 1
+        while (width / (sampleSize * 2) >= targetWidth && height / (sampleSize * 2) >= targetHeight) {
+            sampleSize *= 2
+        }
+        return sampleSize
+    }
+
+    /**
+     * Stable key for a thumbnail generated from [parts]
+     */
+    fun keyFor(vararg parts: String): String = sha256(parts.joinToString("\u0000").toByteArray())
+
+    /**
+     * Path of the stored thumbnail for [key], or null if there is none
+     */
+    fun get(context: Context, key: String): String? {
+        val file = File(directory(context), "$key$EXTENSION").takeIf { it.isFile } ?: return null
+        file.setLastModified(System.currentTimeMillis())
+        return file.absolutePath
+    }
+
+    /**
+     * Whether [thumbnailUrl] is a local file path or file:// URI whose file no longer exists, e.g.
+     * because it was evicted or the system cleared the cache
+     */
+    fun isMissingLocalFile(thumbnailUrl: String): Boolean {
+        val path = when {
+            thumbnailUrl.startsWith("file://") -> thumbnailUrl.removePrefix("file://")
+            thumbnailUrl.startsWith("/") -> thumbnailUrl
+            else -> return false
+        }
+        return !File(path).exists()
+    }
+
+    /**
+     * Downsample and store an encoded image such as a downloaded JPEG or PNG
+     *
+     * @return The path of the stored thumbnail, or null if the bytes are not a decodable image
+     */
+    fun putEncodedImage(context: Context, bytes: ByteArray): String? {
+        // The source bytes identify the image, so a repeated download skips decoding altogether
+        val key = sha256(bytes)
+        get(context, key)?.let { return it }
+
+        val bounds = BitmapFactory.Options().apply { inJustDecodeBounds = true }
+        BitmapFactory.decodeByteArray(bytes, 0, bytes.size, bounds)
+        if (bounds.outWidth <= 0 || bounds.outHeight <= 0) return null
+
+        val options = BitmapFactory.Options().apply {
+            inSampleSize = calculateInSampleSize(bounds.outWidth, bounds.outHeight, TARGET_WIDTH, TARGET_HEIGHT)
+        }
+        val sampled = BitmapFactory.decodeByteArray(bytes, 0, bytes.size, options) ?: return null
+        val scaled = scaleToFill(sampled)
+        if (scaled !== sampled) sampled.recycle()
+
+        return try {
+            put(context, key, scaled)
+        } finally {
+            scaled.recycle()
+        }
+    }
+
+    /**
+     * Store a rendered bitmap under [key], or under the hash of its encoded bytes if no key is given
+     *
+     * @return The path of the stored thumbnail
+     */
+    fun putBitmap(context: Context, bitmap: Bitmap, key: String? = null): String {
+        val scaled = scaleToFill(bitmap)
+        return try {
+            put(context, key, scaled)
+        } finally {
+            if (scaled !== bitmap) scaled.recycle()
+        }
+    }
+
+    private fun put(context: Context, key: String?, bitmap: Bitmap): String {
+        val encoded = ByteArrayOutputStream().use { out ->
+            bitmap.compress(webpFormat(), WEBP_QUALITY, out)
+            out.toByteArray()
+        }
+        val name = key ?: sha256(encoded)
+        get(context, name)?.let { return it }
+
+        val dir = directory(context)
+        val file = File(dir, "$name$EXTENSION")
+        val temp = File.createTempFile(name, ".tmp", dir)
+        try {
+            temp.writeBytes(encoded)
+            if (!temp.renameTo(file)) {
+                throw IllegalStateException("Could not store thumbnail")
+            }
+        } finally {
+            temp.delete()
+        }
+
+        trim(dir)
+        return file.absolutePath
+    }
+
+    /**
+     * Scale down so the bitmap just covers the target size, which the grid crops to its cell
+     */
+    private fun scaleToFill(bitmap: Bitmap): Bitmap {
+        val scale = maxOf(
+            TARGET_WIDTH.toFloat() / bitmap.width,
+            TARGET_HEIGHT.toFloat() / bitmap.height
+        )
+        if (scale >= 1f) return bitmap
+
+        val width = (bitmap.width * scale).toInt().coerceAtLeast(1)
+        val height = (bitmap.height * scale).toInt().coerceAtLeast(1)
+        return Bitmap.createScaledBitmap(bitmap, width, height, true)
+    }
+
+    @Synchronized
+    private fun trim(dir: File) {
+        val files = dir.listFiles().orEmpty().filter { it.isFile }
+        var totalBytes = files.sumOf { it.length() }
+        if (totalBytes <= MAX_DIRECTORY_BYTES) return
+
+        var deleted = 0
+        for (file in files.sortedBy { it.lastModified() }) {
+            if (totalBytes <= TRIM_TARGET_BYTES) break
+            val length = file.length()
+            if (file.delete()) {
+                totalBytes -= length
+                deleted++
+            }
+        }
+        Log.d(TAG, "Evicted $deleted thumbnails")
+    }
+
+    private fun directory(context: Context): File {
+        return File(context.cacheDir, DIRECTORY).apply { mkdirs() }
+    }
+
+    @Suppress("DEPRECATION")
+    private fun webpFormat(): Bitmap.CompressFormat {
+        return if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R) {
+            Bitmap.CompressFormat.WEBP_LOSSY
+        } else {
+            Bitmap.CompressFormat.WEBP
+        }
+    }
+
+    private fun sha256(bytes: ByteArray): String {
+        return MessageDigest.getInstance("SHA-256").digest(bytes).joinToString("") { "%02x".format(it) }
+    }
+}
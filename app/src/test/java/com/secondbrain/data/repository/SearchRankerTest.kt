@@ -0,0 +1,71 @@
+package com.secondbrain.data.repository
+
+import com.secondbrain.data.model.SearchHit
+import com.secondbrain.data.model.SearchResultType
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import java.nio.ByteBuffer
+import java.nio.ByteOrder
+
+class SearchRankerTest {
+
+    private val noteWeights = SearchRanker.NOTE_COLUMN_WEIGHTS
+
+    /**
+     * Build a matchinfo('pcnalx') blob for one phrase over the two note columns.
+     */
+    private fun matchInfo(titleHits: Int, contentHits: Int, rowCount: Int = 100): ByteArray {
+        val values = intArrayOf(
+            1, 2, rowCount,         // p, c, n
+            5, 200,                 // a: average title/content length
+            5, 200,                 // l: this row's title/content length
+            titleHits, titleHits, 10,     // x: title column
+            contentHits, contentHits, 10  // x: content column
+        )
+        val buffer = ByteBuffer.allocate(values.size * 4).order(ByteOrder.nativeOrder())
+        values.forEach { buffer.putInt(it) }
+        return buffer.array()
+    }
+
+    private fun result(id: String, score: Double, updatedAt: Long = 0L) = SearchHit(
+        id = id,
+        type = SearchResultType.NOTE,
+        matchedField = "title",
+        score = score,
+        updatedAt = updatedAt
+    )
+
+    @Test
+    fun `title hit outranks content hit`() {
+        val titleScore = SearchRanker.bm25(matchInfo(titleHits = 1, contentHits = 0), noteWeights)
+        val contentScore = SearchRanker.bm25(matchInfo(titleHits = 0, contentHits = 1), noteWeights)
+
+        assertTrue(titleScore > contentScore)
+        assertTrue(contentScore > 0.0)
+    }
+
+    @Test
+    fun `more hits score higher`() {
+        val oneHit = SearchRanker.bm25(matchInfo(titleHits = 0, contentHits = 1), noteWeights)
+        val threeHits = SearchRanker.bm25(matchInfo(titleHits = 0, contentHits = 3), noteWeights)
+
+        assertTrue(threeHits > oneHit)
+    }
+
+    @Test
+    fun `missing or truncated matchinfo scores zero`() {
+        assertEquals(0.0, SearchRanker.bm25(null, noteWeights), 0.0)
+        assertEquals(0.0, SearchRanker.bm25(matchInfo(1, 1).copyOf(20), noteWeights), 0.0)
+    }
+
+    @Test
+    fun `merge interleaves two ranked lists`() {
+        val cards = listOf(result("c1", 9.0), result("c2", 3.0))
+        val notes = listOf(result("n1", 5.0), result("n2", 3.0, updatedAt = 10L), result("n3", 1.0))
+
+        val merged = SearchRanker.merge(cards, notes)
+
+        assertEquals(listOf("c1", "n1", "n2", "c2", "n3"), merged.map { it.id })
+    }
+}
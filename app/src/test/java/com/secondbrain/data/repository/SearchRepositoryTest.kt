@@ -0,0 +1,28 @@
+package com.secondbrain.data.repository
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNull
+import org.junit.Test
+
+class SearchRepositoryTest {
+
+    @Test
+    fun `toFtsQuery turns every word into a prefix term`() {
+        assertEquals("second* brain*", SearchRepository.toFtsQuery("Second Brain"))
+    }
+
+    @Test
+    fun `toFtsQuery strips FTS operators and punctuation`() {
+        assertEquals("foo* or* bar*", SearchRepository.toFtsQuery("\"foo\" OR -bar*"))
+    }
+
+    @Test
+    fun `toFtsQuery keeps non-latin words`() {
+        assertEquals("café* 東京*", SearchRepository.toFtsQuery("café, 東京"))
+    }
+
+    @Test
+    fun `toFtsQuery returns null when there is nothing to search for`() {
+        assertNull(SearchRepository.toFtsQuery("  ?! "))
+    }
+}
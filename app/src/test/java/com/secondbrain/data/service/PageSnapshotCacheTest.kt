@@ -0,0 +1,26 @@
+package com.secondbrain.data.service
+
+import org.junit.Assert.assertEquals
+import org.junit.Test
+
+class PageSnapshotCacheTest {
+
+    @Test
+    fun `scheme and host are lowercased and the fragment is dropped`() {
+        assertEquals(
+            "https://example.com/Path?q=1",
+            PageSnapshotCache.normalizeUrl("HTTPS://Example.COM/Path?q=1#section")
+        )
+    }
+
+    @Test
+    fun `default ports and empty paths are normalized`() {
+        assertEquals("https://example.com/", PageSnapshotCache.normalizeUrl("https://example.com:443"))
+        assertEquals("http://example.com:8080/", PageSnapshotCache.normalizeUrl("http://example.com:8080"))
+    }
+
+    @Test
+    fun `invalid urls are used as they are`() {
+        assertEquals("not a url", PageSnapshotCache.normalizeUrl(" not a url "))
+    }
+}
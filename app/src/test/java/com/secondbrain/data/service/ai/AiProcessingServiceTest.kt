@@ -0,0 +1,45 @@
+package com.secondbrain.data.service.ai
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertSame
+import org.junit.Test
+
+class AiProcessingServiceTest {
+
+    @Test
+    fun `states within the limit are kept as they are`() {
+        val states = mapOf(
+            "a" to ProcessingState.Completed("done"),
+            "b" to ProcessingState.PROCESSING
+        )
+
+        assertSame(states, AiProcessingService.retainStates(states, maxFinished = 1))
+    }
+
+    @Test
+    fun `oldest finished states are dropped first`() {
+        val states = linkedMapOf(
+            "a" to ProcessingState.Completed("1"),
+            "b" to ProcessingState.PROCESSING,
+            "c" to ProcessingState.CANCELLED,
+            "d" to ProcessingState.Error("failed")
+        )
+
+        val retained = AiProcessingService.retainStates(states, maxFinished = 1)
+
+        assertEquals(listOf("b", "d"), retained.keys.toList())
+    }
+
+    @Test
+    fun `tasks in progress are never dropped`() {
+        val states = linkedMapOf(
+            "a" to ProcessingState.PROCESSING,
+            "b" to ProcessingState.PROCESSING,
+            "c" to ProcessingState.Completed("done")
+        )
+
+        val retained = AiProcessingService.retainStates(states, maxFinished = 0)
+
+        assertEquals(listOf("a", "b"), retained.keys.toList())
+    }
+}
@@ -0,0 +1,22 @@
+package com.secondbrain.data.service.ai
+
+import org.junit.Assert.assertEquals
+import org.junit.Test
+
+class ContentProcessorTest {
+
+    @Test
+    fun `planMergeGroups splits summaries into consecutive groups of fanIn`() {
+        assertEquals(listOf(0..3, 4..7, 8..9), ContentProcessor.planMergeGroups(10, 4))
+    }
+
+    @Test
+    fun `planMergeGroups uses a single group when everything fits`() {
+        assertEquals(listOf(0..2), ContentProcessor.planMergeGroups(3, 4))
+    }
+
+    @Test
+    fun `planMergeGroups never uses a fan-in below two`() {
+        assertEquals(listOf(0..1, 2..2), ContentProcessor.planMergeGroups(3, 1))
+    }
+}
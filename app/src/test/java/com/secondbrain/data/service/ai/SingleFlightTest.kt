@@ -0,0 +1,65 @@
+package com.secondbrain.data.service.ai
+
+import kotlinx.coroutines.async
+import kotlinx.coroutines.awaitAll
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.test.advanceUntilIdle
+import kotlinx.coroutines.test.runTest
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Test
+
+class SingleFlightTest {
+
+    @Test
+    fun `concurrent calls with the same key share one execution`() = runTest {
+        val singleFlight = SingleFlight<Int>(backgroundScope)
+        var executions = 0
+
+        val results = List(3) {
+            async {
+                singleFlight.run("key") {
+                    executions++
+                    delay(100)
+                    42
+                }
+            }
+        }.awaitAll()
+
+        assertEquals(listOf(42, 42, 42), results)
+        assertEquals(1, executions)
+        assertEquals(0, singleFlight.inFlightCount())
+    }
+
+    @Test
+    fun `calls with different keys run separately`() = runTest {
+        val singleFlight = SingleFlight<String>(backgroundScope)
+
+        val results = listOf("a", "b").map { key ->
+            async { singleFlight.run(key) { delay(100); key } }
+        }.awaitAll()
+
+        assertEquals(listOf("a", "b"), results)
+    }
+
+    @Test
+    fun `cancelled caller does not cancel the shared work for others`() = runTest {
+        val singleFlight = SingleFlight<Int>(backgroundScope)
+        var executions = 0
+        val block: suspend () -> Int = {
+            executions++
+            delay(100)
+            7
+        }
+
+        val first = async { singleFlight.run("key", block) }
+        val second = async { singleFlight.run("key", block) }
+        delay(10)
+        first.cancel()
+        advanceUntilIdle()
+
+        assertTrue(first.isCancelled)
+        assertEquals(7, second.await())
+        assertEquals(1, executions)
+    }
+}
@@ -0,0 +1,50 @@
+package com.secondbrain.data.service.ai.ratelimit
+
+import kotlinx.coroutines.async
+import kotlinx.coroutines.test.runTest
+import kotlinx.coroutines.withTimeoutOrNull
+import okhttp3.MediaType.Companion.toMediaType
+import okhttp3.Protocol
+import okhttp3.Request
+import okhttp3.Response
+import okhttp3.ResponseBody.Companion.toResponseBody
+import org.junit.Assert.assertNotNull
+import org.junit.Assert.assertNull
+import org.junit.Test
+
+class ProviderRateLimiterTest {
+
+    // Unknown providers get the default limits, which allow 4 requests at a time
+    private val provider = "Test"
+    private val request = Request.Builder().url("https://example.com/v1/chat").build()
+
+    private fun response(contentType: String): Response {
+        return Response.Builder()
+            .request(request)
+            .protocol(Protocol.HTTP_1_1)
+            .code(200)
+            .message("OK")
+            .body("data: hello\n\n".toResponseBody(contentType.toMediaType()))
+            .build()
+    }
+
+    @Test
+    fun `streaming responses hold their slot until the body is closed`() = runTest {
+        val limiter = ProviderRateLimiter()
+        val streams = List(4) { limiter.execute(provider, request) { response("text/event-stream") } }
+
+        val waiting = async { limiter.execute(provider, request) { response("text/event-stream") } }
+        assertNull(withTimeoutOrNull(1_000) { waiting.await() })
+
+        streams.first().close()
+        assertNotNull(withTimeoutOrNull(1_000) { waiting.await() })
+    }
+
+    @Test
+    fun `other responses free their slot when the headers arrive`() = runTest {
+        val limiter = ProviderRateLimiter()
+        repeat(4) { limiter.execute(provider, request) { response("application/json") } }
+
+        assertNotNull(withTimeoutOrNull(1_000) { limiter.execute(provider, request) { response("application/json") } })
+    }
+}
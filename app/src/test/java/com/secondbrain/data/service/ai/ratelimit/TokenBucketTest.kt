@@ -0,0 +1,58 @@
+package com.secondbrain.data.service.ai.ratelimit
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Test
+
+class TokenBucketTest {
+
+    @Test
+    fun `full bucket grants requests until empty`() {
+        val bucket = TokenBucket(capacity = 2.0, nowMs = 0)
+
+        assertEquals(0, bucket.waitTimeFor(1.0, 0))
+        bucket.consume(1.0, 0)
+        assertEquals(0, bucket.waitTimeFor(1.0, 0))
+        bucket.consume(1.0, 0)
+
+        // Two per minute refill one unit every 30 seconds
+        assertEquals(30_000, bucket.waitTimeFor(1.0, 0))
+        assertEquals(0, bucket.waitTimeFor(1.0, 30_000))
+    }
+
+    @Test
+    fun `requests larger than the bucket only wait for it to be full`() {
+        val bucket = TokenBucket(capacity = 100.0, nowMs = 0)
+
+        assertEquals(0, bucket.waitTimeFor(500.0, 0))
+    }
+
+    @Test
+    fun `blockUntil refuses requests until the deadline`() {
+        val bucket = TokenBucket(capacity = 60.0, nowMs = 0)
+
+        bucket.blockUntil(5_000)
+
+        assertEquals(5_000, bucket.waitTimeFor(1.0, 0))
+        assertTrue(bucket.waitTimeFor(1.0, 5_000) >= 0)
+    }
+
+    @Test
+    fun `server reported remaining budget replaces the local estimate`() {
+        val bucket = TokenBucket(capacity = 60.0, nowMs = 0)
+
+        bucket.updateAvailable(0.0, 0)
+
+        assertEquals(1_000, bucket.waitTimeFor(1.0, 0))
+    }
+
+    @Test
+    fun `parseRetryAfter reads delay seconds and HTTP dates`() {
+        assertEquals(120_000L, ProviderRateLimiter.parseRetryAfter("120", 0))
+        assertEquals(
+            30_000L,
+            ProviderRateLimiter.parseRetryAfter("Thu, 01 Jan 1970 00:00:30 GMT", 0)
+        )
+        assertEquals(null, ProviderRateLimiter.parseRetryAfter("soon", 0))
+    }
+}
@@ -0,0 +1,100 @@
+package com.secondbrain.data.service.ai.resilience
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Test
+
+class CircuitBreakerTest {
+
+    private fun breaker() = CircuitBreaker(
+        windowMs = 60_000,
+        minCalls = 4,
+        errorRateThreshold = 0.5,
+        p95LatencyThresholdMs = 10_000,
+        openDurationMs = 30_000
+    )
+
+    @Test
+    fun `opens when the error rate reaches the threshold`() {
+        val breaker = breaker()
+
+        breaker.record(success = true, latencyMs = 100, nowMs = 0)
+        breaker.record(success = true, latencyMs = 100, nowMs = 1)
+        breaker.record(success = false, latencyMs = 100, nowMs = 2)
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.state)
+
+        breaker.record(success = false, latencyMs = 100, nowMs = 3)
+        assertEquals(CircuitBreaker.State.OPEN, breaker.state)
+        assertFalse(breaker.allowRequest(1_000))
+    }
+
+    @Test
+    fun `opens when p95 latency is too high even without errors`() {
+        val breaker = breaker()
+
+        repeat(4) { breaker.record(success = true, latencyMs = 15_000, nowMs = it.toLong()) }
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.state)
+    }
+
+    @Test
+    fun `latency is judged against the threshold of the kind of call`() {
+        val breaker = breaker()
+
+        repeat(4) {
+            breaker.record(success = true, latencyMs = 15_000, nowMs = it.toLong(), latencyThresholdMs = 60_000)
+        }
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.state)
+    }
+
+    @Test
+    fun `outcomes outside the window are forgotten`() {
+        val breaker = breaker()
+
+        repeat(3) { breaker.record(success = false, latencyMs = 100, nowMs = it.toLong()) }
+        breaker.record(success = false, latencyMs = 100, nowMs = 120_000)
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.state)
+    }
+
+    @Test
+    fun `an open breaker is available again once its open period is over`() {
+        val breaker = breaker()
+        repeat(4) { breaker.record(success = false, latencyMs = 100, nowMs = 0) }
+
+        assertFalse(breaker.isAvailable(29_999))
+        assertTrue(breaker.isAvailable(30_000))
+        // Checking availability doesn't take the trial
+        assertEquals(CircuitBreaker.State.OPEN, breaker.state)
+        assertTrue(breaker.allowRequest(30_000))
+        assertFalse(breaker.isAvailable(30_001))
+    }
+
+    @Test
+    fun `half-open trial closes the breaker on success`() {
+        val breaker = breaker()
+        repeat(4) { breaker.record(success = false, latencyMs = 100, nowMs = 0) }
+
+        assertTrue(breaker.allowRequest(30_000))
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.state)
+        // Only one trial call at a time
+        assertFalse(breaker.allowRequest(30_001))
+
+        breaker.record(success = true, latencyMs = 100, nowMs = 30_100)
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.state)
+    }
+
+    @Test
+    fun `half-open trial reopens the breaker on failure`() {
+        val breaker = breaker()
+        repeat(4) { breaker.record(success = false, latencyMs = 100, nowMs = 0) }
+
+        assertTrue(breaker.allowRequest(30_000))
+        breaker.record(success = false, latencyMs = 100, nowMs = 30_100)
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.state)
+        assertFalse(breaker.allowRequest(40_000))
+    }
+}
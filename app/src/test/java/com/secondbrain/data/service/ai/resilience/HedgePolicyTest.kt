@@ -0,0 +1,47 @@
+package com.secondbrain.data.service.ai.resilience
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Test
+
+class HedgePolicyTest {
+
+    @Test
+    fun `uses the default delay until enough samples are recorded`() {
+        val policy = HedgePolicy(minSamples = 5, defaultDelayMs = 3_000)
+        repeat(4) { policy.recordLatency("route", 100) }
+
+        assertEquals(3_000, policy.hedgeDelayMs("route"))
+    }
+
+    @Test
+    fun `hedge delay is the p90 latency of the route`() {
+        val policy = HedgePolicy()
+        (1..10).forEach { policy.recordLatency("route", it * 100L) }
+
+        assertEquals(900, policy.hedgeDelayMs("route"))
+    }
+
+    @Test
+    fun `hedges never exceed the cost multiplier`() {
+        val policy = HedgePolicy()
+        var hedges = 0
+        repeat(20) {
+            policy.recordPrimary()
+            if (policy.tryAcquireHedge(1.2)) hedges++
+        }
+
+        assertEquals(4, hedges)
+    }
+
+    @Test
+    fun `no hedge is allowed before budget is earned`() {
+        val policy = HedgePolicy()
+        policy.recordPrimary()
+
+        assertFalse(policy.tryAcquireHedge(1.2))
+        repeat(4) { policy.recordPrimary() }
+        assertTrue(policy.tryAcquireHedge(1.2))
+    }
+}
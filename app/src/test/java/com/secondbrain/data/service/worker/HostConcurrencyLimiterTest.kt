@@ -0,0 +1,52 @@
+package com.secondbrain.data.service.worker
+
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.test.runTest
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNull
+import org.junit.Test
+
+class HostConcurrencyLimiterTest {
+
+    private class Counter {
+        var running = 0
+        var peak = 0
+
+        suspend fun run() {
+            running++
+            peak = maxOf(peak, running)
+            delay(100)
+            running--
+        }
+    }
+
+    @Test
+    fun `tasks against one host are capped at the per-host limit`() = runTest {
+        val limiter = HostConcurrencyLimiter(maxConcurrent = 4, maxPerHost = 2)
+        val counter = Counter()
+
+        repeat(6) { launch { limiter.withPermit("example.com") { counter.run() } } }
+        testScheduler.advanceUntilIdle()
+
+        assertEquals(2, counter.peak)
+    }
+
+    @Test
+    fun `tasks across hosts are capped at the overall limit`() = runTest {
+        val limiter = HostConcurrencyLimiter(maxConcurrent = 3, maxPerHost = 2)
+        val counter = Counter()
+
+        repeat(4) { i -> launch { limiter.withPermit("host$i.com") { counter.run() } } }
+        repeat(2) { launch { limiter.withPermit(null) { counter.run() } } }
+        testScheduler.advanceUntilIdle()
+
+        assertEquals(3, counter.peak)
+    }
+
+    @Test
+    fun `host is taken from web sources only`() {
+        assertEquals("example.com", ThumbnailBackfillWorker.hostOf(" https://Example.com/page "))
+        assertNull(ThumbnailBackfillWorker.hostOf("Just a note"))
+    }
+}
@@ -0,0 +1,42 @@
+package com.secondbrain.util
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import java.io.File
+
+class ThumbnailStoreTest {
+
+    @Test
+    fun `large images are sampled down while still covering the target`() {
+        assertEquals(8, ThumbnailStore.calculateInSampleSize(4000, 3000, 500, 300))
+        assertEquals(2, ThumbnailStore.calculateInSampleSize(1200, 700, 500, 300))
+    }
+
+    @Test
+    fun `the smaller dimension limits the sample size`() {
+        assertEquals(1, ThumbnailStore.calculateInSampleSize(4000, 500, 500, 300))
+    }
+
+    @Test
+    fun `images smaller than the target are decoded at full size`() {
+        assertEquals(1, ThumbnailStore.calculateInSampleSize(320, 200, 500, 300))
+    }
+
+    @Test
+    fun `local thumbnails are missing once their file is deleted`() {
+        val file = File.createTempFile("thumbnail", ".webp")
+        assertFalse(ThumbnailStore.isMissingLocalFile(file.absolutePath))
+        assertFalse(ThumbnailStore.isMissingLocalFile("file://${file.absolutePath}"))
+
+        file.delete()
+        assertTrue(ThumbnailStore.isMissingLocalFile(file.absolutePath))
+        assertTrue(ThumbnailStore.isMissingLocalFile("file://${file.absolutePath}"))
+    }
+
+    @Test
+    fun `remote thumbnails are never reported missing`() {
+        assertFalse(ThumbnailStore.isMissingLocalFile("https://example.com/image.jpg"))
+    }
+}